@@ -99,10 +99,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         // --- 公開訪問的端點 ---
                         .requestMatchers("/api/auth/**").permitAll() // 登入和註冊接口允許匿名訪問
-                        .requestMatchers(HttpMethod.GET, "/api/shops", "/api/shops/{id}", "/api/shops/top").permitAll() // 公開的店家查詢接口
-                        .requestMatchers(HttpMethod.GET, "/api/reviews/shop/{shopId}", "/api/reviews/{reviewId}/replies").permitAll() // 公開的評論查詢接口
+                        .requestMatchers(HttpMethod.GET, "/api/shops", "/api/shops/{id}", "/api/shops/top", "/api/shops/nearby", "/api/shops/viewport-diff", "/api/shops/search", "/api/shops/suggest", "/api/shops/filter", "/api/shops/scroll").permitAll() // 公開的店家查詢接口
+                        .requestMatchers(HttpMethod.GET, "/api/tiles/**").permitAll() // 公開的向量瓦片
+                        .requestMatchers(HttpMethod.GET, "/api/reviews/shop/{shopId}", "/api/reviews/shop/{shopId}/scroll", "/api/reviews/{reviewId}/replies").permitAll() // 公開的評論查詢接口
                         .requestMatchers("/uploads/**").permitAll() // 允許公開訪問上傳的文件
                         .requestMatchers("/error").permitAll() // 允許訪問錯誤頁面
+                        .requestMatchers("/actuator/health").permitAll() // 健康檢查
                         // --- 其他公開資源 (例如靜態文件，如果有的話) ---
                         // .requestMatchers("/public/**").permitAll()
 
@@ -123,6 +125,7 @@ public class SecurityConfig {
 
                         // 管理員專屬端點 (示例)
                         .requestMatchers("/api/admin/**").hasRole("ADMIN") // 假設有 /api/admin 路徑
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // 指標等監控端點
                         .requestMatchers(HttpMethod.DELETE, "/api/shops/{id}").hasRole("ADMIN") // 明確只有 Admin 能刪除店家
 
                         // --- 其他所有請求都需要身份驗證 ---
@@ -0,0 +1,53 @@
+package com.example.taiwanramenmapapi.config;
+
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 為尚未解析地址的既有店家回填 county / district / postal_code 欄位。
+ * <p>
+ * 新寫入的店家由 Shop 實體的 @PrePersist/@PreUpdate 自動解析，這裡只處理欄位新增前就存在的資料。
+ * 無法辨識縣市的地址會保持 null，每次啟動重試 (數量很少，成本可忽略)。
+ */
+@Component
+@Order(2)
+public class ShopAddressBackfillRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopAddressBackfillRunner.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT id, address FROM shops WHERE county IS NULL AND address IS NOT NULL");
+            if (rows.isEmpty()) return;
+            List<Object[]> updates = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                TaiwanAddressParser.ParsedAddress parsed = TaiwanAddressParser.parse((String) row.get("address"));
+                if (parsed.county() == null) continue;
+                updates.add(new Object[] { parsed.county(), parsed.district(), parsed.postalCode(), row.get("id") });
+            }
+            for (int i = 0; i < updates.size(); i += BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("UPDATE shops SET county = ?, district = ?, postal_code = ? WHERE id = ?",
+                        updates.subList(i, Math.min(i + BATCH_SIZE, updates.size())));
+            }
+            logger.info("店家地址結構化回填完成: {} 筆待處理，{} 筆成功解析。", rows.size(), updates.size());
+        } catch (Exception e) {
+            logger.error("回填店家縣市/行政區欄位失敗: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.taiwanramenmapapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 確保 shops 表有 {@code location POINT SRID 4326} 欄位及 SPATIAL INDEX。
+ * <p>
+ * Hibernate 的 ddl-auto=update 不會建立空間欄位/索引，因此在啟動時檢查並補上：
+ * 新增欄位、以既有的 latitude/longitude 回填、改為 NOT NULL (SPATIAL INDEX 的要求) 後建立索引。
+ * 尚未有經緯度的店家以 POINT(0 0) 佔位，查詢時另以 latitude IS NOT NULL 過濾。
+ * 之後由 ShopServiceImpl 在創建/更新店家時同步此欄位。
+ * 邊界查詢改走 SPATIAL INDEX 後，舊版建立的 (latitude, longitude) 複合索引已無用途，一併刪除。
+ * <p>
+ * Shop 實體不映射此欄位 (避免每次讀取店家都帶出 POINT 二進位值)，空間條件一律寫在 ShopRepository 的原生查詢中；
+ * 可用 {@code EXPLAIN SELECT id FROM shops WHERE MBRContains(ST_GeomFromText('POLYGON((...))', 4326, 'axis-order=long-lat'), location)}
+ * 確認執行計畫為 type=range、key=idx_shops_location。
+ * 邊界、半徑、最近鄰查詢都依賴此欄位，初始化失敗時直接中止啟動，
+ * 不以缺少空間欄位的狀態繼續執行 (否則會在第一次查詢時才以 SQL 錯誤失敗)。
+ */
+@Component
+@Order(1)
+public class ShopLocationInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopLocationInitializer.class);
+
+    private static final String PLACEHOLDER_POINT = "ST_GeomFromText('POINT(0 0)', 4326)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            if (!columnExists()) {
+                logger.warn("shops.location 欄位不存在，正在建立並回填...");
+                jdbcTemplate.execute("ALTER TABLE shops ADD COLUMN location POINT SRID 4326 NULL");
+                int backfilled = jdbcTemplate.update("UPDATE shops SET location = ST_GeomFromText(CONCAT('POINT(', longitude, ' ', latitude, ')'), 4326, 'axis-order=long-lat') WHERE latitude IS NOT NULL AND longitude IS NOT NULL");
+                jdbcTemplate.update("UPDATE shops SET location = " + PLACEHOLDER_POINT + " WHERE location IS NULL");
+                jdbcTemplate.execute("ALTER TABLE shops MODIFY COLUMN location POINT NOT NULL SRID 4326 DEFAULT (" + PLACEHOLDER_POINT + ")");
+                logger.info("shops.location 欄位已建立，回填 {} 筆店家位置。", backfilled);
+            }
+            if (!spatialIndexExists()) {
+                jdbcTemplate.execute("CREATE SPATIAL INDEX idx_shops_location ON shops (location)");
+                logger.info("已建立 SPATIAL INDEX idx_shops_location。");
+            }
+            if (indexExists("idx_shops_lat_lng")) {
+                jdbcTemplate.execute("DROP INDEX idx_shops_lat_lng ON shops");
+                logger.info("已刪除多餘的索引 idx_shops_lat_lng。");
+            }
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("初始化 shops.location 空間欄位失敗 (需要 MySQL 8.0.13 以上): " + e.getMessage(), e);
+        }
+    }
+
+    private boolean columnExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'shops' AND COLUMN_NAME = 'location'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private boolean indexExists(String indexName) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'shops' AND INDEX_NAME = ?", Integer.class, indexName);
+        return count != null && count > 0;
+    }
+
+    private boolean spatialIndexExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'shops' AND INDEX_TYPE = 'SPATIAL'", Integer.class);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.taiwanramenmapapi.controller;
+
+import com.example.taiwanramenmapapi.dto.response.ApiResponse;
+import com.example.taiwanramenmapapi.dto.response.RegeocodeJobDTO;
+import com.example.taiwanramenmapapi.service.RegeocodeJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/geocoding")
+@PreAuthorize("hasRole('ADMIN')") // 整個 Controller 都需要管理員權限
+public class AdminGeocodingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminGeocodingController.class);
+
+    @Autowired
+    private RegeocodeJobService regeocodeJobService;
+
+    /**
+     * POST /api/admin/geocoding/jobs : 開始批次重新地理編碼所有店家。
+     * @param refreshCache 是否略過地理編碼快取 (預設 true)
+     * @return 新建立的工作 (202 Accepted，於背景執行)
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ApiResponse<RegeocodeJobDTO>> startJob(@RequestParam(defaultValue = "true") boolean refreshCache) {
+        logger.info("管理員請求：開始批次重新地理編碼 (refreshCache={})", refreshCache);
+        RegeocodeJobDTO job = regeocodeJobService.startJob(refreshCache);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(job, "批次重新地理編碼已開始"));
+    }
+
+    /**
+     * GET /api/admin/geocoding/jobs/latest : 獲取最近一次工作的進度。
+     */
+    @GetMapping("/jobs/latest")
+    public ResponseEntity<ApiResponse<RegeocodeJobDTO>> getLatestJob() {
+        return ResponseEntity.ok(ApiResponse.success(regeocodeJobService.getLatestJob()));
+    }
+
+    /**
+     * GET /api/admin/geocoding/jobs/{jobId} : 獲取指定工作的進度與失敗數。
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<RegeocodeJobDTO>> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(ApiResponse.success(regeocodeJobService.getJob(jobId)));
+    }
+
+    /**
+     * POST /api/admin/geocoding/jobs/{jobId}/cancel : 取消執行中的工作 (處理完目前區塊後停止)。
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<ApiResponse<RegeocodeJobDTO>> cancelJob(@PathVariable Long jobId) {
+        logger.info("管理員請求：取消批次重新地理編碼工作 {}", jobId);
+        return ResponseEntity.ok(ApiResponse.success(regeocodeJobService.cancelJob(jobId), "已要求取消工作"));
+    }
+
+    /**
+     * POST /api/admin/geocoding/jobs/{jobId}/resume : 從檢查點繼續已取消或失敗的工作。
+     */
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<ApiResponse<RegeocodeJobDTO>> resumeJob(@PathVariable Long jobId) {
+        logger.info("管理員請求：繼續批次重新地理編碼工作 {}", jobId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(regeocodeJobService.resumeJob(jobId), "工作已繼續"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.taiwanramenmapapi.controller;
+
+import com.example.taiwanramenmapapi.dto.response.ApiResponse;
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.service.ShopService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/shops")
+@PreAuthorize("hasRole('ADMIN')") // 整個 Controller 都需要管理員權限
+public class AdminShopController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminShopController.class);
+
+    @Autowired
+    private ShopService shopService;
+
+    /**
+     * POST /api/admin/shops/{id}/rating/recompute : 以評論表全量重算店家評分 (修復增量維護的評分總和)。
+     * @param id 店家 ID
+     * @return 重算後的店家資料
+     */
+    @PostMapping("/{id}/rating/recompute")
+    public ResponseEntity<ApiResponse<ShopDTO>> recomputeRating(@PathVariable Long id) {
+        logger.info("管理員請求：全量重算店家 {} 的評分", id);
+        shopService.updateShopRating(id);
+        return ResponseEntity.ok(ApiResponse.success(shopService.getShopById(id), "店家評分已重算"));
+    }
+}
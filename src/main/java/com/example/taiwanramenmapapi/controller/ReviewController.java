@@ -1,11 +1,14 @@
 package com.example.taiwanramenmapapi.controller;
 
+import com.example.taiwanramenmapapi.dto.response.CursorPageResponse;
 import com.example.taiwanramenmapapi.dto.response.PageResponse;
 import com.example.taiwanramenmapapi.dto.request.CreateReviewRequest;
 import com.example.taiwanramenmapapi.dto.request.UpdateReviewRequest;
 import com.example.taiwanramenmapapi.dto.response.ApiResponse;
 import com.example.taiwanramenmapapi.dto.response.ReviewDTO;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
 import com.example.taiwanramenmapapi.service.ReviewService;
+import com.example.taiwanramenmapapi.util.KeysetCursor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -19,6 +22,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType; // 引入 MediaType
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -35,6 +39,9 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService; // 注入 ReviewService
 
+    /** 評論列表允許的排序字段 */
+    private static final List<String> REVIEW_SORTABLE_FIELDS = List.of("createdAt", "rating");
+
     /**
      * POST /api/reviews/shop/{shopId} : 為指定店家創建評論或回覆 (包含照片)。
      * 需要 multipart/form-data 格式的請求。
@@ -108,8 +115,7 @@ public class ReviewController {
 
         logger.debug("Controller: 獲取店家 ID {} 評論: page={}, size={}, sort={}", shopId, page, size, sortBy + "," + sortDir);
         // 驗證排序字段
-        List<String> allowedSortBy = List.of("createdAt", "rating");
-        if (!allowedSortBy.contains(sortBy)) {
+        if (!REVIEW_SORTABLE_FIELDS.contains(sortBy)) {
             sortBy = "createdAt"; // 如果不合法，使用預設值
         }
         Sort.Direction direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
@@ -119,6 +125,36 @@ public class ReviewController {
         return ResponseEntity.ok(ApiResponse.success(reviews));
     }
 
+    /**
+     * GET /api/reviews/shop/{shopId}/scroll : 以游標分頁獲取店家的頂級評論 (無限捲動用，不計算總數)。
+     * 第一頁不帶 cursor；之後帶上一次回應的 nextCursor，排序方式沿用游標中的設定。
+     * @param shopId 店家 ID
+     * @param cursor 上一次回應的 nextCursor
+     * @param size 每頁數量
+     * @param sortBy 排序字段 (預設 createdAt，只在第一頁生效)
+     * @param sortDir 排序方向 (預設 DESC，只在第一頁生效)
+     * @return 包含評論游標分頁數據的響應
+     */
+    @GetMapping("/shop/{shopId}/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReviewDTO>>> scrollShopReviews(
+            @PathVariable Long shopId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "5") @Min(1) @Max(50) int size,
+            @RequestParam(value = "sortBy", defaultValue = "createdAt") String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = "DESC") String sortDir) {
+
+        logger.debug("Controller: 游標獲取店家 ID {} 評論: cursor={}, size={}, sort={}", shopId, cursor, size, sortBy + "," + sortDir);
+        KeysetCursor after = StringUtils.hasText(cursor) ? KeysetCursor.decode(cursor) : null;
+        Sort.Direction direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (after != null) { sortBy = after.sortBy(); direction = after.direction(); }
+        if (!REVIEW_SORTABLE_FIELDS.contains(sortBy)) {
+            if (after != null) { throw new BadRequestException("無效的分頁游標"); }
+            sortBy = "createdAt";
+        }
+        CursorPageResponse<ReviewDTO> reviews = reviewService.scrollShopReviews(shopId, sortBy, direction, after, size);
+        return ResponseEntity.ok(ApiResponse.success(reviews));
+    }
+
     /**
      * GET /api/reviews/{parentReviewId}/replies : 獲取指定評論的所有回覆列表。
      * @param parentReviewId 父評論 ID
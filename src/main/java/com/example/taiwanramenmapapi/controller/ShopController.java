@@ -1,13 +1,27 @@
 package com.example.taiwanramenmapapi.controller;
 
+import com.example.taiwanramenmapapi.dto.response.CursorPageResponse;
+import com.example.taiwanramenmapapi.dto.response.NearbyShopDTO;
 import com.example.taiwanramenmapapi.dto.response.PageResponse;
+import com.example.taiwanramenmapapi.dto.request.ShopFilterRequest;
 import com.example.taiwanramenmapapi.dto.request.UpdateShopRequest;
+import com.example.taiwanramenmapapi.dto.request.ViewportDiffRequest;
 import com.example.taiwanramenmapapi.dto.response.ApiResponse;
+import com.example.taiwanramenmapapi.dto.response.ShopClusterDTO;
 import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.dto.response.SuggestionDTO;
+import com.example.taiwanramenmapapi.dto.response.ViewportDiffDTO;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
 import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.util.KeysetCursor;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -34,8 +48,13 @@ public class ShopController {
     @Autowired
     private ShopService shopService;
 
+    /** 列表查詢允許的排序欄位 */
+    private static final List<String> SORTABLE_FIELDS = List.of("id", "name", "address", "averageRating", "reviewCount", "weightedRating", "createdAt", "updatedAt");
+
     /**
      * GET /api/shops : 獲取店家列表 (分頁/篩選/排序) 或 根據地圖邊界獲取
+     * 帶 zoom 參數時返回聚合結果 (質心、數量、平均加權評分)，用於地圖縮小檢視
+     * 邊界查詢預設返回精簡的地圖標記，full=true 時返回完整店家資料
      */
     @GetMapping
     public ResponseEntity<ApiResponse<?>> getAllShops(
@@ -43,6 +62,8 @@ public class ShopController {
             @RequestParam(value = "maxLat", required = false) BigDecimal maxLat,
             @RequestParam(value = "minLng", required = false) BigDecimal minLng,
             @RequestParam(value = "maxLng", required = false) BigDecimal maxLng,
+            @RequestParam(value = "zoom", required = false) @Min(0) @Max(22) Integer zoom,
+            @RequestParam(value = "full", defaultValue = "false") boolean full, // 邊界查詢是否返回完整店家資料 (預設只返回地圖標記)
             @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
             @RequestParam(value = "size", defaultValue = "12") @Min(1) @Max(1000) int size, // 列表預設 12，地圖請求可更大
             @RequestParam(value = "sortBy", defaultValue = "createdAt") String sortBy,
@@ -54,12 +75,18 @@ public class ShopController {
         logger.info("獲取店家請求: city=[{}], name=[{}], address=[{}], page={}, size={}, sort={},{}" ,
                 city, name, address, page, size, sortBy, sortDir);
         boolean hasBounds = minLat != null && maxLat != null && minLng != null && maxLng != null;
-        if (hasBounds) {
-            List<ShopDTO> shops = shopService.getShopsByBounds(minLat, maxLat, minLng, maxLng);
-            return ResponseEntity.ok(ApiResponse.success(shops, "獲取範圍內店家成功"));
+        if (zoom != null) {
+            List<ShopClusterDTO> clusters = shopService.getShopClusters(zoom, minLat, maxLat, minLng, maxLng);
+            return ResponseEntity.ok(ApiResponse.success(clusters, "獲取店家聚合成功"));
+        } else if (hasBounds) {
+            if (full) {
+                List<ShopDTO> shops = shopService.getShopsByBoundsFull(minLat, maxLat, minLng, maxLng);
+                return ResponseEntity.ok(ApiResponse.success(shops, "獲取範圍內店家成功"));
+            }
+            List<ShopMarkerDTO> markers = shopService.getShopsByBounds(minLat, maxLat, minLng, maxLng);
+            return ResponseEntity.ok(ApiResponse.success(markers, "獲取範圍內店家成功"));
         } else {
-            List<String> allowedSortBy = List.of("id", "name", "address", "averageRating", "reviewCount", "weightedRating", "createdAt", "updatedAt");
-            if (!allowedSortBy.contains(sortBy)) { sortBy = "createdAt"; }
+            if (!SORTABLE_FIELDS.contains(sortBy)) { sortBy = "createdAt"; }
             Sort.Direction direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
             Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
             PageResponse<ShopDTO> shops = shopService.getAllShops(pageable, name, address, city);
@@ -67,6 +94,95 @@ public class ShopController {
         }
     }
 
+    /**
+     * GET /api/shops/scroll : 以游標分頁獲取店家列表 (無限捲動用，不計算總數，深頁成本與第一頁相同)
+     * 第一頁不帶 cursor；之後帶上一次回應的 nextCursor 與相同的篩選條件，排序方式沿用游標中的設定
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ShopDTO>>> scrollShops(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "12") @Min(1) @Max(100) int size,
+            @RequestParam(value = "sortBy", defaultValue = "createdAt") String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = "DESC") String sortDir,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "address", required = false) String address,
+            @RequestParam(value = "city", required = false) String city
+    ) {
+        logger.info("游標獲取店家請求: city=[{}], name=[{}], address=[{}], cursor={}, size={}", city, name, address, cursor, size);
+        KeysetCursor after = StringUtils.hasText(cursor) ? KeysetCursor.decode(cursor) : null;
+        Sort.Direction direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (after != null) { sortBy = after.sortBy(); direction = after.direction(); }
+        if (!SORTABLE_FIELDS.contains(sortBy)) {
+            if (after != null) { throw new BadRequestException("無效的分頁游標"); }
+            sortBy = "createdAt";
+        }
+        CursorPageResponse<ShopDTO> shops = shopService.scrollShops(name, address, city, sortBy, direction, after, size);
+        return ResponseEntity.ok(ApiResponse.success(shops));
+    }
+
+    /**
+     * GET /api/shops/filter : 組合篩選店家 (店名、縣市/行政區、評分下限、評論數下限、地圖邊界)，所有條件合併為單一查詢
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<ApiResponse<PageResponse<ShopDTO>>> filterShops(@Valid ShopFilterRequest filter) {
+        logger.info("篩選店家請求: {}", filter);
+        String sortBy = SORTABLE_FIELDS.contains(filter.getSortBy()) ? filter.getSortBy() : "weightedRating";
+        Sort.Direction direction = Sort.Direction.ASC.name().equalsIgnoreCase(filter.getSortDir()) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageable = PageRequest.of(filter.getPage(), filter.getSize(), Sort.by(direction, sortBy).and(Sort.by(Sort.Direction.ASC, "id")));
+        return ResponseEntity.ok(ApiResponse.success(shopService.filterShops(filter, pageable)));
+    }
+
+    /**
+     * GET /api/shops/search : 全文搜尋店家 (名稱、地址、描述)，依相關度排序
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<PageResponse<ShopDTO>>> searchShops(
+            @RequestParam("q") @NotBlank @Size(max = 100) String q,
+            @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
+            @RequestParam(value = "size", defaultValue = "12") @Min(1) @Max(100) int size
+    ) {
+        logger.info("搜尋店家請求: q=[{}], page={}, size={}", q, page, size);
+        PageResponse<ShopDTO> shops = shopService.searchShops(q, page, size);
+        return ResponseEntity.ok(ApiResponse.success(shops));
+    }
+
+    /**
+     * GET /api/shops/suggest : 搜尋框自動完成 (店家名稱、縣市、行政區、熱門詞)
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionDTO>>> suggestShops(
+            @RequestParam("q") @Size(max = 50) String q,
+            @RequestParam(value = "limit", defaultValue = "8") @Min(1) @Max(20) int limit
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(shopService.suggestShops(q, limit)));
+    }
+
+    /**
+     * GET /api/shops/nearby : 獲取離指定位置最近的 k 家店 (「我附近的拉麵」)
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<ApiResponse<List<NearbyShopDTO>>> getNearbyShops(
+            @RequestParam("lat") @DecimalMin("-90") @DecimalMax("90") double lat,
+            @RequestParam("lng") @DecimalMin("-180") @DecimalMax("180") double lng,
+            @RequestParam(value = "k", defaultValue = "20") @Min(1) @Max(100) int k,
+            @RequestParam(value = "radius", required = false) @DecimalMin("1") @DecimalMax("500000") Double radius
+    ) {
+        logger.info("獲取附近店家請求: lat={}, lng={}, k={}, radius={}", lat, lng, k, radius);
+        List<NearbyShopDTO> shops = shopService.getNearbyShops(lat, lng, k, radius);
+        return ResponseEntity.ok(ApiResponse.success(shops, "獲取附近店家成功"));
+    }
+
+    /**
+     * GET /api/shops/viewport-diff : 地圖平移時的增量查詢
+     * 帶上一次的視窗邊界 (prevMinLat...) 與上一次回應的 dataVersion (since)，只返回新進入視窗與變更過的店家
+     */
+    @GetMapping("/viewport-diff")
+    public ResponseEntity<ApiResponse<ViewportDiffDTO>> getViewportDiff(@Valid ViewportDiffRequest request) {
+        logger.debug("視窗差異請求: {}", request);
+        ViewportDiffDTO diff = shopService.getViewportDiff(request);
+        return ResponseEntity.ok(ApiResponse.success(diff));
+    }
+
     /**
      * GET /api/shops/{id} : 根據 ID 獲取單個店家詳情
      */
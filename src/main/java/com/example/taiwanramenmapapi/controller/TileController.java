@@ -0,0 +1,54 @@
+package com.example.taiwanramenmapapi.controller;
+
+import com.example.taiwanramenmapapi.dto.response.VectorTileDTO;
+import com.example.taiwanramenmapapi.service.TileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/tiles")
+public class TileController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TileController.class);
+
+    public static final MediaType MVT_MEDIA_TYPE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    @Autowired
+    private TileService tileService;
+
+    /**
+     * GET /api/tiles/shops/{z}/{x}/{y}.mvt : 店家向量瓦片 (Mapbox Vector Tile, 圖層名稱 "shops")
+     * ETag 為瓦片內容的雜湊，If-None-Match 條件請求 (含弱驗證器 W/"..."、多個 ETag 與 *) 由 Spring 比對後返回 304
+     */
+    @GetMapping("/shops/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getShopTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            WebRequest webRequest
+    ) {
+        logger.debug("獲取店家向量瓦片: {}/{}/{}", z, x, y);
+        VectorTileDTO tile = tileService.getShopTile(z, x, y);
+        if (tile.getEtag() == null) {
+            // 索引尚未就緒，內容不穩定，不允許快取
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).contentType(MVT_MEDIA_TYPE).body(tile.getData());
+        }
+        CacheControl cacheControl = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
+        // Spring 6.1 只在非安全方法 (PUT 等) 把 If-None-Match: * 視為匹配；依 RFC 9110，GET 存在的資源時同樣應返回 304
+        if (webRequest.checkNotModified(tile.getEtag()) || "*".equals(StringUtils.trimWhitespace(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH)))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tile.getEtag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(tile.getEtag()).cacheControl(cacheControl).contentType(MVT_MEDIA_TYPE).body(tile.getData());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.taiwanramenmapapi.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ShopFilterRequest {
+    // 篩選條件 (皆為可選，提供的條件以 AND 組合)
+    @Size(max = 100)
+    private String name; // 店名關鍵字
+    @Size(max = 20)
+    private String county; // 縣市或鄉鎮市區 (例如 台北、大安區)
+    @DecimalMin("0") @DecimalMax("5")
+    private BigDecimal minRating; // 平均評分下限
+    @Min(0)
+    private Integer minReviewCount; // 評論數下限
+
+    // 地圖邊界 (可選，四個都提供才生效)
+    @DecimalMin("-90") @DecimalMax("90")
+    private BigDecimal minLat;
+    @DecimalMin("-90") @DecimalMax("90")
+    private BigDecimal maxLat;
+    @DecimalMin("-180") @DecimalMax("180")
+    private BigDecimal minLng;
+    @DecimalMin("-180") @DecimalMax("180")
+    private BigDecimal maxLng;
+
+    // 分頁與排序
+    @Min(0)
+    private int page = 0;
+    @Min(1) @Max(100)
+    private int size = 12;
+    private String sortBy = "weightedRating";
+    private String sortDir = "DESC";
+}
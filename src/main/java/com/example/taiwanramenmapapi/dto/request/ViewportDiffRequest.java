@@ -0,0 +1,34 @@
+package com.example.taiwanramenmapapi.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ViewportDiffRequest {
+    // 目前的視窗邊界 (必填)
+    @NotNull @DecimalMin("-90") @DecimalMax("90")
+    private BigDecimal minLat;
+    @NotNull @DecimalMin("-90") @DecimalMax("90")
+    private BigDecimal maxLat;
+    @NotNull @DecimalMin("-180") @DecimalMax("180")
+    private BigDecimal minLng;
+    @NotNull @DecimalMin("-180") @DecimalMax("180")
+    private BigDecimal maxLng;
+
+    // 上一次的視窗邊界 (可選，四個都提供才生效)
+    private BigDecimal prevMinLat;
+    private BigDecimal prevMaxLat;
+    private BigDecimal prevMinLng;
+    private BigDecimal prevMaxLng;
+
+    // 客戶端持有資料的版本令牌 (上一次回應的 dataVersion)，未提供或無效時返回完整結果
+    private String since;
+
+    public boolean hasPreviousViewport() {
+        return prevMinLat != null && prevMaxLat != null && prevMinLng != null && prevMaxLng != null;
+    }
+}
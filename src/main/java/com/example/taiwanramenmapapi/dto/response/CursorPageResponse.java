@@ -0,0 +1,20 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游標分頁 (Slice 形式) 的回應：不含總筆數與總頁數，因此不需要 COUNT(*) 查詢。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size; // 本次要求的每頁數量
+    private boolean hasNext; // 是否還有下一頁
+    private String nextCursor; // 下一頁的游標 (原樣帶回即可)，沒有下一頁時為 null
+}
@@ -0,0 +1,13 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyShopDTO {
+    private ShopMarkerDTO shop; // 店家標記資訊
+    private double distanceMeters; // 與查詢位置的距離 (公尺)
+}
@@ -0,0 +1,23 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import com.example.taiwanramenmapapi.entity.enums.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class RegeocodeJobDTO {
+    private Long id;
+    private JobStatus status;
+    private boolean refreshCache; // 是否略過地理編碼快取
+    private Long lastShopId; // 檢查點 (已處理的最大店家 ID)
+    private Long totalShops;
+    private Long processedCount;
+    private Long updatedCount; // 座標有變更的店家數
+    private Long notFoundCount;
+    private Long failedCount;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,13 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class ShopClusterDTO {
+    private double latitude; // 聚合質心緯度
+    private double longitude; // 聚合質心經度
+    private int count; // 聚合內的店家數
+    private BigDecimal averageWeightedRating; // 聚合內店家的平均加權評分
+}
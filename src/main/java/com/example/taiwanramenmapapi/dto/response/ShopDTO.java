@@ -1,9 +1,11 @@
 package com.example.taiwanramenmapapi.dto.response;
 
+import com.example.taiwanramenmapapi.entity.enums.GeocodeStatus;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class ShopDTO {
@@ -12,12 +14,17 @@ public class ShopDTO {
     private String address;
     private BigDecimal latitude;
     private BigDecimal longitude;
+    private GeocodeStatus geocodeStatus; // PENDING_GEOCODE 時尚無經緯度，不會出現在地圖上
+    private String county; // 縣市 (由地址解析，例如 臺北市)
+    private String district; // 鄉鎮市區
+    private String postalCode; // 郵遞區號
     private String phone;
     private String openingHours;
     private String description;
     private BigDecimal averageRating;
     private Integer reviewCount;
     private BigDecimal weightedRating; // 用於排行
+    private Map<Integer, Integer> ratingHistogram; // 評分分佈 (星等 1~5 -> 評論數)，由店家的計數欄位直接取得
     private ReviewerDTO owner; // 店家擁有者信息 (只含 ID 和用戶名)
     private List<ShopMediaDTO> media; // 店家媒體列表
     private LocalDateTime createdAt;
@@ -0,0 +1,30 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 地圖標記用的精簡店家資料，由 ShopRepository 的建構子表達式查詢直接產生。
+ * 經緯度以 double 保存，記憶體中的篩選、距離與聚合計算都不經過 BigDecimal；
+ * BigDecimal 只留在持久化邊界 (實體與查詢建構子)。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopMarkerDTO {
+    private Long id;
+    private String name;
+    private double latitude;
+    private double longitude;
+    private BigDecimal weightedRating;
+    private Integer reviewCount;
+    private String coverUrl; // 封面縮圖 (第一張圖片) 的 URL，沒有圖片時為 null
+
+    // JPQL 建構子表達式使用 (實體欄位為 DECIMAL/BigDecimal)
+    public ShopMarkerDTO(Long id, String name, BigDecimal latitude, BigDecimal longitude, BigDecimal weightedRating, Integer reviewCount, String coverUrl) {
+        this(id, name, latitude.doubleValue(), longitude.doubleValue(), weightedRating, reviewCount, coverUrl);
+    }
+}
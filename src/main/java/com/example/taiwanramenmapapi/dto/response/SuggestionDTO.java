@@ -0,0 +1,14 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text; // 顯示文字 (店家名稱、縣市、縣市+行政區或熱門詞)
+    private String type; // SHOP / COUNTY / DISTRICT / TERM
+    private Long shopId; // 類型為 SHOP 時的店家 ID，其餘為 null
+}
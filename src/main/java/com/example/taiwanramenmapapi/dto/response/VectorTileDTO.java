@@ -0,0 +1,14 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorTileDTO {
+    private byte[] data; // MVT protobuf 內容
+    private String etag; // 強 ETag (瓦片內容的雜湊)，索引未就緒時為 null
+    private long contentFingerprint; // 產生此瓦片時的空間索引內容指紋
+}
@@ -0,0 +1,18 @@
+package com.example.taiwanramenmapapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewportDiffDTO {
+    private String dataVersion; // 本次回應的資料版本令牌 ({epoch}:{版本號})，下次請求以 since 帶回；索引未載入時為 null
+    private boolean fullReload; // true 表示無法計算差異 (未提供/過舊/其他啟動發出的版本令牌)，entered 為視窗內全部店家，客戶端應丟棄舊資料
+    private List<ShopMarkerDTO> entered; // 新進入視窗的店家
+    private List<ShopMarkerDTO> updated; // 仍在視窗內、但在 since 之後變更過的店家 (取代客戶端的舊資料)
+    private List<Long> removedIds; // since 時位於上一次視窗內、之後被刪除或移出目前視窗的店家 ID
+}
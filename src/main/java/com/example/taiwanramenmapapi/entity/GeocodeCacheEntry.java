@@ -0,0 +1,62 @@
+package com.example.taiwanramenmapapi.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 地理編碼結果的持久化快取，以正規化地址的 SHA-256 為鍵。
+ * 查無結果 (found = false) 也會記錄，並在 expiresAt 之後重新查詢。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "geocode_cache", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_geocode_cache_address_hash", columnNames = "address_hash")
+})
+public class GeocodeCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 正規化地址的 SHA-256 (十六進位)，固定長度便於建立唯一索引
+    @Column(name = "address_hash", nullable = false, length = 64)
+    private String addressHash;
+
+    // 正規化後的地址 (方便人工檢查)
+    @Column(name = "normalized_address", nullable = false, length = 512)
+    private String normalizedAddress;
+
+    // 查無結果時為 null
+    @Column(precision = 10, scale = 7)
+    private BigDecimal latitude;
+
+    @Column(precision = 10, scale = 7)
+    private BigDecimal longitude;
+
+    // 是否查到結果
+    @Column(nullable = false)
+    private boolean found;
+
+    // 過期時間，null 表示不過期 (查到的結果)
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,80 @@
+package com.example.taiwanramenmapapi.entity;
+
+import com.example.taiwanramenmapapi.entity.enums.JobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批次重新地理編碼工作的進度與檢查點。
+ * 每處理完一個區塊就更新 lastShopId 與各項計數，重啟後從 lastShopId 之後繼續。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "regeocode_jobs")
+public class RegeocodeJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JobStatus status;
+
+    // 是否略過地理編碼快取 (更換服務或修正正規化規則後需要)
+    @Column(name = "refresh_cache", nullable = false)
+    private boolean refreshCache;
+
+    // 檢查點：已處理的最大店家 ID
+    @Default
+    @Column(name = "last_shop_id", nullable = false)
+    private Long lastShopId = 0L;
+
+    // 開始時的店家總數 (用於顯示進度)
+    @Default
+    @Column(name = "total_shops", nullable = false)
+    private Long totalShops = 0L;
+
+    @Default
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    // 座標有變更並已寫回的店家數
+    @Default
+    @Column(name = "updated_count", nullable = false)
+    private Long updatedCount = 0L;
+
+    @Default
+    @Column(name = "not_found_count", nullable = false)
+    private Long notFoundCount = 0L;
+
+    // 外部服務呼叫失敗的店家數 (座標保持不變)
+    @Default
+    @Column(name = "failed_count", nullable = false)
+    private Long failedCount = 0L;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
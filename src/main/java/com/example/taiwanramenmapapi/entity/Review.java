@@ -23,7 +23,10 @@ import java.util.Objects; // 引入 Objects
 @NoArgsConstructor // Lombok: 無參數構造函數
 @AllArgsConstructor // Lombok: 全參數構造函數
 @Entity // JPA: 實體標記
-@Table(name = "reviews") // 指定表名
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_shop_parent_created", columnList = "shop_id, parent_review_id, created_at"), // 店家評論列表 (游標分頁，InnoDB 二級索引隱含主鍵 id)
+        @Index(name = "idx_reviews_shop_parent_rating", columnList = "shop_id, parent_review_id, rating") // 依評分排序的店家評論列表
+}) // 指定表名
 public class Review {
 
     @Id // 主鍵
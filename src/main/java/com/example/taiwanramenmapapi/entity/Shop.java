@@ -1,5 +1,7 @@
 package com.example.taiwanramenmapapi.entity;
 
+import com.example.taiwanramenmapapi.entity.enums.GeocodeStatus;
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +23,14 @@ import java.util.Objects; // 引入 Objects 用於輔助方法
 @NoArgsConstructor // Lombok: 無參數構造函數
 @AllArgsConstructor // Lombok: 全參數構造函數
 @Entity // JPA: 標記為實體
-@Table(name = "shops") // 指定數據庫表名
+@Table(name = "shops", indexes = {
+        @Index(name = "idx_shops_county_rating", columnList = "county, weighted_rating"), // 縣市排行榜
+        @Index(name = "idx_shops_county_district", columnList = "county, district"), // 縣市/行政區篩選
+        @Index(name = "idx_shops_county_avg_rating_reviews", columnList = "county, average_rating, review_count"), // 組合篩選: 縣市 + 評分/評論數下限
+        @Index(name = "idx_shops_avg_rating_reviews", columnList = "average_rating, review_count"), // 組合篩選: 不限縣市的評分/評論數下限
+        @Index(name = "idx_shops_district_avg_rating", columnList = "district, average_rating"), // 組合篩選: 行政區 + 評分下限
+        @Index(name = "idx_shops_created_at", columnList = "created_at") // 店家列表預設排序 (游標分頁)
+}) // 指定數據庫表名
 public class Shop {
 
     @Id // 主鍵
@@ -42,6 +51,25 @@ public class Shop {
     @Column(precision = 10, scale = 7)
     private BigDecimal longitude;
 
+    // 地理編碼狀態 (背景編碼完成前為 PENDING_GEOCODE，此時沒有經緯度)；舊資料為 null，視同 OK
+    @Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "geocode_status", length = 20)
+    private GeocodeStatus geocodeStatus = GeocodeStatus.OK;
+
+    // 以下三個欄位在寫入時由地址解析產生 (見 applyParsedAddress)，用於縣市/行政區的等值查詢
+    // 縣市 (正規化，例如 臺北市)
+    @Column(length = 10)
+    private String county;
+
+    // 鄉鎮市區 (例如 大安區)
+    @Column(length = 10)
+    private String district;
+
+    // 郵遞區號 (地址中有提供時)
+    @Column(name = "postal_code", length = 6)
+    private String postalCode;
+
     // 電話 (可選)
     @Column(length = 30) // 增加電話長度
     private String phone;
@@ -59,6 +87,36 @@ public class Shop {
     @Column(name = "average_rating", precision = 3, scale = 2, columnDefinition = "DECIMAL(3,2) DEFAULT 0.00")
     private BigDecimal averageRating = BigDecimal.ZERO;
 
+    // 頂級評論的評分總和與評分筆數：評論寫入時以 SQL 原子增減，平均評分與加權評分由此推導
+    @Default
+    @Column(name = "rating_sum", columnDefinition = "BIGINT DEFAULT 0")
+    private Long ratingSum = 0L;
+
+    @Default
+    @Column(name = "rating_count", columnDefinition = "INT DEFAULT 0")
+    private Integer ratingCount = 0;
+
+    // 1~5 星的評論數 (評分分佈)，與評分總和一起以 SQL 原子增減，讀取時不需統計評論表
+    @Default
+    @Column(name = "rating_1_count", columnDefinition = "INT DEFAULT 0")
+    private Integer rating1Count = 0;
+
+    @Default
+    @Column(name = "rating_2_count", columnDefinition = "INT DEFAULT 0")
+    private Integer rating2Count = 0;
+
+    @Default
+    @Column(name = "rating_3_count", columnDefinition = "INT DEFAULT 0")
+    private Integer rating3Count = 0;
+
+    @Default
+    @Column(name = "rating_4_count", columnDefinition = "INT DEFAULT 0")
+    private Integer rating4Count = 0;
+
+    @Default
+    @Column(name = "rating_5_count", columnDefinition = "INT DEFAULT 0")
+    private Integer rating5Count = 0;
+
     // 評論總數 (INT 類型，預設為 0)
     @Default
     @Column(name = "review_count", columnDefinition = "INT DEFAULT 0")
@@ -103,6 +161,20 @@ public class Shop {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // --- 生命週期回調 ---
+
+    /**
+     * 寫入前解析地址，填入正規化的縣市、行政區與郵遞區號。
+     */
+    @PrePersist
+    @PreUpdate
+    public void applyParsedAddress() {
+        TaiwanAddressParser.ParsedAddress parsed = TaiwanAddressParser.parse(this.address);
+        this.county = parsed.county();
+        this.district = parsed.district();
+        this.postalCode = parsed.postalCode();
+    }
+
     // --- 輔助方法 (用於維護雙向關聯，確保數據一致性) ---
 
     /**
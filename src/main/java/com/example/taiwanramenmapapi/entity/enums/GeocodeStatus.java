@@ -0,0 +1,7 @@
+package com.example.taiwanramenmapapi.entity.enums;
+
+public enum GeocodeStatus {
+    OK,              // 已有經緯度 (或不需要編碼)
+    PENDING_GEOCODE, // 等待背景地理編碼，尚未出現在地圖上
+    FAILED           // 地址無法編碼或重試次數用盡，需修改地址
+}
@@ -0,0 +1,9 @@
+package com.example.taiwanramenmapapi.entity.enums;
+
+public enum JobStatus {
+    RUNNING,   // 執行中 (重啟後會從檢查點繼續)
+    CANCELLING, // 已要求取消，目前區塊處理完後停止 (只出現在 API 回應，資料庫中仍為 RUNNING)
+    COMPLETED, // 已完成
+    CANCELLED, // 管理員取消，可手動繼續
+    FAILED     // 發生非預期錯誤中止，可手動繼續
+}
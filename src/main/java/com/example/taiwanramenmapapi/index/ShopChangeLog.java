@@ -0,0 +1,75 @@
+package com.example.taiwanramenmapapi.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 有上限的店家變更記錄 (資料版本號 -> 店家 ID 與變更前的位置)，供視窗差異查詢找出某版本之後變更過的店家，
+ * 以及這些店家在該版本時的位置 (判斷客戶端當時是否持有)。
+ * 超出上限時丟棄最舊的記錄；查詢的版本早於保留範圍時返回空，由呼叫端改為完整重新載入。
+ */
+@Component
+public class ShopChangeLog {
+
+    /** 店家在地圖上的位置 */
+    public record Position(double lat, double lng) { }
+
+    /** @param previous 變更前的位置，變更前不在地圖上 (新建或沒有經緯度) 時為 null */
+    private record Change(long version, long shopId, Position previous) { }
+
+    private final int capacity;
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    /** 可以回答的最早版本號 (此版本之後的變更都還在記錄中) */
+    private long floorVersion = 0;
+
+    public ShopChangeLog(@Value("${app.viewport-diff.change-log-size:10000}") int capacity) {
+        if (capacity <= 0) { throw new IllegalArgumentException("app.viewport-diff.change-log-size 必須大於 0"); }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 記錄一筆變更。
+     * @param version 變更後的資料版本號
+     * @param shopId 變更的店家 ID
+     * @param previous 變更前的位置，變更前不在地圖上時為 null
+     */
+    public synchronized void record(long version, long shopId, Position previous) {
+        changes.addLast(new Change(version, shopId, previous));
+        while (changes.size() > capacity) {
+            floorVersion = changes.removeFirst().version();
+        }
+    }
+
+    /**
+     * 清空記錄 (索引重建時調用)，之前的版本都無法再回答。
+     * @param version 重建後的資料版本號
+     */
+    public synchronized void reset(long version) {
+        changes.clear();
+        floorVersion = version;
+    }
+
+    /**
+     * 查詢指定版本之後變更過的店家。
+     * @param sinceVersion 客戶端持有的資料版本號
+     * @return 變更過的店家 ID -> 該店在 sinceVersion 時的位置 (當時不在地圖上為 null)；版本太舊 (已不在記錄中) 時為空
+     */
+    public synchronized Optional<Map<Long, Position>> changedSince(long sinceVersion) {
+        if (sinceVersion < floorVersion) { return Optional.empty(); }
+        Map<Long, Position> changed = new HashMap<>();
+        Iterator<Change> it = changes.descendingIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.version() <= sinceVersion) break;
+            // 由新到舊覆寫，最後留下的是 sinceVersion 之後第一次變更前的位置
+            changed.put(change.shopId(), change.previous());
+        }
+        return Optional.of(changed);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopClusterDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 地圖標記聚合用的網格金字塔。
+ * <p>
+ * 每個縮放等級 z 使用邊長 {@code 360 / 2^(z + CELL_SHIFT)} 度的網格，每個網格保存
+ * 店家數、經緯度總和與加權評分總和，因此聚合結果 (質心、數量、平均評分) 可直接讀出。
+ * 店家變更時對每一層做增量加減，不需要重新計算整個金字塔。
+ * 網格值為不可變記錄，以 {@link ConcurrentHashMap#compute} 原子替換，讀取路徑無鎖。
+ * 查詢結果的網格數有上限：沒有邊界時最多使用 app.cluster.unbounded-max-zoom 層，
+ * 有邊界但範圍在請求的縮放等級下超過 {@value #MAX_CELLS_PER_QUERY} 格時改用較粗的一層。
+ */
+@Component
+public class ShopClusterIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopClusterIndex.class);
+
+    /** 每個地圖瓦片 (tile) 在單一方向上再切成 2^CELL_SHIFT 個聚合網格 */
+    private static final int CELL_SHIFT = 2;
+
+    /** 單次查詢涵蓋的網格數上限，邊界在請求的縮放等級下超過此值時改用較粗的一層 */
+    private static final int MAX_CELLS_PER_QUERY = 4096;
+
+    private final int maxZoom;
+    /** 沒有邊界的查詢可使用的最大縮放等級 (此層全部網格都會返回) */
+    private final int unboundedMaxZoom;
+    private final List<Map<Long, ClusterCell>> levels;
+    /** 每個店家目前被計入金字塔的位置與評分，用於更新/刪除時扣除舊值 */
+    private final Map<Long, Member> members = new ConcurrentHashMap<>();
+
+    public ShopClusterIndex(@Value("${app.cluster.max-zoom:16}") int maxZoom,
+                            @Value("${app.cluster.unbounded-max-zoom:8}") int unboundedMaxZoom) {
+        if (maxZoom < 0 || maxZoom > 22) { throw new IllegalArgumentException("app.cluster.max-zoom 必須在 0 到 22 之間"); }
+        if (unboundedMaxZoom < 0) { throw new IllegalArgumentException("app.cluster.unbounded-max-zoom 不可為負數"); }
+        this.maxZoom = maxZoom;
+        this.unboundedMaxZoom = Math.min(unboundedMaxZoom, maxZoom);
+        this.levels = new ArrayList<>(maxZoom + 1);
+        for (int z = 0; z <= maxZoom; z++) { levels.add(new ConcurrentHashMap<>()); }
+    }
+
+    /** 單一網格的聚合值 */
+    private record ClusterCell(int count, double sumLat, double sumLng, double sumRating) {
+        static final ClusterCell EMPTY = new ClusterCell(0, 0, 0, 0);
+        ClusterCell plus(Member m, int sign) {
+            return new ClusterCell(count + sign, sumLat + sign * m.lat(), sumLng + sign * m.lng(), sumRating + sign * m.rating());
+        }
+    }
+
+    private record Member(long id, double lat, double lng, double rating) { }
+
+    /** 支援的最大縮放等級 */
+    public int getMaxZoom() { return maxZoom; }
+
+    /**
+     * 以全部店家重建金字塔。
+     * @param shops 所有店家的 DTO 快照
+     */
+    public synchronized void rebuild(Collection<ShopMarkerDTO> shops) {
+        members.clear();
+        levels.forEach(Map::clear);
+        for (ShopMarkerDTO dto : shops) {
+            Member m = toMember(dto);
+            if (m != null) { add(m); }
+        }
+        logger.info("店家聚合金字塔重建完成: {} 家店, {} 個縮放等級", members.size(), levels.size());
+    }
+
+    /**
+     * 新增或更新店家，對每一層做增量調整。
+     * @param dto 店家標記快照
+     */
+    public synchronized void upsert(ShopMarkerDTO dto) {
+        if (dto == null || dto.getId() == null) return;
+        Member previous = members.remove(dto.getId());
+        if (previous != null) { subtract(previous); }
+        Member current = toMember(dto);
+        if (current != null) { add(current); }
+    }
+
+    /**
+     * 移除店家。
+     * @param shopId 店家 ID
+     */
+    public synchronized void remove(Long shopId) {
+        if (shopId == null) return;
+        Member previous = members.remove(shopId);
+        if (previous != null) { subtract(previous); }
+    }
+
+    /**
+     * 查詢指定縮放等級下、邊界內的聚合結果。
+     * 邊界參數為 null 時返回全部聚合，但縮放等級最多使用 unbounded-max-zoom；
+     * 邊界在請求的縮放等級下超過 {@value #MAX_CELLS_PER_QUERY} 格時逐層改用較粗的縮放等級。
+     * @param zoom 縮放等級 (超過 maxZoom 時使用 maxZoom)
+     * @return 聚合列表
+     */
+    public List<ShopClusterDTO> findClusters(int zoom, Double minLat, Double maxLat, Double minLng, Double maxLng) {
+        int z = Math.max(0, Math.min(zoom, maxZoom));
+        List<ShopClusterDTO> result = new ArrayList<>();
+        boolean hasBounds = minLat != null && maxLat != null && minLng != null && maxLng != null;
+        if (!hasBounds) {
+            levels.get(Math.min(z, unboundedMaxZoom)).values().forEach(c -> result.add(toDTO(c)));
+            return result;
+        }
+        long minRow, maxRow, minCol, maxCol, cellCount;
+        while (true) {
+            double cellSize = cellSize(z);
+            minRow = cellIndex(minLat, cellSize); maxRow = cellIndex(maxLat, cellSize);
+            minCol = cellIndex(minLng, cellSize); maxCol = cellIndex(maxLng, cellSize);
+            cellCount = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+            if (cellCount <= MAX_CELLS_PER_QUERY || z == 0) break;
+            z--;
+        }
+        Map<Long, ClusterCell> level = levels.get(z);
+        if (cellCount > level.size()) {
+            long fMinRow = minRow, fMaxRow = maxRow, fMinCol = minCol, fMaxCol = maxCol;
+            level.forEach((key, c) -> {
+                long row = key >> 32, col = (int) (long) key;
+                if (row >= fMinRow && row <= fMaxRow && col >= fMinCol && col <= fMaxCol) result.add(toDTO(c));
+            });
+            return result;
+        }
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                ClusterCell c = level.get(packKey(row, col));
+                if (c != null) result.add(toDTO(c));
+            }
+        }
+        return result;
+    }
+
+    // --- 私有輔助方法 ---
+
+    private void add(Member m) {
+        members.put(m.id(), m);
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.get(z).merge(cellKey(m, z), ClusterCell.EMPTY.plus(m, 1), (old, ignored) -> old.plus(m, 1));
+        }
+    }
+
+    private void subtract(Member m) {
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.get(z).computeIfPresent(cellKey(m, z), (key, old) -> old.count() <= 1 ? null : old.plus(m, -1));
+        }
+    }
+
+    private Member toMember(ShopMarkerDTO dto) {
+        if (dto == null || dto.getId() == null) return null;
+        double rating = dto.getWeightedRating() != null ? dto.getWeightedRating().doubleValue() : 0.0;
+        return new Member(dto.getId(), dto.getLatitude(), dto.getLongitude(), rating);
+    }
+
+    private ShopClusterDTO toDTO(ClusterCell c) {
+        ShopClusterDTO dto = new ShopClusterDTO();
+        dto.setLatitude(c.sumLat() / c.count());
+        dto.setLongitude(c.sumLng() / c.count());
+        dto.setCount(c.count());
+        dto.setAverageWeightedRating(BigDecimal.valueOf(c.sumRating() / c.count()).setScale(2, RoundingMode.HALF_UP));
+        return dto;
+    }
+
+    private static double cellSize(int zoom) { return 360.0 / (1L << (zoom + CELL_SHIFT)); }
+
+    private static long cellIndex(double degrees, double cellSize) { return (long) Math.floor(degrees / cellSize); }
+
+    private static long cellKey(Member m, int zoom) {
+        double size = cellSize(zoom);
+        return packKey(cellIndex(m.lat(), size), cellIndex(m.lng(), size));
+    }
+
+    private static long packKey(long row, long col) { return (row << 32) | (col & 0xffffffffL); }
+}
@@ -0,0 +1,165 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.mapper.ShopMapper;
+import com.example.taiwanramenmapapi.util.TransactionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 店家記憶體索引的統一同步入口。
+ * 所有店家寫入 (創建、更新、刪除、評分/媒體變更) 都經由這裡，
+ * 在事務提交後再把變更套用到各個記憶體索引，避免回滾時索引與資料庫不一致。
+ * 每次套用變更都會遞增資料版本號，供視窗差異查詢等判斷客戶端資料是否過期。
+ * 版本號只在本程序內有意義，對外以 {@code {epoch}:{版本號}} 的版本令牌表示：
+ * epoch 在每次啟動時隨機產生，重啟前或其他執行個體發出的令牌因 epoch 不符而一律視為無效。
+ */
+@Component
+public class ShopIndexSynchronizer {
+
+    @Autowired private ShopSpatialIndex shopSpatialIndex;
+    @Autowired private ShopClusterIndex shopClusterIndex;
+    @Autowired private ViewportTileCache viewportTileCache;
+    @Autowired private ShopChangeLog shopChangeLog;
+    @Autowired private ShopSearchIndex shopSearchIndex;
+    @Autowired private ShopSuggestIndex shopSuggestIndex;
+    @Autowired private ShopLeaderboard shopLeaderboard;
+    @Autowired private ShopMapper shopMapper;
+
+    /** 店家資料版本號，索引每套用一次變更就遞增 */
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    /** 本次啟動的識別碼，作為版本令牌的前綴 */
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    /** 目前的店家資料版本號 (0 表示索引尚未載入) */
+    public long getDataVersion() { return dataVersion.get(); }
+
+    /**
+     * 把資料版本號包裝成對外的版本令牌。
+     * @param version 資料版本號
+     * @return {@code {epoch}:{版本號}}
+     */
+    public String toVersionToken(long version) {
+        return epoch + ":" + version;
+    }
+
+    /**
+     * 解析客戶端帶回的版本令牌。
+     * @param token 版本令牌
+     * @return 資料版本號；格式錯誤、來自其他啟動或其他執行個體時為空
+     */
+    public OptionalLong parseVersionToken(String token) {
+        if (token == null) return OptionalLong.empty();
+        int sep = token.indexOf(':');
+        if (sep < 0 || !epoch.equals(token.substring(0, sep))) return OptionalLong.empty();
+        try {
+            long version = Long.parseLong(token.substring(sep + 1));
+            return version >= 0 && version <= dataVersion.get() ? OptionalLong.of(version) : OptionalLong.empty();
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * 以全部店家重建所有索引 (應用啟動時調用)。
+     * @param shops 所有有經緯度店家的標記快照
+     * @param textShops 所有店家 (含尚未編碼的店家) 的文字與評分欄位，供全文與自動完成索引使用
+     * @param rankedShops 評論數達到排行門檻的店家 (含媒體的完整 DTO)，供排行榜使用
+     */
+    public void rebuild(Collection<ShopMarkerDTO> shops, Collection<ShopDTO> textShops, Collection<ShopDTO> rankedShops) {
+        shopSpatialIndex.rebuild(shops);
+        shopSearchIndex.rebuild(textShops.stream().map(ShopIndexSynchronizer::toSearchDocument).toList());
+        shopSuggestIndex.rebuild(textShops.stream().map(ShopIndexSynchronizer::toSuggestEntry).toList());
+        shopLeaderboard.rebuild(rankedShops);
+        shopClusterIndex.rebuild(shops);
+        viewportTileCache.clear();
+        synchronized (this) {
+            shopChangeLog.reset(dataVersion.incrementAndGet());
+        }
+    }
+
+    /**
+     * 店家已新增或更新，事務提交後同步到索引。
+     * @param shop 最新的店家 DTO 快照
+     */
+    public void shopSaved(ShopDTO shop) {
+        if (shop == null) return;
+        // 沒有經緯度的店家 (例如地址無法編碼) 不在地圖上，從索引移除
+        ShopMarkerDTO marker = shop.getLatitude() != null && shop.getLongitude() != null ? shopMapper.toShopMarkerDTO(shop) : null;
+        ShopSearchIndex.Document document = toSearchDocument(shop);
+        ShopSuggestIndex.ShopEntry suggestEntry = toSuggestEntry(shop);
+        TransactionUtils.afterCommit(() -> {
+            shopSearchIndex.upsert(document);
+            shopSuggestIndex.upsert(suggestEntry);
+            shopLeaderboard.upsert(shop);
+            if (marker != null) {
+                shopClusterIndex.upsert(marker);
+            } else {
+                shopClusterIndex.remove(shop.getId());
+            }
+            viewportTileCache.invalidateShop(shop.getId(),
+                    shop.getLatitude() != null ? shop.getLatitude().doubleValue() : null,
+                    shop.getLongitude() != null ? shop.getLongitude().doubleValue() : null);
+            applySpatialChange(shop.getId(), marker);
+        });
+    }
+
+    /**
+     * 批次寫入後同步多家店的標記 (例如批次重新地理編碼，資料已直接以 JDBC 寫入並提交)。
+     * @param markers 最新的店家標記
+     */
+    public void markersSaved(Collection<ShopMarkerDTO> markers) {
+        if (markers == null || markers.isEmpty()) return;
+        TransactionUtils.afterCommit(() -> {
+            for (ShopMarkerDTO marker : markers) {
+                shopClusterIndex.upsert(marker);
+                viewportTileCache.invalidateShop(marker.getId(), marker.getLatitude(), marker.getLongitude());
+                applySpatialChange(marker.getId(), marker);
+            }
+        });
+    }
+
+    /**
+     * 店家已刪除，事務提交後從索引移除。
+     * @param shopId 店家 ID
+     */
+    public void shopDeleted(Long shopId) {
+        if (shopId == null) return;
+        TransactionUtils.afterCommit(() -> {
+            shopClusterIndex.remove(shopId);
+            shopSearchIndex.remove(shopId);
+            shopSuggestIndex.remove(shopId);
+            shopLeaderboard.remove(shopId);
+            viewportTileCache.invalidateShop(shopId, null, null);
+            applySpatialChange(shopId, null);
+        });
+    }
+
+    private static ShopSearchIndex.Document toSearchDocument(ShopDTO shop) {
+        return new ShopSearchIndex.Document(shop.getId(), shop.getName(), shop.getAddress(), shop.getDescription());
+    }
+
+    private static ShopSuggestIndex.ShopEntry toSuggestEntry(ShopDTO shop) {
+        double weight = ShopSuggestIndex.shopWeight(shop.getWeightedRating() != null ? shop.getWeightedRating().doubleValue() : 0,
+                shop.getReviewCount() != null ? shop.getReviewCount() : 0);
+        return new ShopSuggestIndex.ShopEntry(shop.getId(), shop.getName(), shop.getCounty(), shop.getDistrict(), shop.getDescription(), weight);
+    }
+
+    /**
+     * 更新空間索引、遞增資料版本號並記錄變更的店家與其變更前的位置
+     * (同步以確保變更記錄按版本號排序，且記錄的舊位置就是上一筆變更後的位置)。
+     * @param marker 最新的店家標記，為 null 表示從地圖上移除
+     */
+    private synchronized void applySpatialChange(Long shopId, ShopMarkerDTO marker) {
+        ShopMarkerDTO previous = marker != null ? shopSpatialIndex.upsert(marker) : shopSpatialIndex.remove(shopId);
+        ShopChangeLog.Position previousPosition = previous != null ? new ShopChangeLog.Position(previous.getLatitude(), previous.getLongitude()) : null;
+        shopChangeLog.record(dataVersion.incrementAndGet(), shopId, previousPosition);
+    }
+}
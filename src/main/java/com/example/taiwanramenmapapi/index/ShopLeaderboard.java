@@ -0,0 +1,203 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 店家排行榜的記憶體快照：全台灣、各縣市、各鄉鎮市區各一份，依加權評分、評論數由高到低排序。
+ * <p>
+ * 寫入端 (經由 {@link ShopIndexSynchronizer}) 在互斥下更新可變的排序集合，
+ * 再把受影響排行榜的前 N 名複製成不可變列表，與其他排行榜組成新快照後以原子參照一次替換。
+ * 讀取端只讀取當下的快照，不取鎖也不存取資料庫；快照一經發布就不再修改。
+ * 評論數未達 app.ranking.min-reviews 的店家不列入排行。
+ */
+@Component
+public class ShopLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopLeaderboard.class);
+
+    /** 全台灣排行榜的鍵 */
+    private static final String ALL = "";
+
+    /** 排行榜中的一家店 (排序鍵與發布用的 DTO 快照) */
+    private record Entry(long id, double weightedRating, int reviewCount, String county, String district, ShopDTO shop) { }
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::weightedRating).reversed()
+            .thenComparing(Comparator.comparingInt(Entry::reviewCount).reversed())
+            .thenComparingLong(Entry::id);
+
+    /**
+     * 已發布的快照。
+     * @param boards 排行榜鍵 -> 前 N 名 (不可變)
+     */
+    private record Snapshot(Map<String, List<ShopDTO>> boards) { }
+
+    private final int minReviews;
+    /** 每個排行榜保留的名次數 (單次查詢最多返回的數量) */
+    private final int size;
+
+    // --- 寫入端狀態 (只在 synchronized 方法中存取) ---
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, NavigableSet<Entry>> rankings = new HashMap<>();
+
+    /** 讀取端唯一存取的狀態，null 表示尚未載入 */
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public ShopLeaderboard(@Value("${app.ranking.min-reviews:3}") int minReviews,
+                           @Value("${app.ranking.leaderboard-size:50}") int size) {
+        if (size <= 0) { throw new IllegalArgumentException("app.ranking.leaderboard-size 必須大於 0"); }
+        this.minReviews = minReviews;
+        this.size = size;
+    }
+
+    /** 排行榜是否已完成初始載入 */
+    public boolean isReady() { return snapshot.get() != null; }
+
+    /** 每個排行榜保留的名次數 */
+    public int getSize() { return size; }
+
+    /**
+     * 以全部店家重建 (應用啟動時調用)。
+     * @param shops 評論數達到門檻的店家 (含媒體的完整 DTO)
+     */
+    public synchronized void rebuild(Collection<ShopDTO> shops) {
+        entries.clear();
+        rankings.clear();
+        for (ShopDTO shop : shops) { add(shop); }
+        Map<String, List<ShopDTO>> boards = new HashMap<>();
+        for (String key : rankings.keySet()) { boards.put(key, ranked(key)); }
+        boards.putIfAbsent(ALL, Collections.emptyList());
+        snapshot.set(new Snapshot(Map.copyOf(boards)));
+        logger.info("排行榜重建完成: {} 家店，{} 個排行榜", entries.size(), boards.size());
+    }
+
+    /** 店家新增或更新 (評分、名稱、媒體等)，重新發布受影響的排行榜 */
+    public synchronized void upsert(ShopDTO shop) {
+        if (shop == null || shop.getId() == null) return;
+        Set<String> affected = new HashSet<>(removeEntry(shop.getId()));
+        affected.addAll(add(shop));
+        publish(affected);
+    }
+
+    /** 移除一家店 (不存在時忽略) */
+    public synchronized void remove(Long shopId) {
+        if (shopId == null) return;
+        publish(removeEntry(shopId));
+    }
+
+    /**
+     * 全台灣排行榜。
+     * @param limit 名次數 (超過 leaderboard-size 時以 leaderboard-size 為準)
+     */
+    public List<ShopDTO> top(int limit) {
+        return read(ALL, limit);
+    }
+
+    /**
+     * 縣市排行榜。
+     * @param county 正規化的縣市名稱
+     * @param limit 名次數
+     */
+    public List<ShopDTO> topByCounty(String county, int limit) {
+        return read("county:" + county, limit);
+    }
+
+    /**
+     * 鄉鎮市區排行榜 (同名行政區跨縣市合併排名，與資料庫查詢一致)。
+     * @param district 鄉鎮市區名稱
+     * @param limit 名次數
+     */
+    public List<ShopDTO> topByDistrict(String district, int limit) {
+        return read("district:" + district, limit);
+    }
+
+    private List<ShopDTO> read(String key, int limit) {
+        Snapshot current = snapshot.get();
+        if (current == null || limit <= 0) return Collections.emptyList();
+        List<ShopDTO> board = current.boards().getOrDefault(key, Collections.emptyList());
+        return board.size() <= limit ? board : board.subList(0, limit);
+    }
+
+    // --- 寫入端 (呼叫端須在 synchronized 中) ---
+
+    /** @return 新增到的排行榜鍵 (未達門檻時為空) */
+    private List<String> add(ShopDTO shop) {
+        int reviewCount = shop.getReviewCount() != null ? shop.getReviewCount() : 0;
+        if (reviewCount < minReviews) return Collections.emptyList();
+        BigDecimal weighted = shop.getWeightedRating();
+        Entry entry = new Entry(shop.getId(), weighted != null ? weighted.doubleValue() : 0, reviewCount,
+                shop.getCounty(), shop.getDistrict(), shop);
+        entries.put(entry.id(), entry);
+        List<String> keys = keysOf(entry);
+        for (String key : keys) { rankings.computeIfAbsent(key, k -> new TreeSet<>(RANKING)).add(entry); }
+        return keys;
+    }
+
+    /** @return 原本所在的排行榜鍵 */
+    private List<String> removeEntry(Long shopId) {
+        Entry previous = entries.remove(shopId);
+        if (previous == null) return Collections.emptyList();
+        List<String> keys = keysOf(previous);
+        for (String key : keys) {
+            NavigableSet<Entry> ranking = rankings.get(key);
+            if (ranking == null) continue;
+            ranking.remove(previous);
+            if (ranking.isEmpty() && !ALL.equals(key)) { rankings.remove(key); }
+        }
+        return keys;
+    }
+
+    private static List<String> keysOf(Entry entry) {
+        List<String> keys = new ArrayList<>(3);
+        keys.add(ALL);
+        if (StringUtils.hasText(entry.county())) { keys.add("county:" + entry.county()); }
+        if (StringUtils.hasText(entry.district())) { keys.add("district:" + entry.district()); }
+        return keys;
+    }
+
+    private List<ShopDTO> ranked(String key) {
+        NavigableSet<Entry> ranking = rankings.get(key);
+        if (ranking == null) return Collections.emptyList();
+        return ranking.stream().limit(size).map(Entry::shop).toList();
+    }
+
+    /** 以受影響排行榜的新前 N 名組成新快照並替換 (其他排行榜沿用原列表) */
+    private void publish(Collection<String> affected) {
+        Snapshot current = snapshot.get();
+        if (current == null || affected.isEmpty()) return; // 尚未載入時由 rebuild 發布
+        Map<String, List<ShopDTO>> boards = new HashMap<>(current.boards());
+        boolean changed = false;
+        for (String key : affected) {
+            List<ShopDTO> next = ranked(key);
+            List<ShopDTO> previous = boards.get(key);
+            if (next.isEmpty() && !ALL.equals(key)) { changed |= boards.remove(key) != null; }
+            else if (!sameEntries(previous, next)) { boards.put(key, next); changed = true; }
+        }
+        if (changed) { snapshot.set(new Snapshot(Map.copyOf(boards))); }
+    }
+
+    /** 兩份排行是否為相同的 DTO 實例 (店家更新時會換成新的 DTO，因此也涵蓋內容變更) */
+    private static boolean sameEntries(List<ShopDTO> a, List<ShopDTO> b) {
+        if (a == null || a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) { if (a.get(i) != b.get(i)) return false; }
+        return true;
+    }
+}
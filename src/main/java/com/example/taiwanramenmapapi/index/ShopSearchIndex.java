@@ -0,0 +1,269 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 店家名稱、地址、描述的記憶體全文索引 (倒排索引 + BM25 排序)。
+ * <p>
+ * 斷詞：先做字元正規化 (全形轉半形、「台」統一為「臺」、英文轉小寫)，
+ * 中日文連續字元切成二元組 (bigram) 並保留單字 (供單字查詢)，英數字連續字元視為一個詞。
+ * 名稱欄位的詞頻加權 3 倍，因此名稱符合的店家排在前面。
+ * 查詢只讀取查詢詞的倒排列表，不掃描資料表，延遲與店家總數無關。
+ * 讀多寫少：查詢共用讀鎖，店家寫入 (經由 {@link ShopIndexSynchronizer}) 取得寫鎖後增量更新。
+ */
+@Component
+public class ShopSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopSearchIndex.class);
+
+    /** BM25 詞頻飽和參數 */
+    private static final double K1 = 1.2;
+    /** BM25 文件長度正規化參數 */
+    private static final double B = 0.75;
+    /** 各欄位的詞頻權重 */
+    private static final float NAME_WEIGHT = 3f, ADDRESS_WEIGHT = 1f, DESCRIPTION_WEIGHT = 1f;
+
+    /**
+     * 索引的一家店的可搜尋欄位。
+     * @param id 店家 ID
+     * @param name 名稱
+     * @param address 地址
+     * @param description 描述 (可為 null)
+     */
+    public record Document(long id, String name, String address, String description) { }
+
+    /**
+     * 查詢命中的店家。
+     * @param shopId 店家 ID
+     * @param score BM25 分數
+     */
+    public record Hit(long shopId, double score) { }
+
+    /**
+     * 查詢結果。
+     * @param total 符合的店家總數
+     * @param hits 要求範圍內的命中 (分數由高到低)
+     */
+    public record SearchResult(int total, List<Hit> hits) { }
+
+    /** 已索引的文件：詞與加權詞頻 (刪除或更新時用來清除倒排列表)、加權文件長度 */
+    private record IndexedDocument(Map<String, Float> termWeights, float length) { }
+
+    /** 詞 -> (店家 ID -> 加權詞頻) */
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private double totalLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 索引中的店家數量 */
+    public int size() {
+        lock.readLock().lock();
+        try { return documents.size(); } finally { lock.readLock().unlock(); }
+    }
+
+    /**
+     * 以全部店家重建索引 (應用啟動時調用)。
+     * @param documents 所有店家的可搜尋欄位
+     */
+    public void rebuild(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            this.postings.clear();
+            this.documents.clear();
+            this.totalLength = 0;
+            for (Document document : documents) { add(document); }
+            logger.info("全文索引重建完成: {} 家店，{} 個詞", this.documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 新增或更新一家店 */
+    public void upsert(Document document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.id());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 移除一家店 (不存在時忽略) */
+    public void remove(Long shopId) {
+        if (shopId == null) return;
+        lock.writeLock().lock();
+        try { removeInternal(shopId); } finally { lock.writeLock().unlock(); }
+    }
+
+    /**
+     * 全文查詢，依 BM25 分數排序 (同分時 ID 小的在前)。
+     * @param query 查詢字串
+     * @param offset 略過的命中數
+     * @param limit 最多返回的命中數
+     * @return 查詢結果，沒有可用的查詢詞時為空結果
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        Set<String> terms = queryTerms(query);
+        if (terms.isEmpty() || limit <= 0) return new SearchResult(0, Collections.emptyList());
+
+        lock.readLock().lock();
+        try {
+            int n = documents.size();
+            if (n == 0) return new SearchResult(0, Collections.emptyList());
+            double avgLength = totalLength / n;
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Float> posting = postings.get(term);
+                if (posting == null) continue;
+                double idf = Math.log(1 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Long, Float> e : posting.entrySet()) {
+                    double tf = e.getValue();
+                    double norm = K1 * (1 - B + B * documents.get(e.getKey()).length() / avgLength);
+                    scores.merge(e.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            // 只保留前 offset + limit 名 (小頂堆)，不對全部命中排序
+            int keep = offset + limit;
+            Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::shopId);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(keep, Math.max(1, scores.size())), ranking.reversed());
+            for (Map.Entry<Long, Double> e : scores.entrySet()) {
+                Hit hit = new Hit(e.getKey(), e.getValue());
+                if (top.size() < keep) { top.add(hit); }
+                else if (ranking.compare(hit, top.peek()) < 0) { top.poll(); top.add(hit); }
+            }
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(ranking);
+            List<Hit> page = offset >= ranked.size() ? Collections.emptyList() : ranked.subList(offset, ranked.size());
+            return new SearchResult(scores.size(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- 斷詞 ---
+
+    /**
+     * 斷詞 (索引用)：中日文字元產生單字與二元組，英數字連續字元產生一個詞。
+     * @param text 原始文字 (可為 null)
+     * @return 詞列表 (保留重複，用於計算詞頻)
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) return tokens;
+        String s = normalize(text);
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < s.length() && isCjk(s.charAt(i))) i++;
+                for (int j = start; j < i; j++) {
+                    tokens.add(String.valueOf(s.charAt(j)));
+                    if (j + 1 < i) tokens.add(s.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < s.length() && Character.isLetterOrDigit(s.charAt(i)) && !isCjk(s.charAt(i))) i++;
+                tokens.add(s.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 斷詞 (查詢用)：兩個字以上的中日文只取二元組 (單字太常見，會稀釋排序)，單獨一個字才取單字。
+     */
+    static Set<String> queryTerms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (query == null || query.isBlank()) return terms;
+        String s = normalize(query);
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < s.length() && isCjk(s.charAt(i))) i++;
+                if (i - start == 1) { terms.add(String.valueOf(c)); }
+                for (int j = start; j + 1 < i; j++) { terms.add(s.substring(j, j + 2)); }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < s.length() && Character.isLetterOrDigit(s.charAt(i)) && !isCjk(s.charAt(i))) i++;
+                terms.add(s.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    /** 字元正規化：全形英數符號與全形空白轉半形、「台」轉「臺」、英文轉小寫 */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '！' && c <= '～') { c = (char) (c - '！' + '!'); }
+            else if (c == '　') { c = ' '; }
+            sb.append(Character.toLowerCase(c));
+        }
+        return TaiwanAddressParser.normalize(sb.toString());
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || c == 'ー';
+    }
+
+    // --- 索引維護 (呼叫端須持有寫鎖) ---
+
+    private void add(Document document) {
+        Map<String, Float> weights = new HashMap<>();
+        float length = addField(weights, document.name(), NAME_WEIGHT)
+                + addField(weights, document.address(), ADDRESS_WEIGHT)
+                + addField(weights, document.description(), DESCRIPTION_WEIGHT);
+        if (weights.isEmpty()) return;
+        for (Map.Entry<String, Float> e : weights.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), t -> new HashMap<>()).put(document.id(), e.getValue());
+        }
+        documents.put(document.id(), new IndexedDocument(weights, length));
+        totalLength += length;
+    }
+
+    private static float addField(Map<String, Float> weights, String text, float weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) { weights.merge(token, weight, Float::sum); }
+        return tokens.size() * weight;
+    }
+
+    private void removeInternal(long shopId) {
+        IndexedDocument existing = documents.remove(shopId);
+        if (existing == null) return;
+        for (String term : existing.termWeights().keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting == null) continue;
+            posting.remove(shopId);
+            if (posting.isEmpty()) { postings.remove(term); }
+        }
+        totalLength -= existing.length();
+    }
+}
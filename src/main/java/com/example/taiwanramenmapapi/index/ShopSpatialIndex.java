@@ -0,0 +1,290 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 店家位置的記憶體空間索引 (均勻網格)。
+ * <p>
+ * 以原始 double 經緯度將店家分配到固定大小的網格中，地圖邊界查詢只需掃描相交的網格，
+ * 不需要佔用資料庫連線。每個網格保存一個不可變陣列，寫入時複製 (copy-on-write)，
+ * 因此讀取路徑完全無鎖；寫入由 {@code synchronized} 串行化 (店家資料寫入頻率很低)。
+ */
+@Component
+public class ShopSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopSpatialIndex.class);
+
+    /** 單次查詢最多掃描的網格數，超過時改為直接掃描全部店家 (地圖縮得很小時) */
+    private static final int MAX_CELLS_PER_QUERY = 4096;
+
+    /** k-NN 最多擴張的圈數，超過時改為全量掃描 (查詢點遠離所有店家時) */
+    private static final int MAX_KNN_RINGS = 128;
+
+    private static final IndexedShop[] EMPTY = new IndexedShop[0];
+
+    /** 網格大小 (度)，預設 0.01 度約 1.1 公里 */
+    private final double cellSizeDeg;
+
+    private final Map<Long, IndexedShop> shopsById = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedShop[]> cells = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    /** 曾出現過店家的網格範圍 (只擴大不縮小)，用於限制 k-NN 的擴張圈數 */
+    private volatile long minRowSeen = Long.MAX_VALUE, maxRowSeen = Long.MIN_VALUE, minColSeen = Long.MAX_VALUE, maxColSeen = Long.MIN_VALUE;
+    /** 全部店家內容指紋之和 (見 {@link #getContentFingerprint()}) */
+    private volatile long contentFingerprint;
+
+    public ShopSpatialIndex(@Value("${app.geo-index.cell-size-deg:0.01}") double cellSizeDeg) {
+        if (cellSizeDeg <= 0) { throw new IllegalArgumentException("app.geo-index.cell-size-deg 必須大於 0"); }
+        this.cellSizeDeg = cellSizeDeg;
+    }
+
+    /**
+     * 索引中的一筆店家記錄。
+     * @param id 店家 ID
+     * @param lat 緯度
+     * @param lng 經度
+     * @param shop 店家標記快照 (直接作為查詢結果返回)
+     */
+    public record IndexedShop(long id, double lat, double lng, ShopMarkerDTO shop) { }
+
+    /**
+     * k-NN 查詢結果。
+     * @param shop 店家標記快照
+     * @param distanceMeters 與查詢點的 haversine 距離 (公尺)
+     */
+    public record Neighbor(ShopMarkerDTO shop, double distanceMeters) { }
+
+    /** 索引是否已完成初始載入 */
+    public boolean isReady() { return ready; }
+
+    /** 索引中的店家數量 */
+    public int size() { return shopsById.size(); }
+
+    /**
+     * 索引內容的指紋：各店家 (ID、經緯度、加權評分、評論數) 雜湊值之和，寫入時增量維護。
+     * 只取決於資料本身，與程序啟動次數、執行個體無關，相同的店家資料在任何程序中得到相同的值。
+     * @return 內容指紋
+     */
+    public long getContentFingerprint() { return contentFingerprint; }
+
+    /**
+     * 根據 ID 取得索引中的店家。
+     * @param shopId 店家 ID
+     * @return 店家標記快照，不在索引中 (已刪除或沒有經緯度) 時為 null
+     */
+    public ShopMarkerDTO get(Long shopId) {
+        IndexedShop entry = shopId == null ? null : shopsById.get(shopId);
+        return entry == null ? null : entry.shop();
+    }
+
+    /**
+     * 以完整的店家列表重建索引 (啟動時調用)。
+     * @param shops 所有店家的 DTO 快照
+     */
+    public synchronized void rebuild(Collection<ShopMarkerDTO> shops) {
+        shopsById.clear();
+        cells.clear();
+        minRowSeen = Long.MAX_VALUE; maxRowSeen = Long.MIN_VALUE; minColSeen = Long.MAX_VALUE; maxColSeen = Long.MIN_VALUE;
+        Map<Long, List<IndexedShop>> grouped = new HashMap<>();
+        long fingerprint = 0;
+        for (ShopMarkerDTO dto : shops) {
+            IndexedShop entry = toEntry(dto);
+            if (entry == null) continue;
+            shopsById.put(entry.id(), entry);
+            fingerprint += fingerprintOf(entry);
+            grouped.computeIfAbsent(cellKey(entry.lat(), entry.lng()), k -> new ArrayList<>()).add(entry);
+        }
+        grouped.forEach((key, list) -> cells.put(key, list.toArray(EMPTY)));
+        contentFingerprint = fingerprint;
+        for (IndexedShop entry : shopsById.values()) {
+            long row = cellIndex(entry.lat()), col = cellIndex(entry.lng());
+            minRowSeen = Math.min(minRowSeen, row); maxRowSeen = Math.max(maxRowSeen, row);
+            minColSeen = Math.min(minColSeen, col); maxColSeen = Math.max(maxColSeen, col);
+        }
+        ready = true;
+        logger.info("店家空間索引重建完成: {} 家店, {} 個網格", shopsById.size(), cells.size());
+    }
+
+    /**
+     * 新增或更新一個店家 (位置變更時會移動到新的網格)。
+     * 標記只為有經緯度的店家建立；沒有經緯度時應調用 {@link #remove(Long)}。
+     * @param dto 店家標記快照
+     * @return 更新前的店家標記，原本不在索引中時為 null
+     */
+    public synchronized ShopMarkerDTO upsert(ShopMarkerDTO dto) {
+        if (dto == null || dto.getId() == null) return null;
+        IndexedShop entry = toEntry(dto);
+        IndexedShop previous = entry == null ? shopsById.remove(dto.getId()) : shopsById.put(entry.id(), entry);
+        if (previous != null) { removeFromCell(previous); }
+        if (entry != null) { addToCell(entry); }
+        logger.debug("空間索引已更新店家 ID {}", dto.getId());
+        return previous == null ? null : previous.shop();
+    }
+
+    /**
+     * 從索引中移除店家。
+     * @param shopId 店家 ID
+     * @return 移除的店家標記，原本不在索引中時為 null
+     */
+    public synchronized ShopMarkerDTO remove(Long shopId) {
+        if (shopId == null) return null;
+        IndexedShop previous = shopsById.remove(shopId);
+        if (previous == null) return null;
+        removeFromCell(previous);
+        logger.debug("空間索引已移除店家 ID {}", shopId);
+        return previous.shop();
+    }
+
+    /**
+     * 查詢邊界內的店家。
+     * @return 邊界內店家的 DTO 快照
+     */
+    public List<ShopMarkerDTO> findInBounds(double minLat, double maxLat, double minLng, double maxLng) {
+        List<ShopMarkerDTO> result = new ArrayList<>();
+        if (minLat > maxLat || minLng > maxLng) return result;
+        long minRow = cellIndex(minLat), maxRow = cellIndex(maxLat);
+        long minCol = cellIndex(minLng), maxCol = cellIndex(maxLng);
+        long cellCount = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (cellCount > MAX_CELLS_PER_QUERY || cellCount > cells.size()) {
+            for (IndexedShop s : shopsById.values()) {
+                if (contains(s, minLat, maxLat, minLng, maxLng)) result.add(s.shop());
+            }
+            return result;
+        }
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                IndexedShop[] cell = cells.get(packKey(row, col));
+                if (cell == null) continue;
+                boolean inner = row > minRow && row < maxRow && col > minCol && col < maxCol;
+                for (IndexedShop s : cell) {
+                    if (inner || contains(s, minLat, maxLat, minLng, maxLng)) result.add(s.shop());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * k 近鄰查詢：從查詢點所在網格開始逐圈向外擴張 (expanding ring)，
+     * 以 haversine 距離維護大小為 k 的最大堆；當下一圈網格的最短可能距離已超過第 k 名時停止。
+     * @param lat 查詢點緯度
+     * @param lng 查詢點經度
+     * @param k 返回數量
+     * @param maxDistanceMeters 最大距離 (公尺)，&lt;= 0 表示不限
+     * @return 按距離由近到遠排序的結果
+     */
+    public List<Neighbor> findNearest(double lat, double lng, int k, double maxDistanceMeters) {
+        List<Neighbor> result = new ArrayList<>();
+        if (k <= 0 || shopsById.isEmpty()) return result;
+        double limit = maxDistanceMeters > 0 ? maxDistanceMeters : Double.MAX_VALUE;
+        PriorityQueue<Neighbor> heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b.distanceMeters(), a.distanceMeters()));
+        long centerRow = cellIndex(lat), centerCol = cellIndex(lng);
+        long maxRing = Math.max(Math.max(Math.abs(centerRow - minRowSeen), Math.abs(maxRowSeen - centerRow)),
+                Math.max(Math.abs(centerCol - minColSeen), Math.abs(maxColSeen - centerCol)));
+        boolean finished = false;
+        for (long ring = 0; ring <= Math.min(maxRing, MAX_KNN_RINGS); ring++) {
+            for (long row = centerRow - ring; row <= centerRow + ring; row++) {
+                boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                long step = edgeRow ? 1 : Math.max(1, 2 * ring); // 非邊緣列只需看左右兩端的網格
+                for (long col = centerCol - ring; col <= centerCol + ring; col += step) {
+                    IndexedShop[] cell = cells.get(packKey(row, col));
+                    if (cell == null) continue;
+                    for (IndexedShop s : cell) { offerNeighbor(heap, k, limit, s, GeoUtils.haversineMeters(lat, lng, s.lat(), s.lng())); }
+                }
+            }
+            // 尚未掃描的店家至少相隔 ring 個完整網格
+            double nextRingMinDistance = ring * cellSizeDeg * metersPerDegreeLowerBound(lat, ring + 1);
+            if (ring == maxRing || nextRingMinDistance > limit || (heap.size() == k && nextRingMinDistance >= heap.peek().distanceMeters())) {
+                finished = true;
+                break;
+            }
+        }
+        if (!finished) { // 圈數達上限仍未確定結果，退回全量掃描
+            heap.clear();
+            for (IndexedShop s : shopsById.values()) { offerNeighbor(heap, k, limit, s, GeoUtils.haversineMeters(lat, lng, s.lat(), s.lng())); }
+        }
+        result.addAll(heap);
+        result.sort((a, b) -> Double.compare(a.distanceMeters(), b.distanceMeters()));
+        return result;
+    }
+
+    // --- 私有輔助方法 ---
+
+    private static void offerNeighbor(PriorityQueue<Neighbor> heap, int k, double limit, IndexedShop s, double distance) {
+        if (distance > limit) return;
+        if (heap.size() < k) { heap.add(new Neighbor(s.shop(), distance)); }
+        else if (distance < heap.peek().distanceMeters()) { heap.poll(); heap.add(new Neighbor(s.shop(), distance)); }
+    }
+
+    /** 在查詢點附近 (向極區擴張 rings 個網格內) 每度經/緯度對應的最短公尺數 */
+    private double metersPerDegreeLowerBound(double lat, long rings) {
+        double poleward = Math.min(89.0, Math.abs(lat) + rings * cellSizeDeg);
+        return Math.toRadians(1.0) * GeoUtils.EARTH_RADIUS_METERS * Math.cos(Math.toRadians(poleward));
+    }
+
+    private IndexedShop toEntry(ShopMarkerDTO dto) {
+        if (dto == null || dto.getId() == null) return null;
+        return new IndexedShop(dto.getId(), dto.getLatitude(), dto.getLongitude(), dto);
+    }
+
+    private void addToCell(IndexedShop entry) {
+        contentFingerprint += fingerprintOf(entry);
+        long row = cellIndex(entry.lat()), col = cellIndex(entry.lng());
+        minRowSeen = Math.min(minRowSeen, row); maxRowSeen = Math.max(maxRowSeen, row);
+        minColSeen = Math.min(minColSeen, col); maxColSeen = Math.max(maxColSeen, col);
+        cells.merge(cellKey(entry.lat(), entry.lng()), new IndexedShop[] { entry }, (old, added) -> {
+            IndexedShop[] copy = Arrays.copyOf(old, old.length + 1);
+            copy[old.length] = added[0];
+            return copy;
+        });
+    }
+
+    private void removeFromCell(IndexedShop entry) {
+        contentFingerprint -= fingerprintOf(entry);
+        cells.computeIfPresent(cellKey(entry.lat(), entry.lng()), (key, old) -> {
+            IndexedShop[] copy = Arrays.stream(old).filter(s -> s.id() != entry.id()).toArray(IndexedShop[]::new);
+            return copy.length == 0 ? null : copy;
+        });
+    }
+
+    /** 單一店家的 64 位元雜湊 (以 splitmix64 混合各欄位，和的碰撞機率可忽略) */
+    private static long fingerprintOf(IndexedShop entry) {
+        ShopMarkerDTO shop = entry.shop();
+        long h = mix(entry.id());
+        h = mix(h ^ Double.doubleToLongBits(entry.lat()));
+        h = mix(h ^ Double.doubleToLongBits(entry.lng()));
+        h = mix(h ^ Double.doubleToLongBits(shop.getWeightedRating() != null ? shop.getWeightedRating().doubleValue() : 0.0));
+        return mix(h ^ (shop.getReviewCount() != null ? shop.getReviewCount() : 0));
+    }
+
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean contains(IndexedShop s, double minLat, double maxLat, double minLng, double maxLng) {
+        return s.lat() >= minLat && s.lat() <= maxLat && s.lng() >= minLng && s.lng() <= maxLng;
+    }
+
+    private long cellIndex(double degrees) { return (long) Math.floor(degrees / cellSizeDeg); }
+
+    private long cellKey(double lat, double lng) { return packKey(cellIndex(lat), cellIndex(lng)); }
+
+    private static long packKey(long row, long col) { return (row << 32) | (col & 0xffffffffL); }
+}
@@ -0,0 +1,264 @@
+package com.example.taiwanramenmapapi.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 搜尋框自動完成的前綴樹：店家名稱、縣市、鄉鎮市區與熱門詞。
+ * <p>
+ * 每個節點預先保存其子樹中權重最高的前 K 個候選，查詢只需沿前綴走到節點後直接返回，
+ * 耗時只與前綴長度有關。店家權重由加權評分與評論數決定，縣市、行政區、熱門詞的權重為所屬店家權重之和。
+ * 店家寫入時只更新受影響的候選，並沿其路徑由下往上重算前 K 名，不需重建整棵樹。
+ * 鍵以 {@link ShopSearchIndex} 相同的規則正規化 (全形轉半形、「台」轉「臺」、小寫)，並去除空白。
+ */
+@Component
+public class ShopSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopSuggestIndex.class);
+
+    public enum Type { SHOP, COUNTY, DISTRICT, TERM }
+
+    /**
+     * 自動完成候選。
+     * @param text 顯示文字
+     * @param type 類型
+     * @param shopId 店家 ID (類型為 SHOP 時)
+     * @param weight 排序權重
+     */
+    public record Suggestion(String text, Type type, Long shopId, double weight) { }
+
+    /**
+     * 店家的自動完成相關欄位。
+     * @param id 店家 ID
+     * @param name 名稱
+     * @param county 縣市 (可為 null)
+     * @param district 鄉鎮市區 (可為 null)
+     * @param description 描述 (用於比對熱門詞，可為 null)
+     * @param weight 店家權重 (見 {@link #shopWeight})
+     */
+    public record ShopEntry(long id, String name, String county, String district, String description, double weight) { }
+
+    private static final Comparator<Suggestion> RANKING =
+            Comparator.comparingDouble(Suggestion::weight).reversed().thenComparing(Suggestion::text);
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        /** 鍵剛好在此結束的候選 (以候選 ID 區分，例如同名的兩家店) */
+        Map<String, Suggestion> terminals;
+        /** 子樹中權重最高的前 K 個候選 (已排序) */
+        Suggestion[] top = NONE;
+    }
+
+    /** 每個節點保留的候選數 (單次查詢最多返回的數量) */
+    private final int maxSuggestions;
+    /** 熱門詞 (原文 -> 正規化後) */
+    private final Map<String, String> popularTerms = new HashMap<>();
+
+    private final Node root = new Node();
+    /** 已索引的店家 (計算縣市、行政區、熱門詞權重的差額用) */
+    private final Map<Long, ShopEntry> shops = new HashMap<>();
+    /** 縣市、行政區、熱門詞的聚合權重 (候選 ID -> 權重) 與店家數 */
+    private final Map<String, double[]> aggregates = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ShopSuggestIndex(@Value("${app.suggest.max-suggestions:10}") int maxSuggestions,
+                            @Value("${app.suggest.popular-terms:}") List<String> popularTerms) {
+        if (maxSuggestions <= 0) { throw new IllegalArgumentException("app.suggest.max-suggestions 必須大於 0"); }
+        this.maxSuggestions = maxSuggestions;
+        for (String term : popularTerms) {
+            String key = key(term);
+            if (!key.isEmpty()) { this.popularTerms.put(term.trim(), key); }
+        }
+    }
+
+    /** 店家權重：加權評分加上評論數的對數 (評論多的店家略為優先) */
+    public static double shopWeight(double weightedRating, int reviewCount) {
+        return weightedRating + Math.log1p(Math.max(0, reviewCount));
+    }
+
+    /** 每次查詢最多返回的候選數 */
+    public int getMaxSuggestions() { return maxSuggestions; }
+
+    /**
+     * 以全部店家重建 (應用啟動時調用)。
+     * @param entries 所有店家
+     */
+    public void rebuild(Collection<ShopEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.terminals = null;
+            root.top = NONE;
+            shops.clear();
+            aggregates.clear();
+            for (ShopEntry entry : entries) { upsertInternal(entry); }
+            logger.info("自動完成索引重建完成: {} 家店，{} 個聚合候選", shops.size(), aggregates.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 新增或更新一家店 */
+    public void upsert(ShopEntry entry) {
+        lock.writeLock().lock();
+        try { upsertInternal(entry); } finally { lock.writeLock().unlock(); }
+    }
+
+    /** 移除一家店 (不存在時忽略) */
+    public void remove(Long shopId) {
+        if (shopId == null) return;
+        lock.writeLock().lock();
+        try {
+            ShopEntry previous = shops.remove(shopId);
+            if (previous == null) return;
+            put(key(previous.name()), "shop:" + shopId, null);
+            for (String[] group : groups(previous)) { adjust(group, -previous.weight(), -1); }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查詢前綴的自動完成候選。
+     * @param prefix 使用者輸入
+     * @param limit 最多返回數 (超過 max-suggestions 時以 max-suggestions 為準)
+     * @return 依權重由高到低排序的候選
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = key(prefix);
+        if (key.isEmpty() || limit <= 0) return Collections.emptyList();
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) { node = node.children.get(key.charAt(i)); }
+            if (node == null) return Collections.emptyList();
+            return List.of(Arrays.copyOf(node.top, Math.min(limit, node.top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- 內部維護 (呼叫端須持有寫鎖) ---
+
+    private void upsertInternal(ShopEntry entry) {
+        ShopEntry previous = shops.put(entry.id(), entry);
+        if (previous != null) {
+            if (!Objects.equals(previous.name(), entry.name())) { put(key(previous.name()), "shop:" + entry.id(), null); }
+            for (String[] group : groups(previous)) { adjust(group, -previous.weight(), -1); }
+        }
+        if (StringUtils.hasText(entry.name())) {
+            put(key(entry.name()), "shop:" + entry.id(), new Suggestion(entry.name().trim(), Type.SHOP, entry.id(), entry.weight()));
+        }
+        for (String[] group : groups(entry)) { adjust(group, entry.weight(), 1); }
+    }
+
+    /**
+     * 店家所屬的聚合候選：縣市、行政區、描述或名稱中出現的熱門詞。
+     * @return 每項為 {候選 ID, 類型, 鍵, 顯示文字}
+     */
+    private List<String[]> groups(ShopEntry entry) {
+        List<String[]> groups = new ArrayList<>();
+        if (StringUtils.hasText(entry.county())) {
+            groups.add(new String[] { "county:" + entry.county(), Type.COUNTY.name(), key(entry.county()), entry.county() });
+            if (StringUtils.hasText(entry.district())) {
+                groups.add(new String[] { "district:" + entry.county() + entry.district(), Type.DISTRICT.name(),
+                        key(entry.district()), entry.county() + entry.district() });
+            }
+        }
+        if (!popularTerms.isEmpty()) {
+            String text = key(entry.name()) + "\n" + key(entry.description());
+            for (Map.Entry<String, String> term : popularTerms.entrySet()) {
+                if (text.contains(term.getValue())) {
+                    groups.add(new String[] { "term:" + term.getValue(), Type.TERM.name(), term.getValue(), term.getKey() });
+                }
+            }
+        }
+        return groups;
+    }
+
+    /** 調整聚合候選的權重與店家數，店家數歸零時移除 */
+    private void adjust(String[] group, double weightDelta, int countDelta) {
+        double[] aggregate = aggregates.computeIfAbsent(group[0], id -> new double[2]);
+        aggregate[0] += weightDelta;
+        aggregate[1] += countDelta;
+        if (aggregate[1] <= 0) {
+            aggregates.remove(group[0]);
+            put(group[2], group[0], null);
+        } else {
+            put(group[2], group[0], new Suggestion(group[3], Type.valueOf(group[1]), null, aggregate[0]));
+        }
+    }
+
+    /**
+     * 在鍵的終點新增、替換或移除 (suggestion 為 null) 一個候選，並由下往上重算路徑上各節點的前 K 名。
+     */
+    private void put(String key, String id, Suggestion suggestion) {
+        if (key.isEmpty()) return;
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = path[i].children.get(key.charAt(i));
+            if (child == null) {
+                if (suggestion == null) return; // 要移除的鍵不存在
+                child = new Node();
+                path[i].children.put(key.charAt(i), child);
+            }
+            path[i + 1] = child;
+        }
+        Node end = path[key.length()];
+        if (suggestion != null) {
+            if (end.terminals == null) { end.terminals = new HashMap<>(2); }
+            end.terminals.put(id, suggestion);
+        } else if (end.terminals != null) {
+            end.terminals.remove(id);
+            if (end.terminals.isEmpty()) { end.terminals = null; }
+        }
+        // 根節點不提供查詢 (空前綴)，不需要維護前 K 名
+        for (int i = key.length(); i >= 1; i--) {
+            Node node = path[i];
+            if (node.terminals == null && node.children.isEmpty()) {
+                path[i - 1].children.remove(key.charAt(i - 1));
+                continue;
+            }
+            node.top = topOf(node);
+        }
+    }
+
+    private Suggestion[] topOf(Node node) {
+        Set<Suggestion> candidates = new LinkedHashSet<>();
+        if (node.terminals != null) { candidates.addAll(node.terminals.values()); }
+        for (Node child : node.children.values()) { Collections.addAll(candidates, child.top); }
+        if (candidates.isEmpty()) return NONE;
+        return candidates.stream().sorted(RANKING).limit(maxSuggestions).toArray(Suggestion[]::new);
+    }
+
+    /** 自動完成的比對鍵：與全文索引相同的正規化，再去除空白 */
+    static String key(String text) {
+        if (text == null) return "";
+        String normalized = ShopSearchIndex.normalize(text);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+}
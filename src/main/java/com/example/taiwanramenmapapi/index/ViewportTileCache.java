@@ -0,0 +1,137 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 地圖邊界查詢的量化結果快取。
+ * <p>
+ * 把請求的邊界對齊到固定大小的網格 (瓦片)，每個瓦片快取一份店家列表 (LRU，數量上限可設定)，
+ * 回應由相交瓦片的快取組合後再裁切到精確邊界。相鄰使用者的邊界幾乎相同，因此大多能直接命中。
+ * 店家新增、移動 (地址重新編碼) 或刪除時，只作廢該店家新舊位置所在的瓦片。
+ */
+@Component
+public class ViewportTileCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewportTileCache.class);
+
+    /** 單次請求最多組合的瓦片數，超過時不使用快取 (地圖縮得很小時) */
+    private static final int MAX_TILES_PER_QUERY = 256;
+
+    private final double tileSizeDeg;
+    /** 瓦片 -> 店家 (經緯度在載入時轉為 double 一次，裁切時不再經過 BigDecimal) */
+    private final Map<Long, List<CachedShop>> tiles;
+    /** 店家 ID -> 所在瓦片，用於店家移動時作廢舊瓦片 */
+    private final Map<Long, Long> shopTiles = new ConcurrentHashMap<>();
+    /** 作廢計數，載入期間若有作廢則不寫入快取，避免存入過期資料 */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record CachedShop(double lat, double lng, ShopDTO shop) { }
+
+    public ViewportTileCache(@Value("${app.viewport-cache.tile-size-deg:0.05}") double tileSizeDeg,
+                             @Value("${app.viewport-cache.max-tiles:1024}") int maxTiles) {
+        if (tileSizeDeg <= 0) { throw new IllegalArgumentException("app.viewport-cache.tile-size-deg 必須大於 0"); }
+        this.tileSizeDeg = tileSizeDeg;
+        this.tiles = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<CachedShop>> eldest) {
+                return size() > maxTiles;
+            }
+        });
+    }
+
+    /**
+     * 由快取組合邊界內的店家，缺少的瓦片以 loader 一次載入 (參數為缺少瓦片的外接矩形 {minLat, maxLat, minLng, maxLng})。
+     * @return 邊界內的店家列表；瓦片數過多時返回 null，由呼叫端直接查詢
+     */
+    public List<ShopDTO> getOrLoad(double minLat, double maxLat, double minLng, double maxLng, Function<double[], List<ShopDTO>> loader) {
+        long minRow = cellIndex(minLat), maxRow = cellIndex(maxLat);
+        long minCol = cellIndex(minLng), maxCol = cellIndex(maxLng);
+        if ((maxRow - minRow + 1) * (maxCol - minCol + 1) > MAX_TILES_PER_QUERY) { return null; }
+
+        Map<Long, List<CachedShop>> hit = new HashMap<>();
+        long missMinRow = Long.MAX_VALUE, missMaxRow = Long.MIN_VALUE, missMinCol = Long.MAX_VALUE, missMaxCol = Long.MIN_VALUE;
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                long key = tileKey(row, col);
+                List<CachedShop> cached = tiles.get(key);
+                if (cached != null) { hit.put(key, cached); continue; }
+                missMinRow = Math.min(missMinRow, row); missMaxRow = Math.max(missMaxRow, row);
+                missMinCol = Math.min(missMinCol, col); missMaxCol = Math.max(missMaxCol, col);
+            }
+        }
+
+        if (missMinRow != Long.MAX_VALUE) {
+            long generation = invalidations.get();
+            double[] box = { missMinRow * tileSizeDeg, (missMaxRow + 1) * tileSizeDeg, missMinCol * tileSizeDeg, (missMaxCol + 1) * tileSizeDeg };
+            Map<Long, List<CachedShop>> loaded = new HashMap<>();
+            for (ShopDTO shop : loader.apply(box)) {
+                if (shop.getLatitude() == null || shop.getLongitude() == null) continue;
+                CachedShop entry = new CachedShop(shop.getLatitude().doubleValue(), shop.getLongitude().doubleValue(), shop);
+                loaded.computeIfAbsent(tileKeyOf(entry.lat(), entry.lng()), k -> new ArrayList<>()).add(entry);
+            }
+            boolean cacheable = invalidations.get() == generation;
+            for (long row = missMinRow; row <= missMaxRow; row++) {
+                for (long col = missMinCol; col <= missMaxCol; col++) {
+                    long key = tileKey(row, col);
+                    if (hit.containsKey(key)) continue;
+                    List<CachedShop> tileShops = List.copyOf(loaded.getOrDefault(key, Collections.emptyList()));
+                    hit.put(key, tileShops);
+                    if (cacheable) {
+                        tiles.put(key, tileShops);
+                        tileShops.forEach(entry -> shopTiles.put(entry.shop().getId(), key));
+                    }
+                }
+            }
+            logger.debug("視窗快取載入瓦片: rows {}..{}, cols {}..{} (可快取: {})", missMinRow, missMaxRow, missMinCol, missMaxCol, cacheable);
+        }
+
+        List<ShopDTO> result = new ArrayList<>();
+        for (List<CachedShop> tileShops : hit.values()) {
+            for (CachedShop entry : tileShops) {
+                if (entry.lat() >= minLat && entry.lat() <= maxLat && entry.lng() >= minLng && entry.lng() <= maxLng) { result.add(entry.shop()); }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 店家新增、更新或移動：作廢舊位置與新位置所在的瓦片。
+     * @param shopId 店家 ID
+     * @param lat 新緯度 (沒有時為 null)
+     * @param lng 新經度 (沒有時為 null)
+     */
+    public void invalidateShop(Long shopId, Double lat, Double lng) {
+        if (shopId == null) return;
+        invalidations.incrementAndGet();
+        Long previous = shopTiles.remove(shopId);
+        if (previous != null) { tiles.remove(previous); }
+        if (lat != null && lng != null) { tiles.remove(tileKeyOf(lat, lng)); }
+    }
+
+    /** 清空全部快取 */
+    public void clear() {
+        invalidations.incrementAndGet();
+        tiles.clear();
+        shopTiles.clear();
+    }
+
+    private long tileKeyOf(double lat, double lng) { return tileKey(cellIndex(lat), cellIndex(lng)); }
+
+    private long cellIndex(double deg) { return (long) Math.floor(deg / tileSizeDeg); }
+
+    private static long tileKey(long row, long col) { return (row << 32) | (col & 0xffffffffL); }
+}
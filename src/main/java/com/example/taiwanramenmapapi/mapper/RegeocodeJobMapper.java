@@ -0,0 +1,15 @@
+package com.example.taiwanramenmapapi.mapper;
+
+import com.example.taiwanramenmapapi.dto.response.RegeocodeJobDTO;
+import com.example.taiwanramenmapapi.entity.RegeocodeJob;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface RegeocodeJobMapper {
+
+    RegeocodeJobDTO toRegeocodeJobDTO(RegeocodeJob job);
+
+    List<RegeocodeJobDTO> toRegeocodeJobDTOs(List<RegeocodeJob> jobs);
+}
@@ -3,6 +3,8 @@ package com.example.taiwanramenmapapi.mapper;
 // import com.example.taiwanramenmapapi.dto.request.CreateShopRequest;
 import com.example.taiwanramenmapapi.dto.request.UpdateShopRequest;
 import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMediaDTO;
 import com.example.taiwanramenmapapi.entity.Shop;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
@@ -10,7 +12,10 @@ import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.Mappings;
 import org.mapstruct.NullValuePropertyMappingStrategy;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 // *** 修改這裡：暫時移除 ShopMediaMapper.class 的依賴 ***
 @Mapper(componentModel = "spring", uses = { UserMapper.class /*, ShopMediaMapper.class */ })
@@ -25,8 +30,9 @@ public interface ShopMapper {
             // --- 強制直接映射 ---
             @Mapping(source = "name", target = "name"),
             @Mapping(source = "address", target = "address"),
-            @Mapping(source = "phone", target = "phone")
+            @Mapping(source = "phone", target = "phone"),
             // --- ---
+            @Mapping(target = "ratingHistogram", expression = "java(ratingHistogramOf(shop))")
     })
     ShopDTO toShopDTO(Shop shop);
 
@@ -34,8 +40,54 @@ public interface ShopMapper {
     // 如果 toShopDTOs 被調用，可能也需要調整或接受 media 為空
     List<ShopDTO> toShopDTOs(List<Shop> shops);
 
-    // --- 更新方法保持不變 ---
+    // 將完整的 ShopDTO 轉為地圖標記 (供記憶體索引使用)，封面取 ID 最小的圖片
+    @Mapping(target = "coverUrl", expression = "java(coverUrlOf(shopDTO.getMedia()))")
+    ShopMarkerDTO toShopMarkerDTO(ShopDTO shopDTO);
+
+    default String coverUrlOf(List<ShopMediaDTO> media) {
+        if (media == null) return null;
+        return media.stream()
+                .filter(m -> "image".equals(m.getType()) && m.getId() != null)
+                .min(Comparator.comparing(ShopMediaDTO::getId))
+                .map(ShopMediaDTO::getUrl)
+                .orElse(null);
+    }
+
+    // 評分分佈：星等 1~5 依序對應店家的五個計數欄位
+    default Map<Integer, Integer> ratingHistogramOf(Shop shop) {
+        Integer[] counts = { shop.getRating1Count(), shop.getRating2Count(), shop.getRating3Count(), shop.getRating4Count(), shop.getRating5Count() };
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int star = 1; star <= 5; star++) { histogram.put(star, counts[star - 1] != null ? counts[star - 1] : 0); }
+        return histogram;
+    }
+
+    // 只套用用戶可編輯的欄位；以下欄位由伺服器維護 (地理編碼、地址解析、評分彙總、關聯與時間戳)，
+    // 明確忽略，避免 UpdateShopRequest 日後新增同名欄位時被客戶端覆寫
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "latitude", ignore = true),
+            @Mapping(target = "longitude", ignore = true),
+            @Mapping(target = "geocodeStatus", ignore = true),
+            @Mapping(target = "county", ignore = true),
+            @Mapping(target = "district", ignore = true),
+            @Mapping(target = "postalCode", ignore = true),
+            @Mapping(target = "averageRating", ignore = true),
+            @Mapping(target = "ratingSum", ignore = true),
+            @Mapping(target = "ratingCount", ignore = true),
+            @Mapping(target = "rating1Count", ignore = true),
+            @Mapping(target = "rating2Count", ignore = true),
+            @Mapping(target = "rating3Count", ignore = true),
+            @Mapping(target = "rating4Count", ignore = true),
+            @Mapping(target = "rating5Count", ignore = true),
+            @Mapping(target = "reviewCount", ignore = true),
+            @Mapping(target = "weightedRating", ignore = true),
+            @Mapping(target = "owner", ignore = true),
+            @Mapping(target = "reviews", ignore = true),
+            @Mapping(target = "media", ignore = true),
+            @Mapping(target = "createdAt", ignore = true),
+            @Mapping(target = "updatedAt", ignore = true)
+    })
     void updateShopFromDto(UpdateShopRequest dto, @MappingTarget Shop shop);
 
 }
\ No newline at end of file
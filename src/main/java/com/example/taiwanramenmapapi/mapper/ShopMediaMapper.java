@@ -5,6 +5,7 @@ import com.example.taiwanramenmapapi.entity.ShopMedia;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings; // *** 引入 Mappings ***
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -33,7 +34,14 @@ public abstract class ShopMediaMapper {
 
     public abstract List<ShopMediaDTO> toShopMediaDTOs(List<ShopMedia> shopMediaList);
 
+    // 對外提供：將儲存的相對路徑轉為完整 URL (用於投影查詢等不經過 toShopMediaDTO 的場合)
+    @Named("toFullUrl")
+    public String toFullUrl(String relativeOrAbsoluteUrl) {
+        return createFullUrl(relativeOrAbsoluteUrl);
+    }
+
     // --- 輔助方法：生成完整的媒體訪問 URL ---
+    @Named("createFullUrl") // 只在 url 的 expression 中使用，不可被自動套用到 type 等 String 屬性
     protected String createFullUrl(String relativeOrAbsoluteUrl) {
         // ... (方法內容不變) ...
         if (!StringUtils.hasText(relativeOrAbsoluteUrl)) { return null; }
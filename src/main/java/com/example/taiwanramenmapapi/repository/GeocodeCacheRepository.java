@@ -0,0 +1,18 @@
+package com.example.taiwanramenmapapi.repository;
+
+import com.example.taiwanramenmapapi.entity.GeocodeCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntry, Long> {
+
+    /**
+     * 根據正規化地址的雜湊值查找快取記錄。
+     * @param addressHash 正規化地址的 SHA-256 (十六進位)
+     * @return 快取記錄 (Optional)
+     */
+    Optional<GeocodeCacheEntry> findByAddressHash(String addressHash);
+}
@@ -0,0 +1,41 @@
+package com.example.taiwanramenmapapi.repository;
+
+import com.example.taiwanramenmapapi.util.KeysetCursor;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * 鍵集分頁的查詢條件與排序。
+ * 排序一律為 (sortBy, id) 同方向，id 作為同值時的決勝欄位，確保順序穩定且不重複、不遺漏。
+ */
+public final class KeysetSpecifications {
+
+    private KeysetSpecifications() { }
+
+    /** 鍵集分頁使用的排序：排序欄位 + id (同方向) */
+    public static Sort sort(String sortBy, Sort.Direction direction) {
+        return "id".equals(sortBy) ? Sort.by(direction, "id") : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * 游標之後的資料：升序時 {@code sortBy > value OR (sortBy = value AND id > lastId)}，降序時反之。
+     * @param cursor 上一頁的游標，為 null 時 (第一頁) 返回 null
+     */
+    public static <T> Specification<T> after(KeysetCursor cursor) {
+        if (cursor == null) return null;
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            boolean ascending = cursor.direction().isAscending();
+            if ("id".equals(cursor.sortBy())) {
+                return ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            }
+            Path<Comparable<Object>> field = root.get(cursor.sortBy());
+            Comparable<Object> value = cursor.typedValue(field.getJavaType());
+            Predicate beyond = ascending ? cb.greaterThan(field, value) : cb.lessThan(field, value);
+            Predicate tie = cb.and(cb.equal(field, value), ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id()));
+            return cb.or(beyond, tie);
+        };
+    }
+}
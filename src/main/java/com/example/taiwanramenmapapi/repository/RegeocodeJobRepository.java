@@ -0,0 +1,26 @@
+package com.example.taiwanramenmapapi.repository;
+
+import com.example.taiwanramenmapapi.entity.RegeocodeJob;
+import com.example.taiwanramenmapapi.entity.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RegeocodeJobRepository extends JpaRepository<RegeocodeJob, Long> {
+
+    /**
+     * 查找指定狀態的工作 (啟動時找出需要繼續執行的 RUNNING 工作)。
+     * @param status 工作狀態
+     * @return 工作列表，按 ID 升序
+     */
+    List<RegeocodeJob> findByStatusOrderByIdAsc(JobStatus status);
+
+    /**
+     * 查找最近建立的工作。
+     * @return 最新的工作 (Optional)
+     */
+    Optional<RegeocodeJob> findFirstByOrderByIdDesc();
+}
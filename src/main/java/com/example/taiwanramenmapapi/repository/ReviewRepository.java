@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // 可選，用於複雜查詢
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -59,6 +60,57 @@ public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecif
      */
     long countByParentReviewId(Long parentReviewId);
 
+    /**
+     * 以單一語句原子地將評論的回覆數加 1 (新增回覆時調用)，並行回覆不會遺失更新。
+     * @param reviewId 父評論 ID
+     * @return 更新的列數 (評論不存在時為 0)
+     */
+    @Modifying
+    @Query("UPDATE Review r SET r.replyCount = COALESCE(r.replyCount, 0) + 1 WHERE r.id = :reviewId")
+    int incrementReplyCount(@Param("reviewId") Long reviewId);
+
+    /**
+     * 以單一語句原子地將評論的回覆數減 1 (刪除回覆時調用)，已為 0 時不再遞減。
+     * @param reviewId 父評論 ID
+     * @return 更新的列數
+     */
+    @Modifying
+    @Query("UPDATE Review r SET r.replyCount = r.replyCount - 1 WHERE r.id = :reviewId AND r.replyCount > 0")
+    int decrementReplyCount(@Param("reviewId") Long reviewId);
+
+    /**
+     * 以排他鎖鎖定 ID 區間內的頂級評論 (對帳前調用，需在事務中)。
+     * 新增/刪除回覆的事務會更新父評論 (外鍵檢查也會鎖父列)，鎖定期間這些事務等待對帳提交，
+     * 已提交的回覆都會反映在接下來的計數中，之後的加減 1 則疊加在校正後的值上，不會被對帳覆蓋。
+     * @param fromId 起始評論 ID (含)
+     * @param toId 結束評論 ID (含)
+     * @return 鎖定的評論 ID
+     */
+    @Query(value = "SELECT id FROM reviews WHERE id BETWEEN :fromId AND :toId AND parent_review_id IS NULL FOR UPDATE", nativeQuery = true)
+    List<Long> lockTopLevelReviews(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 以實際回覆數校正 ID 區間內評論的 reply_count (背景對帳用)，只寫入不一致的列。
+     * 必須在同一事務中先以 {@link #lockTopLevelReviews} 鎖定區間，否則計數與寫入之間提交的回覆會被覆蓋。
+     * @param fromId 起始評論 ID (含)
+     * @param toId 結束評論 ID (含)
+     * @return 校正的列數
+     */
+    @Modifying
+    @Query(value = "UPDATE reviews p LEFT JOIN (SELECT parent_review_id, COUNT(*) AS cnt FROM reviews " +
+            "WHERE parent_review_id BETWEEN :fromId AND :toId GROUP BY parent_review_id) c ON c.parent_review_id = p.id " +
+            "SET p.reply_count = COALESCE(c.cnt, 0) " +
+            "WHERE p.id BETWEEN :fromId AND :toId AND p.parent_review_id IS NULL " +
+            "AND (p.reply_count IS NULL OR p.reply_count <> COALESCE(c.cnt, 0))", nativeQuery = true)
+    int reconcileReplyCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 評論 ID 的最大值 (對帳時決定掃描範圍)。
+     * @return 最大 ID，沒有評論時為 null
+     */
+    @Query("SELECT MAX(r.id) FROM Review r")
+    Long findMaxId();
+
     /**
      * 獲取特定店家所有頂級評論的評分列表。
      * 用於計算店家的平均評分。
@@ -68,6 +120,14 @@ public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecif
     @Query("SELECT r.rating FROM Review r WHERE r.shop.id = :shopId AND r.parentReview IS NULL AND r.rating IS NOT NULL") // 確保評分不為 null
     List<Integer> findAllTopLevelRatingsByShopId(@Param("shopId") Long shopId);
 
+    /**
+     * 依星等統計特定店家頂級評論的筆數 (全量重算店家評分時使用，最多返回 5 列)。
+     * @param shopId 店家 ID
+     * @return 每列為 {rating, count}
+     */
+    @Query("SELECT r.rating, COUNT(r) FROM Review r WHERE r.shop.id = :shopId AND r.parentReview IS NULL AND r.rating IS NOT NULL GROUP BY r.rating")
+    List<Object[]> countTopLevelRatingsByStar(@Param("shopId") Long shopId);
+
     /**
      * 查找特定用戶對特定店家發表的頂級評論。
      * 可用於判斷用戶是否已經評論過某店家（如果業務邏輯限制只能評論一次）。
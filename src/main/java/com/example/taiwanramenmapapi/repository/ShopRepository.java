@@ -1,15 +1,23 @@
 package com.example.taiwanramenmapapi.repository;
 
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
 import com.example.taiwanramenmapapi.entity.Shop;
+import com.example.taiwanramenmapapi.entity.enums.GeocodeStatus;
+import jakarta.persistence.LockModeType;
+import com.example.taiwanramenmapapi.util.GeoUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // 引入 JpaSpecificationExecutor
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -69,23 +77,203 @@ public interface ShopRepository extends JpaRepository<Shop, Long>, JpaSpecificat
      */
     List<Shop> findByOwnerIdOrderByIdAsc(Long ownerId); // 按 ID 排序以保證順序
 
+    /**
+     * 查找指定地理編碼狀態的店家 (啟動時重新排入等待編碼的店家)。
+     * @param geocodeStatus 地理編碼狀態
+     * @return 店家列表
+     */
+    List<Shop> findByGeocodeStatus(GeocodeStatus geocodeStatus);
+
+    /**
+     * 以悲觀寫鎖讀取店家，避免背景地理編碼結果覆蓋同時進行的地址修改。
+     * @param id 店家 ID
+     * @return 包含店家的 Optional
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Shop s WHERE s.id = :id")
+    Optional<Shop> findByIdForUpdate(@Param("id") Long id);
+
     /**
      * 根據地圖的經緯度邊界查找店家。
-     * 使用 JPQL (Java Persistence Query Language) 自定義查詢。
+     * 使用 location 欄位的 SPATIAL INDEX (MBRContains)，取代對 DECIMAL 欄位的 BETWEEN 全表掃描。
      * @param minLat 最小緯度
      * @param maxLat 最大緯度
      * @param minLng 最小經度
      * @param maxLng 最大經度
      * @return 在邊界內的店家列表
      */
-    @Query("SELECT s FROM Shop s WHERE s.latitude BETWEEN :minLat AND :maxLat AND s.longitude BETWEEN :minLng AND :maxLng")
-    List<Shop> findByLocationBounds(@Param("minLat") BigDecimal minLat,
-                                    @Param("maxLat") BigDecimal maxLat,
-                                    @Param("minLng") BigDecimal minLng,
-                                    @Param("maxLng") BigDecimal maxLng);
+    default List<Shop> findByLocationBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
+        return findWithinEnvelope(GeoUtils.envelopeWkt(minLat.doubleValue(), maxLat.doubleValue(), minLng.doubleValue(), maxLng.doubleValue()));
+    }
+
+    /**
+     * 查找落在指定矩形 (WKT POLYGON，經度在前) 內的店家。
+     * @param envelopeWkt 矩形的 WKT
+     * @return 在矩形內的店家列表
+     */
+    @Query(value = "SELECT s.* FROM shops s WHERE MBRContains(ST_GeomFromText(:envelope, 4326, 'axis-order=long-lat'), s.location) AND s.latitude IS NOT NULL", nativeQuery = true)
+    List<Shop> findWithinEnvelope(@Param("envelope") String envelopeWkt);
+
+    /**
+     * 查找落在指定矩形 (WKT POLYGON，經度在前) 內的店家 ID (篩選查詢先以空間索引縮小範圍，再套用其他條件)。
+     * 執行計畫應為 type=range、key=idx_shops_location；Criteria API 無法把 MBRContains 寫成可走索引的條件
+     * (Hibernate 會產生 {@code MBRContains(...) = true})，因此邊界篩選一律經由原生查詢。
+     * @param envelopeWkt 矩形的 WKT
+     * @return 在矩形內且有經緯度的店家 ID
+     */
+    @Query(value = "SELECT s.id FROM shops s WHERE MBRContains(ST_GeomFromText(:envelope, 4326, 'axis-order=long-lat'), s.location) AND s.latitude IS NOT NULL", nativeQuery = true)
+    List<Long> findIdsWithinEnvelope(@Param("envelope") String envelopeWkt);
+
+    /**
+     * 地圖標記投影：取得邊界內店家的精簡資料，以 location 欄位的 SPATIAL INDEX (MBRContains) 篩選，
+     * 封面縮圖以子查詢取 ID 最小的圖片，不會載入 media/owner 關聯 (避免 N+1)。
+     * coverUrl 為儲存的相對路徑，由服務層轉為完整 URL。
+     * @return 邊界內的店家標記列表
+     */
+    default List<ShopMarkerDTO> findMarkersByLocationBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
+        String envelope = GeoUtils.envelopeWkt(minLat.doubleValue(), maxLat.doubleValue(), minLng.doubleValue(), maxLng.doubleValue());
+        return findMarkerRowsWithinEnvelope(envelope).stream()
+                .map(row -> new ShopMarkerDTO(((Number) row[0]).longValue(), (String) row[1], (BigDecimal) row[2], (BigDecimal) row[3],
+                        (BigDecimal) row[4], row[5] != null ? ((Number) row[5]).intValue() : null, (String) row[6]))
+                .toList();
+    }
+
+    /**
+     * 原生查詢版本的標記投影 (JPQL 無法以空間函式篩選)；執行計畫應為 type=range、key=idx_shops_location。
+     * @param envelopeWkt 矩形的 WKT
+     * @return 每列為 {id, name, latitude, longitude, weightedRating, reviewCount, coverUrl}
+     */
+    @Query(value = "SELECT s.id, s.name, s.latitude, s.longitude, s.weighted_rating, s.review_count, " +
+            "(SELECT m.url FROM shop_media m WHERE m.id = (SELECT MIN(m2.id) FROM shop_media m2 WHERE m2.shop_id = s.id AND m2.type = 'image')) " +
+            "FROM shops s WHERE MBRContains(ST_GeomFromText(:envelope, 4326, 'axis-order=long-lat'), s.location) AND s.latitude IS NOT NULL", nativeQuery = true)
+    List<Object[]> findMarkerRowsWithinEnvelope(@Param("envelope") String envelopeWkt);
+
+    /**
+     * 取得所有有經緯度店家的標記投影 (啟動時重建記憶體索引用)。
+     * @return 店家標記列表
+     */
+    @Query("SELECT new com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO(s.id, s.name, s.latitude, s.longitude, s.weightedRating, s.reviewCount, " +
+            "(SELECT m.url FROM ShopMedia m WHERE m.id = (SELECT MIN(m2.id) FROM ShopMedia m2 WHERE m2.shop = s AND m2.type = 'image'))) " +
+            "FROM Shop s WHERE s.latitude IS NOT NULL AND s.longitude IS NOT NULL")
+    List<ShopMarkerDTO> findAllMarkers();
+
+    /**
+     * 取得指定店家的標記投影 (批次寫入座標後同步記憶體索引用)。
+     * @param ids 店家 ID 列表
+     * @return 有經緯度的店家標記列表
+     */
+    @Query("SELECT new com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO(s.id, s.name, s.latitude, s.longitude, s.weightedRating, s.reviewCount, " +
+            "(SELECT m.url FROM ShopMedia m WHERE m.id = (SELECT MIN(m2.id) FROM ShopMedia m2 WHERE m2.shop = s AND m2.type = 'image'))) " +
+            "FROM Shop s WHERE s.id IN :ids AND s.latitude IS NOT NULL AND s.longitude IS NOT NULL")
+    List<ShopMarkerDTO> findMarkersByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 取得所有店家的可搜尋欄位 (啟動時重建全文索引與自動完成索引用)，不載入任何關聯。
+     * @return 每列為 {id, name, address, description, county, district, weightedRating, reviewCount}
+     */
+    @Query("SELECT s.id, s.name, s.address, s.description, s.county, s.district, s.weightedRating, s.reviewCount FROM Shop s")
+    List<Object[]> findAllSearchFields();
+
+    /**
+     * 查找離中心點最近的 limit 家店 (限制在 radiusMeters 範圍內)。
+     * 先以外接矩形走 SPATIAL INDEX 篩選，再用 ST_Distance_Sphere 精確過濾並排序。
+     * @param lat 中心點緯度
+     * @param lng 中心點經度
+     * @param radiusMeters 搜尋半徑 (公尺)
+     * @param limit 最多返回數量
+     * @return 按距離排序的店家列表
+     */
+    default List<Shop> findNearest(double lat, double lng, double radiusMeters, int limit) {
+        double[] box = GeoUtils.boundingBox(lat, lng, radiusMeters);
+        return findWithinRadius(GeoUtils.pointWkt(lat, lng), GeoUtils.envelopeWkt(box[0], box[1], box[2], box[3]), radiusMeters, limit);
+    }
+
+    @Query(value = "SELECT s.* FROM shops s WHERE MBRContains(ST_GeomFromText(:envelope, 4326, 'axis-order=long-lat'), s.location) AND s.latitude IS NOT NULL " +
+            "AND ST_Distance_Sphere(s.location, ST_GeomFromText(:point, 4326, 'axis-order=long-lat')) <= :radius " +
+            "ORDER BY ST_Distance_Sphere(s.location, ST_GeomFromText(:point, 4326, 'axis-order=long-lat')) LIMIT :limit", nativeQuery = true)
+    List<Shop> findWithinRadius(@Param("point") String pointWkt, @Param("envelope") String envelopeWkt,
+                                @Param("radius") double radiusMeters, @Param("limit") int limit);
+
+    /**
+     * 以單一語句原子地累加店家的評分總和、筆數與各星等計數 (評論新增、修改評分、刪除時調用)。
+     * 語句會取得該店家資料列的行鎖，同一店家的並行評論寫入在此串行，不會遺失更新。
+     * @param shopId 店家 ID
+     * @param sumDelta 評分總和的增減
+     * @param countDelta 評分筆數的增減
+     * @param d1 1 星計數的增減 (d2~d5 依此類推)
+     * @return 更新的列數 (店家不存在時為 0)
+     */
+    @Modifying
+    @Query("UPDATE Shop s SET s.ratingSum = s.ratingSum + :sumDelta, s.ratingCount = s.ratingCount + :countDelta, " +
+            "s.reviewCount = s.reviewCount + :countDelta, " +
+            "s.rating1Count = s.rating1Count + :d1, s.rating2Count = s.rating2Count + :d2, s.rating3Count = s.rating3Count + :d3, " +
+            "s.rating4Count = s.rating4Count + :d4, s.rating5Count = s.rating5Count + :d5 WHERE s.id = :shopId")
+    int applyRatingDelta(@Param("shopId") Long shopId, @Param("sumDelta") long sumDelta, @Param("countDelta") int countDelta,
+                         @Param("d1") int d1, @Param("d2") int d2, @Param("d3") int d3, @Param("d4") int d4, @Param("d5") int d5);
+
+    /**
+     * 讀取店家目前的評分總和、筆數與各星等計數。
+     * @param shopId 店家 ID
+     * @return 單列 {ratingSum, ratingCount, rating1Count, ..., rating5Count}，店家不存在時為空列表
+     */
+    @Query("SELECT s.ratingSum, s.ratingCount, s.rating1Count, s.rating2Count, s.rating3Count, s.rating4Count, s.rating5Count " +
+            "FROM Shop s WHERE s.id = :shopId")
+    List<Object[]> findRatingTotals(@Param("shopId") Long shopId);
+
+    /**
+     * 寫入由評分總和推導出的平均評分與加權評分。
+     * @return 更新的列數
+     */
+    @Modifying
+    @Query("UPDATE Shop s SET s.averageRating = :averageRating, s.weightedRating = :weightedRating WHERE s.id = :shopId")
+    int updateDerivedRatings(@Param("shopId") Long shopId, @Param("averageRating") BigDecimal averageRating,
+                             @Param("weightedRating") BigDecimal weightedRating);
+
+    /**
+     * 寫入全量重算的評分總和、筆數與各星等計數 (只更新評分欄位)。
+     * @return 更新的列數
+     */
+    @Modifying
+    @Query("UPDATE Shop s SET s.ratingSum = :ratingSum, s.ratingCount = :ratingCount, s.reviewCount = :ratingCount, " +
+            "s.rating1Count = :c1, s.rating2Count = :c2, s.rating3Count = :c3, s.rating4Count = :c4, s.rating5Count = :c5 WHERE s.id = :shopId")
+    int updateRatingTotals(@Param("shopId") Long shopId, @Param("ratingSum") long ratingSum, @Param("ratingCount") int ratingCount,
+                           @Param("c1") int c1, @Param("c2") int c2, @Param("c3") int c3, @Param("c4") int c4, @Param("c5") int c5);
+
+    /**
+     * 查找評分總和、筆數或各星等計數與評論表不一致的店家 (啟動時修復用)。
+     * @return 需要重算的店家 ID
+     */
+    @Query(value = "SELECT s.id FROM shops s LEFT JOIN (SELECT shop_id, SUM(rating) AS total, COUNT(rating) AS cnt, " +
+            "SUM(rating = 1) AS c1, SUM(rating = 2) AS c2, SUM(rating = 3) AS c3, SUM(rating = 4) AS c4, SUM(rating = 5) AS c5 FROM reviews " +
+            "WHERE parent_review_id IS NULL AND rating IS NOT NULL GROUP BY shop_id) r ON r.shop_id = s.id " +
+            "WHERE COALESCE(s.rating_sum, 0) <> COALESCE(r.total, 0) OR COALESCE(s.rating_count, 0) <> COALESCE(r.cnt, 0) " +
+            "OR COALESCE(s.rating_1_count, 0) <> COALESCE(r.c1, 0) OR COALESCE(s.rating_2_count, 0) <> COALESCE(r.c2, 0) " +
+            "OR COALESCE(s.rating_3_count, 0) <> COALESCE(r.c3, 0) OR COALESCE(s.rating_4_count, 0) <> COALESCE(r.c4, 0) " +
+            "OR COALESCE(s.rating_5_count, 0) <> COALESCE(r.c5, 0)", nativeQuery = true)
+    List<Long> findShopIdsWithStaleRatingTotals();
+
+    /**
+     * 以 latitude/longitude 同步 location 空間欄位 (沒有經緯度時寫入 POINT(0 0) 佔位)。
+     * 在創建店家或地址重新編碼後調用。
+     * @param shopId 店家 ID
+     * @return 更新的行數
+     */
+    @Modifying
+    @Query(value = "UPDATE shops SET location = CASE WHEN latitude IS NULL OR longitude IS NULL THEN ST_GeomFromText('POINT(0 0)', 4326) " +
+            "ELSE ST_GeomFromText(CONCAT('POINT(', longitude, ' ', latitude, ')'), 4326, 'axis-order=long-lat') END WHERE id = :shopId", nativeQuery = true)
+    int syncLocation(@Param("shopId") Long shopId);
 
     // --- 排行榜相關查詢 ---
 
+    /**
+     * 查找評論數達到門檻的全部店家 (一併載入媒體與店主)，應用啟動時建立記憶體排行榜使用。
+     * @param minReviewCount 最低評論數門檻
+     * @return 店家列表 (不排序)
+     */
+    @EntityGraph(attributePaths = {"media", "owner"})
+    @Query("SELECT s FROM Shop s WHERE s.reviewCount >= :minReviewCount")
+    List<Shop> findAllRankable(@Param("minReviewCount") int minReviewCount);
+
     /**
      * 查找評論數達到指定門檻的店家，並按加權評分和評論數降序排序，返回分頁結果。
      * 用於生成全局排行榜。
@@ -96,9 +284,29 @@ public interface ShopRepository extends JpaRepository<Shop, Long>, JpaSpecificat
     @Query("SELECT s FROM Shop s WHERE s.reviewCount >= :minReviewCount ORDER BY s.weightedRating DESC, s.reviewCount DESC")
     Page<Shop> findTopRatedShops(@Param("minReviewCount") int minReviewCount, Pageable pageable);
 
+    /**
+     * 查找特定縣市內且評論數達到門檻的店家排行榜 (等值查詢，使用 (county, weighted_rating) 索引)。
+     * @param county 正規化的縣市
+     * @param minReviewCount 最低評論數門檻
+     * @param pageable 分頁信息 (包含 limit)
+     * @return 縣市排行榜店家分頁數據
+     */
+    @Query("SELECT s FROM Shop s WHERE s.county = :county AND s.reviewCount >= :minReviewCount ORDER BY s.weightedRating DESC, s.reviewCount DESC")
+    Page<Shop> findTopRatedShopsByCounty(@Param("county") String county, @Param("minReviewCount") int minReviewCount, Pageable pageable);
+
+    /**
+     * 查找特定行政區內且評論數達到門檻的店家排行榜。
+     * @param district 鄉鎮市區
+     * @param minReviewCount 最低評論數門檻
+     * @param pageable 分頁信息 (包含 limit)
+     * @return 行政區排行榜店家分頁數據
+     */
+    @Query("SELECT s FROM Shop s WHERE s.district = :district AND s.reviewCount >= :minReviewCount ORDER BY s.weightedRating DESC, s.reviewCount DESC")
+    Page<Shop> findTopRatedShopsByDistrict(@Param("district") String district, @Param("minReviewCount") int minReviewCount, Pageable pageable);
+
     /**
      * 查找特定區域內（地址模糊匹配）且評論數達到門檻的店家，並按加權評分和評論數降序排序，返回分頁結果。
-     * 用於生成區域排行榜。
+     * 只在區域無法辨識為縣市或行政區時作為後備使用。
      * @param region 區域名稱 (用於 LIKE 查詢)
      * @param minReviewCount 最低評論數門檻
      * @param pageable 分頁信息 (包含 limit)
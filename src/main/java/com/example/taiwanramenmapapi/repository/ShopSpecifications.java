@@ -0,0 +1,72 @@
+package com.example.taiwanramenmapapi.repository;
+
+import com.example.taiwanramenmapapi.entity.Shop;
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * 店家查詢條件的 Specification 工廠。
+ * 每個方法在參數為空時返回 null，可直接以 {@code Specification.where(a).and(b)...} 組合，
+ * 空條件會被忽略，最後只產生一條 SQL。
+ */
+public final class ShopSpecifications {
+
+    private ShopSpecifications() { }
+
+    /** 店名模糊查詢 (忽略大小寫) */
+    public static Specification<Shop> nameContains(String name) {
+        if (!StringUtils.hasText(name)) return null;
+        String pattern = "%" + escapeLike(name.trim().toLowerCase()) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    /** 地址模糊查詢 (忽略大小寫) */
+    public static Specification<Shop> addressContains(String address) {
+        if (!StringUtils.hasText(address)) return null;
+        String pattern = "%" + escapeLike(address.trim().toLowerCase()) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("address")), pattern, '\\');
+    }
+
+    /**
+     * 縣市或鄉鎮市區篩選：能辨識為縣市 (例如 台北) 或行政區 (例如 大安區) 時以等值比對 (走 county/district 索引)，
+     * 否則退回地址模糊查詢。
+     */
+    public static Specification<Shop> inRegion(String region) {
+        if (!StringUtils.hasText(region)) return null;
+        String county = TaiwanAddressParser.normalizeCounty(region);
+        if (county != null) { return (root, query, cb) -> cb.equal(root.get("county"), county); }
+        String district = TaiwanAddressParser.normalize(region.trim());
+        if (TaiwanAddressParser.isDistrictName(district)) { return (root, query, cb) -> cb.equal(root.get("district"), district); }
+        return addressContains(region);
+    }
+
+    /** 平均評分下限 */
+    public static Specification<Shop> minAverageRating(BigDecimal minRating) {
+        if (minRating == null) return null;
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("averageRating"), minRating);
+    }
+
+    /** 評論數下限 */
+    public static Specification<Shop> minReviewCount(Integer minReviewCount) {
+        if (minReviewCount == null) return null;
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("reviewCount"), minReviewCount);
+    }
+
+    /**
+     * ID 屬於指定集合 (集合為 null 時不限制；空集合則不匹配任何店家)。
+     * 地圖邊界先以原生查詢走 SPATIAL INDEX 取得 ID (見 {@link ShopRepository#findIdsWithinEnvelope})，再以此條件與其他篩選組合。
+     */
+    public static Specification<Shop> idIn(Collection<Long> ids) {
+        if (ids == null) return null;
+        if (ids.isEmpty()) return (root, query, cb) -> cb.disjunction();
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
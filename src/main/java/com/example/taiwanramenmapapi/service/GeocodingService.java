@@ -12,6 +12,15 @@ public interface GeocodingService {
      */
     Optional<LatLng> getLatLng(String address);
 
+    /**
+     * 將地址轉換為經緯度坐標，並區分「查無結果」與「查詢失敗」
+     * (快取等需要區分兩者的呼叫端使用)
+     * @param address 要轉換的地址字符串
+     * @return 查到時包含 LatLng，查無結果時為空
+     * @throws com.example.taiwanramenmapapi.exception.GeocodingException 如果外部服務無法使用或呼叫失敗
+     */
+    Optional<LatLng> lookup(String address);
+
     /**
      * 將地址轉換為經緯度坐標，如果失敗則拋出 GeocodingException
      * @param address 要轉換的地址字符串
@@ -0,0 +1,40 @@
+package com.example.taiwanramenmapapi.service;
+
+import com.example.taiwanramenmapapi.dto.response.RegeocodeJobDTO;
+
+public interface RegeocodeJobService {
+
+    /**
+     * 建立並開始一個批次重新地理編碼工作 (同一時間只允許一個工作執行)
+     * @param refreshCache 是否略過地理編碼快取 (更換服務或修正地址正規化後應為 true)
+     * @return 新建立的工作
+     */
+    RegeocodeJobDTO startJob(boolean refreshCache);
+
+    /**
+     * 獲取工作的進度
+     * @param jobId 工作 ID
+     * @return 工作進度與計數
+     */
+    RegeocodeJobDTO getJob(Long jobId);
+
+    /**
+     * 獲取最近一次建立的工作
+     * @return 工作進度與計數
+     */
+    RegeocodeJobDTO getLatestJob();
+
+    /**
+     * 要求取消執行中的工作 (非同步：目前的區塊處理完後才停止並變為 CANCELLED)
+     * @param jobId 工作 ID
+     * @return 工作進度，執行中的工作狀態為 CANCELLING
+     */
+    RegeocodeJobDTO cancelJob(Long jobId);
+
+    /**
+     * 從檢查點繼續已取消或失敗的工作
+     * @param jobId 工作 ID
+     * @return 工作進度
+     */
+    RegeocodeJobDTO resumeJob(Long jobId);
+}
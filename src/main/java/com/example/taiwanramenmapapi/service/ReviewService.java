@@ -1,10 +1,13 @@
 package com.example.taiwanramenmapapi.service;
 
+import com.example.taiwanramenmapapi.dto.response.CursorPageResponse;
 import com.example.taiwanramenmapapi.dto.response.PageResponse;
 import com.example.taiwanramenmapapi.dto.request.CreateReviewRequest;
 import com.example.taiwanramenmapapi.dto.request.UpdateReviewRequest;
 import com.example.taiwanramenmapapi.dto.response.ReviewDTO;
+import com.example.taiwanramenmapapi.util.KeysetCursor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile; // 引入
 
 import java.util.List;
@@ -54,6 +57,18 @@ public interface ReviewService {
      */
     PageResponse<ReviewDTO> getShopReviews(Long shopId, Pageable pageable);
 
+    /**
+     * 以游標 (鍵集) 分頁獲取特定店家的頂級評論，不執行 COUNT 查詢，適合無限捲動。
+     * @param shopId 店家 ID。
+     * @param sortBy 排序字段 (createdAt 或 rating)。
+     * @param direction 排序方向。
+     * @param after 上一頁的游標，第一頁為 null。
+     * @param size 每頁數量。
+     * @return 評論的游標分頁響應。
+     * @throws com.example.taiwanramenmapapi.exception.ResourceNotFoundException 如果店家不存在。
+     */
+    CursorPageResponse<ReviewDTO> scrollShopReviews(Long shopId, String sortBy, Sort.Direction direction, KeysetCursor after, int size);
+
     /**
      * 獲取特定評論的所有回覆列表 (不分頁，通常按時間排序)。
      * @param parentReviewId 父評論 ID。
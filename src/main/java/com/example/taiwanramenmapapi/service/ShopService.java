@@ -1,12 +1,24 @@
 package com.example.taiwanramenmapapi.service;
 
+import com.example.taiwanramenmapapi.dto.response.CursorPageResponse;
+import com.example.taiwanramenmapapi.dto.response.NearbyShopDTO;
 import com.example.taiwanramenmapapi.dto.response.PageResponse;
+import com.example.taiwanramenmapapi.dto.request.ShopFilterRequest;
 import com.example.taiwanramenmapapi.dto.request.CreateShopRequest; // 引入
 import com.example.taiwanramenmapapi.dto.request.ShopOwnerSignUpRequest; // 引入
 import com.example.taiwanramenmapapi.dto.request.UpdateShopRequest;
+import com.example.taiwanramenmapapi.dto.request.ViewportDiffRequest;
+import com.example.taiwanramenmapapi.dto.response.ShopClusterDTO;
 import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.SuggestionDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.dto.response.ViewportDiffDTO;
 import com.example.taiwanramenmapapi.entity.User; // 引入
+import com.google.maps.model.LatLng;
+import com.example.taiwanramenmapapi.util.KeysetCursor;
+import com.example.taiwanramenmapapi.util.RatingDelta;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile; // 引入
 
 import java.math.BigDecimal;
@@ -24,12 +36,70 @@ public interface ShopService {
 
     PageResponse<ShopDTO> getAllShops(Pageable pageable, String name, String address, String city);
 
+    /**
+     * 組合篩選店家：店名、縣市/行政區、評分下限、評論數下限、地圖邊界，提供的條件以 AND 組合成單一查詢
+     * @param filter 篩選條件
+     * @param pageable 分頁和排序信息
+     * @return 店家分頁數據
+     */
+    PageResponse<ShopDTO> filterShops(ShopFilterRequest filter, Pageable pageable);
+
+    /**
+     * 以游標 (鍵集) 分頁獲取店家列表，篩選條件同 getAllShops，不執行 COUNT 查詢
+     * @param name 店名關鍵字 (可為 null)
+     * @param address 地址關鍵字 (可為 null)
+     * @param city 縣市或行政區 (可為 null)
+     * @param sortBy 排序欄位
+     * @param direction 排序方向
+     * @param after 上一頁的游標，第一頁為 null
+     * @param size 每頁數量
+     * @return 店家游標分頁數據
+     */
+    CursorPageResponse<ShopDTO> scrollShops(String name, String address, String city, String sortBy, Sort.Direction direction, KeysetCursor after, int size);
+
+    /**
+     * 全文搜尋店家 (名稱、地址、描述)，以記憶體倒排索引依 BM25 相關度排序
+     * @param query 查詢字串
+     * @param page 頁碼 (從 0 開始)
+     * @param size 每頁數量
+     * @return 依相關度排序的分頁結果
+     */
+    PageResponse<ShopDTO> searchShops(String query, int page, int size);
+
+    /**
+     * 搜尋框自動完成：店家名稱、縣市、鄉鎮市區與熱門詞，依加權評分與評論數排序 (純記憶體查詢)
+     * @param prefix 使用者輸入的前綴
+     * @param limit 最多返回數
+     * @return 候選列表
+     */
+    List<SuggestionDTO> suggestShops(String prefix, int limit);
+
     ShopDTO updateShop(Long id, UpdateShopRequest updateShopRequest);
 
     // --- 店家不能刪除，只有管理員可以 ---
     void deleteShopByAdmin(Long id);
 
     // --- 更新店家評分 (內部調用) ---
+    /**
+     * 評論評分變更時以增量更新店家評分 (O(1)，不讀取評論表)。
+     * 新增評論時 oldRating 為 null，刪除評論時 newRating 為 null。
+     * @param shopId 店家 ID
+     * @param oldRating 變更前的評分
+     * @param newRating 變更後的評分
+     */
+    void applyReviewRatingChange(Long shopId, Integer oldRating, Integer newRating);
+
+    /**
+     * 以增量更新店家評分：套用一或多筆評論變更合併後的增量 (評分延遲寫入使用)。
+     * @param shopId 店家 ID
+     * @param delta 評分總和、筆數與各星等計數的增量
+     */
+    void applyRatingDelta(Long shopId, RatingDelta delta);
+
+    /**
+     * 以評論表全量重算店家評分 (可重複執行；只用於修復不一致的評分總和)。
+     * @param shopId 店家 ID
+     */
     void updateShopRating(Long shopId);
 
     // --- 排行榜 ---
@@ -37,9 +107,57 @@ public interface ShopService {
     List<ShopDTO> getTopRatedShopsByRegion(String region, int limit);
 
     // --- 地圖邊界查詢 ---
-    List<ShopDTO> getShopsByBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng);
+    /**
+     * 獲取地圖邊界內的店家標記 (精簡投影，不含描述、營業時間、媒體列表)
+     * @return 店家標記列表
+     */
+    List<ShopMarkerDTO> getShopsByBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng);
+
+    /**
+     * 獲取地圖邊界內的完整店家資料 (舊格式，含媒體列表)
+     * @return 店家 DTO 列表
+     */
+    List<ShopDTO> getShopsByBoundsFull(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng);
+
+    /**
+     * 獲取指定縮放等級下的店家聚合 (地圖縮小時使用，返回數量與店家總數無關)
+     * @param zoom 地圖縮放等級
+     * @param minLat 最小緯度 (可為 null，表示不限邊界)
+     * @param maxLat 最大緯度
+     * @param minLng 最小經度
+     * @param maxLng 最大經度
+     * @return 聚合列表 (質心、店家數、平均加權評分)
+     */
+    List<ShopClusterDTO> getShopClusters(int zoom, BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng);
+
+    /**
+     * 獲取離指定位置最近的 k 家店 (k 近鄰)，按 haversine 距離由近到遠排序
+     * @param lat 查詢位置緯度
+     * @param lng 查詢位置經度
+     * @param k 返回數量
+     * @param maxDistanceMeters 最大距離 (公尺)，為 null 表示不限
+     * @return 附帶距離的店家列表
+     */
+    List<NearbyShopDTO> getNearbyShops(double lat, double lng, int k, Double maxDistanceMeters);
+
+    /**
+     * 寫入背景地理編碼的結果 (供 ShopGeocodingWorker 調用)。
+     * 只有店家仍為 PENDING_GEOCODE 且地址與排入時相同才會寫入，否則視為過期結果忽略。
+     * @param shopId 店家 ID
+     * @param address 排入編碼時的地址
+     * @param location 編碼結果，為 null 表示無法編碼 (狀態改為 FAILED)
+     * @return 是否已寫入
+     */
+    boolean applyGeocodeResult(Long shopId, String address, LatLng location);
 
     // --- 媒體處理 ---
+    /**
+     * 地圖平移時的增量查詢：只返回新進入視窗的店家，以及 since 版本之後變更/刪除的店家
+     * @param request 目前視窗、上一次視窗與客戶端持有的資料版本號
+     * @return 視窗差異 (含新的資料版本號)
+     */
+    ViewportDiffDTO getViewportDiff(ViewportDiffRequest request);
+
     /**
      * 為指定店家上傳媒體文件 (照片)
      * @param shopId 店家 ID
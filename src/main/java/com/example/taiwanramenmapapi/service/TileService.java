@@ -0,0 +1,17 @@
+package com.example.taiwanramenmapapi.service;
+
+import com.example.taiwanramenmapapi.dto.response.VectorTileDTO;
+
+public interface TileService {
+
+    /**
+     * 產生 (或從快取讀取) 店家向量瓦片 (Mapbox Vector Tile)
+     * 每個要素只帶 id、weightedRating、reviewCount 屬性
+     * @param z 縮放等級
+     * @param x 瓦片 X 座標 (Web Mercator / XYZ 編號)
+     * @param y 瓦片 Y 座標
+     * @return 瓦片內容與 ETag
+     * @throws com.example.taiwanramenmapapi.exception.BadRequestException 如果瓦片座標無效
+     */
+    VectorTileDTO getShopTile(int z, int x, int y);
+}
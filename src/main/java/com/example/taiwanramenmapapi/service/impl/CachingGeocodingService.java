@@ -0,0 +1,250 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.entity.GeocodeCacheEntry;
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.repository.GeocodeCacheRepository;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.example.taiwanramenmapapi.util.SingleFlight;
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
+import com.google.maps.model.LatLng;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 帶快取的地理編碼服務 (包裝 {@link ResilientGeocodingService}，即帶逾時與斷路器的 Google 地理編碼)。
+ * <p>
+ * 以正規化地址 ({@link TaiwanAddressParser#canonicalize(String)}) 為鍵，先查記憶體 LRU，再查 geocode_cache 表，
+ * 都沒有才呼叫外部服務。查到的結果永久保留；查無結果也會快取，但只保留 negative-ttl-hours，
+ * 之後重新查詢。外部服務呼叫失敗 (網路、配額) 不會寫入快取。
+ * 資料庫快取由單一背景執行緒寫入：查詢常發生在店家建立/更新的交易中，若在請求執行緒以獨立交易寫入，
+ * 同一執行緒會同時佔用兩條連線池連線 (連線池用盡時互相等待)；背景寫入也讓呼叫端的交易回滾 (例如註冊失敗)
+ * 不會丟失已查到的結果。寫入前記憶體快取已更新，寫入佇列滿時只略過資料庫快取。
+ * 記憶體未命中時以正規化地址做請求合併 ({@link SingleFlight})：同一地址同時只有一個執行緒查資料庫/外部服務，
+ * 其他執行緒共用結果 (指標 geocoding.coalescing.*)。
+ * 應用程式透過 {@link CompositeGeocodingService} 使用，離線地名檔解析不到的地址才會到這裡。
+ */
+@Service
+public class CachingGeocodingService implements GeocodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingGeocodingService.class);
+
+    private static final int WRITE_QUEUE_CAPACITY = 10_000;
+
+    @Autowired
+    @Qualifier("resilientGeocodingService")
+    private GeocodingService delegate;
+
+    @Autowired private GeocodeCacheRepository geocodeCacheRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${app.geocoding.cache.memory-entries:5000}")
+    private int memoryEntries;
+
+    @Value("${app.geocoding.cache.negative-ttl-hours:24}")
+    private long negativeTtlHours;
+
+    private Map<String, CachedResult> memoryCache;
+    private TransactionTemplate writeTemplate;
+    private ThreadPoolExecutor writer;
+    private final SingleFlight<String, Optional<LatLng>> singleFlight = new SingleFlight<>();
+    private Counter memoryHits;
+    private Counter databaseHits;
+    private Counter misses;
+
+    /** 快取項目，查無結果時 location 為 null */
+    private record CachedResult(LatLng location, LocalDateTime expiresAt) {
+        boolean isExpired() { return expiresAt != null && LocalDateTime.now().isAfter(expiresAt); }
+    }
+
+    @PostConstruct
+    public void init() {
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(WRITE_QUEUE_CAPACITY), r -> {
+            Thread t = new Thread(r, "geocode-cache-writer");
+            t.setDaemon(true);
+            return t;
+        }, (task, executor) -> logger.warn("地理編碼快取寫入佇列已滿，略過本次資料庫快取寫入"));
+
+        this.memoryHits = Counter.builder("geocoding.cache.requests").tag("result", "memory").register(meterRegistry);
+        this.databaseHits = Counter.builder("geocoding.cache.requests").tag("result", "database").register(meterRegistry);
+        this.misses = Counter.builder("geocoding.cache.requests").tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("geocoding.coalescing.calls", singleFlight, SingleFlight::getLeaderCalls)
+                .tag("role", "leader").description("實際執行查詢的呼叫數").register(meterRegistry);
+        FunctionCounter.builder("geocoding.coalescing.calls", singleFlight, SingleFlight::getSharedCalls)
+                .tag("role", "shared").description("共用進行中查詢結果的呼叫數").register(meterRegistry);
+        Gauge.builder("geocoding.coalescing.dedup.ratio", singleFlight, SingleFlight::getDedupRatio)
+                .description("共用結果的呼叫佔全部呼叫的比例").register(meterRegistry);
+        Gauge.builder("geocoding.coalescing.inflight", singleFlight, SingleFlight::getInFlightCount).register(meterRegistry);
+        Gauge.builder("geocoding.cache.write.queue", writer, executor -> executor.getQueue().size())
+                .description("等待寫入資料庫的地理編碼快取項目數").register(meterRegistry);
+    }
+
+    /** 關閉前寫完佇列中的快取項目 (資料來源在此之後才關閉) */
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) { writer.shutdownNow(); }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Optional<LatLng> getLatLng(String address) {
+        try {
+            return lookup(address);
+        } catch (GeocodingException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public LatLng getLatLngOrFail(String address) {
+        return lookup(address)
+                .orElseThrow(() -> new GeocodingException("無法根據地址獲取經緯度: " + address));
+    }
+
+    @Override
+    public Optional<LatLng> lookup(String address) {
+        if (!StringUtils.hasText(address)) { return delegate.lookup(address); }
+        String key = TaiwanAddressParser.canonicalize(address);
+        String hash = sha256(key);
+
+        CachedResult cached = memoryCache.get(hash);
+        if (cached != null && !cached.isExpired()) {
+            logger.debug("地理編碼記憶體快取命中: {}", key);
+            memoryHits.increment();
+            return copyOf(cached.location());
+        }
+
+        return copyOf(singleFlight.execute(hash, () -> {
+            // 上一個合併的查詢可能剛完成並寫入記憶體快取
+            CachedResult recent = memoryCache.get(hash);
+            if (recent != null && !recent.isExpired()) { return Optional.ofNullable(recent.location()); }
+            CachedResult stored = loadFromDatabase(hash);
+            if (stored != null && !stored.isExpired()) {
+                logger.debug("地理編碼資料庫快取命中: {}", key);
+                databaseHits.increment();
+                memoryCache.put(hash, stored);
+                return Optional.ofNullable(stored.location());
+            }
+            misses.increment();
+            return fetchAndStore(address, key, hash);
+        }).orElse(null));
+    }
+
+    /**
+     * 略過快取直接查詢外部服務，並以結果覆寫快取 (批次重新編碼時使用，例如更換地理編碼服務後)。
+     * @param address 要轉換的地址字符串
+     * @return 查到時包含 LatLng，查無結果時為空
+     * @throws GeocodingException 如果外部服務無法使用或呼叫失敗 (不影響既有快取)
+     */
+    public Optional<LatLng> refresh(String address) {
+        if (!StringUtils.hasText(address)) { return delegate.lookup(address); }
+        String key = TaiwanAddressParser.canonicalize(address);
+        String hash = sha256(key);
+        // 與一般查詢分開合併，避免共用到舊的快取結果
+        return copyOf(singleFlight.execute("refresh:" + hash, () -> fetchAndStore(address, key, hash)).orElse(null));
+    }
+
+    private Optional<LatLng> fetchAndStore(String address, String key, String hash) {
+        // 失敗時直接拋出 GeocodingException，不快取
+        Optional<LatLng> result = delegate.lookup(address);
+        CachedResult fresh = new CachedResult(result.map(CachingGeocodingService::round).orElse(null),
+                result.isPresent() ? null : LocalDateTime.now().plusHours(negativeTtlHours));
+        memoryCache.put(hash, fresh);
+        writer.execute(() -> saveToDatabase(hash, key, fresh));
+        return Optional.ofNullable(fresh.location());
+    }
+
+    private CachedResult loadFromDatabase(String hash) {
+        try {
+            return geocodeCacheRepository.findByAddressHash(hash)
+                    .map(entry -> new CachedResult(
+                            entry.isFound() ? new LatLng(entry.getLatitude().doubleValue(), entry.getLongitude().doubleValue()) : null,
+                            entry.getExpiresAt()))
+                    .orElse(null);
+        } catch (DataAccessException e) {
+            logger.warn("讀取地理編碼快取失敗，改為直接查詢: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToDatabase(String hash, String key, CachedResult result) {
+        try {
+            writeTemplate.executeWithoutResult(status -> {
+                GeocodeCacheEntry entry = geocodeCacheRepository.findByAddressHash(hash)
+                        .orElseGet(() -> GeocodeCacheEntry.builder().addressHash(hash).normalizedAddress(truncate(key)).build());
+                entry.setFound(result.location() != null);
+                entry.setLatitude(result.location() != null ? BigDecimal.valueOf(result.location().lat).setScale(7, RoundingMode.HALF_UP) : null);
+                entry.setLongitude(result.location() != null ? BigDecimal.valueOf(result.location().lng).setScale(7, RoundingMode.HALF_UP) : null);
+                entry.setExpiresAt(result.expiresAt());
+                geocodeCacheRepository.save(entry);
+            });
+        } catch (DataAccessException e) {
+            // 並發寫入同一地址時唯一鍵衝突，或資料庫暫時不可用；記憶體快取仍有效
+            logger.warn("寫入地理編碼快取失敗: {}", e.getMessage());
+        }
+    }
+
+    /** 與店家座標相同的精度 (小數 7 位)，確保記憶體與資料庫快取返回相同的值 */
+    private static LatLng round(LatLng location) {
+        return new LatLng(BigDecimal.valueOf(location.lat).setScale(7, RoundingMode.HALF_UP).doubleValue(),
+                BigDecimal.valueOf(location.lng).setScale(7, RoundingMode.HALF_UP).doubleValue());
+    }
+
+    /** LatLng 是可變物件，返回副本避免呼叫端改動快取內容 */
+    private static Optional<LatLng> copyOf(LatLng location) {
+        return location == null ? Optional.empty() : Optional.of(new LatLng(location.lat, location.lng));
+    }
+
+    private static String truncate(String key) {
+        return key.length() > 512 ? key.substring(0, 512) : key;
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.google.maps.model.LatLng;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * 應用程式使用的地理編碼服務：先以離線地名檔解析 ({@link GazetteerGeocodingService})，
+ * 解析不到再交給帶快取的 Google 地理編碼 ({@link CachingGeocodingService})。
+ * 離線結果不寫入快取，地名檔更新後立即生效。
+ */
+@Service
+@Primary
+public class CompositeGeocodingService implements GeocodingService {
+
+    @Autowired private GazetteerGeocodingService gazetteerGeocodingService;
+    @Autowired private CachingGeocodingService cachingGeocodingService;
+
+    @Override
+    public Optional<LatLng> getLatLng(String address) {
+        try {
+            return lookup(address);
+        } catch (GeocodingException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public LatLng getLatLngOrFail(String address) {
+        return lookup(address)
+                .orElseThrow(() -> new GeocodingException("無法根據地址獲取經緯度: " + address));
+    }
+
+    @Override
+    public Optional<LatLng> lookup(String address) {
+        Optional<LatLng> offline = gazetteerGeocodingService.lookup(address);
+        return offline.isPresent() ? offline : cachingGeocodingService.lookup(address);
+    }
+
+    /**
+     * 與 {@link #lookup(String)} 相同，但 Google 的部分略過快取 (批次重新編碼時使用)。
+     */
+    public Optional<LatLng> refresh(String address) {
+        Optional<LatLng> offline = gazetteerGeocodingService.lookup(address);
+        return offline.isPresent() ? offline : cachingGeocodingService.refresh(address);
+    }
+}
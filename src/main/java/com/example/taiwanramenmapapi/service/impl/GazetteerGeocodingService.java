@@ -0,0 +1,162 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.example.taiwanramenmapapi.util.GazetteerTrie;
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
+import com.google.maps.model.LatLng;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 離線地理編碼：以本地門牌地名檔 (縣市、鄉鎮市區、路段、門牌區間 -> 起訖經緯度) 解析地址，不需要網路。
+ * <p>
+ * 啟動時把地名檔載入 {@link GazetteerTrie}；查詢時先以 {@link TaiwanAddressParser} 取出縣市與行政區，
+ * 再以最長前綴比對路段，依門牌號 (有巷號時取巷口的門牌) 在區間內線性內插。
+ * 只處理格式完整且地名檔涵蓋的地址，其餘返回空結果，由 {@link CompositeGeocodingService} 交給 Google 處理。
+ * <p>
+ * 地名檔為 UTF-8 TSV，# 開頭為註解，欄位：
+ * {@code 縣市 行政區 路段 起號 訖號 單雙(ALL/ODD/EVEN) 起點緯度 起點經度 訖點緯度 訖點經度}
+ */
+@Service
+public class GazetteerGeocodingService implements GeocodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GazetteerGeocodingService.class);
+
+    /** 路段之後的門牌：可選的巷、弄，接著門牌號 (之X 忽略) */
+    private static final Pattern HOUSE_NUMBER = Pattern.compile("^(?:(\\d+)巷)?(?:\\d+弄)?(\\d+)(?:之\\d+)?號");
+    /** 村里鄰 (例如 仁愛里3鄰)，出現在路名之前時略過 */
+    private static final Pattern VILLAGE = Pattern.compile("^(?:[^\\d路街]{1,3}[村里])?\\d+鄰");
+    /** 阿拉伯數字的路段 (例如 4段)，統一為國字 */
+    private static final Pattern SECTION = Pattern.compile("(\\d{1,2})段");
+    private static final String[] CHINESE_NUMERALS = { "", "一", "二", "三", "四", "五", "六", "七", "八", "九", "十",
+            "十一", "十二", "十三", "十四", "十五", "十六", "十七", "十八", "十九", "二十" };
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.geocoding.gazetteer.path:}") // 留空則停用
+    private String gazetteerPath;
+
+    private volatile GazetteerTrie trie;
+
+    @PostConstruct
+    public void init() {
+        if (!StringUtils.hasText(gazetteerPath)) {
+            logger.info("離線地名檔未設定，離線地理編碼已停用。");
+            return;
+        }
+        Resource resource = resourceLoader.getResource(gazetteerPath);
+        if (!resource.exists()) {
+            logger.warn("找不到離線地名檔 {}，離線地理編碼已停用。", gazetteerPath);
+            return;
+        }
+        try {
+            this.trie = load(resource);
+            logger.info("離線地名檔載入完成: {} 條路段，{} 個門牌區間 ({})", trie.roadCount(), trie.rangeCount(), gazetteerPath);
+        } catch (IOException | RuntimeException e) {
+            logger.error("載入離線地名檔 {} 失敗，離線地理編碼已停用: {}", gazetteerPath, e.getMessage(), e);
+        }
+    }
+
+    /** 離線地名檔是否已載入 */
+    public boolean isAvailable() { return trie != null; }
+
+    @Override
+    public Optional<LatLng> getLatLng(String address) {
+        return lookup(address);
+    }
+
+    @Override
+    public LatLng getLatLngOrFail(String address) {
+        return lookup(address)
+                .orElseThrow(() -> new GeocodingException("無法根據地址獲取經緯度: " + address));
+    }
+
+    /** 純記憶體查詢，不會拋出例外；無法解析時返回空 */
+    @Override
+    public Optional<LatLng> lookup(String address) {
+        GazetteerTrie current = trie;
+        if (current == null || !StringUtils.hasText(address)) return Optional.empty();
+
+        TaiwanAddressParser.ParsedAddress parsed = TaiwanAddressParser.parse(address);
+        if (parsed.county() == null || parsed.district() == null || parsed.remainder() == null) return Optional.empty();
+        String prefix = parsed.county() + parsed.district();
+        String rest = VILLAGE.matcher(normalizeRoad(parsed.remainder())).replaceFirst("");
+
+        GazetteerTrie.Match match = current.longestPrefix(prefix + rest);
+        if (match == null || match.matchedLength() <= prefix.length()) return Optional.empty();
+        Matcher house = HOUSE_NUMBER.matcher(rest.substring(match.matchedLength() - prefix.length()));
+        if (!house.find()) return Optional.empty();
+
+        int number = Integer.parseInt(house.group(1) != null ? house.group(1) : house.group(2));
+        GazetteerTrie.Range range = match.find(number);
+        if (range == null) return Optional.empty();
+        double[] point = range.interpolate(number);
+        LatLng location = new LatLng(round(point[0]), round(point[1]));
+        logger.debug("地址 '{}' 以離線地名檔編碼為: {}, {}", address, location.lat, location.lng);
+        return Optional.of(location);
+    }
+
+    private GazetteerTrie load(Resource resource) throws IOException {
+        GazetteerTrie.Builder builder = new GazetteerTrie.Builder();
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] f = line.split("\t");
+                if (f.length < 10) {
+                    logger.warn("地名檔第 {} 行欄位不足，已略過", lineNumber);
+                    continue;
+                }
+                String county = TaiwanAddressParser.normalizeCounty(f[0]);
+                if (county == null) {
+                    logger.warn("地名檔第 {} 行無法辨識縣市 '{}'，已略過", lineNumber, f[0]);
+                    continue;
+                }
+                String key = county + TaiwanAddressParser.normalize(f[1].trim()) + normalizeRoad(f[2]);
+                builder.add(key, new GazetteerTrie.Range(Integer.parseInt(f[3].trim()), Integer.parseInt(f[4].trim()),
+                        GazetteerTrie.Parity.valueOf(f[5].trim()),
+                        Double.parseDouble(f[6].trim()), Double.parseDouble(f[7].trim()),
+                        Double.parseDouble(f[8].trim()), Double.parseDouble(f[9].trim())));
+            }
+        }
+        return builder.build();
+    }
+
+    /** 路段正規化：字元正規化、去除空白、阿拉伯數字段號改為國字 (4段 -> 四段) */
+    private static String normalizeRoad(String road) {
+        String s = TaiwanAddressParser.normalize(road).replaceAll("\\s+", "");
+        Matcher m = SECTION.matcher(s);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            int n = Integer.parseInt(m.group(1));
+            m.appendReplacement(sb, n > 0 && n < CHINESE_NUMERALS.length ? CHINESE_NUMERALS[n] + "段" : m.group());
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static double round(double value) {
+        return BigDecimal.valueOf(value).setScale(7, RoundingMode.HALF_UP).doubleValue();
+    }
+}
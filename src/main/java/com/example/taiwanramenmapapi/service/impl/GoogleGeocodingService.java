@@ -4,6 +4,7 @@ import com.example.taiwanramenmapapi.exception.GeocodingException; // 引入
 import com.example.taiwanramenmapapi.service.GeocodingService;
 import com.google.maps.GeoApiContext;
 import com.google.maps.GeocodingApi;
+import com.google.maps.errors.ZeroResultsException;
 import com.google.maps.model.GeocodingResult;
 import com.google.maps.model.LatLng;
 import jakarta.annotation.PostConstruct; // 引入 PostConstruct
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils; // 引入 StringUtils
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class GoogleGeocodingService implements GeocodingService {
@@ -23,6 +25,15 @@ public class GoogleGeocodingService implements GeocodingService {
     @Value("${google.maps.api-key}") // 從配置讀取 API Key
     private String apiKey;
 
+    @Value("${app.geocoding.resilience.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.geocoding.resilience.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+
+    @Value("${app.geocoding.resilience.max-retries:1}") // 客戶端預設會重試 5xx 長達 60 秒，這裡限制次數
+    private int maxRetries;
+
     private GeoApiContext context;
 
     // 使用 @PostConstruct 確保在 Bean 初始化後執行此方法
@@ -37,6 +48,10 @@ public class GoogleGeocodingService implements GeocodingService {
             try {
                 this.context = new GeoApiContext.Builder()
                         .apiKey(apiKey)
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                        .maxRetries(maxRetries)
+                        .retryTimeout(connectTimeoutMs + readTimeoutMs, TimeUnit.MILLISECONDS)
                         .build();
                 logger.info("Google Geocoding Service 初始化成功。");
             } catch (Exception e) {
@@ -48,14 +63,23 @@ public class GoogleGeocodingService implements GeocodingService {
 
     @Override
     public Optional<LatLng> getLatLng(String address) {
-        if (context == null) {
-            logger.warn("Geocoding Service 未初始化，無法處理地址: {}", address);
+        try {
+            return lookup(address);
+        } catch (GeocodingException e) {
             return Optional.empty();
         }
+    }
+
+    @Override
+    public Optional<LatLng> lookup(String address) {
         if (!StringUtils.hasText(address)) {
             logger.warn("嘗試對空地址進行地理編碼");
             return Optional.empty();
         }
+        if (context == null) {
+            logger.warn("Geocoding Service 未初始化，無法處理地址: {}", address);
+            throw new GeocodingException("地理編碼服務未初始化");
+        }
 
         try {
             // 調用 Google Geocoding API
@@ -73,9 +97,13 @@ public class GoogleGeocodingService implements GeocodingService {
                 logger.warn("地址 '{}' 地理編碼未找到結果。", address);
                 return Optional.empty();
             }
+        } catch (ZeroResultsException e) {
+            logger.warn("地址 '{}' 地理編碼未找到結果。", address);
+            return Optional.empty();
         } catch (Exception e) {
             logger.error("地址 '{}' 地理編碼時發生錯誤: {}", address, e.getMessage(), e);
-            return Optional.empty();
+            if (e instanceof InterruptedException) { Thread.currentThread().interrupt(); }
+            throw new GeocodingException("地理編碼服務呼叫失敗: " + e.getMessage(), e);
         }
     }
 
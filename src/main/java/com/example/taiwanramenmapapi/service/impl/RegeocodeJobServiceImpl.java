@@ -0,0 +1,311 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.dto.response.RegeocodeJobDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.entity.RegeocodeJob;
+import com.example.taiwanramenmapapi.entity.enums.JobStatus;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.exception.ResourceNotFoundException;
+import com.example.taiwanramenmapapi.index.ShopIndexSynchronizer;
+import com.example.taiwanramenmapapi.mapper.RegeocodeJobMapper;
+import com.example.taiwanramenmapapi.mapper.ShopMediaMapper;
+import com.example.taiwanramenmapapi.repository.RegeocodeJobRepository;
+import com.example.taiwanramenmapapi.repository.ShopRepository;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.example.taiwanramenmapapi.service.RegeocodeJobService;
+import com.google.maps.model.LatLng;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批次重新地理編碼所有店家。
+ * <p>
+ * 以店家 ID 做 keyset 分塊 ({@code WHERE id > 檢查點 ORDER BY id LIMIT 區塊大小}) 逐塊讀取，
+ * 每塊在固定大小的執行緒池上並行編碼，離線地名檔與快取命中的地址不受限，
+ * 真正送往外部服務的呼叫由 {@link ResilientGeocodingService} 的限流器控制在配額內；
+ * 座標有變更的店家以 JDBC 批次更新寫回 (同時更新 location 空間欄位)，地址已被修改的店家不覆寫。
+ * 每塊處理完後把檢查點與計數存入 regeocode_jobs，應用重啟後自動從檢查點繼續 RUNNING 的工作。
+ * 取消是非同步的：要求取消後目前的區塊處理完才停止，期間 API 以 CANCELLING 表示 (資料庫中仍為 RUNNING)。
+ */
+@Service
+public class RegeocodeJobServiceImpl implements RegeocodeJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegeocodeJobServiceImpl.class);
+
+    private static final String SELECT_CHUNK = "SELECT id, address, latitude, longitude FROM shops WHERE id > ? ORDER BY id LIMIT ?";
+    // MySQL 單表 UPDATE 依序賦值，location 使用的是本次寫入的新經緯度
+    private static final String UPDATE_LOCATION = "UPDATE shops SET latitude = ?, longitude = ?, geocode_status = 'OK', " +
+            "location = ST_GeomFromText(CONCAT('POINT(', longitude, ' ', latitude, ')'), 4326, 'axis-order=long-lat') WHERE id = ? AND address = ?";
+
+    @Autowired private RegeocodeJobRepository regeocodeJobRepository;
+    @Autowired private RegeocodeJobMapper regeocodeJobMapper;
+    @Autowired private ShopRepository shopRepository;
+    @Autowired private ShopMediaMapper shopMediaMapper;
+    @Autowired private ShopIndexSynchronizer shopIndexSynchronizer;
+    @Autowired private GeocodingService geocodingService;
+    @Autowired private CompositeGeocodingService compositeGeocodingService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.geocoding.bulk.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.geocoding.bulk.concurrency:4}")
+    private int concurrency;
+
+    /** 執行工作主迴圈的單一執行緒 (同一時間只有一個工作) */
+    private ExecutorService jobRunner;
+    /** 並行編碼的執行緒池 (佇列大小等於區塊大小) */
+    private ThreadPoolExecutor geocodePool;
+
+    private final AtomicReference<Long> runningJobId = new AtomicReference<>();
+    private volatile boolean cancelRequested;
+
+    /** 單一店家的編碼結果 */
+    private record ShopRow(Long id, String address, BigDecimal latitude, BigDecimal longitude) { }
+    private record Outcome(ShopRow shop, LatLng location, String error) { }
+
+    @PostConstruct
+    public void init() {
+        this.jobRunner = Executors.newSingleThreadExecutor(r -> new Thread(r, "regeocode-job"));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.geocodePool = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, chunkSize)),
+                r -> new Thread(r, "regeocode-worker-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 中斷後工作保持 RUNNING，下次啟動從檢查點繼續
+        jobRunner.shutdownNow();
+        geocodePool.shutdownNow();
+    }
+
+    /**
+     * 啟動後繼續上次執行中斷的工作。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<RegeocodeJob> running = regeocodeJobRepository.findByStatusOrderByIdAsc(JobStatus.RUNNING);
+        for (int i = 0; i < running.size(); i++) {
+            RegeocodeJob job = running.get(i);
+            if (i < running.size() - 1) {
+                // 理論上不會有多個；只繼續最新的一個
+                job.setStatus(JobStatus.FAILED);
+                job.setLastError("重啟時有多個執行中的工作，已由較新的工作取代");
+                regeocodeJobRepository.save(job);
+                continue;
+            }
+            logger.info("從檢查點 (店家 ID > {}) 繼續批次重新地理編碼工作 {}", job.getLastShopId(), job.getId());
+            launch(job.getId());
+        }
+    }
+
+    @Override
+    public synchronized RegeocodeJobDTO startJob(boolean refreshCache) {
+        if (runningJobId.get() != null) { throw new BadRequestException("已有批次重新地理編碼工作執行中 (ID: " + runningJobId.get() + ")"); }
+        RegeocodeJob job = regeocodeJobRepository.save(RegeocodeJob.builder()
+                .status(JobStatus.RUNNING).refreshCache(refreshCache).totalShops(shopRepository.count()).build());
+        launch(job.getId());
+        return toDTO(job);
+    }
+
+    @Override
+    public RegeocodeJobDTO getJob(Long jobId) {
+        return toDTO(findJobOrThrow(jobId));
+    }
+
+    @Override
+    public RegeocodeJobDTO getLatestJob() {
+        return regeocodeJobRepository.findFirstByOrderByIdDesc()
+                .map(this::toDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("尚未執行過批次重新地理編碼工作"));
+    }
+
+    @Override
+    public synchronized RegeocodeJobDTO cancelJob(Long jobId) {
+        RegeocodeJob job = findJobOrThrow(jobId);
+        if (job.getStatus() != JobStatus.RUNNING) { throw new BadRequestException("工作不在執行中: " + job.getStatus()); }
+        if (jobId.equals(runningJobId.get())) {
+            cancelRequested = true;
+        } else {
+            job.setStatus(JobStatus.CANCELLED);
+            job.setFinishedAt(LocalDateTime.now());
+            job = regeocodeJobRepository.save(job);
+        }
+        return toDTO(job);
+    }
+
+    @Override
+    public synchronized RegeocodeJobDTO resumeJob(Long jobId) {
+        RegeocodeJob job = findJobOrThrow(jobId);
+        if (job.getStatus() != JobStatus.CANCELLED && job.getStatus() != JobStatus.FAILED) {
+            throw new BadRequestException("只能繼續已取消或失敗的工作: " + job.getStatus());
+        }
+        if (runningJobId.get() != null) { throw new BadRequestException("已有批次重新地理編碼工作執行中 (ID: " + runningJobId.get() + ")"); }
+        job.setStatus(JobStatus.RUNNING);
+        job.setLastError(null);
+        job.setFinishedAt(null);
+        job = regeocodeJobRepository.save(job);
+        launch(job.getId());
+        return toDTO(job);
+    }
+
+    private synchronized void launch(Long jobId) {
+        if (!runningJobId.compareAndSet(null, jobId)) { throw new BadRequestException("已有批次重新地理編碼工作執行中"); }
+        cancelRequested = false;
+        jobRunner.submit(() -> run(jobId));
+    }
+
+    /** 工作主迴圈：逐塊處理並在每塊後寫入檢查點 */
+    private void run(Long jobId) {
+        try {
+            RegeocodeJob job = findJobOrThrow(jobId);
+            while (!cancelRequested) {
+                List<ShopRow> chunk = jdbcTemplate.query(SELECT_CHUNK, (rs, i) -> new ShopRow(rs.getLong("id"), rs.getString("address"),
+                        rs.getBigDecimal("latitude"), rs.getBigDecimal("longitude")), job.getLastShopId(), chunkSize);
+                if (chunk.isEmpty()) {
+                    job.setStatus(JobStatus.COMPLETED);
+                    job.setFinishedAt(LocalDateTime.now());
+                    break;
+                }
+                processChunk(job, chunk);
+                job.setLastShopId(chunk.get(chunk.size() - 1).id());
+                job = regeocodeJobRepository.save(job);
+                logger.info("批次重新地理編碼工作 {}: 已處理 {}/{} (更新 {}, 查無 {}, 失敗 {})", jobId, job.getProcessedCount(), job.getTotalShops(),
+                        job.getUpdatedCount(), job.getNotFoundCount(), job.getFailedCount());
+            }
+            if (job.getStatus() == JobStatus.RUNNING) {
+                job.setStatus(JobStatus.CANCELLED);
+                job.setFinishedAt(LocalDateTime.now());
+            }
+            regeocodeJobRepository.save(job);
+            logger.info("批次重新地理編碼工作 {} 結束: {}", jobId, job.getStatus());
+        } catch (InterruptedException e) {
+            // 應用關閉：保持 RUNNING，下次啟動從最後的檢查點繼續 (已要求取消的工作直接標記為 CANCELLED)
+            Thread.currentThread().interrupt();
+            if (cancelRequested) {
+                regeocodeJobRepository.findById(jobId).ifPresent(job -> {
+                    job.setStatus(JobStatus.CANCELLED);
+                    job.setFinishedAt(LocalDateTime.now());
+                    regeocodeJobRepository.save(job);
+                });
+                logger.warn("批次重新地理編碼工作 {} 在取消途中被中斷，已標記為取消。", jobId);
+                return;
+            }
+            logger.warn("批次重新地理編碼工作 {} 被中斷，將於下次啟動時繼續。", jobId);
+        } catch (Exception e) {
+            logger.error("批次重新地理編碼工作 {} 失敗: {}", jobId, e.getMessage(), e);
+            regeocodeJobRepository.findById(jobId).ifPresent(job -> {
+                job.setStatus(JobStatus.FAILED);
+                job.setLastError(truncate(e.getMessage()));
+                job.setFinishedAt(LocalDateTime.now());
+                regeocodeJobRepository.save(job);
+            });
+        } finally {
+            runningJobId.set(null);
+        }
+    }
+
+    private void processChunk(RegeocodeJob job, List<ShopRow> chunk) throws InterruptedException {
+        List<Future<Outcome>> futures = new ArrayList<>(chunk.size());
+        for (ShopRow shop : chunk) {
+            futures.add(geocodePool.submit(() -> geocode(shop, job.isRefreshCache())));
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> updateIds = new ArrayList<>();
+        long notFound = 0, failed = 0;
+        for (Future<Outcome> future : futures) {
+            Outcome outcome;
+            try {
+                outcome = future.get();
+            } catch (ExecutionException e) {
+                failed++;
+                job.setLastError(truncate(e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                continue;
+            }
+            if (outcome.error() != null) { failed++; job.setLastError(truncate(outcome.error())); continue; }
+            if (outcome.location() == null) { notFound++; continue; }
+            BigDecimal lat = BigDecimal.valueOf(outcome.location().lat).setScale(7, RoundingMode.HALF_UP);
+            BigDecimal lng = BigDecimal.valueOf(outcome.location().lng).setScale(7, RoundingMode.HALF_UP);
+            ShopRow shop = outcome.shop();
+            if (shop.latitude() != null && shop.longitude() != null && shop.latitude().compareTo(lat) == 0 && shop.longitude().compareTo(lng) == 0) continue;
+            updates.add(new Object[] { lat, lng, shop.id(), shop.address() });
+            updateIds.add(shop.id());
+        }
+
+        long updated = 0;
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_LOCATION, updates);
+            List<Long> changedIds = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                // 0 表示地址在編碼期間已被修改，略過 (由一般的更新流程處理)
+                if (counts[i] != 0) { changedIds.add(updateIds.get(i)); }
+            }
+            updated = changedIds.size();
+            if (!changedIds.isEmpty()) {
+                List<ShopMarkerDTO> markers = shopRepository.findMarkersByIds(changedIds);
+                markers.forEach(marker -> marker.setCoverUrl(shopMediaMapper.toFullUrl(marker.getCoverUrl())));
+                shopIndexSynchronizer.markersSaved(markers);
+            }
+        }
+        job.setProcessedCount(job.getProcessedCount() + chunk.size());
+        job.setUpdatedCount(job.getUpdatedCount() + updated);
+        job.setNotFoundCount(job.getNotFoundCount() + notFound);
+        job.setFailedCount(job.getFailedCount() + failed);
+    }
+
+    private Outcome geocode(ShopRow shop, boolean refreshCache) {
+        if (!StringUtils.hasText(shop.address())) { return new Outcome(shop, null, null); }
+        try {
+            LatLng location = (refreshCache ? compositeGeocodingService.refresh(shop.address()) : geocodingService.lookup(shop.address())).orElse(null);
+            return new Outcome(shop, location, null);
+        } catch (GeocodingException e) {
+            return new Outcome(shop, null, "店家 " + shop.id() + ": " + e.getMessage());
+        }
+    }
+
+    /** 已要求取消但尚未停止的工作以 CANCELLING 表示 */
+    private RegeocodeJobDTO toDTO(RegeocodeJob job) {
+        RegeocodeJobDTO dto = regeocodeJobMapper.toRegeocodeJobDTO(job);
+        if (job.getStatus() == JobStatus.RUNNING && cancelRequested && job.getId().equals(runningJobId.get())) {
+            dto.setStatus(JobStatus.CANCELLING);
+        }
+        return dto;
+    }
+
+    private RegeocodeJob findJobOrThrow(Long jobId) {
+        return regeocodeJobRepository.findById(jobId).orElseThrow(() -> new ResourceNotFoundException("RegeocodeJob", "id", jobId));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
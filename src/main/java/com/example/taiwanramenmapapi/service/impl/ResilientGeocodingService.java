@@ -0,0 +1,187 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.example.taiwanramenmapapi.util.CircuitBreaker;
+import com.example.taiwanramenmapapi.util.RateLimiter;
+import com.google.maps.model.LatLng;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 外部地理編碼呼叫的隔離層 (包裝 {@link GoogleGeocodingService})。
+ * <p>
+ * 隔艙：呼叫在專用且有界的執行緒池上執行 (max-concurrent 條執行緒 + queue-size 的等待佇列)，
+ * 滿了立即拒絕，外部服務變慢時不會佔滿 Tomcat 的請求執行緒。
+ * 期限：每次呼叫 (含排隊) 最多等待 call-timeout-ms，逾時即放棄並計為失敗。
+ * 斷路器：最近的呼叫失敗率過高時開啟，期間直接拋出 GeocodingException 而不呼叫外部服務。
+ * 限流：所有實際送往外部服務的呼叫共用 rate-per-second 的配額 (離線地名檔與快取命中不佔配額)，
+ * 在 call-timeout-ms 內輪不到的呼叫直接拒絕。
+ * 指標：geocoding.provider.calls (依 outcome 分類的延遲)、geocoding.circuit.state、geocoding.bulkhead.*。
+ */
+@Service
+public class ResilientGeocodingService implements GeocodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientGeocodingService.class);
+
+    @Autowired
+    @Qualifier("googleGeocodingService")
+    private GeocodingService delegate;
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${app.geocoding.resilience.call-timeout-ms:5000}")
+    private long callTimeoutMs;
+
+    @Value("${app.geocoding.resilience.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${app.geocoding.resilience.queue-size:16}")
+    private int queueSize;
+
+    @Value("${app.geocoding.resilience.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${app.geocoding.resilience.circuit.window-size:20}")
+    private int windowSize;
+
+    @Value("${app.geocoding.resilience.circuit.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${app.geocoding.resilience.circuit.failure-rate:0.5}")
+    private double failureRate;
+
+    @Value("${app.geocoding.resilience.circuit.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${app.geocoding.resilience.circuit.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    private ThreadPoolExecutor executor;
+    private CircuitBreaker circuitBreaker;
+    private RateLimiter rateLimiter; // rate-per-second <= 0 時為 null (不限流)
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                r -> {
+                    Thread t = new Thread(r, "geocode-call-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRate, openDurationMs, halfOpenCalls);
+        this.rateLimiter = ratePerSecond > 0 ? new RateLimiter(ratePerSecond) : null;
+
+        Gauge.builder("geocoding.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("斷路器狀態: 0=CLOSED, 1=OPEN, 2=HALF_OPEN").register(meterRegistry);
+        Gauge.builder("geocoding.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("geocoding.bulkhead.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Optional<LatLng> getLatLng(String address) {
+        try {
+            return lookup(address);
+        } catch (GeocodingException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public LatLng getLatLngOrFail(String address) {
+        return lookup(address)
+                .orElseThrow(() -> new GeocodingException("無法根據地址獲取經緯度: " + address));
+    }
+
+    @Override
+    public Optional<LatLng> lookup(String address) {
+        if (!StringUtils.hasText(address)) { return delegate.lookup(address); }
+        long start = System.nanoTime();
+        if (!circuitBreaker.tryAcquire()) {
+            record("short_circuited", start);
+            throw new GeocodingException("地理編碼服務暫時不可用 (斷路器開啟)");
+        }
+
+        try {
+            if (rateLimiter != null && !rateLimiter.tryAcquire(callTimeoutMs, TimeUnit.MILLISECONDS)) {
+                circuitBreaker.onIgnored();
+                record("throttled", start);
+                throw new GeocodingException("地理編碼請求超過每秒上限，請稍後再試");
+            }
+        } catch (InterruptedException e) {
+            circuitBreaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new GeocodingException("地理編碼被中斷", e);
+        }
+
+        Future<Optional<LatLng>> future;
+        try {
+            future = executor.submit(() -> delegate.lookup(address));
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.onIgnored();
+            record("rejected", start);
+            throw new GeocodingException("地理編碼請求過多，請稍後再試");
+        }
+
+        try {
+            // 等待限流許可的時間也計入期限
+            long remainingNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(callTimeoutMs) - (System.nanoTime() - start));
+            Optional<LatLng> result = future.get(remainingNanos, TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess();
+            record(result.isPresent() ? "success" : "not_found", start);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            record("timeout", start);
+            logger.warn("地址 '{}' 地理編碼超過 {} ms，已放棄。", address, callTimeoutMs);
+            throw new GeocodingException("地理編碼逾時");
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            record("error", start);
+            if (e.getCause() instanceof GeocodingException cause) { throw cause; }
+            throw new GeocodingException("地理編碼服務呼叫失敗: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new GeocodingException("地理編碼被中斷", e);
+        }
+    }
+
+    /** 目前的斷路器狀態 */
+    public CircuitBreaker.State getCircuitState() { return circuitBreaker.getState(); }
+
+    private void record(String outcome, long startNanos) {
+        Timer.builder("geocoding.provider.calls").tag("outcome", outcome)
+                .register(meterRegistry).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
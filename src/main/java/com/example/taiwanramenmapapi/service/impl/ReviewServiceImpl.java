@@ -1,6 +1,7 @@
 // src/main/java/com/example/taiwanramenmapapi/service/impl/ReviewServiceImpl.java
 package com.example.taiwanramenmapapi.service.impl;
 
+import com.example.taiwanramenmapapi.dto.response.CursorPageResponse;
 import com.example.taiwanramenmapapi.dto.response.PageResponse;
 import com.example.taiwanramenmapapi.dto.request.CreateReviewRequest;
 import com.example.taiwanramenmapapi.dto.request.UpdateReviewRequest;
@@ -16,12 +17,15 @@ import com.example.taiwanramenmapapi.mapper.UserMapper; // 確保引入 UserMapp
 import com.example.taiwanramenmapapi.repository.*;
 import com.example.taiwanramenmapapi.service.FileStorageService;
 import com.example.taiwanramenmapapi.service.ReviewService;
-import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.task.ShopRatingFlusher;
+import com.example.taiwanramenmapapi.util.KeysetCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -48,18 +52,18 @@ public class ReviewServiceImpl implements ReviewService {
     private final ReviewMediaRepository reviewMediaRepository;
     private final ReviewMapper reviewMapper;
     private final UserMapper userMapper; // 注入 UserMapper
-    private final ShopService shopService; // 保持注入，用於更新評分
+    private final ShopRatingFlusher shopRatingFlusher; // 評分變更交由背景合併寫入
     private final FileStorageService fileStorageService; // 文件儲存服務
 
     @Autowired
-    public ReviewServiceImpl(ReviewRepository reviewRepository, ShopRepository shopRepository, UserRepository userRepository, ReviewMediaRepository reviewMediaRepository, ReviewMapper reviewMapper, UserMapper userMapper, ShopService shopService, FileStorageService fileStorageService) {
+    public ReviewServiceImpl(ReviewRepository reviewRepository, ShopRepository shopRepository, UserRepository userRepository, ReviewMediaRepository reviewMediaRepository, ReviewMapper reviewMapper, UserMapper userMapper, ShopRatingFlusher shopRatingFlusher, FileStorageService fileStorageService) {
         this.reviewRepository = reviewRepository;
         this.shopRepository = shopRepository;
         this.userRepository = userRepository;
         this.reviewMediaRepository = reviewMediaRepository;
         this.reviewMapper = reviewMapper;
         this.userMapper = userMapper;
-        this.shopService = shopService;
+        this.shopRatingFlusher = shopRatingFlusher;
         this.fileStorageService = fileStorageService; // 初始化 FileStorageService
     }
 
@@ -123,12 +127,12 @@ public class ReviewServiceImpl implements ReviewService {
 
         // 更新父評論回覆數
         if (parentReview != null) {
-            try { long newReplyCount = countByParentReviewId(parentReview.getId()); parentReview.setReplyCount((int)newReplyCount); reviewRepository.save(parentReview); logger.debug("父評論 ID {} 的回覆數已更新為 {}", parentReview.getId(), newReplyCount); }
+            try { reviewRepository.incrementReplyCount(parentReview.getId()); logger.debug("父評論 ID {} 的回覆數已加 1", parentReview.getId()); }
             catch (Exception e) { logger.error("更新父評論 {} 回覆數失敗: {}", parentReview.getId(), e.getMessage(), e); }
         }
         // 更新店家評分
         if (parentReview == null && savedReview.getRating() != null) {
-            try { shopService.updateShopRating(shopId); }
+            try { shopRatingFlusher.ratingChanged(shopId, null, savedReview.getRating()); }
             catch (Exception e) { logger.error("創建評論後更新店家 {} 評分失敗: {}", shopId, e.getMessage(), e); }
         }
 
@@ -185,7 +189,7 @@ public class ReviewServiceImpl implements ReviewService {
                 boolean actualRatingChanged = persistedReview.getParentReview() == null && !Objects.equals(oldRating, persistedReview.getRating());
                 if (actualRatingChanged) {
                     logger.info("[UPDATE] 評分更改，觸發店家評分更新 for shop ID {}", persistedReview.getShop().getId());
-                    shopService.updateShopRating(persistedReview.getShop().getId());
+                    shopRatingFlusher.ratingChanged(persistedReview.getShop().getId(), oldRating, persistedReview.getRating());
                 } else { logger.debug("[UPDATE] 評分未實際更改，不觸發店家評分更新。"); }
 
                 return reviewMapper.toReviewDTO(persistedReview); // 返回 DTO
@@ -211,7 +215,7 @@ public class ReviewServiceImpl implements ReviewService {
 
         Long shopId = review.getShop().getId();
         boolean isTopLevel = review.getParentReview() == null;
-        boolean hadRating = review.getRating() != null;
+        Integer oldRating = review.getRating();
         Long parentReviewId = review.getParentReview() != null ? review.getParentReview().getId() : null;
 
         // 1. 清理該評論及其所有子回覆關聯的物理媒體文件和 DB 記錄
@@ -224,16 +228,12 @@ public class ReviewServiceImpl implements ReviewService {
 
         // 3. 更新父評論的回覆數
         if (parentReviewId != null) {
-            reviewRepository.findById(parentReviewId).ifPresent(pReview -> {
-                long newReplyCount = countByParentReviewId(pReview.getId());
-                pReview.setReplyCount((int)newReplyCount);
-                reviewRepository.save(pReview);
-                logger.debug("父評論 ID {} 的回覆數已更新為 {}", pReview.getId(), newReplyCount);
-            });
+            reviewRepository.decrementReplyCount(parentReviewId);
+            logger.debug("父評論 ID {} 的回覆數已減 1", parentReviewId);
         }
         // 4. 更新店家評分
-        if (isTopLevel && hadRating) {
-            try { shopService.updateShopRating(shopId); }
+        if (isTopLevel && oldRating != null) {
+            try { shopRatingFlusher.ratingChanged(shopId, oldRating, null); }
             catch (Exception e) { logger.error("刪除評論後更新店家 {} 評分失敗: {}", shopId, e.getMessage(), e); }
         }
     }
@@ -268,6 +268,25 @@ public class ReviewServiceImpl implements ReviewService {
         return new PageResponse<>(dtoPage);
     }
 
+    /**
+     * 以游標分頁獲取店家的頂級評論：多取一筆判斷是否還有下一頁，不執行 COUNT 查詢。
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ReviewDTO> scrollShopReviews(Long shopId, String sortBy, Sort.Direction direction, KeysetCursor after, int size) {
+        logger.debug("Service: 游標分頁獲取店家 ID {} 的頂級評論，sort={},{}，size={}", shopId, sortBy, direction, size);
+        if (!shopRepository.existsById(shopId)) { throw new ResourceNotFoundException("Shop", "id", shopId); }
+        Specification<Review> spec = Specification.<Review>where((root, query, cb) -> cb.equal(root.get("shop").get("id"), shopId))
+                .and((root, query, cb) -> cb.isNull(root.get("parentReview")))
+                .and(KeysetSpecifications.after(after));
+        List<Review> rows = reviewRepository.findBy(spec, q -> q.sortBy(KeysetSpecifications.sort(sortBy, direction)).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Review> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? KeysetCursor.after(page.get(size - 1), sortBy, direction).encode() : null;
+        List<ReviewDTO> content = page.stream().map(reviewMapper::toReviewDTO).collect(Collectors.toList());
+        return new CursorPageResponse<>(content, size, hasNext, nextCursor);
+    }
+
     /**
      * 獲取評論的回覆列表。
      */
@@ -390,6 +409,4 @@ public class ReviewServiceImpl implements ReviewService {
     private void checkReviewOwnership(Review review, User currentUser) { if(review==null||review.getUser()==null)throw new IllegalArgumentException("評論或評論用戶不能為空"); if(currentUser==null)throw new UnauthorizedActionException("無法獲取當前用戶信息"); if(!Objects.equals(review.getUser().getId(),currentUser.getId())){logger.warn("...");throw new UnauthorizedActionException("您只能操作自己的評論");} }
     /** 檢查評論是否屬於當前用戶或當前用戶是否為管理員 */
     private void checkReviewOwnershipOrAdmin(Review review, User currentUser) { if(review==null)throw new IllegalArgumentException("評論對象不能為空"); if(currentUser==null)throw new UnauthorizedActionException("無法獲取當前用戶信息"); boolean iA=currentUser.getRole()==Role.ROLE_ADMIN; boolean iO=review.getUser()!=null&&Objects.equals(review.getUser().getId(),currentUser.getId()); if(!iA&&!iO){logger.warn("...");throw new UnauthorizedActionException("您沒有權限執行此操作");} }
-    /** 計算父評論下的回覆數量 */
-    private long countByParentReviewId(Long parentReviewId) { return reviewRepository.countByParentReviewId(parentReviewId); }
 }
\ No newline at end of file
@@ -1,35 +1,66 @@
 package com.example.taiwanramenmapapi.service.impl;
 
+import com.example.taiwanramenmapapi.dto.response.CursorPageResponse;
+import com.example.taiwanramenmapapi.dto.response.NearbyShopDTO;
 import com.example.taiwanramenmapapi.dto.response.PageResponse;
 import com.example.taiwanramenmapapi.dto.request.ShopOwnerSignUpRequest;
 import com.example.taiwanramenmapapi.dto.request.UpdateShopRequest;
+import com.example.taiwanramenmapapi.dto.request.ShopFilterRequest;
+import com.example.taiwanramenmapapi.dto.request.ViewportDiffRequest;
+import com.example.taiwanramenmapapi.dto.response.ShopClusterDTO;
 import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
 import com.example.taiwanramenmapapi.dto.response.ShopMediaDTO;
+import com.example.taiwanramenmapapi.dto.response.SuggestionDTO;
+import com.example.taiwanramenmapapi.dto.response.ViewportDiffDTO;
 import com.example.taiwanramenmapapi.entity.*;
+import com.example.taiwanramenmapapi.entity.enums.GeocodeStatus;
 import com.example.taiwanramenmapapi.entity.enums.Role;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
 import com.example.taiwanramenmapapi.exception.FileStorageException;
 import com.example.taiwanramenmapapi.exception.GeocodingException;
 import com.example.taiwanramenmapapi.exception.ResourceNotFoundException;
 import com.example.taiwanramenmapapi.exception.UnauthorizedActionException;
+import com.example.taiwanramenmapapi.index.ShopClusterIndex;
+import com.example.taiwanramenmapapi.index.ShopChangeLog;
+import com.example.taiwanramenmapapi.index.ShopIndexSynchronizer;
+import com.example.taiwanramenmapapi.index.ShopLeaderboard;
+import com.example.taiwanramenmapapi.index.ShopSearchIndex;
+import com.example.taiwanramenmapapi.index.ShopSuggestIndex;
+import com.example.taiwanramenmapapi.index.ShopSpatialIndex;
+import com.example.taiwanramenmapapi.index.ViewportTileCache;
 import com.example.taiwanramenmapapi.mapper.ShopMapper;
 import com.example.taiwanramenmapapi.mapper.ShopMediaMapper;
 import com.example.taiwanramenmapapi.repository.*;
 import com.example.taiwanramenmapapi.service.FileStorageService;
 import com.example.taiwanramenmapapi.service.GeocodingService;
 import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.task.ShopGeocodingWorker;
+import com.example.taiwanramenmapapi.util.GeoUtils;
+import com.example.taiwanramenmapapi.util.KeysetCursor;
+import com.example.taiwanramenmapapi.util.RatingDelta;
+import com.example.taiwanramenmapapi.util.TaiwanAddressParser;
 import com.google.maps.model.LatLng;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -38,8 +69,15 @@ import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -56,31 +94,49 @@ public class ShopServiceImpl implements ShopService {
     @Autowired private ShopMediaMapper shopMediaMapper;
     @Autowired private GeocodingService geocodingService;
     @Autowired private FileStorageService fileStorageService;
+    @Autowired private ShopSpatialIndex shopSpatialIndex;
+    @Autowired private ShopClusterIndex shopClusterIndex;
+    @Autowired private ShopIndexSynchronizer shopIndexSynchronizer;
+    @Autowired private ViewportTileCache viewportTileCache;
+    @Autowired private ShopChangeLog shopChangeLog;
+    @Autowired private ShopSearchIndex shopSearchIndex;
+    @Autowired private ShopSuggestIndex shopSuggestIndex;
+    @Autowired private ShopLeaderboard shopLeaderboard;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ShopGeocodingWorker shopGeocodingWorker;
 
     @Value("${app.ranking.min-reviews:3}") private int minimumReviewsForRanking;
     @Value("${app.ranking.global-avg-rating:3.5}") private BigDecimal globalAverageRating;
+    @Value("${app.geo-index.nearby-fallback-radius-m:50000}") private double nearbyFallbackRadiusMeters;
+    @Value("${app.geocoding.async.enabled:false}") private boolean asyncGeocoding; // true: 先存檔再由背景工作編碼
     private static final MathContext MC = new MathContext(10, RoundingMode.HALF_UP);
 
     @Override
     @Transactional
     public ShopDTO createShopWithOwner(ShopOwnerSignUpRequest request, User owner) {
         logger.info("Service: Creating shop '{}' for owner {} (ID: {})", request.getShopName(), owner.getUsername(), owner.getId());
-        logger.debug("Step 1: Geocoding address '{}'", request.getAddress());
-        LatLng location = geocodingService.getLatLngOrFail(request.getAddress());
-        logger.debug("Step 1 Success: Geocoded to Lat={}, Lng={}", location.lat, location.lng);
-        logger.debug("Step 2: Building Shop entity...");
         Shop shop = Shop.builder()
                 .name(request.getShopName()).address(request.getAddress()).phone(request.getPhone())
                 .openingHours(request.getOpeningHours()).description(request.getDescription())
-                .latitude(BigDecimal.valueOf(location.lat).setScale(7, RoundingMode.HALF_UP))
-                .longitude(BigDecimal.valueOf(location.lng).setScale(7, RoundingMode.HALF_UP))
                 .owner(owner).averageRating(BigDecimal.ZERO).reviewCount(0).weightedRating(BigDecimal.ZERO)
                 .build();
+        if (asyncGeocoding) {
+            logger.debug("Step 1: Async geocoding enabled, shop saved as PENDING_GEOCODE");
+            shop.setGeocodeStatus(GeocodeStatus.PENDING_GEOCODE);
+        } else {
+            logger.debug("Step 1: Geocoding address '{}'", request.getAddress());
+            LatLng location = geocodingService.getLatLngOrFail(request.getAddress());
+            logger.debug("Step 1 Success: Geocoded to Lat={}, Lng={}", location.lat, location.lng);
+            shop.setLatitude(BigDecimal.valueOf(location.lat).setScale(7, RoundingMode.HALF_UP));
+            shop.setLongitude(BigDecimal.valueOf(location.lng).setScale(7, RoundingMode.HALF_UP));
+        }
+        logger.debug("Step 2: Shop entity built.");
         logger.info("[CREATE-DEBUG] Before Save - Shop Built: Name=[{}], Address=[{}], Phone=[{}]", shop.getName(), shop.getAddress(), shop.getPhone());
         logger.debug("Step 3: Saving Shop entity...");
         Shop savedShop;
         try {
-            savedShop = shopRepository.save(shop);
+            savedShop = shopRepository.saveAndFlush(shop);
+            shopRepository.syncLocation(savedShop.getId()); // 同步 location 空間欄位
             logger.info("[CREATE-DEBUG] After Save - Shop Saved: ID={}, Name=[{}], Address=[{}], Phone=[{}]", savedShop.getId(), savedShop.getName(), savedShop.getAddress(), savedShop.getPhone());
         } catch (Exception e) { logger.error("Failed to save basic shop info: {}", e.getMessage(), e); throw new RuntimeException("Failed to save basic shop info", e); }
         if (request.getInitialPhotos() != null && !request.getInitialPhotos().isEmpty()) {
@@ -94,6 +150,8 @@ public class ShopServiceImpl implements ShopService {
         ShopDTO resultDTO = mapShopToDTOWithMedia(finalShopState); // 使用輔助方法映射
         logger.info("[CREATE-DEBUG] Mapped DTO: Name=[{}], Address=[{}], Phone=[{}], MediaCount={}", resultDTO.getName(), resultDTO.getAddress(), resultDTO.getPhone(), resultDTO.getMedia() != null ? resultDTO.getMedia().size() : 0);
         if (resultDTO.getMedia() != null && !resultDTO.getMedia().isEmpty()) { logger.info("[CREATE-DEBUG] Mapped DTO Media URL[0]: {}", resultDTO.getMedia().get(0).getUrl()); }
+        shopIndexSynchronizer.shopSaved(resultDTO);
+        if (savedShop.getGeocodeStatus() == GeocodeStatus.PENDING_GEOCODE) { shopGeocodingWorker.enqueue(savedShop.getId(), savedShop.getAddress()); }
         return resultDTO;
     }
 
@@ -109,16 +167,67 @@ public class ShopServiceImpl implements ShopService {
     @Transactional(readOnly = true)
     public PageResponse<ShopDTO> getAllShops(Pageable pageable, String name, String address, String city) {
         logger.debug("Service: Getting shops - Pageable: {}, Name: '{}', Address: '{}', City: '{}'", pageable, name, address, city);
-        Page<Shop> shopPage;
-        if (StringUtils.hasText(name)) { shopPage = shopRepository.findByNameContainingIgnoreCase(name, pageable); }
-        else if (StringUtils.hasText(city)) { shopPage = shopRepository.findByAddressContainingIgnoreCase(city, pageable); }
-        else if (StringUtils.hasText(address)) { shopPage = shopRepository.findByAddressContainingIgnoreCase(address, pageable); }
-        else { shopPage = shopRepository.findAll(pageable); }
+        Page<Shop> shopPage = shopRepository.findAll(listSpecification(name, address, city), pageable);
         logger.info("Service: Found {} shops matching criteria.", shopPage.getTotalElements());
         Page<ShopDTO> dtoPage = shopPage.map(this::mapShopToDTOWithMedia);
         return new PageResponse<>(dtoPage);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ShopDTO> scrollShops(String name, String address, String city, String sortBy, Sort.Direction direction, KeysetCursor after, int size) {
+        logger.debug("Service: Scrolling shops - Name: '{}', Address: '{}', City: '{}', sort={},{}, size={}", name, address, city, sortBy, direction, size);
+        Specification<Shop> spec = listSpecification(name, address, city).and(KeysetSpecifications.after(after));
+        // 多取一筆判斷是否還有下一頁，不執行 COUNT 查詢
+        List<Shop> rows = shopRepository.findBy(spec, q -> q.sortBy(KeysetSpecifications.sort(sortBy, direction)).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<Shop> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? KeysetCursor.after(page.get(size - 1), sortBy, direction).encode() : null;
+        List<ShopDTO> content = page.stream().map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        return new CursorPageResponse<>(content, size, hasNext, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<ShopDTO> filterShops(ShopFilterRequest filter, Pageable pageable) {
+        logger.debug("Service: Filtering shops - {}, Pageable: {}", filter, pageable);
+        // 地圖邊界 (四個值都提供才生效) 先以原生 MBRContains 查詢走 SPATIAL INDEX 取得 ID，邊界內沒有店家時不再查詢
+        List<Long> boundsIds = null;
+        if (filter.getMinLat() != null && filter.getMaxLat() != null && filter.getMinLng() != null && filter.getMaxLng() != null) {
+            boundsIds = shopRepository.findIdsWithinEnvelope(GeoUtils.envelopeWkt(filter.getMinLat().doubleValue(), filter.getMaxLat().doubleValue(),
+                    filter.getMinLng().doubleValue(), filter.getMaxLng().doubleValue()));
+            if (boundsIds.isEmpty()) { return new PageResponse<>(Page.<Shop>empty(pageable).map(this::mapShopToDTOWithMedia)); }
+        }
+        Specification<Shop> spec = Specification.where(ShopSpecifications.nameContains(filter.getName()))
+                .and(ShopSpecifications.inRegion(filter.getCounty()))
+                .and(ShopSpecifications.minAverageRating(filter.getMinRating()))
+                .and(ShopSpecifications.minReviewCount(filter.getMinReviewCount()))
+                .and(ShopSpecifications.idIn(boundsIds));
+        Page<Shop> shopPage = shopRepository.findAll(spec, pageable);
+        logger.info("Service: Filter matched {} shops.", shopPage.getTotalElements());
+        return new PageResponse<>(shopPage.map(this::mapShopToDTOWithMedia));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<ShopDTO> searchShops(String query, int page, int size) {
+        ShopSearchIndex.SearchResult result = shopSearchIndex.search(query, page * size, size);
+        logger.debug("Service: Search '{}' matched {} shops.", query, result.total());
+        // 只依 ID 讀取當頁店家，再按相關度排回原順序
+        List<Long> ids = result.hits().stream().map(ShopSearchIndex.Hit::shopId).collect(Collectors.toList());
+        Map<Long, Shop> shopsById = shopRepository.findAllById(ids).stream().collect(Collectors.toMap(Shop::getId, shop -> shop));
+        List<ShopDTO> content = ids.stream().map(shopsById::get).filter(Objects::nonNull)
+                .map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        return new PageResponse<>(new PageImpl<>(content, PageRequest.of(page, size), result.total()));
+    }
+
+    @Override
+    public List<SuggestionDTO> suggestShops(String prefix, int limit) {
+        return shopSuggestIndex.suggest(prefix, limit).stream()
+                .map(s -> new SuggestionDTO(s.text(), s.type().name(), s.shopId()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional
     public ShopDTO updateShop(Long id, UpdateShopRequest updateShopRequest) {
@@ -132,17 +241,50 @@ public class ShopServiceImpl implements ShopService {
         shopMapper.updateShopFromDto(updateShopRequest, shop); // 只更新 DTO 中有的字段
         logger.info("[UPDATE-DEBUG] After MapStruct: Name=[{}], Address=[{}], Phone=[{}]", shop.getName(), shop.getAddress(), shop.getPhone());
         if (updateShopRequest.getAddress() != null && !updateShopRequest.getAddress().equals(oldAddress)) {
-            logger.info("Step 2: Address changed, re-geocoding for shop ID: {}", id);
-            try { LatLng l=geocodingService.getLatLngOrFail(updateShopRequest.getAddress()); shop.setLatitude(BigDecimal.valueOf(l.lat).setScale(7,RoundingMode.HALF_UP)); shop.setLongitude(BigDecimal.valueOf(l.lng).setScale(7,RoundingMode.HALF_UP)); logger.info("Step 2 Success: Re-geocoded to Lat={}, Lng={}",shop.getLatitude(),shop.getLongitude()); }
-            catch (GeocodingException e) { logger.error("Re-geocoding failed: {}", id, e); throw new RuntimeException("Update failed: re-geocoding error", e); }
+            if (asyncGeocoding) {
+                // 舊座標已不正確，編碼完成前先從地圖移除
+                logger.info("Step 2: Address changed, queueing background geocoding for shop ID: {}", id);
+                shop.setLatitude(null); shop.setLongitude(null); shop.setGeocodeStatus(GeocodeStatus.PENDING_GEOCODE);
+            } else {
+                logger.info("Step 2: Address changed, re-geocoding for shop ID: {}", id);
+                try { LatLng l=geocodingService.getLatLngOrFail(updateShopRequest.getAddress()); shop.setLatitude(BigDecimal.valueOf(l.lat).setScale(7,RoundingMode.HALF_UP)); shop.setLongitude(BigDecimal.valueOf(l.lng).setScale(7,RoundingMode.HALF_UP)); shop.setGeocodeStatus(GeocodeStatus.OK); logger.info("Step 2 Success: Re-geocoded to Lat={}, Lng={}",shop.getLatitude(),shop.getLongitude()); }
+                catch (GeocodingException e) { logger.error("Re-geocoding failed: {}", id, e); throw new RuntimeException("Update failed: re-geocoding error", e); }
+            }
         } else { logger.debug("Step 2: Address not changed."); }
         logger.debug("Step 3: Saving updated Shop entity...");
         logger.info("[UPDATE-DEBUG] Before Save: Name=[{}], Address=[{}], Phone=[{}]", shop.getName(), shop.getAddress(), shop.getPhone());
         Shop updatedShop;
-        try { updatedShop = shopRepository.save(shop); logger.info("Service: Shop ID: {} updated successfully in DB.", updatedShop.getId()); }
+        try { updatedShop = shopRepository.saveAndFlush(shop); shopRepository.syncLocation(updatedShop.getId()); logger.info("Service: Shop ID: {} updated successfully in DB.", updatedShop.getId()); }
         catch (Exception e) { logger.error("Failed to save updated shop ID {}: {}", id, e.getMessage(), e); throw new RuntimeException("Failed to save updated shop", e); }
         logger.debug("Step 4: Mapping final state to DTO for shop ID: {}", updatedShop.getId());
-        return mapShopToDTOWithMedia(updatedShop); // 返回映射後的 DTO
+        ShopDTO resultDTO = mapShopToDTOWithMedia(updatedShop); // 返回映射後的 DTO
+        shopIndexSynchronizer.shopSaved(resultDTO);
+        if (updatedShop.getGeocodeStatus() == GeocodeStatus.PENDING_GEOCODE) { shopGeocodingWorker.enqueue(updatedShop.getId(), updatedShop.getAddress()); }
+        return resultDTO;
+    }
+
+    @Override
+    @Transactional
+    public boolean applyGeocodeResult(Long shopId, String address, LatLng location) {
+        Shop shop = shopRepository.findByIdForUpdate(shopId).orElse(null);
+        if (shop == null || shop.getGeocodeStatus() != GeocodeStatus.PENDING_GEOCODE || !Objects.equals(shop.getAddress(), address)) {
+            logger.debug("Service: Stale geocode result for shop ID: {} ignored.", shopId);
+            return false;
+        }
+        if (location == null) {
+            shop.setGeocodeStatus(GeocodeStatus.FAILED);
+            shopRepository.save(shop);
+            logger.warn("Service: Shop ID: {} could not be geocoded, marked as FAILED.", shopId);
+            return true;
+        }
+        shop.setLatitude(BigDecimal.valueOf(location.lat).setScale(7, RoundingMode.HALF_UP));
+        shop.setLongitude(BigDecimal.valueOf(location.lng).setScale(7, RoundingMode.HALF_UP));
+        shop.setGeocodeStatus(GeocodeStatus.OK);
+        Shop updatedShop = shopRepository.saveAndFlush(shop);
+        shopRepository.syncLocation(updatedShop.getId());
+        shopIndexSynchronizer.shopSaved(mapShopToDTOWithMedia(updatedShop));
+        logger.info("Service: Shop ID: {} geocoded in background to Lat={}, Lng={}", shopId, updatedShop.getLatitude(), updatedShop.getLongitude());
+        return true;
     }
 
     @Override
@@ -156,52 +298,217 @@ public class ShopServiceImpl implements ShopService {
         List<Review> reviewsToDelete = reviewRepository.findByShopId(shop.getId());
         for(Review review : reviewsToDelete) { deleteReviewMediaFilesInternal(review); } // 刪除評論媒體文件
         shopRepository.delete(shop); // 刪除店家及級聯數據
+        shopIndexSynchronizer.shopDeleted(id);
         logger.warn("Service: Shop ID: {} deleted by Admin {}", id, currentUser.getUsername());
     }
 
+    @Override
+    @Transactional
+    public void applyReviewRatingChange(Long shopId, Integer oldRating, Integer newRating) {
+        applyRatingDelta(shopId, RatingDelta.of(oldRating, newRating));
+    }
+
+    @Override
+    @Transactional
+    public void applyRatingDelta(Long shopId, RatingDelta delta) {
+        if (delta.isZero()) return;
+        if (shopRepository.applyRatingDelta(shopId, delta.sum(), delta.count(),
+                delta.d1(), delta.d2(), delta.d3(), delta.d4(), delta.d5()) == 0) {
+            throw new ResourceNotFoundException("Shop", "id", shopId);
+        }
+        // 上面的 UPDATE 已持有該列的行鎖，事務結束前其他評論寫入無法改變總和，讀回的值即為最新
+        Object[] totals = shopRepository.findRatingTotals(shopId).get(0);
+        long ratingSum = ((Number) totals[0]).longValue();
+        int ratingCount = ((Number) totals[1]).intValue();
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int star = 1; star <= 5; star++) { histogram.put(star, totals[star + 1] != null ? ((Number) totals[star + 1]).intValue() : 0); }
+        BigDecimal avgRating = calculateAverageRating(ratingSum, ratingCount);
+        BigDecimal weightedRating = calculateWeightedRating(avgRating, ratingCount);
+        shopRepository.updateDerivedRatings(shopId, avgRating, weightedRating);
+
+        // 大量更新不經過持久化上下文，索引快照改以 DTO 帶入新值
+        ShopDTO snapshot = mapShopToDTOWithMedia(findShopByIdOrThrow(shopId));
+        snapshot.setReviewCount(ratingCount); snapshot.setAverageRating(avgRating); snapshot.setWeightedRating(weightedRating);
+        snapshot.setRatingHistogram(histogram);
+        shopIndexSynchronizer.shopSaved(snapshot);
+        logger.debug("Service: Shop {} rating delta applied ({}): Count={}, Avg={}, Weighted={}", shopId,
+                delta, ratingCount, avgRating, weightedRating);
+    }
+
     @Override
     @Transactional
     public void updateShopRating(Long shopId) {
-        logger.debug("Service: Updating rating for shop ID: {}", shopId);
+        logger.debug("Service: Recomputing rating for shop ID: {}", shopId);
         Shop shop = findShopByIdOrThrow(shopId);
-        List<Integer> ratings = reviewRepository.findAllTopLevelRatingsByShopId(shopId);
-        long reviewCount = reviewRepository.countByShopIdAndParentReviewIdIsNull(shopId);
-        shop.setReviewCount((int)reviewCount);
-        BigDecimal avgRating = calculateAverageRating(ratings);
-        shop.setAverageRating(avgRating);
-        BigDecimal weightedRating = calculateWeightedRating(avgRating, (int)reviewCount);
-        shop.setWeightedRating(weightedRating);
-        shopRepository.save(shop);
-        logger.info("Service: Shop {} rating updated: Count={}, Avg={}, Weighted={}", shopId, reviewCount, avgRating, weightedRating);
+        long ratingSum = 0; int ratingCount = 0;
+        int[] starCounts = new int[6]; // 索引 1~5 對應星等
+        for (Object[] row : reviewRepository.countTopLevelRatingsByStar(shopId)) {
+            int star = ((Number) row[0]).intValue();
+            int count = ((Number) row[1]).intValue();
+            ratingSum += (long) star * count;
+            ratingCount += count;
+            if (star >= 1 && star <= 5) starCounts[star] += count;
+        }
+        BigDecimal avgRating = calculateAverageRating(ratingSum, ratingCount);
+        BigDecimal weightedRating = calculateWeightedRating(avgRating, ratingCount);
+        // 只寫評分欄位 (不保存整個實體)，背景重算時不會覆蓋同時進行的店家資料修改
+        shopRepository.updateRatingTotals(shopId, ratingSum, ratingCount,
+                starCounts[1], starCounts[2], starCounts[3], starCounts[4], starCounts[5]);
+        shopRepository.updateDerivedRatings(shopId, avgRating, weightedRating);
+
+        ShopDTO snapshot = mapShopToDTOWithMedia(shop);
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int star = 1; star <= 5; star++) { histogram.put(star, starCounts[star]); }
+        snapshot.setReviewCount(ratingCount); snapshot.setAverageRating(avgRating); snapshot.setWeightedRating(weightedRating);
+        snapshot.setRatingHistogram(histogram);
+        shopIndexSynchronizer.shopSaved(snapshot);
+        logger.info("Service: Shop {} rating recomputed: Count={}, Avg={}, Weighted={}", shopId, ratingCount, avgRating, weightedRating);
     }
 
+    /**
+     * 排行榜由記憶體快照提供，不開啟事務也不取得資料庫連線；
+     * 只有排行榜尚未載入或要求的名次超過快照保留數時，才以唯讀事務查詢資料庫。
+     */
     @Override
-    @Transactional(readOnly = true)
     public List<ShopDTO> getTopRatedShops(int limit) {
         logger.debug("Service: Getting Top {} shops (Global)", limit);
-        Pageable pageable = PageRequest.of(0, limit);
-        Page<Shop> topShopsPage = shopRepository.findTopRatedShops(minimumReviewsForRanking, pageable);
-        return topShopsPage.stream().map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        if (shopLeaderboard.isReady() && limit <= shopLeaderboard.getSize()) { return shopLeaderboard.top(limit); }
+        return readOnly(() -> shopRepository.findTopRatedShops(minimumReviewsForRanking, PageRequest.of(0, limit))
+                .stream().map(this::mapShopToDTOWithMedia).collect(Collectors.toList()));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ShopDTO> getTopRatedShopsByRegion(String region, int limit) {
         logger.debug("Service: Getting Top {} shops (Region: {})", limit, region);
         if (!StringUtils.hasText(region)) { return getTopRatedShops(limit); }
-        Pageable pageable = PageRequest.of(0, limit);
-        Page<Shop> topShopsPage = shopRepository.findTopRatedShopsByRegion(region, minimumReviewsForRanking, pageable);
-        return topShopsPage.stream().map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        String county = TaiwanAddressParser.normalizeCounty(region);
+        String district = TaiwanAddressParser.normalize(region.trim());
+        boolean isDistrict = county == null && TaiwanAddressParser.isDistrictName(district);
+        if (shopLeaderboard.isReady() && limit <= shopLeaderboard.getSize()) {
+            if (county != null) { return shopLeaderboard.topByCounty(county, limit); }
+            if (isDistrict) { return shopLeaderboard.topByDistrict(district, limit); }
+        }
+        // 無法辨識為縣市或行政區的區域 (地址模糊匹配) 仍查詢資料庫
+        return readOnly(() -> {
+            Pageable pageable = PageRequest.of(0, limit);
+            Page<Shop> topShopsPage;
+            if (county != null) { topShopsPage = shopRepository.findTopRatedShopsByCounty(county, minimumReviewsForRanking, pageable); }
+            else if (isDistrict) { topShopsPage = shopRepository.findTopRatedShopsByDistrict(district, minimumReviewsForRanking, pageable); }
+            else { topShopsPage = shopRepository.findTopRatedShopsByRegion(region, minimumReviewsForRanking, pageable); }
+            return topShopsPage.stream().map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ShopDTO> getShopsByBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
-        logger.debug("Service: Getting shops by bounds...");
+    public List<ShopMarkerDTO> getShopsByBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
+        logger.debug("Service: Getting shop markers by bounds...");
         if (minLat == null || maxLat == null || minLng == null || maxLng == null) { return Collections.emptyList(); }
-        List<Shop> shopsInBounds = shopRepository.findByLocationBounds(minLat, maxLat, minLng, maxLng);
-        logger.info("Found {} shops within bounds.", shopsInBounds.size());
-        return shopsInBounds.stream().map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        if (shopSpatialIndex.isReady()) {
+            List<ShopMarkerDTO> indexed = shopSpatialIndex.findInBounds(minLat.doubleValue(), maxLat.doubleValue(), minLng.doubleValue(), maxLng.doubleValue());
+            logger.info("Found {} shops within bounds (spatial index).", indexed.size());
+            return indexed;
+        }
+        List<ShopMarkerDTO> markers = shopRepository.findMarkersByLocationBounds(minLat, maxLat, minLng, maxLng);
+        markers.forEach(marker -> marker.setCoverUrl(shopMediaMapper.toFullUrl(marker.getCoverUrl())));
+        logger.info("Found {} shops within bounds.", markers.size());
+        return markers;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShopDTO> getShopsByBoundsFull(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
+        logger.debug("Service: Getting full shops by bounds...");
+        if (minLat == null || maxLat == null || minLng == null || maxLng == null) { return Collections.emptyList(); }
+        // 先由量化瓦片快取組合，缺少的瓦片才查資料庫並映射
+        List<ShopDTO> cached = viewportTileCache.getOrLoad(minLat.doubleValue(), maxLat.doubleValue(), minLng.doubleValue(), maxLng.doubleValue(),
+                box -> loadShopsInBounds(BigDecimal.valueOf(box[0]), BigDecimal.valueOf(box[1]), BigDecimal.valueOf(box[2]), BigDecimal.valueOf(box[3])));
+        if (cached != null) {
+            logger.info("Found {} shops within bounds (full, viewport cache).", cached.size());
+            return cached;
+        }
+        List<ShopDTO> shops = loadShopsInBounds(minLat, maxLat, minLng, maxLng);
+        logger.info("Found {} shops within bounds (full).", shops.size());
+        return shops;
+    }
+
+    /** 從資料庫查詢邊界內的店家並映射為完整 DTO */
+    private List<ShopDTO> loadShopsInBounds(BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
+        return shopRepository.findByLocationBounds(minLat, maxLat, minLng, maxLng).stream()
+                .map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ShopClusterDTO> getShopClusters(int zoom, BigDecimal minLat, BigDecimal maxLat, BigDecimal minLng, BigDecimal maxLng) {
+        logger.debug("Service: Getting shop clusters for zoom {}", zoom);
+        boolean hasBounds = minLat != null && maxLat != null && minLng != null && maxLng != null;
+        List<ShopClusterDTO> clusters = hasBounds
+                ? shopClusterIndex.findClusters(zoom, minLat.doubleValue(), maxLat.doubleValue(), minLng.doubleValue(), maxLng.doubleValue())
+                : shopClusterIndex.findClusters(zoom, null, null, null, null);
+        logger.info("Found {} clusters for zoom {}.", clusters.size(), zoom);
+        return clusters;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NearbyShopDTO> getNearbyShops(double lat, double lng, int k, Double maxDistanceMeters) {
+        logger.debug("Service: Getting {} nearest shops to ({}, {})", k, lat, lng);
+        double maxDistance = maxDistanceMeters != null ? maxDistanceMeters : 0;
+        if (shopSpatialIndex.isReady()) {
+            return shopSpatialIndex.findNearest(lat, lng, k, maxDistance).stream()
+                    .map(n -> new NearbyShopDTO(n.shop(), n.distanceMeters()))
+                    .collect(Collectors.toList());
+        }
+        // 索引尚未載入時，退回資料庫空間索引查詢
+        double radius = maxDistance > 0 ? maxDistance : nearbyFallbackRadiusMeters;
+        return shopRepository.findNearest(lat, lng, radius, k).stream()
+                .map(shop -> new NearbyShopDTO(shopMapper.toShopMarkerDTO(mapShopToDTOWithMedia(shop)),
+                        GeoUtils.haversineMeters(lat, lng, shop.getLatitude().doubleValue(), shop.getLongitude().doubleValue())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ViewportDiffDTO getViewportDiff(ViewportDiffRequest request) {
+        double minLat = request.getMinLat().doubleValue(), maxLat = request.getMaxLat().doubleValue();
+        double minLng = request.getMinLng().doubleValue(), maxLng = request.getMaxLng().doubleValue();
+        if (minLat > maxLat || minLng > maxLng) { throw new BadRequestException("視窗邊界無效: min 必須小於等於 max"); }
+        if (!shopSpatialIndex.isReady()) {
+            // 索引尚未載入，沒有版本號可用，返回完整結果
+            List<ShopMarkerDTO> all = getShopsByBounds(request.getMinLat(), request.getMaxLat(), request.getMinLng(), request.getMaxLng());
+            return new ViewportDiffDTO(null, true, all, Collections.emptyList(), Collections.emptyList());
+        }
+        // 先取版本號再讀索引：讀到的資料只會比版本號新，下次以此版本查詢時最多重複送出，不會遺漏
+        long version = shopIndexSynchronizer.getDataVersion();
+        String versionToken = shopIndexSynchronizer.toVersionToken(version);
+        List<ShopMarkerDTO> inView = shopSpatialIndex.findInBounds(minLat, maxLat, minLng, maxLng);
+        // 令牌來自其他啟動或其他執行個體時，版本號無法比較，一律完整重新載入
+        OptionalLong since = shopIndexSynchronizer.parseVersionToken(request.getSince());
+        Optional<Map<Long, ShopChangeLog.Position>> changed = since.isEmpty() ? Optional.empty() : shopChangeLog.changedSince(since.getAsLong());
+        if (changed.isEmpty()) {
+            logger.debug("Viewport diff: full reload ({} shops, since={}, version={})", inView.size(), request.getSince(), versionToken);
+            return new ViewportDiffDTO(versionToken, true, inView, Collections.emptyList(), Collections.emptyList());
+        }
+
+        Map<Long, ShopChangeLog.Position> changedIds = changed.get();
+        boolean hasPrevious = request.hasPreviousViewport();
+        double prevMinLat = hasPrevious ? request.getPrevMinLat().doubleValue() : 0, prevMaxLat = hasPrevious ? request.getPrevMaxLat().doubleValue() : 0;
+        double prevMinLng = hasPrevious ? request.getPrevMinLng().doubleValue() : 0, prevMaxLng = hasPrevious ? request.getPrevMaxLng().doubleValue() : 0;
+        List<ShopMarkerDTO> entered = new ArrayList<>();
+        List<ShopMarkerDTO> updated = new ArrayList<>();
+        Set<Long> inViewIds = new HashSet<>();
+        for (ShopMarkerDTO shop : inView) {
+            inViewIds.add(shop.getId());
+            if (changedIds.containsKey(shop.getId())) { updated.add(shop); }
+            else if (!hasPrevious || !isInside(shop, prevMinLat, prevMaxLat, prevMinLng, prevMaxLng)) { entered.add(shop); }
+        }
+        // 變更過且不在目前視窗內的店家 (已刪除或移出)：只列出 since 時位於上一次視窗內、客戶端確實持有的店家
+        List<Long> removedIds = changedIds.entrySet().stream()
+                .filter(e -> !inViewIds.contains(e.getKey()) && e.getValue() != null)
+                .filter(e -> !hasPrevious || isInside(e.getValue(), prevMinLat, prevMaxLat, prevMinLng, prevMaxLng))
+                .map(Map.Entry::getKey).sorted().collect(Collectors.toList());
+        logger.debug("Viewport diff: entered={}, updated={}, removed={}, version={}", entered.size(), updated.size(), removedIds.size(), versionToken);
+        return new ViewportDiffDTO(versionToken, false, entered, updated, removedIds);
     }
 
     @Override
@@ -214,7 +521,9 @@ public class ShopServiceImpl implements ShopService {
         checkShopOwnershipOrAdmin(shop, currentUser);
         uploadShopMediaInternal(shop, files);
         Shop updatedShop = findShopByIdOrThrow(shopId);
-        return mapShopToDTOWithMedia(updatedShop);
+        ShopDTO resultDTO = mapShopToDTOWithMedia(updatedShop);
+        shopIndexSynchronizer.shopSaved(resultDTO);
+        return resultDTO;
     }
 
     @Override
@@ -228,13 +537,72 @@ public class ShopServiceImpl implements ShopService {
         if (!Objects.equals(media.getShop().getId(), shopId)) { throw new UnauthorizedActionException("Media does not belong to this shop"); }
         try { fileStorageService.deleteFile(media.getUrl()); }
         catch (Exception e) { logger.error("Failed to delete shop media file: {}", media.getUrl(), e); }
+        shop.removeMedia(media); // 同步移除集合中的媒體，確保索引快照不含已刪除的媒體
         shopMediaRepository.delete(media);
+        shopIndexSynchronizer.shopSaved(mapShopToDTOWithMedia(shop));
         logger.info("Service: Media ID: {} for shop ID: {} deleted successfully.", mediaId, shopId);
     }
 
+    /**
+     * 應用啟動時重算評分總和、筆數或各星等計數與評論表不一致的店家
+     * (欄位新增前的既有資料、上次執行時尚未寫入的背景重算、直接修改資料庫造成的偏差)。
+     * 先於記憶體索引重建執行，索引載入的即為修正後的評分。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void repairRatingTotals() {
+        List<Long> staleShopIds = shopRepository.findShopIdsWithStaleRatingTotals();
+        staleShopIds.forEach(this::updateShopRating);
+        if (!staleShopIds.isEmpty()) { logger.info("Service: Repaired rating totals for {} shops.", staleShopIds.size()); }
+    }
+
+    /**
+     * 應用啟動完成後，從資料庫載入全部店家並重建記憶體索引。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildShopIndexes() {
+        logger.info("Service: Rebuilding in-memory shop indexes...");
+        List<ShopMarkerDTO> markers = shopRepository.findAllMarkers();
+        markers.forEach(marker -> marker.setCoverUrl(shopMediaMapper.toFullUrl(marker.getCoverUrl())));
+        List<ShopDTO> textShops = shopRepository.findAllSearchFields().stream().map(row -> {
+            ShopDTO shop = new ShopDTO();
+            shop.setId((Long) row[0]); shop.setName((String) row[1]); shop.setAddress((String) row[2]); shop.setDescription((String) row[3]);
+            shop.setCounty((String) row[4]); shop.setDistrict((String) row[5]); shop.setWeightedRating((BigDecimal) row[6]); shop.setReviewCount((Integer) row[7]);
+            return shop;
+        }).collect(Collectors.toList());
+        List<ShopDTO> rankedShops = shopRepository.findAllRankable(minimumReviewsForRanking).stream()
+                .map(this::mapShopToDTOWithMedia).collect(Collectors.toList());
+        shopIndexSynchronizer.rebuild(markers, textShops, rankedShops);
+    }
+
 
     // --- 私有輔助方法 ---
 
+    /** 在唯讀事務中執行 (供未標註 @Transactional、只在需要時才存取資料庫的方法使用) */
+    private <T> T readOnly(Supplier<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> action.get());
+    }
+
+    /** 列表查詢的篩選條件：提供的條件以 AND 組合成單一查詢 */
+    private Specification<Shop> listSpecification(String name, String address, String city) {
+        return Specification.where(ShopSpecifications.nameContains(name))
+                .and(ShopSpecifications.inRegion(city))
+                .and(ShopSpecifications.addressContains(address));
+    }
+
+    /** 店家 (目前位置) 是否在指定邊界內 */
+    private boolean isInside(ShopMarkerDTO shop, double minLat, double maxLat, double minLng, double maxLng) {
+        return shop.getLatitude() >= minLat && shop.getLatitude() <= maxLat && shop.getLongitude() >= minLng && shop.getLongitude() <= maxLng;
+    }
+
+    private boolean isInside(ShopChangeLog.Position position, double minLat, double maxLat, double minLng, double maxLng) {
+        return position.lat() >= minLat && position.lat() <= maxLat && position.lng() >= minLng && position.lng() <= maxLng;
+    }
+
     /** 將 Shop 映射為 DTO，並手動處理 media URL */
     private ShopDTO mapShopToDTOWithMedia(Shop shop) {
         if (shop == null) return null;
@@ -276,7 +644,7 @@ public class ShopServiceImpl implements ShopService {
     /** 查找店家或拋異常 */
     private Shop findShopByIdOrThrow(Long id) { return shopRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Shop", "id", id)); }
     /** 計算平均分 */
-    private BigDecimal calculateAverageRating(List<Integer> ratings) { if(ratings==null||ratings.isEmpty())return BigDecimal.ZERO; double avg=ratings.stream().mapToInt(i->i).average().orElse(0.0); return BigDecimal.valueOf(avg).setScale(2,RoundingMode.HALF_UP); }
+    private BigDecimal calculateAverageRating(long ratingSum, int ratingCount) { if(ratingCount<=0)return BigDecimal.ZERO; return BigDecimal.valueOf(ratingSum).divide(BigDecimal.valueOf(ratingCount),2,RoundingMode.HALF_UP); }
     /** 計算加權評分 */
     private BigDecimal calculateWeightedRating(BigDecimal avgRating, int reviewCount) { return calculateWeightedRatingInternal(avgRating, reviewCount, minimumReviewsForRanking, globalAverageRating); }
     /** 內部加權評分計算 (已修正 return) */
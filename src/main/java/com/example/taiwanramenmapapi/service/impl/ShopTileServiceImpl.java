@@ -0,0 +1,229 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.dto.response.VectorTileDTO;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
+import com.example.taiwanramenmapapi.index.ShopSpatialIndex;
+import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.service.TileService;
+import com.example.taiwanramenmapapi.util.VectorTileEncoder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * 店家向量瓦片服務。
+ * <p>
+ * 瓦片內容只取決於空間索引的內容指紋 ({@link ShopSpatialIndex#getContentFingerprint()})，
+ * 因此同一指紋的瓦片是不可變的：先查記憶體 LRU，再查磁碟快取 ({@code d{指紋}/{z}/{x}/{y}.mvt})，
+ * 都沒有才從空間索引產生。指紋由資料本身決定，重啟後或其他執行個體遇到相同資料時仍可沿用磁碟快取；
+ * 指紋變更後舊的磁碟快取目錄會在背景刪除。
+ * ETag 為瓦片內容的雜湊，相同內容在任何執行個體、任何時間都得到相同 ETag，內容不同則 ETag 必然不同。
+ */
+@Service
+public class ShopTileServiceImpl implements TileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopTileServiceImpl.class);
+
+    public static final String LAYER_NAME = "shops";
+    private static final int MAX_ZOOM = 22;
+    /** Web Mercator 可表示的最大緯度 */
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    @Autowired private ShopSpatialIndex shopSpatialIndex;
+    @Autowired private ShopService shopService;
+
+    @Value("${app.tiles.cache-dir:./tile-cache}") // 空字串表示停用磁碟快取
+    private String cacheDir;
+
+    @Value("${app.tiles.memory-cache-entries:2048}")
+    private int memoryCacheEntries;
+
+    private Path cacheRoot;
+    private Map<String, VectorTileDTO> memoryCache;
+    /** 上次清理舊磁碟快取時的內容指紋 */
+    private volatile String prunedDirectory;
+
+    @PostConstruct
+    public void init() {
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VectorTileDTO> eldest) {
+                return size() > memoryCacheEntries;
+            }
+        });
+        if (!StringUtils.hasText(cacheDir)) {
+            logger.info("向量瓦片磁碟快取已停用。");
+            return;
+        }
+        try {
+            this.cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+            Files.createDirectories(cacheRoot);
+            logger.info("向量瓦片磁碟快取目錄: {}", cacheRoot);
+        } catch (IOException e) {
+            logger.warn("無法建立向量瓦片快取目錄 {}，僅使用記憶體快取: {}", cacheDir, e.getMessage());
+            this.cacheRoot = null;
+        }
+    }
+
+    @Override
+    public VectorTileDTO getShopTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) { throw new BadRequestException("縮放等級必須介於 0 到 " + MAX_ZOOM + " 之間"); }
+        long tiles = 1L << z;
+        if (x < 0 || y < 0 || x >= tiles || y >= tiles) { throw new BadRequestException("瓦片座標超出範圍: " + z + "/" + x + "/" + y); }
+
+        if (!shopSpatialIndex.isReady()) {
+            // 索引尚未載入，沒有穩定的版本號可用，直接由資料庫產生且不快取
+            return new VectorTileDTO(encodeTile(z, x, y, loadShopsFromDatabase(z, x, y)), null, 0L);
+        }
+
+        long fingerprint = shopSpatialIndex.getContentFingerprint();
+        String key = z + "/" + x + "/" + y;
+        VectorTileDTO cached = memoryCache.get(key);
+        if (cached != null && cached.getContentFingerprint() == fingerprint) { return cached; }
+
+        String directory = "d" + Long.toHexString(fingerprint);
+        byte[] data = readFromDisk(directory, key);
+        if (data == null) {
+            data = encodeTile(z, x, y, shopSpatialIndex.findInBounds(tileSouth(y, z), tileNorth(y, z), tileWest(x, z), tileWest(x + 1, z)));
+            // 產生期間索引已變更時，內容可能混合新舊資料，不寫入快取
+            if (shopSpatialIndex.getContentFingerprint() != fingerprint) {
+                return new VectorTileDTO(data, etagOf(data), fingerprint);
+            }
+            writeToDisk(directory, key, data);
+        }
+        VectorTileDTO tile = new VectorTileDTO(data, etagOf(data), fingerprint);
+        memoryCache.put(key, tile);
+        return tile;
+    }
+
+    /**
+     * 將瓦片範圍內的店家投影到瓦片像素座標並編碼。
+     * 邊界採左閉右開，確保相鄰瓦片不會重複出現同一家店。
+     */
+    private byte[] encodeTile(int z, int x, int y, List<ShopMarkerDTO> shops) {
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER_NAME, VectorTileEncoder.DEFAULT_EXTENT);
+        double n = 1L << z;
+        int extent = VectorTileEncoder.DEFAULT_EXTENT;
+        for (ShopMarkerDTO shop : shops) {
+            if (shop.getId() == null) continue;
+            double px = (lngToTileX(shop.getLongitude(), n) - x) * extent;
+            double py = (latToTileY(shop.getLatitude(), n) - y) * extent;
+            if (px < 0 || py < 0 || px >= extent || py >= extent) continue;
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("id", shop.getId());
+            properties.put("weightedRating", shop.getWeightedRating() != null ? shop.getWeightedRating().doubleValue() : 0.0);
+            properties.put("reviewCount", shop.getReviewCount() != null ? shop.getReviewCount() : 0);
+            encoder.addPointFeature(shop.getId(), (int) px, (int) py, properties);
+        }
+        return encoder.encode();
+    }
+
+    private List<ShopMarkerDTO> loadShopsFromDatabase(int z, int x, int y) {
+        return shopService.getShopsByBounds(BigDecimal.valueOf(tileSouth(y, z)), BigDecimal.valueOf(tileNorth(y, z)),
+                BigDecimal.valueOf(tileWest(x, z)), BigDecimal.valueOf(tileWest(x + 1, z)));
+    }
+
+    // --- 磁碟快取 ---
+
+    private byte[] readFromDisk(String directory, String key) {
+        if (cacheRoot == null) return null;
+        Path file = cacheRoot.resolve(directory).resolve(key + ".mvt");
+        try {
+            return Files.exists(file) ? Files.readAllBytes(file) : null;
+        } catch (IOException e) {
+            logger.warn("讀取瓦片快取失敗 {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String directory, String key, byte[] data) {
+        if (cacheRoot == null) return;
+        Path file = cacheRoot.resolve(directory).resolve(key + ".mvt");
+        try {
+            Files.createDirectories(file.getParent());
+            // 先寫暫存檔再原子移動，避免並發讀到寫一半的檔案
+            Path tmp = Files.createTempFile(file.getParent(), "tile", ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("寫入瓦片快取失敗 {}: {}", file, e.getMessage());
+        }
+        if (!directory.equals(prunedDirectory)) {
+            prunedDirectory = directory;
+            CompletableFuture.runAsync(() -> pruneOtherDirectories(directory));
+        }
+    }
+
+    /** 刪除非目前內容指紋的磁碟快取目錄 (含舊版以版本號命名的 v* 目錄) */
+    private void pruneOtherDirectories(String current) {
+        try (Stream<Path> dirs = Files.list(cacheRoot)) {
+            dirs.filter(Files::isDirectory)
+                    .filter(dir -> dir.getFileName().toString().matches("[dv][0-9a-f]+") && !dir.getFileName().toString().equals(current))
+                    .forEach(dir -> {
+                        try {
+                            FileSystemUtils.deleteRecursively(dir);
+                        } catch (IOException e) {
+                            logger.debug("刪除舊瓦片快取目錄失敗 {}: {}", dir, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            logger.warn("清理舊瓦片快取失敗: {}", e.getMessage());
+        }
+    }
+
+    /** 強 ETag：瓦片內容 SHA-256 的前 16 位元組 (Base64URL) */
+    private static String etagOf(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+
+    // --- Web Mercator 瓦片座標換算 ---
+
+    private static double lngToTileX(double lng, double n) {
+        return (lng + 180.0) / 360.0 * n;
+    }
+
+    private static double latToTileY(double lat, double n) {
+        double rad = Math.toRadians(Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat)));
+        return (1.0 - Math.log(Math.tan(rad) + 1.0 / Math.cos(rad)) / Math.PI) / 2.0 * n;
+    }
+
+    private static double tileWest(int x, int z) {
+        return x / (double) (1L << z) * 360.0 - 180.0;
+    }
+
+    private static double tileNorth(int y, int z) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1.0 - 2.0 * y / (double) (1L << z)))));
+    }
+
+    private static double tileSouth(int y, int z) {
+        return tileNorth(y + 1, z);
+    }
+}
@@ -10,10 +10,12 @@ import com.example.taiwanramenmapapi.entity.enums.Role;
 import com.example.taiwanramenmapapi.exception.BadRequestException;
 import com.example.taiwanramenmapapi.exception.ResourceNotFoundException;
 import com.example.taiwanramenmapapi.exception.UnauthorizedActionException;
+import com.example.taiwanramenmapapi.index.ShopIndexSynchronizer;
 import com.example.taiwanramenmapapi.mapper.UserMapper;
 import com.example.taiwanramenmapapi.repository.*; // 引入所有需要的 Repository
 import com.example.taiwanramenmapapi.service.FileStorageService; // 引入 FileStorageService
 import com.example.taiwanramenmapapi.service.UserService;
+import com.example.taiwanramenmapapi.task.ShopRatingFlusher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,8 +28,10 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,6 +46,8 @@ public class UserServiceImpl implements UserService {
     @Autowired private ShopMediaRepository shopMediaRepository;
     @Autowired private ReviewMediaRepository reviewMediaRepository;
     @Autowired private FileStorageService fileStorageService;
+    @Autowired private ShopIndexSynchronizer shopIndexSynchronizer;
+    @Autowired private ShopRatingFlusher shopRatingFlusher;
 
     // --- UserDetailsService 接口方法實現 ---
     /**
@@ -153,6 +159,7 @@ public class UserServiceImpl implements UserService {
         // --- 在刪除用戶實體前，清理關聯的物理文件 ---
 
         // 1. 如果是店家用戶，清理其擁有的所有店家的相關文件
+        Set<Long> ownedShopIds = new HashSet<>();
         if (userToDelete.getRole() == Role.ROLE_SHOP_OWNER) {
             // 獲取該用戶擁有的所有店家 (理論上只有一個，但用列表處理更安全)
             List<Shop> ownedShops = shopRepository.findByOwnerIdOrderByIdAsc(userId);
@@ -166,6 +173,8 @@ public class UserServiceImpl implements UserService {
                     deleteReviewMediaFilesInternal(review);
                 }
                 logger.info("店家 ID {} 的文件清理完畢。", shop.getId());
+                shopIndexSynchronizer.shopDeleted(shop.getId()); // 用戶刪除後店家會被級聯刪除，同步移除記憶體索引
+                ownedShopIds.add(shop.getId());
             }
         }
 
@@ -177,6 +186,19 @@ public class UserServiceImpl implements UserService {
             deleteReviewMediaFilesInternal(review); // 刪除該評論的媒體文件
         }
         logger.info("用戶 ID {} 的評論文件清理完畢。", userId);
+        // 該用戶在其他店家的頂級評論會被級聯刪除，這些店家的評分總和、星等分布與排行需要扣除對應的評分
+        List<Review> ratedReviews = userReviewsPage.getContent().stream()
+                .filter(review -> review.getParentReview() == null && review.getRating() != null)
+                .filter(review -> !ownedShopIds.contains(review.getShop().getId()))
+                .collect(Collectors.toList());
+        // 該用戶對其他人評論的回覆也會被級聯刪除，父評論的 reply_count 需逐筆遞減 (父評論本身也會被刪除者除外)
+        List<Long> repliedParentIds = userReviewsPage.getContent().stream()
+                .map(Review::getParentReview)
+                .filter(Objects::nonNull)
+                .filter(parent -> !Objects.equals(parent.getUser().getId(), userId))
+                .filter(parent -> !ownedShopIds.contains(parent.getShop().getId()))
+                .map(Review::getId)
+                .collect(Collectors.toList());
 
 
         // --- 執行用戶刪除 ---
@@ -185,8 +207,10 @@ public class UserServiceImpl implements UserService {
         // - 刪除 shops 表中 owner_id 為該用戶的記錄
         // - 刪除 reviews 表中 user_id 為該用戶的記錄
         // - 級聯刪除 shop_media, review_media, 以及 reviews 的 replies 記錄
+        repliedParentIds.forEach(reviewRepository::decrementReplyCount);
         userRepository.delete(userToDelete);
-        logger.warn("用戶 ID: {} 及其所有數據庫關聯記錄已成功刪除。", userId);
+        ratedReviews.forEach(review -> shopRatingFlusher.ratingChanged(review.getShop().getId(), review.getRating(), null));
+        logger.warn("用戶 ID: {} 及其所有數據庫關聯記錄已成功刪除 ({} 則評分待扣除)。", userId, ratedReviews.size());
     }
 
 
@@ -0,0 +1,109 @@
+package com.example.taiwanramenmapapi.task;
+
+import com.example.taiwanramenmapapi.repository.ReviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 評論回覆數 (reviews.reply_count) 的背景對帳。
+ * <p>
+ * 新增、刪除回覆時只以單一 UPDATE 對父評論的 reply_count 加減 1，不再重新計數；
+ * 這裡定期依 ID 區間分塊比對實際回覆數，校正因手動修改資料或例外中斷造成的偏差。
+ * 每個區塊各自一個短事務：先鎖定區塊內的頂級評論再計數並寫入，與同時進行的回覆加減 1 串行，不會覆蓋其結果；
+ * 鎖只持有到該區塊提交，不會長時間鎖住評論表。
+ * 指標：review.replycount.reconciled (校正的評論數)。
+ */
+@Component
+public class ReplyCountReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplyCountReconciler.class);
+
+    @Autowired private ReviewRepository reviewRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${app.review.reply-count.reconcile-interval-ms:3600000}")
+    private long intervalMs;
+
+    @Value("${app.review.reply-count.chunk-size:5000}")
+    private int chunkSize;
+
+    private ScheduledThreadPoolExecutor executor;
+    private TransactionTemplate chunkTemplate;
+    private Counter reconciled;
+
+    @PostConstruct
+    public void init() {
+        this.chunkTemplate = new TransactionTemplate(transactionManager);
+        this.reconciled = Counter.builder("review.replycount.reconciled")
+                .description("對帳時校正 reply_count 的評論數").register(meterRegistry);
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "reply-count-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 啟動完成後開始定期對帳 (interval 小於等於 0 時停用)。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (intervalMs <= 0) {
+            logger.info("回覆數背景對帳已停用。");
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::reconcileSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 掃描全部評論並校正 reply_count。
+     * @return 校正的評論數
+     */
+    public int reconcile() {
+        Long maxId = reviewRepository.findMaxId();
+        if (maxId == null) return 0;
+        long step = Math.max(1, chunkSize);
+        int fixed = 0;
+        for (long from = 1; from <= maxId; from += step) {
+            long lo = from, hi = Math.min(maxId, from + step - 1);
+            Integer updated = chunkTemplate.execute(status -> {
+                if (reviewRepository.lockTopLevelReviews(lo, hi).isEmpty()) return 0;
+                return reviewRepository.reconcileReplyCounts(lo, hi);
+            });
+            fixed += updated != null ? updated : 0;
+        }
+        reconciled.increment(fixed);
+        if (fixed > 0) { logger.warn("回覆數對帳校正了 {} 筆評論的 reply_count。", fixed); }
+        else { logger.debug("回覆數對帳完成，沒有偏差。"); }
+        return fixed;
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            // 例外不可拋出排程執行緒，否則後續排程會被取消
+            logger.error("回覆數對帳失敗: {}", e.getMessage(), e);
+        }
+    }
+}
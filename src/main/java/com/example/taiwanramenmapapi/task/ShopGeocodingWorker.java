@@ -0,0 +1,148 @@
+package com.example.taiwanramenmapapi.task;
+
+import com.example.taiwanramenmapapi.entity.Shop;
+import com.example.taiwanramenmapapi.entity.enums.GeocodeStatus;
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.repository.ShopRepository;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.util.TransactionUtils;
+import com.google.maps.model.LatLng;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 店家背景地理編碼工作池。
+ * <p>
+ * 非同步模式下 (app.geocoding.async.enabled=true)，店家以 PENDING_GEOCODE 狀態、沒有經緯度的方式先存檔，
+ * 事務提交後把地址排入這裡；工作執行緒呼叫地理編碼服務，成功後透過 {@link ShopService#applyGeocodeResult}
+ * 寫回經緯度並加入地圖索引。外部服務失敗時以指數退避 (含隨機抖動) 重試，次數用盡或查無結果時標記為 FAILED。
+ * 佇列只在記憶體中，因此啟動時會重新排入資料庫中所有 PENDING_GEOCODE 的店家。
+ */
+@Component
+public class ShopGeocodingWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopGeocodingWorker.class);
+
+    @Autowired private GeocodingService geocodingService;
+    @Autowired private ShopRepository shopRepository;
+    @Autowired @Lazy private ShopService shopService; // ShopServiceImpl 也依賴本類別，延遲注入避免循環依賴
+
+    @Value("${app.geocoding.async.workers:2}")
+    private int workers;
+
+    @Value("${app.geocoding.async.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.geocoding.async.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${app.geocoding.async.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    /** 一次編碼工作 (attempt 從 1 開始) */
+    private record Job(Long shopId, String address, int attempt) { }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, "geocode-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在當前事務提交後排入一家店的地理編碼 (沒有事務時立即排入)。
+     * @param shopId 店家 ID
+     * @param address 要編碼的地址
+     */
+    public void enqueue(Long shopId, String address) {
+        if (shopId == null) return;
+        TransactionUtils.afterCommit(() -> schedule(new Job(shopId, address, 1), 0));
+    }
+
+    /** 目前等待中 (含退避等待) 的工作數 */
+    public int getQueueSize() { return executor.getQueue().size(); }
+
+    /**
+     * 啟動後重新排入上次執行時尚未完成的店家。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<Shop> pending = shopRepository.findByGeocodeStatus(GeocodeStatus.PENDING_GEOCODE);
+        if (pending.isEmpty()) return;
+        logger.info("重新排入 {} 家等待地理編碼的店家。", pending.size());
+        pending.forEach(shop -> schedule(new Job(shop.getId(), shop.getAddress(), 1), 0));
+    }
+
+    private void schedule(Job job, long delayMs) {
+        try {
+            executor.schedule(() -> run(job), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 關閉中不再接受工作，店家保持 PENDING_GEOCODE，下次啟動時重新排入
+            logger.warn("無法排入店家 {} 的地理編碼: {}", job.shopId(), e.getMessage());
+        }
+    }
+
+    private void run(Job job) {
+        Optional<LatLng> result;
+        try {
+            result = geocodingService.lookup(job.address());
+        } catch (GeocodingException e) {
+            retryOrFail(job, e);
+            return;
+        }
+        try {
+            boolean applied = shopService.applyGeocodeResult(job.shopId(), job.address(), result.orElse(null));
+            logger.info("店家 {} 背景地理編碼{} (第 {} 次)", job.shopId(), applied ? (result.isPresent() ? "完成" : "查無結果") : "結果已過期，略過", job.attempt());
+        } catch (RuntimeException e) {
+            retryOrFail(job, e);
+        }
+    }
+
+    private void retryOrFail(Job job, RuntimeException e) {
+        if (job.attempt() >= maxAttempts) {
+            logger.error("店家 {} 地理編碼重試 {} 次仍失敗，標記為 FAILED: {}", job.shopId(), job.attempt(), e.getMessage());
+            try {
+                shopService.applyGeocodeResult(job.shopId(), job.address(), null);
+            } catch (RuntimeException ex) {
+                logger.error("標記店家 {} 地理編碼失敗時發生錯誤: {}", job.shopId(), ex.getMessage(), ex);
+            }
+            return;
+        }
+        long delay = backoffMs(job.attempt());
+        logger.warn("店家 {} 地理編碼失敗 (第 {} 次)，{} ms 後重試: {}", job.shopId(), job.attempt(), delay, e.getMessage());
+        schedule(new Job(job.shopId(), job.address(), job.attempt() + 1), delay);
+    }
+
+    /** 指數退避：initial * 2^(attempt-1)，上限 max，再加上 ±20% 抖動避免同時重試 */
+    private long backoffMs(int attempt) {
+        long base = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 30));
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (base * jitter);
+    }
+}
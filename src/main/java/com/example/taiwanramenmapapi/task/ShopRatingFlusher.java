@@ -0,0 +1,175 @@
+package com.example.taiwanramenmapapi.task;
+
+import com.example.taiwanramenmapapi.exception.ResourceNotFoundException;
+import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.util.RatingDelta;
+import com.example.taiwanramenmapapi.util.TransactionUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 店家評分增量的合併佇列 (write-behind)。
+ * <p>
+ * 評論新增、修改、刪除時不在請求事務中更新店家列，只在事務提交後把評分增量 ({@link RatingDelta}) 累加到該店的待寫入增量；
+ * 背景執行緒每隔 max-staleness-ms 對每家店以 {@link ShopService#applyRatingDelta} 套用一次合併後的增量 (單列原子 UPDATE，不讀評論表)，
+ * 熱門店家同時湧入的評論因此只觸發一次寫入、只搶一次店家列的行鎖。店家評分最多落後實際評論 max-staleness-ms (加上寫入耗時)。
+ * 寫入失敗時把增量加回佇列，下一輪重試；程序異常終止而遺失的增量，
+ * 由啟動時的評分一致性檢查 ({@code ShopServiceImpl#repairRatingTotals}，以評論表全量重算) 補上。
+ * 指標：rating.writebehind.queue.depth、rating.writebehind.events、rating.writebehind.flushes、rating.writebehind.coalescing.ratio。
+ */
+@Component
+public class ShopRatingFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopRatingFlusher.class);
+
+    @Autowired private ShopService shopService;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${app.rating.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rating.write-behind.max-staleness-ms:2000}")
+    private long maxStalenessMs;
+
+    /** 店家 ID -> 尚未寫入的合併增量 */
+    private final ConcurrentHashMap<Long, Pending> dirty = new ConcurrentHashMap<>();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private ScheduledThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("rating.writebehind.queue.depth", dirty, ConcurrentHashMap::size)
+                .description("等待寫入評分增量的店家數").register(meterRegistry);
+        FunctionCounter.builder("rating.writebehind.events", events, AtomicLong::get)
+                .description("評論造成的評分變更次數").register(meterRegistry);
+        FunctionCounter.builder("rating.writebehind.flushes", flushes, AtomicLong::get)
+                .description("實際寫入店家評分增量的次數").register(meterRegistry);
+        FunctionCounter.builder("rating.writebehind.failures", failures, AtomicLong::get)
+                .description("寫入失敗 (下一輪重試) 的次數").register(meterRegistry);
+        Gauge.builder("rating.writebehind.coalescing.ratio", this, ShopRatingFlusher::getCoalescingRatio)
+                .description("平均每次寫入合併的評分變更數").register(meterRegistry);
+        if (!enabled) {
+            logger.info("評分延遲寫入已停用，評論寫入時同步更新店家評分。");
+            return;
+        }
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "rating-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, maxStalenessMs);
+        executor.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * 應用關閉時 (資料來源仍可用) 停止排程並寫入剩餘的增量。
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnClose() {
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(maxStalenessMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = dirty.size();
+        flush();
+        if (remaining > 0) logger.info("關閉前寫入 {} 家店的評分增量。", remaining);
+    }
+
+    /**
+     * 記錄一筆評論評分變更：在當前事務提交後把增量累加到該店的待寫入增量 (回滾的變更不會累加)。
+     * 停用延遲寫入時直接在當前事務中以增量更新。
+     * 新增評論時 oldRating 為 null，刪除評論時 newRating 為 null。
+     * @param shopId 店家 ID
+     * @param oldRating 變更前的評分
+     * @param newRating 變更後的評分
+     */
+    public void ratingChanged(Long shopId, Integer oldRating, Integer newRating) {
+        if (shopId == null || (oldRating == null && newRating == null)) return;
+        if (!enabled) {
+            shopService.applyReviewRatingChange(shopId, oldRating, newRating);
+            return;
+        }
+        RatingDelta delta = RatingDelta.of(oldRating, newRating);
+        TransactionUtils.afterCommit(() -> enqueue(shopId, new Pending(delta, 1)));
+    }
+
+    /** 等待寫入評分增量的店家數 */
+    public int getQueueDepth() { return dirty.size(); }
+
+    /** 平均每次寫入合併的評分變更數 (尚未寫入過時為 0) */
+    public double getCoalescingRatio() {
+        long flushed = flushes.get();
+        return flushed == 0 ? 0 : (double) events.get() / flushed;
+    }
+
+    private void enqueue(Long shopId, Pending pending) {
+        dirty.merge(shopId, pending, Pending::plus);
+        events.addAndGet(pending.events());
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 例外不可拋出排程執行緒，否則後續排程會被取消
+            logger.error("評分延遲寫入發生未預期錯誤: {}", e.getMessage(), e);
+        }
+    }
+
+    /** 每家店以各自的事務套用一次合併後的增量 */
+    private void flush() {
+        if (dirty.isEmpty()) return;
+        List<Long> shopIds = new ArrayList<>(dirty.keySet());
+        for (Long shopId : shopIds) {
+            // 先取出增量再寫入：寫入開始後才提交的評論會累加到新的增量，於下一輪寫入
+            Pending pending = dirty.remove(shopId);
+            if (pending == null || pending.delta().isZero()) continue;
+            try {
+                shopService.applyRatingDelta(shopId, pending.delta());
+                flushes.incrementAndGet();
+                if (pending.events() > 1) logger.debug("店家 {} 合併 {} 筆評分變更為一次寫入", shopId, pending.events());
+            } catch (ResourceNotFoundException e) {
+                logger.debug("店家 {} 已刪除，捨棄評分增量", shopId);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                // 加回佇列但不重複計入事件數
+                dirty.merge(shopId, pending, Pending::plus);
+                logger.warn("店家 {} 評分增量寫入失敗，下一輪重試: {}", shopId, e.getMessage());
+            }
+        }
+    }
+
+    /** 一家店尚未寫入的合併增量與合併進來的評分變更數 */
+    private record Pending(RatingDelta delta, int events) {
+        Pending plus(Pending other) {
+            return new Pending(delta.plus(other.delta), events + other.events);
+        }
+    }
+}
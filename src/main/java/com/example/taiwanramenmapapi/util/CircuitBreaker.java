@@ -0,0 +1,114 @@
+package com.example.taiwanramenmapapi.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 精簡的斷路器。
+ * <p>
+ * CLOSED：記錄最近 windowSize 次呼叫，至少 minimumCalls 次且失敗率達 failureRateThreshold 時轉為 OPEN。
+ * OPEN：直接拒絕所有呼叫，openDuration 後轉為 HALF_OPEN。
+ * HALF_OPEN：只放行 halfOpenPermits 次試探呼叫，全部成功則回到 CLOSED，任何一次失敗立即回到 OPEN。
+ * 呼叫端先以 {@link #tryAcquire()} 取得許可，結束後必須呼叫 onSuccess / onFailure / onIgnored 之一。
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenPermits;
+
+    /** 滑動視窗 (環狀緩衝)，true 表示失敗 */
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDurationMs, int halfOpenPermits) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenPermits <= 0) { throw new IllegalArgumentException("斷路器參數必須大於 0"); }
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenPermits = halfOpenPermits;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * 取得呼叫許可。
+     * @return false 表示斷路器開啟 (或半開的試探名額已用完)，應立即失敗
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) return false;
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSuccesses >= halfOpenPermits) return false;
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    /** 呼叫成功 */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+            if (++halfOpenSuccesses >= halfOpenPermits) { close(); }
+            return;
+        }
+        if (state == State.CLOSED) { record(false); }
+    }
+
+    /** 呼叫失敗 (逾時、外部服務錯誤) */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) { record(true); }
+    }
+
+    /** 取得許可後沒有實際呼叫 (例如被隔艙拒絕)，歸還許可且不計入統計 */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) { halfOpenInFlight--; }
+    }
+
+    public synchronized State getState() {
+        // OPEN 時間已到但還沒有新呼叫時，仍回報 OPEN
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == windowSize) {
+            if (window[windowIndex]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) windowFailures++;
+        windowIndex = (windowIndex + 1) % windowSize;
+        if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) { open(); }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.taiwanramenmapapi.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 路段門牌的字元 Trie：鍵為「縣市+鄉鎮市區+路段」(例如 臺北市大安區忠孝東路四段)，值為該路段的門牌區間。
+ * <p>
+ * 以 {@link Builder} 建立後凍結為緊湊結構：每個節點的子節點以排序的 char 陣列 + 節點陣列保存，
+ * 查詢時二分搜尋，不為每個節點配置 HashMap。建立後唯讀，可安全地被多執行緒共用。
+ */
+public final class GazetteerTrie {
+
+    /** 門牌號的單雙號限制 */
+    public enum Parity { ALL, ODD, EVEN }
+
+    /**
+     * 一段門牌區間：from 號到 to 號在起點與終點之間線性內插。
+     */
+    public record Range(int from, int to, Parity parity, double startLat, double startLng, double endLat, double endLng) {
+
+        boolean contains(int number) {
+            if (number < from || number > to) return false;
+            return switch (parity) {
+                case ODD -> number % 2 == 1;
+                case EVEN -> number % 2 == 0;
+                default -> true;
+            };
+        }
+
+        /** 依門牌號在區間內的位置內插經緯度 {lat, lng} */
+        public double[] interpolate(int number) {
+            double t = to == from ? 0.5 : (number - from) / (double) (to - from);
+            return new double[] { startLat + (endLat - startLat) * t, startLng + (endLng - startLng) * t };
+        }
+    }
+
+    /**
+     * 最長前綴比對的結果。
+     * @param matchedLength 比對到的鍵長度
+     * @param ranges 該路段的門牌區間
+     */
+    public record Match(int matchedLength, Range[] ranges) {
+
+        /** 找出包含門牌號的區間，沒有時為 null */
+        public Range find(int number) {
+            for (Range range : ranges) {
+                if (range.contains(number)) return range;
+            }
+            return null;
+        }
+    }
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        final char[] keys;
+        final Node[] children;
+        final Range[] ranges; // null 表示不是路段終點
+
+        Node(char[] keys, Node[] children, Range[] ranges) {
+            this.keys = keys;
+            this.children = children;
+            this.ranges = ranges;
+        }
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+    }
+
+    private final Node root;
+    private final int roadCount;
+    private final int rangeCount;
+
+    private GazetteerTrie(Node root, int roadCount, int rangeCount) {
+        this.root = root;
+        this.roadCount = roadCount;
+        this.rangeCount = rangeCount;
+    }
+
+    /** 路段數 */
+    public int roadCount() { return roadCount; }
+
+    /** 門牌區間數 */
+    public int rangeCount() { return rangeCount; }
+
+    /**
+     * 從 text 開頭做最長前綴比對，找出最長的已知路段。
+     * @param text 「縣市+鄉鎮市區+路段+門牌…」形式的字串
+     * @return 比對結果，沒有任何路段符合時為 null
+     */
+    public Match longestPrefix(String text) {
+        Node node = root;
+        Match best = null;
+        for (int i = 0; i < text.length() && node != null; i++) {
+            node = node.child(text.charAt(i));
+            if (node != null && node.ranges != null) { best = new Match(i + 1, node.ranges); }
+        }
+        return best;
+    }
+
+    /** 建立 Trie 用的可變結構 */
+    public static final class Builder {
+
+        private static final class MutableNode {
+            final Map<Character, MutableNode> children = new TreeMap<>();
+            List<Range> ranges;
+        }
+
+        private final MutableNode root = new MutableNode();
+
+        /**
+         * 加入一段門牌區間。
+         * @param key 縣市+鄉鎮市區+路段
+         * @param range 門牌區間
+         */
+        public Builder add(String key, Range range) {
+            MutableNode node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+            }
+            if (node.ranges == null) { node.ranges = new ArrayList<>(); }
+            node.ranges.add(range);
+            return this;
+        }
+
+        public GazetteerTrie build() {
+            int[] counts = new int[2];
+            return new GazetteerTrie(freeze(root, counts), counts[0], counts[1]);
+        }
+
+        private static Node freeze(MutableNode node, int[] counts) {
+            char[] keys = node.children.isEmpty() ? NO_KEYS : new char[node.children.size()];
+            Node[] children = node.children.isEmpty() ? NO_CHILDREN : new Node[node.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> e : node.children.entrySet()) { // TreeMap 已排序，可直接二分搜尋
+                keys[i] = e.getKey();
+                children[i++] = freeze(e.getValue(), counts);
+            }
+            Range[] ranges = null;
+            if (node.ranges != null) {
+                ranges = node.ranges.stream().sorted(Comparator.comparingInt(Range::from)).toArray(Range[]::new);
+                counts[0]++;
+                counts[1] += ranges.length;
+            }
+            return new Node(keys, children, ranges);
+        }
+    }
+}
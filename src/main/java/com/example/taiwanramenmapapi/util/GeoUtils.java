@@ -0,0 +1,51 @@
+package com.example.taiwanramenmapapi.util;
+
+import java.util.Locale;
+
+/**
+ * 地理計算與 WKT 字串的小工具 (WGS84，經緯度以度為單位)。
+ */
+public final class GeoUtils {
+
+    /** 地球平均半徑 (公尺)，與 MySQL ST_Distance_Sphere 預設值一致 */
+    public static final double EARTH_RADIUS_METERS = 6_370_986.0;
+
+    private GeoUtils() { }
+
+    /**
+     * 以經度在前的順序產生 WKT POINT，搭配 {@code 'axis-order=long-lat'} 使用。
+     */
+    public static String pointWkt(double lat, double lng) {
+        return String.format(Locale.ROOT, "POINT(%.7f %.7f)", lng, lat);
+    }
+
+    /**
+     * 產生矩形邊界的 WKT POLYGON (經度在前)，用於 MBRContains 空間索引查詢。
+     */
+    public static String envelopeWkt(double minLat, double maxLat, double minLng, double maxLng) {
+        return String.format(Locale.ROOT, "POLYGON((%.7f %.7f, %.7f %.7f, %.7f %.7f, %.7f %.7f, %.7f %.7f))",
+                minLng, minLat, maxLng, minLat, maxLng, maxLat, minLng, maxLat, minLng, minLat);
+    }
+
+    /**
+     * 以 haversine 公式計算兩點間的大圓距離。
+     * @return 距離 (公尺)
+     */
+    public static double haversineMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * 以指定中心點與半徑計算外接矩形，返回 {minLat, maxLat, minLng, maxLng}。
+     */
+    public static double[] boundingBox(double lat, double lng, double radiusMeters) {
+        double dLat = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        double dLng = Math.min(180.0, dLat / cosLat);
+        return new double[] { lat - dLat, lat + dLat, lng - dLng, lng + dLng };
+    }
+}
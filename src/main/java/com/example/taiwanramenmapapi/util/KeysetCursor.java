@@ -0,0 +1,87 @@
+package com.example.taiwanramenmapapi.util;
+
+import com.example.taiwanramenmapapi.exception.BadRequestException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 鍵集分頁 (keyset pagination) 的游標：上一頁最後一筆的排序欄位值與 ID。
+ * <p>
+ * 下一頁以 {@code (sortBy, id) > (value, lastId)} (降序時為 <) 作為條件，
+ * 資料庫直接從索引定位，第 500 頁與第 1 頁的成本相同，也不需要 COUNT(*)。
+ * 對外以 Base64URL 編碼為不透明字串，客戶端只需原樣帶回；游標同時記錄排序方式，後續請求沿用游標中的排序。
+ * 排序欄位必須為非 null 欄位 (建立時間、評分、評論數等)。
+ *
+ * @param sortBy 排序欄位 (實體屬性名)
+ * @param direction 排序方向
+ * @param value 最後一筆的排序欄位值 (字串形式，查詢時依欄位型別轉換)
+ * @param id 最後一筆的 ID
+ */
+public record KeysetCursor(String sortBy, Sort.Direction direction, String value, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 依上一頁最後一筆實體建立游標。
+     * @param last 最後一筆實體 (需有 id 屬性)
+     * @param sortBy 排序欄位
+     * @param direction 排序方向
+     */
+    public static KeysetCursor after(Object last, String sortBy, Sort.Direction direction) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(last);
+        Object value = wrapper.getPropertyValue(sortBy);
+        Object id = wrapper.getPropertyValue("id");
+        if (value == null || id == null) { throw new IllegalStateException("排序欄位 " + sortBy + " 的值為 null，無法建立分頁游標"); }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        return new KeysetCursor(sortBy, direction, text, ((Number) id).longValue());
+    }
+
+    /** 編碼為不透明字串 */
+    public String encode() {
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解碼客戶端帶回的游標。
+     * @param token 游標字串
+     * @throws BadRequestException 游標格式不正確
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4); // 值放在最後，可以包含分隔符
+            if (parts.length != 4) { throw new IllegalArgumentException("欄位數不正確"); }
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[3], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("無效的分頁游標", e);
+        }
+    }
+
+    /**
+     * 將排序欄位值轉為欄位的 Java 型別 (供查詢條件比較)。
+     * @param type 欄位型別
+     * @throws BadRequestException 值無法轉換或欄位型別不支援
+     */
+    @SuppressWarnings("unchecked")
+    public <Y extends Comparable<? super Y>> Y typedValue(Class<?> type) {
+        try {
+            Object typed;
+            if (type == String.class) typed = value;
+            else if (type == LocalDateTime.class) typed = LocalDateTime.parse(value);
+            else if (type == BigDecimal.class) typed = new BigDecimal(value);
+            else if (type == Integer.class || type == int.class) typed = Integer.valueOf(value);
+            else if (type == Long.class || type == long.class) typed = Long.valueOf(value);
+            else throw new BadRequestException("不支援以 " + sortBy + " 做游標分頁");
+            return (Y) typed;
+        } catch (RuntimeException e) {
+            if (e instanceof BadRequestException bad) throw bad;
+            throw new BadRequestException("無效的分頁游標", e);
+        }
+    }
+}
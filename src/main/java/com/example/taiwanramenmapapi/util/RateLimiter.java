@@ -0,0 +1,53 @@
+package com.example.taiwanramenmapapi.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 固定速率的限流器：許可之間至少間隔 1/permitsPerSecond 秒，{@link #acquire()} 阻塞到輪到自己為止。
+ * 多執行緒共用同一個實例時，整體速率不會超過設定值 (不允許累積突發)。
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) { throw new IllegalArgumentException("permitsPerSecond 必須大於 0"); }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * 取得一個許可，必要時等待。
+     * @throws InterruptedException 等待期間被中斷
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long grantAt = Math.max(now, nextFreeNanos);
+            nextFreeNanos = grantAt + intervalNanos;
+            waitNanos = grantAt - now;
+        }
+        if (waitNanos > 0) { TimeUnit.NANOSECONDS.sleep(waitNanos); }
+    }
+
+    /**
+     * 在指定時間內能輪到時取得一個許可並等待到該時刻；需要等待更久時不佔用許可，立即返回 false。
+     * @param timeout 最長等待時間
+     * @param unit 時間單位
+     * @return 是否取得許可
+     * @throws InterruptedException 等待期間被中斷 (許可已被佔用)
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long grantAt = Math.max(now, nextFreeNanos);
+            waitNanos = grantAt - now;
+            if (waitNanos > unit.toNanos(timeout)) { return false; }
+            nextFreeNanos = grantAt + intervalNanos;
+        }
+        if (waitNanos > 0) { TimeUnit.NANOSECONDS.sleep(waitNanos); }
+        return true;
+    }
+}
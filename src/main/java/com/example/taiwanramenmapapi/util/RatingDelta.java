@@ -0,0 +1,41 @@
+package com.example.taiwanramenmapapi.util;
+
+/**
+ * 店家評分總和、筆數與各星等計數的增量。
+ * <p>
+ * 增量可以相加，同一店家的多筆評論變更可合併為一個增量後以一條 UPDATE 套用 (評分延遲寫入使用)。
+ * 合併後各欄位為零 (例如新增後又刪除同一則評論) 時不需要寫入。
+ *
+ * @param sum 評分總和的增減
+ * @param count 評分筆數的增減
+ * @param d1 1 星計數的增減 (d2~d5 依此類推)
+ */
+public record RatingDelta(long sum, int count, int d1, int d2, int d3, int d4, int d5) {
+
+    public static final RatingDelta ZERO = new RatingDelta(0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * 一則評論評分變更對應的增量。新增評論時 oldRating 為 null，刪除評論時 newRating 為 null。
+     * @param oldRating 變更前的評分
+     * @param newRating 變更後的評分
+     */
+    public static RatingDelta of(Integer oldRating, Integer newRating) {
+        int[] stars = new int[6]; // 索引 1~5 對應星等
+        if (oldRating != null && oldRating >= 1 && oldRating <= 5) stars[oldRating]--;
+        if (newRating != null && newRating >= 1 && newRating <= 5) stars[newRating]++;
+        long sum = (newRating != null ? newRating : 0) - (oldRating != null ? oldRating : 0);
+        int count = (newRating != null ? 1 : 0) - (oldRating != null ? 1 : 0);
+        return new RatingDelta(sum, count, stars[1], stars[2], stars[3], stars[4], stars[5]);
+    }
+
+    /** 兩個增量相加 */
+    public RatingDelta plus(RatingDelta other) {
+        return new RatingDelta(sum + other.sum, count + other.count, d1 + other.d1, d2 + other.d2,
+                d3 + other.d3, d4 + other.d4, d5 + other.d5);
+    }
+
+    /** 套用後不會改變任何欄位 */
+    public boolean isZero() {
+        return sum == 0 && count == 0 && d1 == 0 && d2 == 0 && d3 == 0 && d4 == 0 && d5 == 0;
+    }
+}
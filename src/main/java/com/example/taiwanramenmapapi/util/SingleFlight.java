@@ -0,0 +1,67 @@
+package com.example.taiwanramenmapapi.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 請求合併 (single-flight)：同一個鍵同時只執行一次載入，期間其他呼叫者共用同一個進行中的 CompletableFuture。
+ * 載入完成 (成功或失敗) 後立即移除，之後的呼叫會重新載入，因此不具快取效果。
+ * @param <K> 鍵類型
+ * @param <V> 結果類型
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    /** 實際執行載入的呼叫數 */
+    private final AtomicLong leaderCalls = new AtomicLong();
+    /** 共用他人結果的呼叫數 */
+    private final AtomicLong sharedCalls = new AtomicLong();
+
+    /**
+     * 執行或加入同一鍵的載入。
+     * @param key 鍵
+     * @param loader 載入邏輯 (只由第一個呼叫者在自己的執行緒執行)
+     * @return 載入結果；載入拋出的 RuntimeException 會原樣傳給所有共用的呼叫者
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            sharedCalls.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) { throw cause; }
+                throw e;
+            }
+        }
+        leaderCalls.incrementAndGet();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long getLeaderCalls() { return leaderCalls.get(); }
+
+    public long getSharedCalls() { return sharedCalls.get(); }
+
+    /** 目前進行中的載入數 */
+    public int getInFlightCount() { return inFlight.size(); }
+
+    /** 去重比例：共用結果的呼叫佔全部呼叫的比例 (沒有呼叫時為 0) */
+    public double getDedupRatio() {
+        long shared = sharedCalls.get();
+        long total = shared + leaderCalls.get();
+        return total == 0 ? 0.0 : (double) shared / total;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 臺灣地址解析：從地址字串取出郵遞區號、縣市、鄉鎮市區，並做正規化。
+ * <p>
+ * 正規化規則：全形數字轉半形、「台」統一為「臺」、舊縣名 (如臺北縣、桃園縣) 轉為現行名稱，
+ * 因此「台北市」與「臺北市」會得到相同的縣市，可直接用等值查詢。
+ */
+public final class TaiwanAddressParser {
+
+    /** 現行 22 個縣市 (正規化後的寫法) */
+    public static final List<String> COUNTIES = List.of(
+            "臺北市", "新北市", "桃園市", "臺中市", "臺南市", "高雄市",
+            "基隆市", "新竹市", "嘉義市",
+            "新竹縣", "苗栗縣", "彰化縣", "南投縣", "雲林縣", "嘉義縣", "屏東縣",
+            "宜蘭縣", "花蓮縣", "臺東縣", "澎湖縣", "金門縣", "連江縣");
+
+    /** 已改制的舊縣市名稱 */
+    private static final Map<String, String> LEGACY_COUNTIES = Map.of(
+            "臺北縣", "新北市",
+            "桃園縣", "桃園市",
+            "臺中縣", "臺中市",
+            "臺南縣", "臺南市",
+            "高雄縣", "高雄市");
+
+    private static final Pattern POSTAL_CODE = Pattern.compile("^(\\d{3}(?:\\d{2,3})?)");
+    /** 直轄市與省轄市的行政區以「區」結尾 */
+    private static final Pattern CITY_DISTRICT = Pattern.compile("^(\\S{1,3}?區)");
+    /** 縣的行政區為鄉、鎮、縣轄市 */
+    private static final Pattern COUNTY_DISTRICT = Pattern.compile("^(\\S{1,3}?[鄉鎮市])");
+
+    private TaiwanAddressParser() { }
+
+    /**
+     * 解析結果，無法辨識的部分為 null。
+     * @param postalCode 郵遞區號 (3、5 或 6 碼)
+     * @param county 縣市 (例如 臺北市)
+     * @param district 鄉鎮市區 (例如 大安區)
+     * @param remainder 縣市與鄉鎮市區之後的部分 (已正規化、去除空白，例如 忠孝東路四段1號)
+     */
+    public record ParsedAddress(String postalCode, String county, String district, String remainder) { }
+
+    /**
+     * 解析地址。
+     * @param address 原始地址 (例如 "106台北市大安區忠孝東路四段1號")
+     * @return 解析結果 (address 為空時各欄位皆為 null)
+     */
+    public static ParsedAddress parse(String address) {
+        if (!StringUtils.hasText(address)) { return new ParsedAddress(null, null, null, null); }
+        String s = normalize(address).replaceAll("\\s+", "");
+        String postalCode = null;
+        Matcher postal = POSTAL_CODE.matcher(s);
+        if (postal.find()) {
+            postalCode = postal.group(1);
+            s = s.substring(postal.end());
+        }
+        s = stripPrefix(s, "中華民國");
+        s = stripPrefix(s, "臺灣省");
+        s = stripPrefix(s, "臺灣");
+        if (postalCode == null) {
+            // 郵遞區號也可能出現在國名之後
+            postal = POSTAL_CODE.matcher(s);
+            if (postal.find()) { postalCode = postal.group(1); s = s.substring(postal.end()); }
+        }
+
+        String county = null;
+        String rest = s;
+        boolean legacyCounty = false;
+        for (String candidate : COUNTIES) {
+            if (s.startsWith(candidate)) { county = candidate; rest = s.substring(candidate.length()); break; }
+        }
+        if (county == null) {
+            for (Map.Entry<String, String> legacy : LEGACY_COUNTIES.entrySet()) {
+                if (s.startsWith(legacy.getKey())) { county = legacy.getValue(); rest = s.substring(legacy.getKey().length()); legacyCounty = true; break; }
+            }
+        }
+        if (county == null) { return new ParsedAddress(postalCode, null, null, s); }
+
+        Matcher district = (county.endsWith("市") ? CITY_DISTRICT : COUNTY_DISTRICT).matcher(rest);
+        String districtName = null;
+        if (district.find()) {
+            districtName = district.group(1);
+            rest = rest.substring(district.end());
+        } else if (legacyCounty) {
+            // 舊縣的鄉鎮市改制後都成為「區」，例如 臺北縣板橋市 -> 新北市板橋區
+            Matcher legacyDistrict = COUNTY_DISTRICT.matcher(rest);
+            if (legacyDistrict.find()) {
+                String name = legacyDistrict.group(1);
+                districtName = name.substring(0, name.length() - 1) + "區";
+                rest = rest.substring(legacyDistrict.end());
+            }
+        }
+        return new ParsedAddress(postalCode, county, districtName, rest);
+    }
+
+    /**
+     * 是否像鄉鎮市區名稱 (例如 大安區、竹北市)。
+     * @param name 已正規化的名稱
+     */
+    public static boolean isDistrictName(String name) {
+        return name != null && name.length() >= 2 && name.length() <= 4 && "區鄉鎮市".indexOf(name.charAt(name.length() - 1)) >= 0;
+    }
+
+    /**
+     * 將使用者輸入的縣市名稱正規化 (例如 "台北"、"台北市" -> "臺北市"、"桃園縣" -> "桃園市")。
+     * @param input 使用者輸入
+     * @return 正規化後的縣市，無法辨識時為 null
+     */
+    public static String normalizeCounty(String input) {
+        if (!StringUtils.hasText(input)) return null;
+        String s = normalize(input.trim());
+        if (COUNTIES.contains(s)) return s;
+        if (LEGACY_COUNTIES.containsKey(s)) return LEGACY_COUNTIES.get(s);
+        for (String suffix : List.of("市", "縣")) {
+            if (COUNTIES.contains(s + suffix)) return s + suffix;
+        }
+        return null;
+    }
+
+    /**
+     * 產生地址的比對鍵 (用於地理編碼快取)：字元正規化、全形英數符號轉半形、去除空白、英文轉大寫，
+     * 並去掉開頭的郵遞區號與國名，使「106 台北市大安區…」與「臺北市大安區…」得到相同的鍵。
+     * @param address 原始地址
+     * @return 比對鍵，address 為空時為 null
+     */
+    public static String canonicalize(String address) {
+        if (!StringUtils.hasText(address)) return null;
+        String normalized = normalize(address);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c >= '！' && c <= '～') { c = (char) (c - '！' + '!'); }
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) continue;
+            sb.append(Character.toUpperCase(c));
+        }
+        String s = POSTAL_CODE.matcher(sb).replaceFirst("");
+        s = stripPrefix(s, "中華民國");
+        s = stripPrefix(s, "臺灣省");
+        s = stripPrefix(s, "臺灣");
+        return POSTAL_CODE.matcher(s).replaceFirst("");
+    }
+
+    /**
+     * 基本字元正規化：全形數字轉半形、「台」轉「臺」。
+     */
+    public static String normalize(String text) {
+        if (text == null) return null;
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '０' && c <= '９') { c = (char) ('0' + (c - '０')); }
+            else if (c == '台') { c = '臺'; }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String stripPrefix(String s, String prefix) {
+        return s.startsWith(prefix) ? s.substring(prefix.length()) : s;
+    }
+}
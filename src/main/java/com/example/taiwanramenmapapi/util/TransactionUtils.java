@@ -0,0 +1,30 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事務相關的小工具。
+ */
+public final class TransactionUtils {
+
+    private TransactionUtils() { }
+
+    /**
+     * 在當前事務成功提交後執行指定動作；若當前沒有事務，則立即執行。
+     * 用於同步記憶體中的索引/快取，避免事務回滾時留下髒數據。
+     * @param action 要執行的動作
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
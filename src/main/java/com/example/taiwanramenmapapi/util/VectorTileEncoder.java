@@ -0,0 +1,128 @@
+package com.example.taiwanramenmapapi.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 精簡的 Mapbox Vector Tile (MVT 2.1) 編碼器，只支援點 (POINT) 要素。
+ * <p>
+ * 直接輸出 protobuf 線路格式 (vector_tile.proto)，不需要額外的 protobuf/JTS 依賴。
+ * 用法：{@code addPointFeature(...)} 加入要素後呼叫 {@link #encode()}。
+ * 座標以瓦片內的像素座標 (0 ~ extent) 傳入，由呼叫端負責投影。
+ */
+public class VectorTileEncoder {
+
+    public static final int DEFAULT_EXTENT = 4096;
+
+    private static final int GEOM_TYPE_POINT = 1;
+    private static final int CMD_MOVE_TO = 1;
+
+    private final String layerName;
+    private final int extent;
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+    private final List<byte[]> features = new ArrayList<>();
+
+    public VectorTileEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    /**
+     * 加入一個點要素。
+     * @param id 要素 ID
+     * @param x 瓦片內 x 像素座標
+     * @param y 瓦片內 y 像素座標
+     * @param properties 屬性 (值支援 String、Integer/Long、Double/Float、Boolean)
+     */
+    public void addPointFeature(long id, int x, int y, Map<String, Object> properties) {
+        ProtoWriter tags = new ProtoWriter();
+        for (Map.Entry<String, Object> p : properties.entrySet()) {
+            if (p.getValue() == null) continue;
+            tags.writeVarint(keys.computeIfAbsent(p.getKey(), k -> keys.size()));
+            tags.writeVarint(values.computeIfAbsent(normalizeValue(p.getValue()), v -> values.size()));
+        }
+        ProtoWriter geometry = new ProtoWriter();
+        geometry.writeVarint((CMD_MOVE_TO & 0x7) | (1 << 3));
+        geometry.writeVarint(zigZag(x));
+        geometry.writeVarint(zigZag(y));
+
+        ProtoWriter feature = new ProtoWriter();
+        feature.writeTag(1, 0); feature.writeVarint(id);
+        feature.writeBytesField(2, tags.toByteArray());
+        feature.writeTag(3, 0); feature.writeVarint(GEOM_TYPE_POINT);
+        feature.writeBytesField(4, geometry.toByteArray());
+        features.add(feature.toByteArray());
+    }
+
+    /** 要素數量 */
+    public int size() { return features.size(); }
+
+    /**
+     * 編碼為 MVT protobuf 位元組。
+     */
+    public byte[] encode() {
+        ProtoWriter layer = new ProtoWriter();
+        layer.writeTag(15, 0); layer.writeVarint(2); // version
+        layer.writeStringField(1, layerName);
+        for (byte[] f : features) { layer.writeBytesField(2, f); }
+        for (String key : keys.keySet()) { layer.writeStringField(3, key); }
+        for (Object value : values.keySet()) { layer.writeBytesField(4, encodeValue(value)); }
+        layer.writeTag(5, 0); layer.writeVarint(extent);
+
+        ProtoWriter tile = new ProtoWriter();
+        tile.writeBytesField(3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private static Object normalizeValue(Object value) {
+        if (value instanceof Integer i) return i.longValue();
+        if (value instanceof Float f) return f.doubleValue();
+        return value;
+    }
+
+    private static byte[] encodeValue(Object value) {
+        ProtoWriter w = new ProtoWriter();
+        if (value instanceof String s) { w.writeStringField(1, s); }
+        else if (value instanceof Double d) { w.writeTag(3, 1); w.writeFixed64(Double.doubleToLongBits(d)); }
+        else if (value instanceof Long l) { w.writeTag(6, 0); w.writeVarint(zigZag(l)); }
+        else if (value instanceof Boolean b) { w.writeTag(7, 0); w.writeVarint(b ? 1 : 0); }
+        else { w.writeStringField(1, String.valueOf(value)); }
+        return w.toByteArray();
+    }
+
+    private static long zigZag(long n) { return (n << 1) ^ (n >> 63); }
+
+    /** 最小的 protobuf 寫入器 */
+    private static final class ProtoWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeTag(int field, int wireType) { writeVarint(((long) field << 3) | wireType); }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeFixed64(long value) {
+            for (int i = 0; i < 8; i++) { out.write((int) (value >>> (8 * i)) & 0xFF); }
+        }
+
+        void writeBytesField(int field, byte[] bytes) {
+            writeTag(field, 2);
+            writeVarint(bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        void writeStringField(int field, String s) { writeBytesField(field, s.getBytes(StandardCharsets.UTF_8)); }
+
+        byte[] toByteArray() { return out.toByteArray(); }
+    }
+}
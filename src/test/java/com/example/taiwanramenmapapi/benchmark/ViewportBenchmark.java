@@ -0,0 +1,128 @@
+package com.example.taiwanramenmapapi.benchmark;
+
+import com.example.taiwanramenmapapi.dto.response.ShopClusterDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.index.ShopClusterIndex;
+import com.example.taiwanramenmapapi.index.ShopSpatialIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10k 家店的地圖視窗：比較 BigDecimal 經緯度與 double 經緯度 (記憶體索引) 的 CPU 與配置量。
+ * <p>
+ * bigDecimal* 模擬舊做法 (ShopDTO 上的 BigDecimal 逐一 compareTo、以 BigDecimal 累加聚合質心)，
+ * double* 使用 ShopSpatialIndex / ShopClusterIndex。
+ * 執行方式：{@code mvn -q test-compile} 後在 IDE 執行 main，或以 test classpath 執行本類別；
+ * 結果中的 gc.alloc.rate.norm 即每次操作的配置位元組數。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ViewportBenchmark {
+
+    private static final int SHOPS = 10_000;
+    private static final int CLUSTER_ZOOM = 10;
+
+    // 視窗涵蓋全部店家 (雙北附近)
+    private static final double MIN_LAT = 24.90, MAX_LAT = 25.20, MIN_LNG = 121.40, MAX_LNG = 121.70;
+
+    private List<ShopDTO> bigDecimalShops;
+    private BigDecimal minLat, maxLat, minLng, maxLng;
+    private ShopSpatialIndex spatialIndex;
+    private ShopClusterIndex clusterIndex;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        bigDecimalShops = new ArrayList<>(SHOPS);
+        List<ShopMarkerDTO> markers = new ArrayList<>(SHOPS);
+        for (long id = 1; id <= SHOPS; id++) {
+            double lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            double lng = MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG);
+            BigDecimal rating = BigDecimal.valueOf(1 + random.nextDouble() * 4).setScale(7, RoundingMode.HALF_UP);
+            ShopDTO dto = new ShopDTO();
+            dto.setId(id);
+            dto.setLatitude(BigDecimal.valueOf(lat).setScale(7, RoundingMode.HALF_UP));
+            dto.setLongitude(BigDecimal.valueOf(lng).setScale(7, RoundingMode.HALF_UP));
+            dto.setWeightedRating(rating);
+            bigDecimalShops.add(dto);
+            markers.add(new ShopMarkerDTO(id, "shop-" + id, dto.getLatitude(), dto.getLongitude(), rating, 10, null));
+        }
+        minLat = BigDecimal.valueOf(MIN_LAT); maxLat = BigDecimal.valueOf(MAX_LAT);
+        minLng = BigDecimal.valueOf(MIN_LNG); maxLng = BigDecimal.valueOf(MAX_LNG);
+        spatialIndex = new ShopSpatialIndex(0.01);
+        spatialIndex.rebuild(markers);
+        clusterIndex = new ShopClusterIndex(16, 8);
+        clusterIndex.rebuild(markers);
+    }
+
+    @Benchmark
+    public List<ShopDTO> bigDecimalBounds() {
+        List<ShopDTO> result = new ArrayList<>();
+        for (ShopDTO shop : bigDecimalShops) {
+            if (shop.getLatitude().compareTo(minLat) >= 0 && shop.getLatitude().compareTo(maxLat) <= 0
+                    && shop.getLongitude().compareTo(minLng) >= 0 && shop.getLongitude().compareTo(maxLng) <= 0) {
+                result.add(shop);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ShopMarkerDTO> doubleBounds() {
+        return spatialIndex.findInBounds(MIN_LAT, MAX_LAT, MIN_LNG, MAX_LNG);
+    }
+
+    @Benchmark
+    public Map<Long, BigDecimal[]> bigDecimalClusters() {
+        BigDecimal cellSize = BigDecimal.valueOf(360.0 / (1L << (CLUSTER_ZOOM + 2)));
+        Map<Long, BigDecimal[]> cells = new HashMap<>();
+        for (ShopDTO shop : bigDecimalShops) {
+            long row = shop.getLatitude().divide(cellSize, MathContext.DECIMAL64).setScale(0, RoundingMode.FLOOR).longValue();
+            long col = shop.getLongitude().divide(cellSize, MathContext.DECIMAL64).setScale(0, RoundingMode.FLOOR).longValue();
+            BigDecimal[] sums = cells.computeIfAbsent((row << 32) | (col & 0xffffffffL),
+                    k -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO });
+            sums[0] = sums[0].add(BigDecimal.ONE);
+            sums[1] = sums[1].add(shop.getLatitude());
+            sums[2] = sums[2].add(shop.getLongitude());
+            sums[3] = sums[3].add(shop.getWeightedRating());
+        }
+        for (BigDecimal[] sums : cells.values()) {
+            sums[1] = sums[1].divide(sums[0], 7, RoundingMode.HALF_UP);
+            sums[2] = sums[2].divide(sums[0], 7, RoundingMode.HALF_UP);
+            sums[3] = sums[3].divide(sums[0], 2, RoundingMode.HALF_UP);
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public List<ShopClusterDTO> doubleClusters() {
+        return clusterIndex.findClusters(CLUSTER_ZOOM, MIN_LAT, MAX_LAT, MIN_LNG, MAX_LNG);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ViewportBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
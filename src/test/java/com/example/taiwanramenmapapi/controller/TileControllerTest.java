@@ -0,0 +1,77 @@
+package com.example.taiwanramenmapapi.controller;
+
+import com.example.taiwanramenmapapi.dto.response.VectorTileDTO;
+import com.example.taiwanramenmapapi.service.TileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TileControllerTest {
+
+    private static final String ETAG = "\"q1w2e3r4t5y6u7i8o9p0aa\"";
+    private static final byte[] DATA = {0x1a, 0x02, 0x08, 0x01};
+
+    private final TileService tileService = mock(TileService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        TileController controller = new TileController();
+        ReflectionTestUtils.setField(controller, "tileService", tileService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(tileService.getShopTile(10, 857, 438)).thenReturn(new VectorTileDTO(DATA, ETAG, 42L));
+    }
+
+    @Test
+    void returnsTileWithEtagWithoutConditionalHeader() throws Exception {
+        mockMvc.perform(get("/api/tiles/shops/10/857/438.mvt"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(content().bytes(DATA));
+    }
+
+    @Test
+    void matchingEtagReturnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/tiles/shops/10/857/438.mvt").header("If-None-Match", ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ETAG));
+    }
+
+    @Test
+    void weakValidatorMatches() throws Exception {
+        mockMvc.perform(get("/api/tiles/shops/10/857/438.mvt").header("If-None-Match", "W/" + ETAG))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void etagListAndWildcardMatch() throws Exception {
+        mockMvc.perform(get("/api/tiles/shops/10/857/438.mvt").header("If-None-Match", "\"stale\", " + ETAG))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/tiles/shops/10/857/438.mvt").header("If-None-Match", "*"))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void staleEtagReturnsTile() throws Exception {
+        mockMvc.perform(get("/api/tiles/shops/10/857/438.mvt").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(DATA));
+    }
+
+    @Test
+    void tileWithoutEtagIsNotCacheable() throws Exception {
+        when(tileService.getShopTile(3, 6, 3)).thenReturn(new VectorTileDTO(DATA, null, 0L));
+        mockMvc.perform(get("/api/tiles/shops/3/6/3.mvt").header("If-None-Match", "*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.taiwanramenmapapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ShopChangeLog：返回指定版本之後變更過的店家及其在該版本時的位置，
+ * 超出容量或重建後無法回答的舊版本返回空。
+ */
+class ShopChangeLogTest {
+
+    private static final ShopChangeLog.Position TAIPEI = new ShopChangeLog.Position(25.03, 121.55);
+    private static final ShopChangeLog.Position TAICHUNG = new ShopChangeLog.Position(24.15, 120.67);
+
+    @Test
+    void returnsPositionAtSinceVersion() {
+        ShopChangeLog log = new ShopChangeLog(100);
+        log.reset(1);
+        log.record(2, 10L, null);      // 店家 10 新建
+        log.record(3, 10L, TAIPEI);    // 店家 10 移到台中
+        log.record(4, 20L, TAICHUNG);  // 店家 20 刪除
+
+        Map<Long, ShopChangeLog.Position> sinceStart = log.changedSince(1).orElseThrow();
+        assertThat(sinceStart).containsOnlyKeys(10L, 20L);
+        assertThat(sinceStart.get(10L)).isNull();
+        assertThat(sinceStart.get(20L)).isEqualTo(TAICHUNG);
+
+        assertThat(log.changedSince(2).orElseThrow()).containsEntry(10L, TAIPEI);
+        assertThat(log.changedSince(3).orElseThrow()).containsOnlyKeys(20L);
+        assertThat(log.changedSince(4).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void versionsOlderThanRetainedRangeAreRejected() {
+        ShopChangeLog log = new ShopChangeLog(3);
+        log.reset(1);
+        for (long version = 2; version <= 6; version++) {
+            log.record(version, version * 10, TAIPEI);
+        }
+        // 只保留版本 4~6 的變更，版本 3 之前的差異無法計算
+        assertThat(log.changedSince(2)).isEmpty();
+        assertThat(log.changedSince(3).orElseThrow()).containsOnlyKeys(40L, 50L, 60L);
+        assertThat(log.changedSince(5).orElseThrow()).containsOnlyKeys(60L);
+    }
+
+    @Test
+    void resetDiscardsEarlierVersions() {
+        ShopChangeLog log = new ShopChangeLog(100);
+        log.reset(1);
+        log.record(2, 10L, TAIPEI);
+        log.reset(3);
+
+        assertThat(log.changedSince(2)).isEmpty();
+        assertThat(log.changedSince(3).orElseThrow()).isEmpty();
+        assertThatThrownBy(() -> new ShopChangeLog(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
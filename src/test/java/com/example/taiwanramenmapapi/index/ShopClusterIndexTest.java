@@ -0,0 +1,168 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopClusterDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * ShopClusterIndex 的網格金字塔：每一層的聚合數量與質心與店家資料一致，增量更新後與重建結果相同，
+ * 沒有邊界的查詢受 unbounded-max-zoom 限制，範圍過大的查詢逐層改用較粗的縮放等級。
+ */
+class ShopClusterIndexTest {
+
+    @Test
+    void everyLevelAccountsForAllShops() {
+        List<ShopMarkerDTO> shops = randomShops(1, 500, 21.9, 25.3, 120.0, 122.0, new Random(3));
+        ShopClusterIndex index = new ShopClusterIndex(16, 16);
+        index.rebuild(shops);
+
+        int previousClusters = 0;
+        for (int zoom = 0; zoom <= 16; zoom++) {
+            List<ShopClusterDTO> clusters = index.findClusters(zoom, null, null, null, null);
+            assertThat(clusters.stream().mapToInt(ShopClusterDTO::getCount).sum()).isEqualTo(shops.size());
+            assertThat(clusters.size()).isGreaterThanOrEqualTo(previousClusters);
+            previousClusters = clusters.size();
+        }
+        // 最粗的一層整個台灣只有一個聚合，質心與平均評分即所有店家的平均值
+        List<ShopClusterDTO> top = index.findClusters(0, null, null, null, null);
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).getLatitude()).isCloseTo(shops.stream().mapToDouble(ShopMarkerDTO::getLatitude).average().orElseThrow(), within(1e-9));
+        assertThat(top.get(0).getLongitude()).isCloseTo(shops.stream().mapToDouble(ShopMarkerDTO::getLongitude).average().orElseThrow(), within(1e-9));
+        assertThat(top.get(0).getAverageWeightedRating()).isEqualByComparingTo(
+                BigDecimal.valueOf(shops.stream().mapToDouble(s -> s.getWeightedRating().doubleValue()).average().orElseThrow()).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void unboundedQueriesAreClampedToUnboundedMaxZoom() {
+        List<ShopMarkerDTO> shops = randomShops(1, 500, 21.9, 25.3, 120.0, 122.0, new Random(5));
+        ShopClusterIndex index = new ShopClusterIndex(16, 6);
+        index.rebuild(shops);
+
+        assertThat(summary(index.findClusters(16, null, null, null, null))).isEqualTo(summary(index.findClusters(6, null, null, null, null)));
+        assertThat(summary(index.findClusters(20, null, null, null, null))).isEqualTo(summary(index.findClusters(6, null, null, null, null)));
+        assertThat(index.findClusters(3, null, null, null, null).size()).isLessThan(index.findClusters(6, null, null, null, null).size());
+        assertThat(summary(index.findClusters(-1, null, null, null, null))).isEqualTo(summary(index.findClusters(0, null, null, null, null)));
+        // unbounded-max-zoom 大於 max-zoom 時以 max-zoom 為準
+        ShopClusterIndex shallow = new ShopClusterIndex(4, 10);
+        shallow.rebuild(shops);
+        assertThat(summary(shallow.findClusters(10, null, null, null, null))).isEqualTo(summary(shallow.findClusters(4, null, null, null, null)));
+        assertThatThrownBy(() -> new ShopClusterIndex(23, 8)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void wideBoundsStepDownToACoarserLevel() {
+        List<ShopMarkerDTO> shops = randomShops(1, 2000, 21.9, 25.3, 120.0, 122.0, new Random(7));
+        ShopClusterIndex index = new ShopClusterIndex(16, 16);
+        index.rebuild(shops);
+
+        // 5 x 4 度的範圍在第 11 層約有一萬格，第 10 層約 2600 格，因此使用第 10 層
+        List<ShopClusterDTO> clusters = index.findClusters(16, 21.0, 26.0, 119.0, 123.0);
+        assertThat(clusters.size()).isLessThanOrEqualTo(4096);
+        assertThat(summary(clusters)).isEqualTo(summary(index.findClusters(10, null, null, null, null)));
+        assertThat(clusters.stream().mapToInt(ShopClusterDTO::getCount).sum()).isEqualTo(shops.size());
+    }
+
+    @Test
+    void boundedQueryReturnsOnlyCellsInsideBounds() {
+        ShopClusterIndex index = new ShopClusterIndex(16, 8);
+        index.rebuild(List.of(marker(1L, 25.03, 121.55, 4.0), marker(2L, 22.63, 120.30, 3.0)));
+
+        List<ShopClusterDTO> taipei = index.findClusters(12, 25.0, 25.1, 121.5, 121.6);
+        assertThat(taipei).hasSize(1);
+        assertThat(taipei.get(0).getLatitude()).isCloseTo(25.03, within(1e-9));
+        assertThat(index.findClusters(12, 24.0, 24.5, 121.0, 121.5)).isEmpty();
+    }
+
+    @Test
+    void incrementalUpdatesMatchRebuild() {
+        List<ShopMarkerDTO> shops = new ArrayList<>(randomShops(1, 300, 24.9, 25.2, 121.4, 121.7, new Random(11)));
+        ShopClusterIndex incremental = new ShopClusterIndex(14, 14);
+        incremental.rebuild(shops);
+
+        Random random = new Random(13);
+        for (int i = 0; i < 200; i++) {
+            int pos = random.nextInt(shops.size());
+            if (random.nextInt(4) == 0) {
+                incremental.remove(shops.remove(pos).getId());
+            } else {
+                ShopMarkerDTO moved = marker(shops.get(pos).getId(), 24.9 + random.nextDouble() * 0.3, 121.4 + random.nextDouble() * 0.3, 1 + random.nextInt(5));
+                shops.set(pos, moved);
+                incremental.upsert(moved);
+            }
+        }
+        ShopClusterIndex rebuilt = new ShopClusterIndex(14, 14);
+        rebuilt.rebuild(shops);
+
+        for (int zoom = 0; zoom <= 14; zoom += 2) {
+            List<ShopClusterDTO> actual = sorted(incremental.findClusters(zoom, null, null, null, null));
+            List<ShopClusterDTO> expected = sorted(rebuilt.findClusters(zoom, null, null, null, null));
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).getCount()).isEqualTo(expected.get(i).getCount());
+                assertThat(actual.get(i).getLatitude()).isCloseTo(expected.get(i).getLatitude(), within(1e-9));
+                assertThat(actual.get(i).getLongitude()).isCloseTo(expected.get(i).getLongitude(), within(1e-9));
+                assertThat(actual.get(i).getAverageWeightedRating()).isEqualByComparingTo(expected.get(i).getAverageWeightedRating());
+            }
+        }
+    }
+
+    @Test
+    void removingLastShopDropsTheCell() {
+        ShopClusterIndex index = new ShopClusterIndex(16, 16);
+        index.rebuild(List.of(marker(1L, 25.03, 121.55, 4.0), marker(2L, 25.0301, 121.5501, 2.0)));
+        List<ShopClusterDTO> merged = index.findClusters(10, null, null, null, null);
+        assertThat(merged).singleElement().satisfies(c -> {
+            assertThat(c.getCount()).isEqualTo(2);
+            assertThat(c.getAverageWeightedRating()).isEqualByComparingTo("3.00");
+        });
+
+        index.remove(2L);
+        assertThat(index.findClusters(10, null, null, null, null)).singleElement().satisfies(c -> {
+            assertThat(c.getCount()).isEqualTo(1);
+            assertThat(c.getLatitude()).isCloseTo(25.03, within(1e-9));
+            assertThat(c.getAverageWeightedRating()).isEqualByComparingTo("4.00");
+        });
+        index.remove(1L);
+        index.remove(1L);
+        for (int zoom = 0; zoom <= 16; zoom++) {
+            assertThat(index.findClusters(zoom, null, null, null, null)).isEmpty();
+        }
+    }
+
+    private static List<String> summary(List<ShopClusterDTO> clusters) {
+        return clusters.stream()
+                .map(c -> c.getCount() + "@" + Math.round(c.getLatitude() * 1e6) + "," + Math.round(c.getLongitude() * 1e6))
+                .sorted()
+                .toList();
+    }
+
+    private static List<ShopClusterDTO> sorted(List<ShopClusterDTO> clusters) {
+        return clusters.stream()
+                .sorted(Comparator.comparingDouble(ShopClusterDTO::getLatitude).thenComparingDouble(ShopClusterDTO::getLongitude))
+                .toList();
+    }
+
+    private static ShopMarkerDTO marker(Long id, double lat, double lng, double rating) {
+        return new ShopMarkerDTO(id, "shop-" + id, lat, lng, BigDecimal.valueOf(rating), 10, null);
+    }
+
+    private static List<ShopMarkerDTO> randomShops(long firstId, int count, double minLat, double maxLat, double minLng, double maxLng, Random random) {
+        List<ShopMarkerDTO> shops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shops.add(marker(firstId + i, minLat + random.nextDouble() * (maxLat - minLat),
+                    minLng + random.nextDouble() * (maxLng - minLng), 1 + random.nextInt(41) / 10.0));
+        }
+        return shops;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.mapper.ShopMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * ShopIndexSynchronizer：索引變更只在事務提交後套用並分發到所有索引，每次變更遞增資料版本號
+ * 並把變更前的位置寫入變更記錄；回滾的事務不影響索引與版本號。
+ */
+class ShopIndexSynchronizerTest {
+
+    private final ShopSpatialIndex spatialIndex = new ShopSpatialIndex(0.01);
+    private final ShopChangeLog changeLog = new ShopChangeLog(100);
+    private final ShopClusterIndex clusterIndex = mock(ShopClusterIndex.class);
+    private final ViewportTileCache tileCache = mock(ViewportTileCache.class);
+    private final ShopSearchIndex searchIndex = mock(ShopSearchIndex.class);
+    private final ShopSuggestIndex suggestIndex = mock(ShopSuggestIndex.class);
+    private final ShopLeaderboard leaderboard = mock(ShopLeaderboard.class);
+    private final ShopMapper shopMapper = mock(ShopMapper.class);
+    private final ShopIndexSynchronizer synchronizer = new ShopIndexSynchronizer();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(synchronizer, "shopSpatialIndex", spatialIndex);
+        ReflectionTestUtils.setField(synchronizer, "shopChangeLog", changeLog);
+        ReflectionTestUtils.setField(synchronizer, "shopClusterIndex", clusterIndex);
+        ReflectionTestUtils.setField(synchronizer, "viewportTileCache", tileCache);
+        ReflectionTestUtils.setField(synchronizer, "shopSearchIndex", searchIndex);
+        ReflectionTestUtils.setField(synchronizer, "shopSuggestIndex", suggestIndex);
+        ReflectionTestUtils.setField(synchronizer, "shopLeaderboard", leaderboard);
+        ReflectionTestUtils.setField(synchronizer, "shopMapper", shopMapper);
+        when(shopMapper.toShopMarkerDTO(any(ShopDTO.class))).thenAnswer(inv -> {
+            ShopDTO shop = inv.getArgument(0);
+            return new ShopMarkerDTO(shop.getId(), shop.getName(), shop.getLatitude().doubleValue(), shop.getLongitude().doubleValue(),
+                    shop.getWeightedRating(), shop.getReviewCount(), null);
+        });
+        synchronizer.rebuild(List.of(new ShopMarkerDTO(1L, "shop-1", 25.0, 121.5, BigDecimal.valueOf(3.5), 10, null)), List.of(), List.of());
+        clearInvocations(clusterIndex, tileCache, searchIndex, suggestIndex, leaderboard);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shopSavedIsAppliedOnlyAfterCommit() {
+        long version = synchronizer.getDataVersion();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizer.shopSaved(shop(1L, 25.1, 121.6));
+
+        assertThat(spatialIndex.findInBounds(25.1, 25.1, 121.6, 121.6)).isEmpty();
+        assertThat(synchronizer.getDataVersion()).isEqualTo(version);
+        verifyNoInteractions(clusterIndex, tileCache, searchIndex, suggestIndex, leaderboard);
+
+        commit();
+
+        assertThat(spatialIndex.findInBounds(25.1, 25.1, 121.6, 121.6)).extracting(ShopMarkerDTO::getId).containsExactly(1L);
+        assertThat(spatialIndex.findInBounds(25.0, 25.0, 121.5, 121.5)).isEmpty();
+        assertThat(synchronizer.getDataVersion()).isEqualTo(version + 1);
+        assertThat(changeLog.changedSince(version).orElseThrow()).containsOnlyKeys(1L);
+        verify(searchIndex).upsert(any(ShopSearchIndex.Document.class));
+        verify(suggestIndex).upsert(any(ShopSuggestIndex.ShopEntry.class));
+        verify(leaderboard).upsert(any(ShopDTO.class));
+        verify(clusterIndex).upsert(any(ShopMarkerDTO.class));
+        verify(tileCache).invalidateShop(1L, 25.1, 121.6);
+    }
+
+    @Test
+    void rolledBackTransactionLeavesIndexesUntouched() {
+        long version = synchronizer.getDataVersion();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizer.shopSaved(shop(2L, 25.2, 121.7));
+        synchronizer.shopDeleted(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(spatialIndex.size()).isEqualTo(1);
+        assertThat(spatialIndex.findInBounds(25.0, 25.0, 121.5, 121.5)).extracting(ShopMarkerDTO::getId).containsExactly(1L);
+        assertThat(synchronizer.getDataVersion()).isEqualTo(version);
+        assertThat(changeLog.changedSince(version).orElseThrow()).isEmpty();
+        verifyNoInteractions(clusterIndex, tileCache, searchIndex, suggestIndex, leaderboard);
+    }
+
+    @Test
+    void shopWithoutCoordinatesIsRemovedFromMapIndexes() {
+        ShopDTO ungeocoded = shop(1L, 25.0, 121.5);
+        ungeocoded.setLatitude(null);
+        ungeocoded.setLongitude(null);
+        synchronizer.shopSaved(ungeocoded);
+
+        assertThat(spatialIndex.get(1L)).isNull();
+        verify(clusterIndex).remove(1L);
+        verify(searchIndex).upsert(any(ShopSearchIndex.Document.class));
+        verify(tileCache).invalidateShop(1L, null, null);
+    }
+
+    @Test
+    void markersSavedAppliesEveryMarkerAfterCommit() {
+        long version = synchronizer.getDataVersion();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizer.markersSaved(List.of(new ShopMarkerDTO(1L, "shop-1", 25.1, 121.6, BigDecimal.valueOf(3.5), 10, null),
+                new ShopMarkerDTO(2L, "shop-2", 25.2, 121.7, BigDecimal.valueOf(4.0), 5, null)));
+        assertThat(spatialIndex.size()).isEqualTo(1);
+
+        commit();
+
+        assertThat(spatialIndex.get(1L).getLatitude()).isEqualTo(25.1);
+        assertThat(spatialIndex.get(2L).getLatitude()).isEqualTo(25.2);
+        assertThat(synchronizer.getDataVersion()).isEqualTo(version + 2);
+        assertThat(changeLog.changedSince(version).orElseThrow()).containsOnlyKeys(1L, 2L);
+        verify(tileCache).invalidateShop(2L, 25.2, 121.7);
+    }
+
+    @Test
+    void shopDeletedIsAppliedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizer.shopDeleted(1L);
+        assertThat(spatialIndex.size()).isEqualTo(1);
+
+        commit();
+
+        assertThat(spatialIndex.size()).isZero();
+        verify(clusterIndex).remove(1L);
+        verify(searchIndex).remove(1L);
+        verify(suggestIndex).remove(1L);
+        verify(leaderboard).remove(1L);
+        verify(tileCache).invalidateShop(1L, null, null);
+    }
+
+    @Test
+    void changesOutsideTransactionApplyImmediately() {
+        synchronizer.shopSaved(shop(2L, 25.2, 121.7));
+        assertThat(spatialIndex.size()).isEqualTo(2);
+        synchronizer.shopDeleted(2L);
+        assertThat(spatialIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void changeLogRecordsPreviousPositions() {
+        long since = synchronizer.getDataVersion();
+        synchronizer.shopSaved(shop(1L, 25.1, 121.6));
+        synchronizer.shopSaved(shop(1L, 25.2, 121.7));
+        synchronizer.shopSaved(shop(3L, 25.3, 121.8));
+        synchronizer.shopDeleted(3L);
+
+        assertThat(synchronizer.getDataVersion()).isEqualTo(since + 4);
+        Map<Long, ShopChangeLog.Position> changed = changeLog.changedSince(since).orElseThrow();
+        // 同一店家記錄的是區間內最早的舊位置；區間內新增的店家沒有舊位置
+        assertThat(changed.get(1L)).isEqualTo(new ShopChangeLog.Position(25.0, 121.5));
+        assertThat(changed).containsKey(3L);
+        assertThat(changed.get(3L)).isNull();
+        assertThat(changeLog.changedSince(since + 2).orElseThrow()).containsOnlyKeys(3L);
+    }
+
+    @Test
+    void versionTokensRoundTripOnlyWithinThisInstance() {
+        long version = synchronizer.getDataVersion();
+        String token = synchronizer.toVersionToken(version);
+        assertThat(synchronizer.parseVersionToken(token)).isEqualTo(OptionalLong.of(version));
+
+        ShopIndexSynchronizer other = new ShopIndexSynchronizer();
+        assertThat(other.parseVersionToken(token)).isEmpty();
+        assertThat(synchronizer.parseVersionToken(synchronizer.toVersionToken(version + 1))).isEmpty();
+        assertThat(synchronizer.parseVersionToken(token.substring(0, token.indexOf(':') + 1) + "abc")).isEmpty();
+        assertThat(synchronizer.parseVersionToken(String.valueOf(version))).isEmpty();
+        assertThat(synchronizer.parseVersionToken(null)).isEmpty();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static ShopDTO shop(Long id, double lat, double lng) {
+        ShopDTO shop = new ShopDTO();
+        shop.setId(id);
+        shop.setName("shop-" + id);
+        shop.setLatitude(BigDecimal.valueOf(lat));
+        shop.setLongitude(BigDecimal.valueOf(lng));
+        shop.setWeightedRating(BigDecimal.valueOf(3.5));
+        shop.setReviewCount(10);
+        return shop;
+    }
+}
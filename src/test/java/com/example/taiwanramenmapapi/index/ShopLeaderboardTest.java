@@ -0,0 +1,145 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ShopLeaderboard：全台、縣市、行政區排行依加權評分與評論數排序，評論數未達門檻的店家不列入；
+ * 店家變更只重新發布受影響的排行榜，內容未變的排行榜沿用原列表，清空的縣市/行政區排行榜被移除。
+ */
+class ShopLeaderboardTest {
+
+    @Test
+    void boardsAreRankedByWeightedRatingThenReviewCount() {
+        ShopLeaderboard leaderboard = leaderboardOf(10,
+                shop(1L, 4.5, 10, "臺北市", "大安區"),
+                shop(2L, 4.8, 5, "臺北市", "中山區"),
+                shop(3L, 4.5, 20, "高雄市", "苓雅區"),
+                shop(4L, 4.0, 30, "臺北市", "大安區"),
+                shop(5L, 4.5, 10, "新北市", "大安區"));
+
+        assertThat(ids(leaderboard.top(10))).containsExactly(2L, 3L, 1L, 5L, 4L);
+        assertThat(ids(leaderboard.topByCounty("臺北市", 10))).containsExactly(2L, 1L, 4L);
+        // 同名行政區跨縣市合併排名
+        assertThat(ids(leaderboard.topByDistrict("大安區", 10))).containsExactly(1L, 5L, 4L);
+        assertThat(ids(leaderboard.top(2))).containsExactly(2L, 3L);
+        assertThat(leaderboard.top(0)).isEmpty();
+        assertThat(leaderboard.topByCounty("臺中市", 10)).isEmpty();
+    }
+
+    @Test
+    void boardsKeepOnlyConfiguredSize() {
+        ShopLeaderboard leaderboard = new ShopLeaderboard(3, 2);
+        leaderboard.rebuild(List.of(shop(1L, 4.0, 10, "臺北市", "大安區"), shop(2L, 4.5, 10, "臺北市", "大安區"),
+                shop(3L, 3.5, 10, "臺北市", "大安區")));
+        assertThat(ids(leaderboard.top(10))).containsExactly(2L, 1L);
+
+        // 名次外的店家升上來
+        leaderboard.upsert(shop(3L, 4.9, 11, "臺北市", "大安區"));
+        assertThat(ids(leaderboard.top(10))).containsExactly(3L, 2L);
+        leaderboard.remove(2L);
+        assertThat(ids(leaderboard.topByCounty("臺北市", 10))).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void shopsBelowMinReviewsAreNotRanked() {
+        ShopLeaderboard leaderboard = leaderboardOf(10, shop(1L, 5.0, 2, "臺北市", "大安區"), shop(2L, 4.0, 3, "臺北市", "大安區"));
+        assertThat(ids(leaderboard.top(10))).containsExactly(2L);
+
+        // 評論數達到門檻後列入，刪除評論後低於門檻則移出
+        leaderboard.upsert(shop(1L, 5.0, 3, "臺北市", "大安區"));
+        assertThat(ids(leaderboard.top(10))).containsExactly(1L, 2L);
+        leaderboard.upsert(shop(2L, 4.0, 2, "臺北市", "大安區"));
+        assertThat(ids(leaderboard.top(10))).containsExactly(1L);
+        assertThat(ids(leaderboard.topByDistrict("大安區", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void movingShopBetweenCountiesUpdatesBothBoardsAndDropsEmptyOnes() {
+        ShopLeaderboard leaderboard = leaderboardOf(10, shop(1L, 4.5, 10, "臺北市", "大安區"), shop(2L, 4.0, 10, "高雄市", "苓雅區"));
+
+        leaderboard.upsert(shop(1L, 4.5, 10, "高雄市", "新興區"));
+
+        assertThat(ids(leaderboard.topByCounty("高雄市", 10))).containsExactly(1L, 2L);
+        assertThat(ids(leaderboard.topByDistrict("新興區", 10))).containsExactly(1L);
+        assertThat(leaderboard.topByCounty("臺北市", 10)).isEmpty();
+        assertThat(leaderboard.topByDistrict("大安區", 10)).isEmpty();
+        assertThat(boards(leaderboard)).containsOnlyKeys("", "county:高雄市", "district:苓雅區", "district:新興區");
+
+        // 全部店家刪除後只剩空的全台排行榜
+        leaderboard.remove(1L);
+        leaderboard.remove(2L);
+        assertThat(leaderboard.top(10)).isEmpty();
+        assertThat(boards(leaderboard)).containsOnlyKeys("");
+    }
+
+    @Test
+    void unaffectedBoardsKeepPublishedLists() {
+        ShopLeaderboard leaderboard = new ShopLeaderboard(3, 2);
+        leaderboard.rebuild(List.of(shop(1L, 4.5, 10, "臺北市", "大安區"), shop(2L, 4.0, 10, "臺北市", "大安區"),
+                shop(3L, 3.0, 10, "臺北市", "大安區"), shop(4L, 4.2, 10, "高雄市", "苓雅區")));
+        List<ShopDTO> all = leaderboard.top(10);
+        List<ShopDTO> taipei = leaderboard.topByCounty("臺北市", 10);
+        List<ShopDTO> kaohsiung = leaderboard.topByCounty("高雄市", 10);
+
+        // 名次外的店家變更不影響任何已發布的前 N 名
+        leaderboard.upsert(shop(3L, 3.1, 11, "臺北市", "大安區"));
+        assertThat(leaderboard.top(10)).isSameAs(all);
+        assertThat(leaderboard.topByCounty("臺北市", 10)).isSameAs(taipei);
+
+        // 名次內的店家變更 (新的 DTO) 重新發布所在的排行榜，其他縣市沿用原列表，已讀取的列表不變
+        leaderboard.upsert(shop(1L, 4.6, 11, "臺北市", "大安區"));
+        assertThat(leaderboard.top(10)).isNotSameAs(all);
+        assertThat(leaderboard.topByCounty("臺北市", 10)).isNotSameAs(taipei);
+        assertThat(leaderboard.topByCounty("高雄市", 10)).isSameAs(kaohsiung);
+        assertThat(taipei.get(0).getWeightedRating()).isEqualByComparingTo("4.5");
+        assertThat(leaderboard.topByCounty("臺北市", 10).get(0).getWeightedRating()).isEqualByComparingTo("4.6");
+    }
+
+    @Test
+    void nothingIsPublishedBeforeRebuild() {
+        ShopLeaderboard leaderboard = new ShopLeaderboard(3, 10);
+        leaderboard.upsert(shop(1L, 4.5, 10, "臺北市", "大安區"));
+        assertThat(leaderboard.isReady()).isFalse();
+        assertThat(leaderboard.top(10)).isEmpty();
+
+        leaderboard.rebuild(List.of());
+        assertThat(leaderboard.isReady()).isTrue();
+        assertThat(leaderboard.top(10)).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<ShopDTO>> boards(ShopLeaderboard leaderboard) {
+        Object snapshot = ((AtomicReference<?>) ReflectionTestUtils.getField(leaderboard, "snapshot")).get();
+        return (Map<String, List<ShopDTO>>) ReflectionTestUtils.invokeMethod(snapshot, "boards");
+    }
+
+    private static ShopLeaderboard leaderboardOf(int size, ShopDTO... shops) {
+        ShopLeaderboard leaderboard = new ShopLeaderboard(3, size);
+        leaderboard.rebuild(List.of(shops));
+        return leaderboard;
+    }
+
+    private static ShopDTO shop(Long id, double weightedRating, int reviewCount, String county, String district) {
+        ShopDTO shop = new ShopDTO();
+        shop.setId(id);
+        shop.setName("shop-" + id);
+        shop.setWeightedRating(BigDecimal.valueOf(weightedRating));
+        shop.setReviewCount(reviewCount);
+        shop.setCounty(county);
+        shop.setDistrict(district);
+        return shop;
+    }
+
+    private static List<Long> ids(List<ShopDTO> shops) {
+        return shops.stream().map(ShopDTO::getId).toList();
+    }
+}
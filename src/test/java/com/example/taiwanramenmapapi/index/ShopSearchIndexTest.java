@@ -0,0 +1,101 @@
+package com.example.taiwanramenmapapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ShopSearchIndex：中日文二元組斷詞、BM25 排序 (名稱加權、短文件優先)、分頁，
+ * 以及增量更新/刪除後與重建結果一致。
+ */
+class ShopSearchIndexTest {
+
+    private static final List<ShopSearchIndex.Document> SHOPS = List.of(
+            new ShopSearchIndex.Document(1L, "麵屋一燈", "臺北市中山區南京東路一段 1 號", "濃厚魚介豚骨沾麵"),
+            new ShopSearchIndex.Document(2L, "鷹流拉麵", "臺北市中正區南昌路一段 2 號", "東京豚骨醬油拉麵，沾麵也有名"),
+            new ShopSearchIndex.Document(3L, "豚骨一燈", "高雄市苓雅區四維三路 3 號", null),
+            new ShopSearchIndex.Document(4L, "Ramen Nagi", "臺中市西屯區臺灣大道三段 4 號", "Butao king ramen"),
+            new ShopSearchIndex.Document(5L, "らーめん山頭火", "臺北市大安區忠孝東路四段 5 號", "鹽味拉麵"));
+
+    @Test
+    void tokenizeProducesUnigramsAndBigramsForCjk() {
+        assertThat(ShopSearchIndex.tokenize("沾麵 Ramen123")).containsExactly("沾", "沾麵", "麵", "ramen123");
+        assertThat(ShopSearchIndex.tokenize("らーめん")).contains("らー", "ーめ", "めん");
+        assertThat(ShopSearchIndex.tokenize(null)).isEmpty();
+        // 兩個字以上的查詢只用二元組，單字查詢用單字
+        assertThat(ShopSearchIndex.queryTerms("豚骨拉麵")).containsExactly("豚骨", "骨拉", "拉麵");
+        assertThat(ShopSearchIndex.queryTerms("麵")).containsExactly("麵");
+    }
+
+    @Test
+    void normalizationMatchesFullWidthAndTaiVariants() {
+        ShopSearchIndex index = indexOf(SHOPS);
+        assertThat(ids(index.search("台中", 0, 10))).containsExactly(4L);
+        assertThat(ids(index.search("ＲＡＭＥＮ", 0, 10))).containsExactly(4L);
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        ShopSearchIndex index = indexOf(SHOPS);
+        // 店家 3 名稱含「豚骨」，店家 1、2 只在描述中出現
+        ShopSearchIndex.SearchResult result = index.search("豚骨", 0, 10);
+        assertThat(result.total()).isEqualTo(3);
+        assertThat(ids(result).get(0)).isEqualTo(3L);
+        assertThat(ids(result)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(result.hits()).isSortedAccordingTo((a, b) -> Double.compare(b.score(), a.score()));
+    }
+
+    @Test
+    void shopsMatchingMoreTermsRankHigher() {
+        ShopSearchIndex index = indexOf(SHOPS);
+        // 「一燈」兩家店名稱都有，只有店家 1 另外符合「沾麵」
+        assertThat(ids(index.search("一燈沾麵", 0, 10)).get(0)).isEqualTo(1L);
+        assertThat(ids(index.search("一燈 豚骨", 0, 10)).get(0)).isEqualTo(3L);
+    }
+
+    @Test
+    void searchPagesThroughRankedHits() {
+        ShopSearchIndex index = indexOf(SHOPS);
+        List<Long> all = ids(index.search("臺北市", 0, 10));
+        assertThat(all).containsExactlyInAnyOrder(1L, 2L, 5L);
+        assertThat(ids(index.search("臺北市", 0, 2))).isEqualTo(all.subList(0, 2));
+        assertThat(ids(index.search("臺北市", 2, 2))).isEqualTo(all.subList(2, 3));
+        assertThat(index.search("臺北市", 2, 2).total()).isEqualTo(3);
+        assertThat(index.search("臺北市", 5, 2).hits()).isEmpty();
+        assertThat(index.search("  ", 0, 10).total()).isZero();
+        assertThat(index.search("披薩", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void incrementalUpdatesMatchRebuild() {
+        ShopSearchIndex incremental = indexOf(SHOPS);
+        incremental.upsert(new ShopSearchIndex.Document(3L, "博多一幸舍", "高雄市苓雅區四維三路 3 號", "泡系豚骨"));
+        incremental.remove(2L);
+        incremental.remove(99L);
+        incremental.upsert(new ShopSearchIndex.Document(6L, "鬼金棒", "臺北市中山區松江路 6 號", "辛味噌拉麵"));
+
+        ShopSearchIndex rebuilt = indexOf(List.of(SHOPS.get(0),
+                new ShopSearchIndex.Document(3L, "博多一幸舍", "高雄市苓雅區四維三路 3 號", "泡系豚骨"),
+                SHOPS.get(3), SHOPS.get(4),
+                new ShopSearchIndex.Document(6L, "鬼金棒", "臺北市中山區松江路 6 號", "辛味噌拉麵")));
+
+        assertThat(incremental.size()).isEqualTo(rebuilt.size()).isEqualTo(5);
+        assertThat(ids(incremental.search("一燈", 0, 10))).containsExactly(1L);
+        assertThat(ids(incremental.search("鷹流", 0, 10))).isEmpty();
+        for (String query : List.of("豚骨", "拉麵", "臺北市", "沾麵", "ramen", "味噌")) {
+            assertThat(incremental.search(query, 0, 10)).as(query).isEqualTo(rebuilt.search(query, 0, 10));
+        }
+    }
+
+    private static ShopSearchIndex indexOf(List<ShopSearchIndex.Document> documents) {
+        ShopSearchIndex index = new ShopSearchIndex();
+        index.rebuild(documents);
+        return index;
+    }
+
+    private static List<Long> ids(ShopSearchIndex.SearchResult result) {
+        return result.hits().stream().map(ShopSearchIndex.Hit::shopId).toList();
+    }
+}
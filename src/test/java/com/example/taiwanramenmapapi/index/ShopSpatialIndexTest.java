@@ -0,0 +1,250 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.util.GeoUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ShopSpatialIndex 的邊界查詢與 k-NN 查詢：結果必須與暴力掃描一致 (包括網格數超過上限、
+ * k-NN 圈數達上限 (MAX_KNN_RINGS) 後退回全量掃描的情況)；寫入以 copy-on-write 替換網格，
+ * 內容指紋只取決於店家資料本身。
+ */
+class ShopSpatialIndexTest {
+
+    private static final double CELL_SIZE_DEG = 0.01;
+
+    @Test
+    void findInBoundsMatchesBruteForce() {
+        List<ShopMarkerDTO> shops = randomShops(1, 2000, 24.90, 25.20, 121.40, 121.70, new Random(11));
+        ShopSpatialIndex index = indexOf(shops);
+        Random random = new Random(13);
+        for (int i = 0; i < 200; i++) {
+            double minLat = 24.85 + random.nextDouble() * 0.40, minLng = 121.35 + random.nextDouble() * 0.40;
+            double maxLat = minLat + random.nextDouble() * 0.15, maxLng = minLng + random.nextDouble() * 0.15;
+            assertThat(sortedIds(index.findInBounds(minLat, maxLat, minLng, maxLng)))
+                    .isEqualTo(bruteForceBounds(shops, minLat, maxLat, minLng, maxLng));
+        }
+    }
+
+    @Test
+    void findInBoundsCoveringManyCellsScansAllShops() {
+        // 整個台灣 (約 400 x 300 個網格，超過單次查詢上限) 改為掃描全部店家
+        List<ShopMarkerDTO> shops = randomShops(1, 500, 21.9, 25.3, 120.0, 122.0, new Random(17));
+        ShopSpatialIndex index = indexOf(shops);
+        assertThat(sortedIds(index.findInBounds(21.0, 26.0, 119.0, 123.0))).isEqualTo(bruteForceBounds(shops, 21.0, 26.0, 119.0, 123.0));
+        assertThat(sortedIds(index.findInBounds(23.0, 24.0, 120.5, 121.5))).isEqualTo(bruteForceBounds(shops, 23.0, 24.0, 120.5, 121.5));
+    }
+
+    @Test
+    void findInBoundsIncludesEdgesAndRejectsInvertedBounds() {
+        ShopSpatialIndex index = indexOf(List.of(marker(1L, 25.0, 121.5), marker(2L, 25.01, 121.51)));
+        assertThat(sortedIds(index.findInBounds(25.0, 25.01, 121.5, 121.51))).containsExactly(1L, 2L);
+        assertThat(index.findInBounds(25.01, 25.0, 121.5, 121.51)).isEmpty();
+        assertThat(index.findInBounds(25.0, 25.01, 121.51, 121.5)).isEmpty();
+    }
+
+    @Test
+    void upsertMovesShopBetweenCellsAndRemoveDropsIt() {
+        ShopSpatialIndex index = indexOf(List.of(marker(1L, 25.001, 121.501), marker(2L, 25.002, 121.502)));
+        assertThat(index.upsert(marker(1L, 25.101, 121.601))).extracting(ShopMarkerDTO::getLatitude).isEqualTo(25.001);
+        assertThat(sortedIds(index.findInBounds(25.0, 25.01, 121.5, 121.51))).containsExactly(2L);
+        assertThat(sortedIds(index.findInBounds(25.1, 25.11, 121.6, 121.61))).containsExactly(1L);
+
+        assertThat(index.upsert(marker(3L, 25.003, 121.503))).isNull();
+        assertThat(index.remove(2L)).extracting(ShopMarkerDTO::getId).isEqualTo(2L);
+        assertThat(index.remove(2L)).isNull();
+        assertThat(sortedIds(index.findInBounds(25.0, 25.01, 121.5, 121.51))).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get(1L).getLatitude()).isEqualTo(25.101);
+        assertThat(index.get(2L)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesReplaceCellArraysInsteadOfMutatingThem() {
+        ShopSpatialIndex index = indexOf(List.of(marker(1L, 25.001, 121.501), marker(2L, 25.002, 121.502)));
+        Map<Long, ShopSpatialIndex.IndexedShop[]> cells = (Map<Long, ShopSpatialIndex.IndexedShop[]>) ReflectionTestUtils.getField(index, "cells");
+        ShopSpatialIndex.IndexedShop[] before = cells.values().iterator().next();
+        ShopSpatialIndex.IndexedShop[] snapshot = before.clone();
+
+        index.upsert(marker(3L, 25.003, 121.503));
+        index.remove(1L);
+        index.upsert(marker(2L, 25.004, 121.504));
+
+        // 讀取中的執行緒持有的舊陣列內容不變
+        assertThat(before).isEqualTo(snapshot);
+        ShopSpatialIndex.IndexedShop[] after = cells.values().iterator().next();
+        assertThat(after).isNotSameAs(before);
+        assertThat(after).extracting(ShopSpatialIndex.IndexedShop::id).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void concurrentReadersNeverSeeDuplicatesOrMissingStableShops() throws Exception {
+        List<ShopMarkerDTO> stable = randomShops(1, 200, 25.00, 25.05, 121.50, 121.55, new Random(19));
+        ShopSpatialIndex index = indexOf(stable);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(23);
+            for (int i = 0; i < 20_000; i++) {
+                long id = 1000 + random.nextInt(50);
+                if (random.nextBoolean()) { index.upsert(marker(id, 25.00 + random.nextDouble() * 0.05, 121.50 + random.nextDouble() * 0.05)); }
+                else { index.remove(id); }
+            }
+            done.set(true);
+        });
+        writer.start();
+        while (!done.get()) {
+            List<Long> ids = index.findInBounds(24.99, 25.06, 121.49, 121.56).stream().map(ShopMarkerDTO::getId).toList();
+            assertThat(ids).doesNotHaveDuplicates();
+            assertThat(ids.stream().filter(id -> id < 1000).count()).isEqualTo(stable.size());
+        }
+        writer.join();
+    }
+
+    @Test
+    void contentFingerprintDependsOnlyOnShopData() {
+        List<ShopMarkerDTO> shops = randomShops(1, 300, 24.90, 25.20, 121.40, 121.70, new Random(29));
+        ShopSpatialIndex rebuilt = indexOf(shops);
+        ShopSpatialIndex incremental = indexOf(List.of());
+        List<ShopMarkerDTO> shuffled = new ArrayList<>(shops);
+        Collections.shuffle(shuffled, new Random(31));
+        shuffled.forEach(incremental::upsert);
+        assertThat(incremental.getContentFingerprint()).isEqualTo(rebuilt.getContentFingerprint()).isNotZero();
+
+        long original = rebuilt.getContentFingerprint();
+        ShopMarkerDTO first = shops.get(0);
+        ShopMarkerDTO rerated = new ShopMarkerDTO(first.getId(), first.getName(), first.getLatitude(), first.getLongitude(), BigDecimal.valueOf(4.2), 11, null);
+        rebuilt.upsert(rerated);
+        assertThat(rebuilt.getContentFingerprint()).isNotEqualTo(original);
+        rebuilt.upsert(first);
+        assertThat(rebuilt.getContentFingerprint()).isEqualTo(original);
+
+        rebuilt.remove(first.getId());
+        assertThat(rebuilt.getContentFingerprint()).isNotEqualTo(original);
+        rebuilt.upsert(first);
+        assertThat(rebuilt.getContentFingerprint()).isEqualTo(original);
+        // 名稱與封面不影響標記以外的內容，不計入指紋
+        rebuilt.upsert(new ShopMarkerDTO(first.getId(), "renamed", first.getLatitude(), first.getLongitude(), first.getWeightedRating(), first.getReviewCount(), "x.jpg"));
+        assertThat(rebuilt.getContentFingerprint()).isEqualTo(original);
+    }
+
+    @Test
+    void findNearestMatchesBruteForce() {
+        List<ShopMarkerDTO> shops = randomShops(1, 2000, 24.90, 25.20, 121.40, 121.70, new Random(42));
+        ShopSpatialIndex index = indexOf(shops);
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            double lat = 24.85 + random.nextDouble() * 0.40, lng = 121.35 + random.nextDouble() * 0.40;
+            int k = 1 + random.nextInt(30);
+            assertThat(ids(index.findNearest(lat, lng, k, 0))).isEqualTo(bruteForce(shops, lat, lng, k, 0));
+        }
+    }
+
+    @Test
+    void findNearestRespectsMaxDistance() {
+        List<ShopMarkerDTO> shops = randomShops(1, 1000, 24.90, 25.20, 121.40, 121.70, new Random(1));
+        ShopSpatialIndex index = indexOf(shops);
+        List<ShopSpatialIndex.Neighbor> result = index.findNearest(25.05, 121.55, 50, 800);
+        assertThat(ids(result)).isEqualTo(bruteForce(shops, 25.05, 121.55, 50, 800));
+        assertThat(result).allSatisfy(n -> assertThat(n.distanceMeters()).isLessThanOrEqualTo(800));
+        assertThat(result).extracting(ShopSpatialIndex.Neighbor::distanceMeters).isSorted();
+    }
+
+    @Test
+    void findNearestFallsBackToFullScanBeyondRingCap() {
+        // 兩群店家相隔約 3 度 (300 個網格，超過 128 圈上限)：第 k 名落在另一群時必須退回全量掃描才能找到
+        List<ShopMarkerDTO> shops = new ArrayList<>(randomShops(1, 20, 25.00, 25.02, 121.50, 121.52, new Random(3)));
+        shops.addAll(randomShops(1001, 20, 22.00, 22.02, 120.30, 120.32, new Random(4)));
+        ShopSpatialIndex index = indexOf(shops);
+
+        List<ShopSpatialIndex.Neighbor> result = index.findNearest(25.01, 121.51, 30, 0);
+        assertThat(ids(result)).isEqualTo(bruteForce(shops, 25.01, 121.51, 30, 0));
+        assertThat(ids(result)).filteredOn(id -> id > 1000).hasSize(10);
+
+        // 查詢點遠離全部店家
+        assertThat(ids(index.findNearest(35.0, 135.0, 5, 0))).isEqualTo(bruteForce(shops, 35.0, 135.0, 5, 0));
+    }
+
+    @Test
+    void findNearestReflectsUpsertAndRemove() {
+        List<ShopMarkerDTO> shops = randomShops(1, 500, 24.90, 25.20, 121.40, 121.70, new Random(5));
+        ShopSpatialIndex index = indexOf(shops);
+        ShopMarkerDTO moved = marker(shops.get(0).getId(), 25.0500001, 121.5500001);
+        index.upsert(moved);
+        shops.set(0, moved);
+        index.remove(shops.get(1).getId());
+        shops.remove(1);
+
+        assertThat(ids(index.findNearest(25.05, 121.55, 1, 0))).containsExactly(moved.getId());
+        assertThat(ids(index.findNearest(25.05, 121.55, 40, 0))).isEqualTo(bruteForce(shops, 25.05, 121.55, 40, 0));
+    }
+
+    @Test
+    void findNearestOnEmptyIndexOrNonPositiveK() {
+        ShopSpatialIndex index = indexOf(List.of());
+        assertThat(index.findNearest(25.0, 121.5, 5, 0)).isEmpty();
+        assertThat(indexOf(List.of(marker(1L, 25.0, 121.5))).findNearest(25.0, 121.5, 0, 0)).isEmpty();
+    }
+
+    // --- 輔助方法 ---
+
+    private static ShopSpatialIndex indexOf(List<ShopMarkerDTO> shops) {
+        ShopSpatialIndex index = new ShopSpatialIndex(CELL_SIZE_DEG);
+        index.rebuild(shops);
+        return index;
+    }
+
+    private static List<ShopMarkerDTO> randomShops(long firstId, int count, double minLat, double maxLat, double minLng, double maxLng, Random random) {
+        List<ShopMarkerDTO> shops = new ArrayList<>(count);
+        for (long id = firstId; id < firstId + count; id++) {
+            shops.add(marker(id, minLat + random.nextDouble() * (maxLat - minLat), minLng + random.nextDouble() * (maxLng - minLng)));
+        }
+        return shops;
+    }
+
+    private static ShopMarkerDTO marker(Long id, double lat, double lng) {
+        return new ShopMarkerDTO(id, "shop-" + id, lat, lng, BigDecimal.valueOf(3.5), 10, null);
+    }
+
+    private static List<Long> sortedIds(List<ShopMarkerDTO> shops) {
+        return shops.stream().map(ShopMarkerDTO::getId).sorted().toList();
+    }
+
+    private static List<Long> bruteForceBounds(List<ShopMarkerDTO> shops, double minLat, double maxLat, double minLng, double maxLng) {
+        return shops.stream()
+                .filter(s -> s.getLatitude() >= minLat && s.getLatitude() <= maxLat
+                        && s.getLongitude() >= minLng && s.getLongitude() <= maxLng)
+                .map(ShopMarkerDTO::getId)
+                .sorted()
+                .toList();
+    }
+
+    private static List<Long> ids(List<ShopSpatialIndex.Neighbor> neighbors) {
+        return neighbors.stream().map(n -> n.shop().getId()).toList();
+    }
+
+    private static List<Long> bruteForce(List<ShopMarkerDTO> shops, double lat, double lng, int k, double maxDistanceMeters) {
+        return shops.stream()
+                .filter(s -> maxDistanceMeters <= 0 || distance(s, lat, lng) <= maxDistanceMeters)
+                .sorted(Comparator.comparingDouble(s -> distance(s, lat, lng)))
+                .limit(k)
+                .map(ShopMarkerDTO::getId)
+                .toList();
+    }
+
+    private static double distance(ShopMarkerDTO shop, double lat, double lng) {
+        return GeoUtils.haversineMeters(lat, lng, shop.getLatitude(), shop.getLongitude());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.taiwanramenmapapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * ShopSuggestIndex：前綴查詢返回子樹中權重最高的候選，縣市、行政區、熱門詞的權重為所屬店家權重之和，
+ * 店家更新或刪除後候選隨之調整，結果與重建一致。
+ */
+class ShopSuggestIndexTest {
+
+    private static final List<ShopSuggestIndex.ShopEntry> SHOPS = List.of(
+            new ShopSuggestIndex.ShopEntry(1L, "麵屋一燈", "臺北市", "中山區", "濃厚魚介豚骨沾麵", 5.0),
+            new ShopSuggestIndex.ShopEntry(2L, "麵屋武藏", "臺北市", "大安區", "豚骨魚介", 4.0),
+            new ShopSuggestIndex.ShopEntry(3L, "麵屋千雲", "臺北市", "大安區", "雞白湯", 3.0),
+            new ShopSuggestIndex.ShopEntry(4L, "豚骨一燈", "高雄市", "苓雅區", null, 2.0),
+            new ShopSuggestIndex.ShopEntry(5L, "Ramen Nagi", "臺中市", "西屯區", "Butao", 1.0));
+
+    @Test
+    void prefixReturnsShopsByWeight() {
+        ShopSuggestIndex index = indexOf(10, SHOPS);
+        assertThat(texts(index.suggest("麵屋", 10))).containsExactly("麵屋一燈", "麵屋武藏", "麵屋千雲");
+        assertThat(texts(index.suggest("麵屋武", 10))).containsExactly("麵屋武藏");
+        assertThat(texts(index.suggest("ramen", 10))).containsExactly("Ramen Nagi");
+        assertThat(texts(index.suggest(" ｒａｍ ", 10))).containsExactly("Ramen Nagi");
+        assertThat(index.suggest("麵包", 10)).isEmpty();
+        assertThat(index.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    void countyDistrictAndTermWeightsSumTheirShops() {
+        ShopSuggestIndex index = indexOf(10, SHOPS);
+
+        // 「台」與「臺」視為相同
+        ShopSuggestIndex.Suggestion taipei = index.suggest("台北", 10).get(0);
+        assertThat(taipei.type()).isEqualTo(ShopSuggestIndex.Type.COUNTY);
+        assertThat(taipei.text()).isEqualTo("臺北市");
+        assertThat(taipei.weight()).isCloseTo(12.0, within(1e-9));
+
+        ShopSuggestIndex.Suggestion daan = index.suggest("大安", 10).get(0);
+        assertThat(daan.type()).isEqualTo(ShopSuggestIndex.Type.DISTRICT);
+        assertThat(daan.text()).isEqualTo("臺北市大安區");
+        assertThat(daan.weight()).isCloseTo(7.0, within(1e-9));
+
+        // 熱門詞比對名稱與描述：店家 1、2、4
+        List<ShopSuggestIndex.Suggestion> tonkotsu = index.suggest("豚骨", 10);
+        assertThat(tonkotsu.get(0).type()).isEqualTo(ShopSuggestIndex.Type.TERM);
+        assertThat(tonkotsu.get(0).weight()).isCloseTo(11.0, within(1e-9));
+        assertThat(texts(tonkotsu)).containsExactly("豚骨", "豚骨一燈");
+    }
+
+    @Test
+    void limitAndMaxSuggestionsCapResults() {
+        ShopSuggestIndex index = indexOf(2, SHOPS);
+        assertThat(texts(index.suggest("麵屋", 10))).containsExactly("麵屋一燈", "麵屋武藏");
+        assertThat(texts(index.suggest("麵屋", 1))).containsExactly("麵屋一燈");
+        assertThat(index.suggest("麵屋", 0)).isEmpty();
+        // 較深的節點仍保留自己子樹的候選
+        assertThat(texts(index.suggest("麵屋千", 10))).containsExactly("麵屋千雲");
+    }
+
+    @Test
+    void removedShopsDisappearFromSuggestions() {
+        ShopSuggestIndex index = indexOf(10, SHOPS);
+        index.remove(1L);
+        index.remove(99L);
+
+        assertThat(texts(index.suggest("麵屋", 10))).containsExactly("麵屋武藏", "麵屋千雲");
+        assertThat(index.suggest("臺北", 10).get(0).weight()).isCloseTo(7.0, within(1e-9));
+        assertThat(index.suggest("中山", 10)).isEmpty();
+
+        index.remove(5L);
+        assertThat(index.suggest("ram", 10)).isEmpty();
+        assertThat(index.suggest("臺中", 10)).isEmpty();
+    }
+
+    @Test
+    void updatesMatchRebuild() {
+        ShopSuggestIndex incremental = indexOf(3, SHOPS);
+        ShopSuggestIndex.ShopEntry renamed = new ShopSuggestIndex.ShopEntry(3L, "雞白湯千雲", "新北市", "板橋區", "雞白湯", 6.0);
+        ShopSuggestIndex.ShopEntry rerated = new ShopSuggestIndex.ShopEntry(4L, "豚骨一燈", "高雄市", "苓雅區", null, 9.0);
+        incremental.upsert(renamed);
+        incremental.upsert(rerated);
+        incremental.remove(2L);
+
+        ShopSuggestIndex rebuilt = indexOf(3, List.of(SHOPS.get(0), renamed, rerated, SHOPS.get(4)));
+
+        assertThat(texts(incremental.suggest("麵屋", 10))).containsExactly("麵屋一燈");
+        assertThat(texts(incremental.suggest("豚骨", 10))).containsExactly("豚骨", "豚骨一燈");
+        for (String prefix : List.of("麵", "麵屋", "豚", "雞", "臺", "臺北", "新北", "大安", "板橋", "r", "高雄")) {
+            assertThat(incremental.suggest(prefix, 10)).as(prefix).isEqualTo(rebuilt.suggest(prefix, 10));
+        }
+    }
+
+    private static ShopSuggestIndex indexOf(int maxSuggestions, List<ShopSuggestIndex.ShopEntry> entries) {
+        ShopSuggestIndex index = new ShopSuggestIndex(maxSuggestions, List.of("豚骨", "沾麵"));
+        index.rebuild(entries);
+        return index;
+    }
+
+    private static List<String> texts(List<ShopSuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(ShopSuggestIndex.Suggestion::text).toList();
+    }
+}
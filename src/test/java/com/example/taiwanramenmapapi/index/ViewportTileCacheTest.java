@@ -0,0 +1,172 @@
+package com.example.taiwanramenmapapi.index;
+
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * ViewportTileCache：邊界對齊到瓦片後共用快取，結果裁切到精確邊界；
+ * 店家變更只作廢新舊位置所在的瓦片，瓦片數受 LRU 上限限制，載入期間有作廢時不寫入快取。
+ */
+class ViewportTileCacheTest {
+
+    private static final double TILE = 0.05;
+
+    /** 模擬資料庫：記錄每次載入的外接矩形 */
+    private final Map<Long, ShopDTO> database = new ConcurrentHashMap<>();
+    private final List<double[]> loads = new ArrayList<>();
+    private final Function<double[], List<ShopDTO>> loader = box -> {
+        loads.add(box);
+        return database.values().stream().filter(s -> inside(s, box[0], box[1], box[2], box[3])).toList();
+    };
+
+    @Test
+    void nearbyViewportsShareQuantizedTiles() {
+        put(1L, 25.012, 121.512);
+        put(2L, 25.038, 121.538);
+        put(3L, 25.120, 121.620);
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+
+        assertThat(ids(cache.getOrLoad(25.01, 25.03, 121.51, 121.53, loader))).containsExactly(1L);
+        assertThat(loads).hasSize(1);
+        // 載入範圍是對齊瓦片的外接矩形
+        assertThat(loads.get(0)[0]).isCloseTo(25.00, within(1e-9));
+        assertThat(loads.get(0)[1]).isCloseTo(25.05, within(1e-9));
+        assertThat(loads.get(0)[2]).isCloseTo(121.50, within(1e-9));
+        assertThat(loads.get(0)[3]).isCloseTo(121.55, within(1e-9));
+
+        // 同一瓦片內的不同邊界直接命中，結果裁切到各自的邊界
+        assertThat(ids(cache.getOrLoad(25.02, 25.04, 121.52, 121.54, loader))).containsExactly(2L);
+        assertThat(ids(cache.getOrLoad(25.001, 25.049, 121.501, 121.549, loader))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(loads).hasSize(1);
+
+        // 跨出已快取的瓦片時只載入缺少的瓦片
+        assertThat(ids(cache.getOrLoad(25.00, 25.13, 121.50, 121.53, loader))).containsExactly(1L);
+        assertThat(loads).hasSize(2);
+        assertThat(loads.get(1)[0]).isCloseTo(25.05, within(1e-9));
+        assertThat(loads.get(1)[1]).isCloseTo(25.15, within(1e-9));
+    }
+
+    @Test
+    void tooManyTilesBypassTheCache() {
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+        assertThat(cache.getOrLoad(22.0, 25.0, 120.0, 122.0, loader)).isNull();
+        assertThat(loads).isEmpty();
+    }
+
+    @Test
+    void movingShopInvalidatesOldAndNewTiles() {
+        put(1L, 25.012, 121.512);
+        put(2L, 25.112, 121.512);
+        put(3L, 25.212, 121.512);
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+        cache.getOrLoad(25.00, 25.24, 121.50, 121.54, loader);
+        assertThat(loads).hasSize(1);
+
+        // 店家 1 由 25.01 附近的瓦片移到 25.16 附近的瓦片
+        put(1L, 25.112 + TILE, 121.512);
+        cache.invalidateShop(1L, 25.112 + TILE, 121.512);
+        assertThat(ids(cache.getOrLoad(25.00, 25.24, 121.50, 121.54, loader))).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(loads).hasSize(2);
+        // 只有店家舊位置與新位置的瓦片缺少，載入範圍是兩者的外接矩形
+        assertThat(loads.get(1)[0]).isCloseTo(25.00, within(1e-9));
+        assertThat(loads.get(1)[1]).isCloseTo(25.20, within(1e-9));
+
+        // 未受影響的瓦片仍然命中
+        cache.getOrLoad(25.20, 25.24, 121.50, 121.54, loader);
+        cache.getOrLoad(25.10, 25.14, 121.50, 121.54, loader);
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    void deletedShopDisappearsAfterInvalidation() {
+        put(1L, 25.012, 121.512);
+        put(2L, 25.022, 121.522);
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+        assertThat(ids(cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader))).containsExactlyInAnyOrder(1L, 2L);
+
+        database.remove(1L);
+        cache.invalidateShop(1L, null, null);
+        assertThat(ids(cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader))).containsExactly(2L);
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    void newShopInvalidatesItsTile() {
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+        assertThat(cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader)).isEmpty();
+
+        put(5L, 25.03, 121.53);
+        cache.invalidateShop(5L, 25.03, 121.53);
+        assertThat(ids(cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader))).containsExactly(5L);
+    }
+
+    @Test
+    void leastRecentlyUsedTilesAreEvicted() {
+        ViewportTileCache cache = new ViewportTileCache(TILE, 2);
+        cache.getOrLoad(25.01, 25.02, 121.51, 121.52, loader); // 瓦片 A
+        cache.getOrLoad(25.11, 25.12, 121.51, 121.52, loader); // 瓦片 B
+        cache.getOrLoad(25.01, 25.02, 121.51, 121.52, loader); // 命中 A，B 成為最久未使用
+        cache.getOrLoad(25.21, 25.22, 121.51, 121.52, loader); // 瓦片 C，淘汰 B
+        assertThat(loads).hasSize(3);
+
+        cache.getOrLoad(25.01, 25.02, 121.51, 121.52, loader);
+        assertThat(loads).hasSize(3);
+        cache.getOrLoad(25.11, 25.12, 121.51, 121.52, loader);
+        assertThat(loads).hasSize(4);
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotCached() {
+        put(1L, 25.012, 121.512);
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+        // 載入期間店家被移動 (另一個事務已提交並作廢瓦片)，這次載入的結果可能已過期
+        List<ShopDTO> first = cache.getOrLoad(25.00, 25.04, 121.50, 121.54, box -> {
+            List<ShopDTO> stale = loader.apply(box);
+            put(1L, 25.212, 121.512);
+            cache.invalidateShop(1L, 25.212, 121.512);
+            return stale;
+        });
+        assertThat(ids(first)).containsExactly(1L);
+
+        assertThat(cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader)).isEmpty();
+        assertThat(loads).hasSize(2);
+        cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader);
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    void clearDropsAllTiles() {
+        ViewportTileCache cache = new ViewportTileCache(TILE, 100);
+        cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader);
+        cache.clear();
+        cache.getOrLoad(25.00, 25.04, 121.50, 121.54, loader);
+        assertThat(loads).hasSize(2);
+    }
+
+    private void put(Long id, double lat, double lng) {
+        ShopDTO shop = new ShopDTO();
+        shop.setId(id);
+        shop.setLatitude(BigDecimal.valueOf(lat));
+        shop.setLongitude(BigDecimal.valueOf(lng));
+        database.put(id, shop);
+    }
+
+    private static boolean inside(ShopDTO shop, double minLat, double maxLat, double minLng, double maxLng) {
+        double lat = shop.getLatitude().doubleValue(), lng = shop.getLongitude().doubleValue();
+        return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+    }
+
+    private static List<Long> ids(List<ShopDTO> shops) {
+        return shops.stream().map(ShopDTO::getId).toList();
+    }
+}
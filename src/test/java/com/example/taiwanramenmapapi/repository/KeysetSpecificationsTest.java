@@ -0,0 +1,97 @@
+package com.example.taiwanramenmapapi.repository;
+
+import com.example.taiwanramenmapapi.util.KeysetCursor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 鍵集分頁條件：以 (sortBy, id) 同方向比較，id 在排序值相同時決勝。
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+class KeysetSpecificationsTest {
+
+    private Root<Object> root;
+    private CriteriaQuery<?> query;
+    private CriteriaBuilder cb;
+    private Path<Long> id;
+    private Path field;
+
+    @BeforeEach
+    void setUp() {
+        root = mock(Root.class);
+        query = mock(CriteriaQuery.class);
+        cb = mock(CriteriaBuilder.class);
+        id = mock(Path.class);
+        field = mock(Path.class);
+        doReturn(id).when(root).get("id");
+        doReturn(field).when(root).get("weightedRating");
+        when(field.getJavaType()).thenReturn(BigDecimal.class);
+    }
+
+    @Test
+    void sortAppendsIdInSameDirection() {
+        assertThat(KeysetSpecifications.sort("weightedRating", Sort.Direction.DESC))
+                .isEqualTo(Sort.by(Sort.Direction.DESC, "weightedRating").and(Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(KeysetSpecifications.sort("id", Sort.Direction.ASC)).isEqualTo(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    void firstPageHasNoCondition() {
+        assertThat(KeysetSpecifications.<Object>after(null)).isNull();
+    }
+
+    @Test
+    void ascendingBreaksTiesOnGreaterId() {
+        Predicate beyond = mock(Predicate.class), equal = mock(Predicate.class), idAfter = mock(Predicate.class), tie = mock(Predicate.class), result = mock(Predicate.class);
+        BigDecimal value = new BigDecimal("4.5");
+        when(cb.greaterThan(field, value)).thenReturn(beyond);
+        when(cb.equal(field, value)).thenReturn(equal);
+        when(cb.greaterThan(id, 10L)).thenReturn(idAfter);
+        when(cb.and(equal, idAfter)).thenReturn(tie);
+        when(cb.or(beyond, tie)).thenReturn(result);
+
+        KeysetCursor cursor = new KeysetCursor("weightedRating", Sort.Direction.ASC, "4.5", 10L);
+        assertThat(KeysetSpecifications.after(cursor).toPredicate(root, query, cb)).isSameAs(result);
+        verify(cb, never()).lessThan(any(Path.class), any(Comparable.class));
+    }
+
+    @Test
+    void descendingBreaksTiesOnSmallerId() {
+        Predicate beyond = mock(Predicate.class), equal = mock(Predicate.class), idAfter = mock(Predicate.class), tie = mock(Predicate.class), result = mock(Predicate.class);
+        BigDecimal value = new BigDecimal("4.5");
+        when(cb.lessThan(field, value)).thenReturn(beyond);
+        when(cb.equal(field, value)).thenReturn(equal);
+        when(cb.lessThan(id, 10L)).thenReturn(idAfter);
+        when(cb.and(equal, idAfter)).thenReturn(tie);
+        when(cb.or(beyond, tie)).thenReturn(result);
+
+        KeysetCursor cursor = new KeysetCursor("weightedRating", Sort.Direction.DESC, "4.5", 10L);
+        assertThat(KeysetSpecifications.after(cursor).toPredicate(root, query, cb)).isSameAs(result);
+        verify(cb, never()).greaterThan(any(Path.class), any(Comparable.class));
+    }
+
+    @Test
+    void sortingByIdComparesIdOnly() {
+        Predicate idAfter = mock(Predicate.class);
+        when(cb.greaterThan(id, 10L)).thenReturn(idAfter);
+        KeysetCursor cursor = new KeysetCursor("id", Sort.Direction.ASC, "10", 10L);
+        assertThat(KeysetSpecifications.after(cursor).toPredicate(root, query, cb)).isSameAs(idAfter);
+        verify(cb, never()).or(any(Predicate.class), any(Predicate.class));
+    }
+}
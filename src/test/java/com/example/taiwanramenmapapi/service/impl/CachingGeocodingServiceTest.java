@@ -0,0 +1,88 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.entity.GeocodeCacheEntry;
+import com.example.taiwanramenmapapi.repository.GeocodeCacheRepository;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.google.maps.model.LatLng;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingGeocodingServiceTest {
+
+    private static final String ADDRESS = "臺北市中山區南京東路一段 10 號";
+
+    private final GeocodingService delegate = mock(GeocodingService.class);
+    private final GeocodeCacheRepository repository = mock(GeocodeCacheRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CachingGeocodingService service = new CachingGeocodingService();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.findByAddressHash(anyString())).thenReturn(Optional.empty());
+        ReflectionTestUtils.setField(service, "delegate", delegate);
+        ReflectionTestUtils.setField(service, "geocodeCacheRepository", repository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "memoryEntries", 100);
+        ReflectionTestUtils.setField(service, "negativeTtlHours", 24L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void writesDatabaseCacheOnBackgroundThread() throws Exception {
+        CompletableFuture<String> writerThread = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            writerThread.complete(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        }).when(repository).save(any(GeocodeCacheEntry.class));
+        when(delegate.lookup(ADDRESS)).thenReturn(Optional.of(new LatLng(25.0521, 121.5246)));
+
+        assertThat(service.lookup(ADDRESS)).hasValueSatisfying(location -> assertThat(location.lat).isEqualTo(25.0521));
+
+        assertThat(writerThread.get(5, TimeUnit.SECONDS)).isEqualTo("geocode-cache-writer").isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void memoryCacheServesRepeatedLookupsBeforeDatabaseWriteCompletes() {
+        when(delegate.lookup(ADDRESS)).thenReturn(Optional.of(new LatLng(25.0521, 121.5246)));
+
+        service.lookup(ADDRESS);
+        service.lookup(ADDRESS);
+
+        verify(delegate, times(1)).lookup(ADDRESS);
+    }
+
+    @Test
+    void shutdownFlushesPendingWrites() {
+        when(delegate.lookup(ADDRESS)).thenReturn(Optional.empty());
+
+        service.lookup(ADDRESS);
+        service.shutdown();
+
+        verify(repository).save(any(GeocodeCacheEntry.class));
+    }
+}
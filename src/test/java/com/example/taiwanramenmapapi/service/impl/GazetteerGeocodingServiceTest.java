@@ -0,0 +1,64 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.google.maps.model.LatLng;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 以 src/test/resources/gazetteer/taiwan-gazetteer.tsv 的範例資料測試離線地理編碼。
+ */
+class GazetteerGeocodingServiceTest {
+
+    private static final String SAMPLE = "classpath:gazetteer/taiwan-gazetteer.tsv";
+
+    @Test
+    void interpolatesHouseNumberOnKnownRoad() {
+        GazetteerGeocodingService service = serviceWith(SAMPLE);
+        assertThat(service.isAvailable()).isTrue();
+        // 忠孝東路四段 1~599 號: 300 號位於區間正中
+        LatLng location = service.lookup("106台北市大安區忠孝東路4段300號").orElseThrow();
+        assertThat(location.lat).isCloseTo(25.0414, within(1e-7));
+        assertThat(location.lng).isCloseTo(121.5507, within(1e-7));
+    }
+
+    @Test
+    void usesLaneNumberAndIgnoresSubNumbers() {
+        GazetteerGeocodingService service = serviceWith(SAMPLE);
+        LatLng lane = service.lookup("臺北市大安區忠孝東路四段300巷5弄2號").orElseThrow();
+        LatLng house = service.lookup("臺北市大安區忠孝東路四段300之1號").orElseThrow();
+        assertThat(lane.lat).isEqualTo(house.lat);
+        assertThat(lane.lng).isEqualTo(house.lng);
+    }
+
+    @Test
+    void returnsEmptyForUncoveredAddresses() {
+        GazetteerGeocodingService service = serviceWith(SAMPLE);
+        assertThat(service.lookup("臺北市大安區忠孝東路四段1000號")).isEmpty(); // 超出門牌區間
+        assertThat(service.lookup("臺北市大安區復興南路一段1號")).isEmpty();   // 地名檔沒有的路段
+        assertThat(service.lookup("臺北市大安區忠孝東路四段")).isEmpty();       // 沒有門牌號
+        assertThat(service.lookup("忠孝東路四段1號")).isEmpty();                 // 沒有縣市與行政區
+        assertThatThrownBy(() -> service.getLatLngOrFail("臺北市大安區復興南路一段1號")).isInstanceOf(GeocodingException.class);
+    }
+
+    @Test
+    void staysDisabledWithoutGazetteer() {
+        GazetteerGeocodingService unset = serviceWith("");
+        assertThat(unset.isAvailable()).isFalse();
+        assertThat(unset.lookup("臺北市大安區忠孝東路四段1號")).isEmpty();
+        assertThat(serviceWith("classpath:gazetteer/missing.tsv").isAvailable()).isFalse();
+    }
+
+    private static GazetteerGeocodingService serviceWith(String path) {
+        GazetteerGeocodingService service = new GazetteerGeocodingService();
+        ReflectionTestUtils.setField(service, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(service, "gazetteerPath", path);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.dto.response.RegeocodeJobDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.entity.RegeocodeJob;
+import com.example.taiwanramenmapapi.entity.enums.JobStatus;
+import com.example.taiwanramenmapapi.exception.GeocodingException;
+import com.example.taiwanramenmapapi.index.ShopIndexSynchronizer;
+import com.example.taiwanramenmapapi.mapper.RegeocodeJobMapperImpl;
+import com.example.taiwanramenmapapi.mapper.ShopMediaMapper;
+import com.example.taiwanramenmapapi.repository.RegeocodeJobRepository;
+import com.example.taiwanramenmapapi.repository.ShopRepository;
+import com.example.taiwanramenmapapi.service.GeocodingService;
+import com.google.maps.model.LatLng;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegeocodeJobServiceImplTest {
+
+    /** 模擬 shops 表 (依 ID 排序)；第 5 家沒有地址 */
+    private final List<Object[]> shops = List.of(
+            new Object[] { 1L, "臺北市大安區忠孝東路四段 1 號", new BigDecimal("25.0000000"), new BigDecimal("121.0000000") },
+            new Object[] { 2L, "臺北市中山區南京東路一段 2 號", new BigDecimal("25.0500000"), new BigDecimal("121.5200000") },
+            new Object[] { 3L, "查無此地址", null, null },
+            new Object[] { 4L, "外部服務失敗的地址", null, null },
+            new Object[] { 5L, "", null, null });
+
+    private final RegeocodeJobRepository jobRepository = mock(RegeocodeJobRepository.class);
+    private final ShopRepository shopRepository = mock(ShopRepository.class);
+    private final ShopIndexSynchronizer synchronizer = mock(ShopIndexSynchronizer.class);
+    private final GeocodingService geocodingService = mock(GeocodingService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final RegeocodeJobServiceImpl service = new RegeocodeJobServiceImpl();
+    private final List<List<Object[]>> batches = new ArrayList<>();
+    private RegeocodeJob job;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(service, "regeocodeJobRepository", jobRepository);
+        ReflectionTestUtils.setField(service, "regeocodeJobMapper", new RegeocodeJobMapperImpl());
+        ReflectionTestUtils.setField(service, "shopRepository", shopRepository);
+        ReflectionTestUtils.setField(service, "shopMediaMapper", mock(ShopMediaMapper.class));
+        ReflectionTestUtils.setField(service, "shopIndexSynchronizer", synchronizer);
+        ReflectionTestUtils.setField(service, "geocodingService", geocodingService);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "concurrency", 2);
+        service.init();
+
+        when(shopRepository.count()).thenReturn((long) shops.size());
+        when(jobRepository.save(any(RegeocodeJob.class))).thenAnswer(invocation -> {
+            RegeocodeJob saved = invocation.getArgument(0);
+            if (saved.getId() == null) { saved.setId(1L); job = saved; }
+            return saved;
+        });
+        when(jobRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(job));
+        // 以 keyset 條件 (id > 檢查點 LIMIT 區塊大小) 從模擬資料取出區塊，經由服務的 RowMapper 轉換
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            long after = invocation.getArgument(2);
+            int limit = invocation.getArgument(3);
+            List<Object> rows = new ArrayList<>();
+            for (Object[] shop : shops) {
+                if ((Long) shop[0] <= after || rows.size() == limit) continue;
+                rows.add(mapper.mapRow(resultSet(shop), rows.size()));
+            }
+            return rows;
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> args = invocation.getArgument(1);
+            batches.add(args);
+            return new int[args.size()];
+        });
+        when(geocodingService.lookup("臺北市大安區忠孝東路四段 1 號")).thenReturn(Optional.of(new LatLng(25.0414, 121.5507)));
+        when(geocodingService.lookup("臺北市中山區南京東路一段 2 號")).thenReturn(Optional.of(new LatLng(25.05, 121.52)));
+        when(geocodingService.lookup("查無此地址")).thenReturn(Optional.empty());
+        when(geocodingService.lookup("外部服務失敗的地址")).thenThrow(new GeocodingException("配額用盡"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void processesAllChunksAndWritesCheckpoints() throws Exception {
+        doAnswer(invocation -> {
+            List<Object[]> args = invocation.getArgument(1);
+            batches.add(args);
+            int[] counts = new int[args.size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        List<ShopMarkerDTO> markers = List.of(new ShopMarkerDTO(1L, "shop-1", 25.0414, 121.5507, BigDecimal.valueOf(4.0), 3, null));
+        when(shopRepository.findMarkersByIds(List.of(1L))).thenReturn(markers);
+
+        RegeocodeJobDTO started = service.startJob(false);
+        assertThat(started.getStatus()).isEqualTo(JobStatus.RUNNING);
+
+        RegeocodeJobDTO finished = awaitFinished();
+        assertThat(finished.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(finished.getProcessedCount()).isEqualTo(5L);
+        assertThat(finished.getUpdatedCount()).isEqualTo(1L); // 店家 2 的座標沒有變化，不寫回
+        assertThat(finished.getNotFoundCount()).isEqualTo(2L); // 查無結果與空地址
+        assertThat(finished.getFailedCount()).isEqualTo(1L);
+        assertThat(finished.getLastShopId()).isEqualTo(5L);
+        assertThat(finished.getLastError()).contains("店家 4");
+        assertThat(finished.getFinishedAt()).isNotNull();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).singleElement().satisfies(row -> {
+            assertThat(row[0]).isEqualTo(new BigDecimal("25.0414000"));
+            assertThat(row[1]).isEqualTo(new BigDecimal("121.5507000"));
+            assertThat(row[2]).isEqualTo(1L);
+            assertThat(row[3]).isEqualTo("臺北市大安區忠孝東路四段 1 號");
+        });
+        verify(synchronizer).markersSaved(markers);
+        verify(geocodingService, never()).lookup("");
+        // 三個區塊各寫一次檢查點，建立與結束各一次
+        verify(jobRepository, times(5)).save(any(RegeocodeJob.class));
+    }
+
+    @Test
+    void addressChangedDuringJobIsNotOverwritten() throws Exception {
+        service.startJob(false);
+
+        RegeocodeJobDTO finished = awaitFinished();
+
+        // batchUpdate 返回 0：地址已被修改，不計入更新也不同步索引
+        assertThat(finished.getUpdatedCount()).isZero();
+        verify(synchronizer, never()).markersSaved(anyList());
+    }
+
+    @Test
+    void cancelReportsCancellingUntilCurrentChunkFinishes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        when(geocodingService.lookup("臺北市大安區忠孝東路四段 1 號")).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new LatLng(25.0414, 121.5507));
+        });
+        service.startJob(false);
+        assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+        RegeocodeJobDTO cancelling = service.cancelJob(1L);
+        assertThat(cancelling.getStatus()).isEqualTo(JobStatus.CANCELLING);
+        assertThat(service.getJob(1L).getStatus()).isEqualTo(JobStatus.CANCELLING);
+        release.countDown();
+
+        RegeocodeJobDTO finished = awaitFinished();
+        assertThat(finished.getStatus()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(finished.getProcessedCount()).isEqualTo(2L);
+        assertThat(finished.getLastShopId()).isEqualTo(2L);
+    }
+
+    @Test
+    void cancelledJobResumesFromCheckpoint() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        when(geocodingService.lookup("臺北市大安區忠孝東路四段 1 號")).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        service.startJob(false);
+        inFlight.await(5, TimeUnit.SECONDS);
+        service.cancelJob(1L);
+        release.countDown();
+        assertThat(awaitFinished().getStatus()).isEqualTo(JobStatus.CANCELLED);
+
+        assertThat(service.resumeJob(1L).getStatus()).isEqualTo(JobStatus.RUNNING);
+
+        RegeocodeJobDTO finished = awaitFinished();
+        assertThat(finished.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(finished.getProcessedCount()).isEqualTo(5L);
+        verify(geocodingService, times(1)).lookup("臺北市大安區忠孝東路四段 1 號");
+    }
+
+    private RegeocodeJobDTO awaitFinished() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            // 工作結束且執行緒已釋放 (可以再啟動/繼續) 才算完成
+            if (job.getStatus() != JobStatus.RUNNING && ((AtomicReference<?>) ReflectionTestUtils.getField(service, "runningJobId")).get() == null) {
+                return service.getJob(1L);
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("工作未在 5 秒內結束: " + job.getStatus());
+    }
+
+    private static ResultSet resultSet(Object[] shop) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn((Long) shop[0]);
+        when(rs.getString("address")).thenReturn((String) shop[1]);
+        when(rs.getBigDecimal("latitude")).thenReturn((BigDecimal) shop[2]);
+        when(rs.getBigDecimal("longitude")).thenReturn((BigDecimal) shop[3]);
+        return rs;
+    }
+}
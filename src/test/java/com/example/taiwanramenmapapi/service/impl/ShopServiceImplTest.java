@@ -0,0 +1,314 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.dto.request.ShopFilterRequest;
+import com.example.taiwanramenmapapi.dto.request.ViewportDiffRequest;
+import com.example.taiwanramenmapapi.dto.response.PageResponse;
+import com.example.taiwanramenmapapi.dto.response.ShopDTO;
+import com.example.taiwanramenmapapi.dto.response.ShopMarkerDTO;
+import com.example.taiwanramenmapapi.dto.response.ViewportDiffDTO;
+import com.example.taiwanramenmapapi.entity.Shop;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
+import com.example.taiwanramenmapapi.exception.ResourceNotFoundException;
+import com.example.taiwanramenmapapi.index.ShopChangeLog;
+import com.example.taiwanramenmapapi.index.ShopClusterIndex;
+import com.example.taiwanramenmapapi.index.ShopIndexSynchronizer;
+import com.example.taiwanramenmapapi.index.ShopLeaderboard;
+import com.example.taiwanramenmapapi.index.ShopSearchIndex;
+import com.example.taiwanramenmapapi.index.ShopSpatialIndex;
+import com.example.taiwanramenmapapi.index.ShopSuggestIndex;
+import com.example.taiwanramenmapapi.index.ViewportTileCache;
+import com.example.taiwanramenmapapi.mapper.ShopMapper;
+import com.example.taiwanramenmapapi.repository.ReviewRepository;
+import com.example.taiwanramenmapapi.repository.ShopRepository;
+import com.example.taiwanramenmapapi.util.GeoUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShopServiceImplTest {
+
+    @Mock private ShopRepository shopRepository;
+    @Mock private ShopMapper shopMapper;
+    @Mock private ReviewRepository reviewRepository;
+    @Mock private ShopIndexSynchronizer shopIndexSynchronizer;
+    @InjectMocks private ShopServiceImpl shopService;
+
+    private final Pageable pageable = PageRequest.of(0, 12);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterPrefiltersBoundsThroughSpatialIndexQuery() {
+        Shop shop = Shop.builder().id(1L).name("麵屋").address("臺北市大安區忠孝東路四段 1 號").build();
+        when(shopRepository.findIdsWithinEnvelope(anyString())).thenReturn(List.of(1L, 2L));
+        when(shopRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(new PageImpl<>(List.of(shop), pageable, 1));
+        when(shopMapper.toShopDTO(shop)).thenReturn(new ShopDTO());
+
+        PageResponse<ShopDTO> result = shopService.filterShops(boundsFilter(), pageable);
+
+        verify(shopRepository).findIdsWithinEnvelope(GeoUtils.envelopeWkt(25.0, 25.1, 121.5, 121.6));
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterWithEmptyBoundsSkipsShopQuery() {
+        when(shopRepository.findIdsWithinEnvelope(anyString())).thenReturn(List.of());
+
+        PageResponse<ShopDTO> result = shopService.filterShops(boundsFilter(), pageable);
+
+        verify(shopRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        assertThat(result.getTotalElements()).isZero();
+        assertThat(result.getContent()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filterWithoutCompleteBoundsDoesNotQuerySpatialIndex() {
+        ShopFilterRequest filter = boundsFilter();
+        filter.setMaxLng(null);
+        when(shopRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+        shopService.filterShops(filter, pageable);
+
+        verify(shopRepository, never()).findIdsWithinEnvelope(anyString());
+    }
+
+    @Test
+    void ratingDeltasMatchFullRecompute() {
+        ReflectionTestUtils.setField(shopService, "minimumReviewsForRanking", 3);
+        ReflectionTestUtils.setField(shopService, "globalAverageRating", new BigDecimal("3.5"));
+        Shop shop = Shop.builder().id(1L).name("麵屋").build();
+        when(shopRepository.findById(1L)).thenReturn(Optional.of(shop));
+        when(shopMapper.toShopDTO(shop)).thenAnswer(inv -> new ShopDTO());
+        // 模擬店家資料列：{ratingSum, ratingCount, rating1Count, ..., rating5Count}
+        long[] row = new long[7];
+        when(shopRepository.applyRatingDelta(eq(1L), anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt())).thenAnswer(inv -> {
+            for (int i = 0; i < row.length; i++) { row[i] += ((Number) inv.getArgument(i + 1)).longValue(); }
+            return 1;
+        });
+        when(shopRepository.findRatingTotals(1L)).thenAnswer(inv -> List.<Object[]>of(
+                new Object[] { row[0], (int) row[1], (int) row[2], (int) row[3], (int) row[4], (int) row[5], (int) row[6] }));
+        long[] recomputed = new long[7];
+        when(shopRepository.updateRatingTotals(eq(1L), anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt())).thenAnswer(inv -> {
+            for (int i = 0; i < recomputed.length; i++) { recomputed[i] = ((Number) inv.getArgument(i + 1)).longValue(); }
+            return 1;
+        });
+        List<Integer> ratings = new ArrayList<>();
+        when(reviewRepository.countTopLevelRatingsByStar(1L)).thenAnswer(inv -> {
+            Map<Integer, Long> byStar = new TreeMap<>();
+            ratings.forEach(r -> byStar.merge(r, 1L, Long::sum));
+            return byStar.entrySet().stream().map(e -> new Object[] { e.getKey(), e.getValue() }).toList();
+        });
+        List<ShopDTO> snapshots = new ArrayList<>();
+        doAnswer(inv -> snapshots.add(inv.getArgument(0))).when(shopIndexSynchronizer).shopSaved(any(ShopDTO.class));
+
+        // 隨機的評論新增、修改評分、刪除，每一步的增量結果都必須與全量重算相同
+        Random random = new Random(21);
+        for (int i = 0; i < 300; i++) {
+            int op = ratings.isEmpty() ? 0 : random.nextInt(3);
+            int newRating = 1 + random.nextInt(5);
+            if (op == 0) {
+                ratings.add(newRating);
+                shopService.applyReviewRatingChange(1L, null, newRating);
+            } else if (op == 1) {
+                int idx = random.nextInt(ratings.size());
+                shopService.applyReviewRatingChange(1L, ratings.set(idx, newRating), newRating);
+            } else {
+                shopService.applyReviewRatingChange(1L, ratings.remove(random.nextInt(ratings.size())), null);
+            }
+            ShopDTO incremental = snapshots.get(snapshots.size() - 1);
+
+            shopService.updateShopRating(1L);
+            ShopDTO full = snapshots.get(snapshots.size() - 1);
+
+            assertThat(row).as("step %d", i).containsExactly(recomputed);
+            assertThat(incremental.getReviewCount()).isEqualTo(full.getReviewCount()).isEqualTo(ratings.size());
+            assertThat(incremental.getAverageRating()).isEqualByComparingTo(full.getAverageRating());
+            assertThat(incremental.getWeightedRating()).isEqualByComparingTo(full.getWeightedRating());
+            Map<Integer, Integer> histogram = new TreeMap<>(Map.of(1, 0, 2, 0, 3, 0, 4, 0, 5, 0));
+            ratings.forEach(r -> histogram.merge(r, 1, Integer::sum));
+            assertThat(incremental.getRatingHistogram()).isEqualTo(full.getRatingHistogram()).isEqualTo(histogram);
+        }
+    }
+
+    @Test
+    void ratingDeltaOnMissingShopThrows() {
+        when(shopRepository.applyRatingDelta(eq(9L), anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(0);
+
+        assertThatThrownBy(() -> shopService.applyReviewRatingChange(9L, null, 4)).isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(shopIndexSynchronizer);
+    }
+
+    @Test
+    void unchangedRatingSkipsUpdate() {
+        shopService.applyReviewRatingChange(1L, 4, 4);
+        shopService.applyReviewRatingChange(1L, null, null);
+
+        verifyNoInteractions(shopRepository, shopIndexSynchronizer);
+    }
+
+    @Test
+    void viewportDiffWithoutTokenReturnsFullReload() {
+        ShopIndexSynchronizer synchronizer = useIndexes(marker(1L, 25.07), marker(2L, 25.30));
+
+        ViewportDiffDTO diff = shopService.getViewportDiff(viewport(null));
+
+        assertThat(diff.isFullReload()).isTrue();
+        assertThat(diff.getDataVersion()).isEqualTo(synchronizer.toVersionToken(synchronizer.getDataVersion()));
+        assertThat(diff.getEntered()).extracting(ShopMarkerDTO::getId).containsExactly(1L);
+        assertThat(diff.getUpdated()).isEmpty();
+        assertThat(diff.getRemovedIds()).isEmpty();
+    }
+
+    @Test
+    void viewportDiffReportsEnteredUpdatedAndRemovedShops() {
+        // 上一次視窗緯度 25.00~25.10，目前視窗 25.05~25.15
+        ShopIndexSynchronizer synchronizer = useIndexes(
+                marker(1L, 25.07),  // 兩個視窗都包含，未變更
+                marker(2L, 25.08),  // 移出目前視窗
+                marker(3L, 25.09),  // 刪除
+                marker(4L, 25.12),  // 只在目前視窗內，未變更
+                marker(6L, 25.06),  // 評分變更
+                marker(7L, 25.02),  // 只在上一次視窗內，未變更
+                marker(8L, 25.01),  // 只在上一次視窗內，刪除
+                marker(9L, 24.50)); // 兩個視窗都不包含，刪除
+        String since = synchronizer.toVersionToken(synchronizer.getDataVersion());
+        when(shopMapper.toShopMarkerDTO(any(ShopDTO.class))).thenAnswer(inv -> {
+            ShopDTO shop = inv.getArgument(0);
+            return new ShopMarkerDTO(shop.getId(), shop.getName(), shop.getLatitude().doubleValue(), shop.getLongitude().doubleValue(),
+                    shop.getWeightedRating(), shop.getReviewCount(), null);
+        });
+
+        synchronizer.shopSaved(shop(2L, 25.30, 3.5));
+        synchronizer.shopSaved(shop(5L, 25.13, 3.5));
+        synchronizer.shopSaved(shop(6L, 25.06, 4.8));
+        synchronizer.shopDeleted(3L);
+        synchronizer.shopDeleted(8L);
+        synchronizer.shopDeleted(9L);
+
+        ViewportDiffDTO diff = shopService.getViewportDiff(viewport(since));
+
+        assertThat(diff.isFullReload()).isFalse();
+        assertThat(diff.getDataVersion()).isEqualTo(synchronizer.toVersionToken(synchronizer.getDataVersion()));
+        assertThat(diff.getEntered()).extracting(ShopMarkerDTO::getId).containsExactly(4L);
+        assertThat(diff.getUpdated()).extracting(ShopMarkerDTO::getId).containsExactlyInAnyOrder(5L, 6L);
+        assertThat(diff.getUpdated()).filteredOn(s -> s.getId() == 6L).singleElement()
+                .satisfies(s -> assertThat(s.getWeightedRating()).isEqualByComparingTo("4.8"));
+        assertThat(diff.getRemovedIds()).containsExactly(2L, 3L, 8L);
+    }
+
+    @Test
+    void viewportDiffWithStaleTokenReturnsFullReload() {
+        ShopIndexSynchronizer synchronizer = useIndexes(marker(1L, 25.07));
+        String beforeRebuild = synchronizer.toVersionToken(synchronizer.getDataVersion());
+        // 其他啟動 (epoch 不同) 發出的令牌
+        String foreign = new ShopIndexSynchronizer().toVersionToken(synchronizer.getDataVersion());
+
+        assertThat(shopService.getViewportDiff(viewport(foreign)).isFullReload()).isTrue();
+        assertThat(shopService.getViewportDiff(viewport(synchronizer.toVersionToken(synchronizer.getDataVersion() + 5))).isFullReload()).isTrue();
+
+        // 索引重建後，重建前的版本已不在變更記錄中
+        synchronizer.rebuild(List.of(marker(1L, 25.07), marker(4L, 25.12)), List.of(), List.of());
+        ViewportDiffDTO diff = shopService.getViewportDiff(viewport(beforeRebuild));
+        assertThat(diff.isFullReload()).isTrue();
+        assertThat(diff.getEntered()).extracting(ShopMarkerDTO::getId).containsExactlyInAnyOrder(1L, 4L);
+    }
+
+    @Test
+    void viewportDiffRejectsInvertedBounds() {
+        useIndexes(marker(1L, 25.07));
+        ViewportDiffRequest request = viewport(null);
+        request.setMinLat(new BigDecimal("25.20"));
+
+        assertThatThrownBy(() -> shopService.getViewportDiff(request)).isInstanceOf(BadRequestException.class);
+    }
+
+    /** 以真實的空間索引、變更記錄與同步器取代服務中的索引，其餘索引使用 mock */
+    private ShopIndexSynchronizer useIndexes(ShopMarkerDTO... shops) {
+        ShopSpatialIndex spatialIndex = new ShopSpatialIndex(0.01);
+        ShopChangeLog changeLog = new ShopChangeLog(100);
+        ShopIndexSynchronizer synchronizer = new ShopIndexSynchronizer();
+        ReflectionTestUtils.setField(synchronizer, "shopSpatialIndex", spatialIndex);
+        ReflectionTestUtils.setField(synchronizer, "shopChangeLog", changeLog);
+        ReflectionTestUtils.setField(synchronizer, "shopClusterIndex", mock(ShopClusterIndex.class));
+        ReflectionTestUtils.setField(synchronizer, "viewportTileCache", mock(ViewportTileCache.class));
+        ReflectionTestUtils.setField(synchronizer, "shopSearchIndex", mock(ShopSearchIndex.class));
+        ReflectionTestUtils.setField(synchronizer, "shopSuggestIndex", mock(ShopSuggestIndex.class));
+        ReflectionTestUtils.setField(synchronizer, "shopLeaderboard", mock(ShopLeaderboard.class));
+        ReflectionTestUtils.setField(synchronizer, "shopMapper", shopMapper);
+        synchronizer.rebuild(List.of(shops), List.of(), List.of());
+        ReflectionTestUtils.setField(shopService, "shopSpatialIndex", spatialIndex);
+        ReflectionTestUtils.setField(shopService, "shopChangeLog", changeLog);
+        ReflectionTestUtils.setField(shopService, "shopIndexSynchronizer", synchronizer);
+        return synchronizer;
+    }
+
+    private static ShopMarkerDTO marker(Long id, double lat) {
+        return new ShopMarkerDTO(id, "shop-" + id, lat, 121.55, BigDecimal.valueOf(3.5), 10, null);
+    }
+
+    private static ShopDTO shop(Long id, double lat, double rating) {
+        ShopDTO shop = new ShopDTO();
+        shop.setId(id);
+        shop.setName("shop-" + id);
+        shop.setLatitude(BigDecimal.valueOf(lat));
+        shop.setLongitude(new BigDecimal("121.55"));
+        shop.setWeightedRating(BigDecimal.valueOf(rating));
+        shop.setReviewCount(10);
+        return shop;
+    }
+
+    private static ViewportDiffRequest viewport(String since) {
+        ViewportDiffRequest request = new ViewportDiffRequest();
+        request.setMinLat(new BigDecimal("25.05"));
+        request.setMaxLat(new BigDecimal("25.15"));
+        request.setMinLng(new BigDecimal("121.5"));
+        request.setMaxLng(new BigDecimal("121.6"));
+        request.setPrevMinLat(new BigDecimal("25.00"));
+        request.setPrevMaxLat(new BigDecimal("25.10"));
+        request.setPrevMinLng(new BigDecimal("121.5"));
+        request.setPrevMaxLng(new BigDecimal("121.6"));
+        request.setSince(since);
+        return request;
+    }
+
+    private static ShopFilterRequest boundsFilter() {
+        ShopFilterRequest filter = new ShopFilterRequest();
+        filter.setMinLat(new BigDecimal("25.0"));
+        filter.setMaxLat(new BigDecimal("25.1"));
+        filter.setMinLng(new BigDecimal("121.5"));
+        filter.setMaxLng(new BigDecimal("121.6"));
+        return filter;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.taiwanramenmapapi.service.impl;
+
+import com.example.taiwanramenmapapi.entity.Review;
+import com.example.taiwanramenmapapi.entity.Shop;
+import com.example.taiwanramenmapapi.entity.User;
+import com.example.taiwanramenmapapi.entity.enums.Role;
+import com.example.taiwanramenmapapi.index.ShopIndexSynchronizer;
+import com.example.taiwanramenmapapi.repository.ReviewMediaRepository;
+import com.example.taiwanramenmapapi.repository.ReviewRepository;
+import com.example.taiwanramenmapapi.repository.ShopMediaRepository;
+import com.example.taiwanramenmapapi.repository.ShopRepository;
+import com.example.taiwanramenmapapi.repository.UserRepository;
+import com.example.taiwanramenmapapi.task.ShopRatingFlusher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImplTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private ShopRepository shopRepository;
+    @Mock private ReviewRepository reviewRepository;
+    @Mock private ShopMediaRepository shopMediaRepository;
+    @Mock private ReviewMediaRepository reviewMediaRepository;
+    @Mock private ShopIndexSynchronizer shopIndexSynchronizer;
+    @Mock private ShopRatingFlusher shopRatingFlusher;
+    @InjectMocks private UserServiceImpl userService;
+
+    private final User admin = User.builder().id(1L).username("admin").role(Role.ROLE_ADMIN).build();
+    private final User other = User.builder().id(2L).username("other").role(Role.ROLE_USER).build();
+    private final Shop otherShop = Shop.builder().id(10L).name("別人的店").address("臺北市").owner(other).build();
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, List.of(new SimpleGrantedAuthority(Role.ROLE_ADMIN.name()))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deletingUserDecrementsReplyCountsOfSurvivingParents() {
+        User target = User.builder().id(3L).username("target").role(Role.ROLE_USER).build();
+        Review ownReview = review(30L, target, otherShop, 4, null);
+        Review parentA = review(20L, other, otherShop, 5, null);
+        Review parentB = review(21L, other, otherShop, 3, null);
+        List<Review> written = List.of(
+                ownReview,
+                review(31L, target, otherShop, null, parentA),
+                review(32L, target, otherShop, null, parentB),
+                review(33L, target, otherShop, null, parentB),
+                review(34L, target, otherShop, null, ownReview)); // 回覆自己的評論：父評論一併刪除
+        givenUser(target, written);
+
+        userService.deleteUser(3L);
+
+        InOrder order = inOrder(reviewRepository, userRepository);
+        order.verify(reviewRepository).decrementReplyCount(20L);
+        order.verify(reviewRepository, times(2)).decrementReplyCount(21L);
+        order.verify(userRepository).delete(target);
+        verify(reviewRepository, never()).decrementReplyCount(30L);
+        verify(shopRatingFlusher).ratingChanged(10L, 4, null);
+        verify(shopRatingFlusher, times(1)).ratingChanged(anyLong(), any(), any()); // 回覆沒有評分
+    }
+
+    @Test
+    void repliesInsideDeletedOwnersShopsAreNotDecremented() {
+        User owner = User.builder().id(4L).username("owner").role(Role.ROLE_SHOP_OWNER).build();
+        Shop ownedShop = Shop.builder().id(40L).name("自己的店").address("臺北市").owner(owner).build();
+        Review guestReview = review(41L, other, ownedShop, 5, null);
+        List<Review> written = List.of(
+                review(42L, owner, ownedShop, null, guestReview), // 店家回覆自己店裡的評論：整家店一併刪除
+                review(43L, owner, otherShop, 2, null));
+        givenUser(owner, written);
+        when(shopRepository.findByOwnerIdOrderByIdAsc(4L)).thenReturn(List.of(ownedShop));
+        when(reviewRepository.findByShopId(40L)).thenReturn(List.of(guestReview));
+
+        userService.deleteUser(4L);
+
+        verify(reviewRepository, never()).decrementReplyCount(anyLong());
+        verify(shopIndexSynchronizer).shopDeleted(40L);
+        verify(shopRatingFlusher).ratingChanged(10L, 2, null);
+        verify(shopRatingFlusher, never()).ratingChanged(eq(40L), any(), any());
+        verify(userRepository).delete(owner);
+    }
+
+    private void givenUser(User user, List<Review> written) {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(reviewRepository.findByUserId(user.getId(), Pageable.unpaged())).thenReturn(new PageImpl<>(written));
+    }
+
+    private static Review review(Long id, User author, Shop shop, Integer rating, Review parent) {
+        return Review.builder().id(id).user(author).shop(shop).rating(rating).content("內容").parentReview(parent).build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.taiwanramenmapapi.task;
+
+import com.example.taiwanramenmapapi.repository.ReviewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplyCountReconcilerTest {
+
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ReplyCountReconciler reconciler = new ReplyCountReconciler();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(reconciler, "reviewRepository", reviewRepository);
+        ReflectionTestUtils.setField(reconciler, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(reconciler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reconciler, "chunkSize", 100);
+        reconciler.init();
+    }
+
+    @Test
+    void locksEachChunkBeforeReconcilingItInOwnTransaction() {
+        when(reviewRepository.findMaxId()).thenReturn(250L);
+        when(reviewRepository.lockTopLevelReviews(anyLong(), anyLong())).thenReturn(List.of(1L));
+        when(reviewRepository.reconcileReplyCounts(1L, 100L)).thenReturn(2);
+        when(reviewRepository.reconcileReplyCounts(201L, 250L)).thenReturn(1);
+
+        assertThat(reconciler.reconcile()).isEqualTo(3);
+
+        InOrder order = inOrder(reviewRepository, transactionManager);
+        for (long[] chunk : new long[][] { {1, 100}, {101, 200}, {201, 250} }) {
+            order.verify(transactionManager).getTransaction(any());
+            order.verify(reviewRepository).lockTopLevelReviews(chunk[0], chunk[1]);
+            order.verify(reviewRepository).reconcileReplyCounts(chunk[0], chunk[1]);
+            order.verify(transactionManager).commit(any());
+        }
+    }
+
+    @Test
+    void chunkWithoutTopLevelReviewsIsSkipped() {
+        when(reviewRepository.findMaxId()).thenReturn(50L);
+        when(reviewRepository.lockTopLevelReviews(1L, 50L)).thenReturn(List.of());
+
+        assertThat(reconciler.reconcile()).isZero();
+
+        verify(reviewRepository, never()).reconcileReplyCounts(anyLong(), anyLong());
+    }
+
+    @Test
+    void emptyTableDoesNothing() {
+        when(reviewRepository.findMaxId()).thenReturn(null);
+
+        assertThat(reconciler.reconcile()).isZero();
+
+        verify(reviewRepository, never()).lockTopLevelReviews(anyLong(), anyLong());
+    }
+}
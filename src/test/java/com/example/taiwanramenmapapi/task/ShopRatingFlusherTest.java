@@ -0,0 +1,100 @@
+package com.example.taiwanramenmapapi.task;
+
+import com.example.taiwanramenmapapi.exception.ResourceNotFoundException;
+import com.example.taiwanramenmapapi.service.ShopService;
+import com.example.taiwanramenmapapi.util.RatingDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ShopRatingFlusherTest {
+
+    private final ShopService shopService = mock(ShopService.class);
+    private final ShopRatingFlusher flusher = new ShopRatingFlusher();
+
+    @BeforeEach
+    void setUp() {
+        // 不呼叫 init()，不啟動排程執行緒；測試中手動 flush
+        ReflectionTestUtils.setField(flusher, "shopService", shopService);
+        ReflectionTestUtils.setField(flusher, "enabled", true);
+    }
+
+    @Test
+    void coalescesChangesIntoOneDeltaPerShop() {
+        flusher.ratingChanged(1L, null, 5);
+        flusher.ratingChanged(1L, null, 3);
+        flusher.ratingChanged(1L, 5, 4);
+        flusher.ratingChanged(2L, 2, null);
+        assertThat(flusher.getQueueDepth()).isEqualTo(2);
+
+        flush();
+
+        verify(shopService).applyRatingDelta(1L, new RatingDelta(7, 2, 0, 0, 1, 1, 0));
+        verify(shopService).applyRatingDelta(2L, new RatingDelta(-2, -1, 0, -1, 0, 0, 0));
+        verify(shopService, never()).updateShopRating(anyLong());
+        assertThat(flusher.getQueueDepth()).isZero();
+        assertThat(flusher.getCoalescingRatio()).isEqualTo(2.0);
+    }
+
+    @Test
+    void netZeroDeltaIsNotWritten() {
+        flusher.ratingChanged(1L, null, 4);
+        flusher.ratingChanged(1L, 4, null);
+
+        flush();
+
+        verifyNoInteractions(shopService);
+        assertThat(flusher.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void failedWriteIsRequeuedAndMergedWithNewChanges() {
+        doThrow(new IllegalStateException("lock wait timeout"))
+                .when(shopService).applyRatingDelta(1L, new RatingDelta(5, 1, 0, 0, 0, 0, 1));
+        flusher.ratingChanged(1L, null, 5);
+        flush();
+        assertThat(flusher.getQueueDepth()).isEqualTo(1);
+
+        flusher.ratingChanged(1L, null, 1);
+        flush();
+
+        verify(shopService).applyRatingDelta(1L, new RatingDelta(6, 2, 1, 0, 0, 0, 1));
+        assertThat(flusher.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void deltaForDeletedShopIsDropped() {
+        doThrow(new ResourceNotFoundException("Shop", "id", 1L)).when(shopService).applyRatingDelta(any(), any());
+        flusher.ratingChanged(1L, null, 3);
+
+        flush();
+        flush();
+
+        verify(shopService, times(1)).applyRatingDelta(any(), any());
+        assertThat(flusher.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void disabledAppliesChangeImmediately() {
+        ReflectionTestUtils.setField(flusher, "enabled", false);
+
+        flusher.ratingChanged(1L, 2, 5);
+
+        verify(shopService).applyReviewRatingChange(1L, 2, 5);
+        assertThat(flusher.getQueueDepth()).isZero();
+    }
+
+    private void flush() {
+        ReflectionTestUtils.invokeMethod(flusher, "flush");
+    }
+}
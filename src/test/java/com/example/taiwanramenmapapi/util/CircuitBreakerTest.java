@@ -0,0 +1,114 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 斷路器狀態轉換：CLOSED -> OPEN -> HALF_OPEN -> CLOSED / OPEN。
+ * openDuration 為 0 時下一次 tryAcquire 立即進入 HALF_OPEN，為 1 小時時保持 OPEN，測試不需要等待。
+ */
+class CircuitBreakerTest {
+
+    private static final long HOUR_MS = 3_600_000;
+
+    @Test
+    void staysClosedUntilMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 0.5, HOUR_MS, 1);
+        for (int i = 0; i < 4; i++) { call(breaker, false); }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 0.5, HOUR_MS, 1);
+        call(breaker, true); call(breaker, true); call(breaker, true);
+        call(breaker, false); call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED); // 2/5 = 40%
+        call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN); // 3/6 = 50%
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void slidingWindowForgetsOldCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, HOUR_MS, 1);
+        call(breaker, false); call(breaker, false); call(breaker, true); call(breaker, true); // 失敗 2/4
+        call(breaker, true); call(breaker, true);   // 擠掉兩次失敗: 0/4
+        call(breaker, false); call(breaker, false); // 2/4
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(breaker, false); // 視窗內 3/4 (累計只有 5/9，低於門檻)
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenClosesAfterAllProbesSucceed() {
+        CircuitBreaker breaker = openedBreaker(2);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse(); // 試探名額已用完
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // 回到 CLOSED 後統計重新計算：一次失敗不足以再次開啟
+        call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenReopensOnAnyFailure() {
+        CircuitBreaker breaker = openedBreaker(3);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void ignoredCallReturnsHalfOpenPermit() {
+        CircuitBreaker breaker = openedBreaker(1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onIgnored();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void ignoredCallsAreNotCountedWhenClosed() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, HOUR_MS, 1);
+        for (int i = 0; i < 5; i++) { assertThat(breaker.tryAcquire()).isTrue(); breaker.onIgnored(); }
+        call(breaker, true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> new CircuitBreaker(0, 1, 0.5, 1000, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CircuitBreaker(10, 0, 0.5, 1000, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CircuitBreaker(10, 5, 0.5, 1000, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** 開啟後立即可進入 HALF_OPEN 的斷路器 */
+    private static CircuitBreaker openedBreaker(int halfOpenPermits) {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 0, halfOpenPermits);
+        call(breaker, false); call(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    /** 取得許可並回報結果 (success 為 false 表示失敗) */
+    private static void call(CircuitBreaker breaker, boolean success) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (success) breaker.onSuccess(); else breaker.onFailure();
+    }
+}
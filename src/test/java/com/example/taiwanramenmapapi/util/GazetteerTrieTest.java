@@ -0,0 +1,72 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GazetteerTrieTest {
+
+    private static final GazetteerTrie.Range WHOLE_ROAD = range(1, 99, GazetteerTrie.Parity.ALL);
+    private static final GazetteerTrie.Range SECTION_ODD = range(1, 199, GazetteerTrie.Parity.ODD);
+    private static final GazetteerTrie.Range SECTION_EVEN_HIGH = range(200, 400, GazetteerTrie.Parity.EVEN);
+    private static final GazetteerTrie.Range SECTION_EVEN_LOW = range(2, 198, GazetteerTrie.Parity.EVEN);
+
+    private final GazetteerTrie trie = new GazetteerTrie.Builder()
+            .add("臺北市大安區忠孝東路", WHOLE_ROAD)
+            .add("臺北市大安區忠孝東路四段", SECTION_ODD)
+            .add("臺北市大安區忠孝東路四段", SECTION_EVEN_HIGH)
+            .add("臺北市大安區忠孝東路四段", SECTION_EVEN_LOW)
+            .add("臺北市信義區松壽路", WHOLE_ROAD)
+            .build();
+
+    @Test
+    void countsRoadsAndRanges() {
+        assertThat(trie.roadCount()).isEqualTo(3);
+        assertThat(trie.rangeCount()).isEqualTo(5);
+    }
+
+    @Test
+    void longestPrefixPrefersTheLongestRoad() {
+        GazetteerTrie.Match section = trie.longestPrefix("臺北市大安區忠孝東路四段181巷40號");
+        assertThat(section.matchedLength()).isEqualTo("臺北市大安區忠孝東路四段".length());
+        // 區間依起號排序
+        assertThat(section.ranges()).containsExactly(SECTION_ODD, SECTION_EVEN_LOW, SECTION_EVEN_HIGH);
+
+        GazetteerTrie.Match road = trie.longestPrefix("臺北市大安區忠孝東路五段1號");
+        assertThat(road.matchedLength()).isEqualTo("臺北市大安區忠孝東路".length());
+        assertThat(road.ranges()).containsExactly(WHOLE_ROAD);
+    }
+
+    @Test
+    void longestPrefixReturnsNullWithoutKnownRoad() {
+        assertThat(trie.longestPrefix("臺北市大安區復興南路一段1號")).isNull();
+        assertThat(trie.longestPrefix("臺北市大安區")).isNull();
+        assertThat(trie.longestPrefix("")).isNull();
+    }
+
+    @Test
+    void findHonoursRangeBoundsAndParity() {
+        GazetteerTrie.Match section = trie.longestPrefix("臺北市大安區忠孝東路四段");
+        assertThat(section.find(181)).isEqualTo(SECTION_ODD);
+        assertThat(section.find(198)).isEqualTo(SECTION_EVEN_LOW);
+        assertThat(section.find(200)).isEqualTo(SECTION_EVEN_HIGH);
+        assertThat(section.find(201)).isNull(); // 奇數只到 199
+        assertThat(section.find(402)).isNull();
+    }
+
+    @Test
+    void interpolatesLinearlyBetweenEndpoints() {
+        GazetteerTrie.Range range = new GazetteerTrie.Range(1, 101, GazetteerTrie.Parity.ALL, 25.0, 121.0, 25.1, 121.2);
+        assertThat(range.interpolate(1)).containsExactly(25.0, 121.0);
+        assertThat(range.interpolate(101)).containsExactly(new double[] { 25.1, 121.2 }, within(1e-12));
+        assertThat(range.interpolate(51)).containsExactly(new double[] { 25.05, 121.1 }, within(1e-12));
+        // 只有一個門牌號時取中點
+        GazetteerTrie.Range single = new GazetteerTrie.Range(5, 5, GazetteerTrie.Parity.ALL, 25.0, 121.0, 25.2, 121.4);
+        assertThat(single.interpolate(5)).containsExactly(new double[] { 25.1, 121.2 }, within(1e-12));
+    }
+
+    private static GazetteerTrie.Range range(int from, int to, GazetteerTrie.Parity parity) {
+        return new GazetteerTrie.Range(from, to, parity, 25.0, 121.0, 25.1, 121.1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.taiwanramenmapapi.util;
+
+import com.example.taiwanramenmapapi.entity.Shop;
+import com.example.taiwanramenmapapi.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        KeysetCursor cursor = new KeysetCursor("name", Sort.Direction.DESC, "麵屋|一燈", 123L);
+        String token = cursor.encode();
+        assertThat(token).doesNotContain("=", "+", "/");
+        // 值放在最後，其中的分隔符不影響解碼
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void afterReadsSortValueAndIdFromEntity() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        Shop shop = Shop.builder().id(7L).name("一蘭").weightedRating(new BigDecimal("4.50")).createdAt(createdAt).build();
+
+        KeysetCursor byRating = KeysetCursor.after(shop, "weightedRating", Sort.Direction.DESC);
+        assertThat(byRating).isEqualTo(new KeysetCursor("weightedRating", Sort.Direction.DESC, "4.50", 7L));
+        assertThat(KeysetCursor.decode(byRating.encode()).<BigDecimal>typedValue(BigDecimal.class)).isEqualByComparingTo("4.5");
+
+        KeysetCursor byCreatedAt = KeysetCursor.after(shop, "createdAt", Sort.Direction.ASC);
+        assertThat(KeysetCursor.decode(byCreatedAt.encode()).<LocalDateTime>typedValue(LocalDateTime.class)).isEqualTo(createdAt);
+    }
+
+    @Test
+    void afterRejectsNullSortValue() {
+        Shop shop = Shop.builder().id(7L).name("一蘭").build();
+        assertThatThrownBy(() -> KeysetCursor.after(shop, "phone", Sort.Direction.ASC)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void typedValueConvertsSupportedTypes() {
+        assertThat(cursorWithValue("42").<Integer>typedValue(Integer.class)).isEqualTo(42);
+        assertThat(cursorWithValue("42").<Long>typedValue(long.class)).isEqualTo(42L);
+        assertThat(cursorWithValue("abc").<String>typedValue(String.class)).isEqualTo("abc");
+        assertThatThrownBy(() -> cursorWithValue("x").typedValue(Integer.class)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> cursorWithValue("1").typedValue(Double.class)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void decodeRejectsMalformedTokens() {
+        assertThatThrownBy(() -> KeysetCursor.decode("不是base64")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(raw("name|ASC|1"))).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(raw("name|SIDEWAYS|1|x"))).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(raw("name|ASC|abc|x"))).isInstanceOf(BadRequestException.class);
+    }
+
+    private static KeysetCursor cursorWithValue(String value) {
+        return new KeysetCursor("reviewCount", Sort.Direction.ASC, value, 1L);
+    }
+
+    private static String raw(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    @Test
+    void firstPermitIsImmediate() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1);
+        long start = System.nanoTime();
+        assertThat(limiter.tryAcquire(0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+    }
+
+    @Test
+    void tryAcquireRejectsWithoutConsumingWhenWaitExceedsTimeout() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(20); // 每 50 ms 一個許可
+        assertThat(limiter.tryAcquire(0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(limiter.tryAcquire(0, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(limiter.tryAcquire(0, TimeUnit.MILLISECONDS)).isFalse();
+
+        // 被拒絕的呼叫沒有佔用許可：下一個許可仍在約 50 ms 後
+        long start = System.nanoTime();
+        assertThat(limiter.tryAcquire(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+    }
+
+    @Test
+    void permitsAreSpacedByInterval() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(20);
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) { limiter.acquire(); }
+        // 第 1 個立即取得，其後每個間隔 50 ms
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(140);
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThatThrownBy(() -> new RateLimiter(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
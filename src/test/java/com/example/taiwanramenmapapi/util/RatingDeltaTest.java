@@ -0,0 +1,29 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RatingDeltaTest {
+
+    @Test
+    void ofCoversCreateChangeAndDelete() {
+        assertThat(RatingDelta.of(null, 4)).isEqualTo(new RatingDelta(4, 1, 0, 0, 0, 1, 0));
+        assertThat(RatingDelta.of(5, 2)).isEqualTo(new RatingDelta(-3, 0, 0, 1, 0, 0, -1));
+        assertThat(RatingDelta.of(3, null)).isEqualTo(new RatingDelta(-3, -1, 0, 0, -1, 0, 0));
+        assertThat(RatingDelta.of(null, null).isZero()).isTrue();
+        assertThat(RatingDelta.of(4, 4).isZero()).isTrue();
+    }
+
+    @Test
+    void deltasOfOneReviewCancelOut() {
+        RatingDelta total = RatingDelta.ZERO
+                .plus(RatingDelta.of(null, 5))
+                .plus(RatingDelta.of(5, 1))
+                .plus(RatingDelta.of(1, null));
+        assertThat(total.isZero()).isTrue();
+
+        RatingDelta two = RatingDelta.of(null, 5).plus(RatingDelta.of(null, 3)).plus(RatingDelta.of(2, null));
+        assertThat(two).isEqualTo(new RatingDelta(6, 1, 0, -1, 1, 0, 1));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 4;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sequentialCallsEachLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(singleFlight.execute("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(singleFlight.execute("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        assertThat(singleFlight.getLeaderCalls()).isEqualTo(2);
+        assertThat(singleFlight.getSharedCalls()).isZero();
+        assertThat(singleFlight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<String>> results = runConcurrently(release -> () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "拉麵";
+        });
+        for (Future<String> result : results) { assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("拉麵"); }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(singleFlight.getLeaderCalls()).isEqualTo(1);
+        assertThat(singleFlight.getSharedCalls()).isEqualTo(FOLLOWERS);
+        assertThat(singleFlight.getDedupRatio()).isEqualTo((double) FOLLOWERS / (FOLLOWERS + 1));
+        assertThat(singleFlight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void loaderExceptionPropagatesToAllCallersUnwrapped() throws Exception {
+        IllegalStateException failure = new IllegalStateException("geocoding down");
+        List<Future<String>> results = runConcurrently(release -> () -> {
+            await(release);
+            throw failure;
+        });
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+        // 失敗後不保留進行中的記錄，下一次呼叫重新載入
+        assertThat(singleFlight.getInFlightCount()).isZero();
+        assertThat(singleFlight.execute("k", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void loaderErrorReachesFollowersAsCause() throws Exception {
+        AssertionError failure = new AssertionError("boom");
+        List<Future<String>> results = runConcurrently(release -> () -> {
+            await(release);
+            throw failure;
+        });
+        assertThatThrownBy(() -> results.get(0).get(5, TimeUnit.SECONDS)).cause().isSameAs(failure);
+        for (Future<String> follower : results.subList(1, results.size())) {
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .cause().isInstanceOf(CompletionException.class)
+                    .cause().isSameAs(failure);
+        }
+        assertThat(singleFlight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        assertThat(singleFlight.execute("a", () -> "A")).isEqualTo("A");
+        assertThat(singleFlight.execute("b", () -> "B")).isEqualTo("B");
+        assertThat(singleFlight.getSharedCalls()).isZero();
+    }
+
+    /**
+     * 先讓領頭者進入載入，等其他呼叫者都加入共用後才放行載入邏輯。
+     * @return 領頭者的結果在第一個，之後為共用者
+     */
+    private List<Future<String>> runConcurrently(Function<CountDownLatch, Supplier<String>> loaderFactory) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+        Supplier<String> loader = loaderFactory.apply(release);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute("k", () -> { started.countDown(); return loader.get(); })));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("k", () -> { throw new AssertionError("共用者不應執行載入"); })));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getSharedCalls() < FOLLOWERS && System.nanoTime() < deadline) { Thread.sleep(1); }
+        assertThat(singleFlight.getSharedCalls()).isEqualTo(FOLLOWERS);
+        release.countDown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("等待逾時");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
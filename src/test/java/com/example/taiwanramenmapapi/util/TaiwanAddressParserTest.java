@@ -0,0 +1,76 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaiwanAddressParserTest {
+
+    @Test
+    void parsesPostalCodeCountyDistrictAndRemainder() {
+        assertThat(TaiwanAddressParser.parse("106台北市大安區忠孝東路四段1號"))
+                .isEqualTo(new TaiwanAddressParser.ParsedAddress("106", "臺北市", "大安區", "忠孝東路四段1號"));
+        assertThat(TaiwanAddressParser.parse("10693 臺北市 大安區 忠孝東路４段 １號"))
+                .isEqualTo(new TaiwanAddressParser.ParsedAddress("10693", "臺北市", "大安區", "忠孝東路4段1號"));
+    }
+
+    @Test
+    void stripsCountryPrefixesWithPostalCodeOnEitherSide() {
+        assertThat(TaiwanAddressParser.parse("臺灣110台北市信義區松壽路9號"))
+                .isEqualTo(new TaiwanAddressParser.ParsedAddress("110", "臺北市", "信義區", "松壽路9號"));
+        assertThat(TaiwanAddressParser.parse("中華民國臺灣省新竹縣竹北市光明六路10號"))
+                .isEqualTo(new TaiwanAddressParser.ParsedAddress(null, "新竹縣", "竹北市", "光明六路10號"));
+    }
+
+    @Test
+    void parsesTownshipsOfCounties() {
+        TaiwanAddressParser.ParsedAddress parsed = TaiwanAddressParser.parse("宜蘭縣礁溪鄉中山路二段1號");
+        assertThat(parsed.county()).isEqualTo("宜蘭縣");
+        assertThat(parsed.district()).isEqualTo("礁溪鄉");
+        assertThat(parsed.remainder()).isEqualTo("中山路二段1號");
+    }
+
+    @Test
+    void mapsLegacyCountiesAndTheirTownshipsToCurrentNames() {
+        assertThat(TaiwanAddressParser.parse("臺北縣板橋市文化路一段1號"))
+                .isEqualTo(new TaiwanAddressParser.ParsedAddress(null, "新北市", "板橋區", "文化路一段1號"));
+        assertThat(TaiwanAddressParser.parse("桃園縣中壢區中大路300號").district()).isEqualTo("中壢區");
+    }
+
+    @Test
+    void leavesUnrecognisedAddressesInRemainder() {
+        assertThat(TaiwanAddressParser.parse("東京都新宿区1-1"))
+                .isEqualTo(new TaiwanAddressParser.ParsedAddress(null, null, null, "東京都新宿区1-1"));
+        assertThat(TaiwanAddressParser.parse("  ")).isEqualTo(new TaiwanAddressParser.ParsedAddress(null, null, null, null));
+        assertThat(TaiwanAddressParser.parse(null).county()).isNull();
+    }
+
+    @Test
+    void normalizesCountyNames() {
+        assertThat(TaiwanAddressParser.normalizeCounty("台北")).isEqualTo("臺北市");
+        assertThat(TaiwanAddressParser.normalizeCounty(" 台中市 ")).isEqualTo("臺中市");
+        assertThat(TaiwanAddressParser.normalizeCounty("屏東")).isEqualTo("屏東縣");
+        assertThat(TaiwanAddressParser.normalizeCounty("桃園縣")).isEqualTo("桃園市");
+        assertThat(TaiwanAddressParser.normalizeCounty("大安區")).isNull();
+        assertThat(TaiwanAddressParser.normalizeCounty("")).isNull();
+    }
+
+    @Test
+    void recognisesDistrictNames() {
+        assertThat(TaiwanAddressParser.isDistrictName("大安區")).isTrue();
+        assertThat(TaiwanAddressParser.isDistrictName("竹北市")).isTrue();
+        assertThat(TaiwanAddressParser.isDistrictName("礁溪鄉")).isTrue();
+        assertThat(TaiwanAddressParser.isDistrictName("區")).isFalse();
+        assertThat(TaiwanAddressParser.isDistrictName("拉麵")).isFalse();
+        assertThat(TaiwanAddressParser.isDistrictName(null)).isFalse();
+    }
+
+    @Test
+    void canonicalizeIgnoresPostalCodeCountryWidthAndCase() {
+        String canonical = TaiwanAddressParser.canonicalize("臺北市大安區忠孝東路四段1號B1");
+        assertThat(TaiwanAddressParser.canonicalize("106 台北市 大安區 忠孝東路四段１號ｂ１")).isEqualTo(canonical);
+        assertThat(TaiwanAddressParser.canonicalize("臺灣106臺北市大安區忠孝東路四段1號b1")).isEqualTo(canonical);
+        assertThat(canonical).isEqualTo("臺北市大安區忠孝東路四段1號B1");
+        assertThat(TaiwanAddressParser.canonicalize(" ")).isNull();
+    }
+}
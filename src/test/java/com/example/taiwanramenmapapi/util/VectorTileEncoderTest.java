@@ -0,0 +1,193 @@
+package com.example.taiwanramenmapapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * VectorTileEncoder 的輸出以測試內的最小 protobuf 讀取器解碼，逐欄位比對 MVT 2.1 結構。
+ */
+class VectorTileEncoderTest {
+
+    @Test
+    void encodesLayerHeaderAndPointFeatures() {
+        VectorTileEncoder encoder = new VectorTileEncoder("shops", VectorTileEncoder.DEFAULT_EXTENT);
+        encoder.addPointFeature(42, 100, 200, props("name", "一蘭拉麵", "rating", 4.5, "reviews", 12));
+        encoder.addPointFeature(43, -5, 4100, props("name", "鷹流", "rating", 4.5, "reviews", 12L, "open", true));
+        assertThat(encoder.size()).isEqualTo(2);
+
+        Layer layer = decode(encoder.encode());
+        assertThat(layer.version).isEqualTo(2);
+        assertThat(layer.name).isEqualTo("shops");
+        assertThat(layer.extent).isEqualTo(4096);
+        assertThat(layer.keys).containsExactly("name", "rating", "reviews", "open");
+        // Integer 與 Long、相同的 double 值共用同一個 value
+        assertThat(layer.values).containsExactly("一蘭拉麵", 4.5, 12L, "鷹流", true);
+
+        Feature first = layer.features.get(0);
+        assertThat(first.id).isEqualTo(42);
+        assertThat(first.type).isEqualTo(1);
+        assertThat(first.geometry).containsExactly(9L, 200L, 400L); // MoveTo(1), zigzag(100), zigzag(200)
+        assertThat(layer.properties(first)).containsExactlyInAnyOrderEntriesOf(Map.of("name", "一蘭拉麵", "rating", 4.5, "reviews", 12L));
+
+        Feature second = layer.features.get(1);
+        assertThat(second.id).isEqualTo(43);
+        assertThat(second.geometry).containsExactly(9L, 9L, 8200L); // zigzag(-5) = 9，超出 extent 的座標照常編碼 (buffer 區)
+        assertThat(layer.properties(second)).containsExactlyInAnyOrderEntriesOf(Map.of("name", "鷹流", "rating", 4.5, "reviews", 12L, "open", true));
+    }
+
+    @Test
+    void skipsNullPropertiesAndEncodesEmptyLayer() {
+        VectorTileEncoder encoder = new VectorTileEncoder("shops", 512);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("name", "麵屋");
+        properties.put("cover", null);
+        encoder.addPointFeature(1, 0, 0, properties);
+        Layer layer = decode(encoder.encode());
+        assertThat(layer.keys).containsExactly("name");
+        assertThat(layer.features.get(0).tags).containsExactly(0L, 0L);
+
+        Layer empty = decode(new VectorTileEncoder("shops", 512).encode());
+        assertThat(empty.name).isEqualTo("shops");
+        assertThat(empty.extent).isEqualTo(512);
+        assertThat(empty.features).isEmpty();
+    }
+
+    @Test
+    void encodingIsDeterministic() {
+        VectorTileEncoder a = new VectorTileEncoder("shops", 4096), b = new VectorTileEncoder("shops", 4096);
+        for (VectorTileEncoder encoder : List.of(a, b)) {
+            encoder.addPointFeature(1, 10, 20, props("name", "A", "rating", 3.0));
+            encoder.addPointFeature(2, 30, 40, props("name", "B", "rating", 4.0));
+        }
+        assertThat(a.encode()).isEqualTo(b.encode());
+    }
+
+    // --- 最小 protobuf 讀取器 ---
+
+    private static Map<String, Object> props(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) { map.put((String) keyValues[i], keyValues[i + 1]); }
+        return map;
+    }
+
+    private static final class Feature {
+        long id;
+        int type;
+        List<Long> tags = new ArrayList<>();
+        List<Long> geometry = new ArrayList<>();
+    }
+
+    private static final class Layer {
+        int version;
+        String name;
+        int extent;
+        List<Feature> features = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+
+        Map<String, Object> properties(Feature feature) {
+            Map<String, Object> map = new HashMap<>();
+            for (int i = 0; i < feature.tags.size(); i += 2) {
+                map.put(keys.get(feature.tags.get(i).intValue()), values.get(feature.tags.get(i + 1).intValue()));
+            }
+            return map;
+        }
+    }
+
+    private static Layer decode(byte[] tile) {
+        Reader tileReader = new Reader(tile);
+        assertThat(tileReader.tag()).isEqualTo((3 << 3) | 2);
+        Reader r = new Reader(tileReader.bytes());
+        assertThat(tileReader.hasMore()).isFalse();
+        Layer layer = new Layer();
+        while (r.hasMore()) {
+            int tag = r.tag();
+            switch (tag >>> 3) {
+                case 15 -> layer.version = (int) r.varint();
+                case 1 -> layer.name = new String(r.bytes(), StandardCharsets.UTF_8);
+                case 2 -> layer.features.add(decodeFeature(r.bytes()));
+                case 3 -> layer.keys.add(new String(r.bytes(), StandardCharsets.UTF_8));
+                case 4 -> layer.values.add(decodeValue(r.bytes()));
+                case 5 -> layer.extent = (int) r.varint();
+                default -> throw new AssertionError("未預期的 layer 欄位 " + (tag >>> 3));
+            }
+        }
+        return layer;
+    }
+
+    private static Feature decodeFeature(byte[] bytes) {
+        Reader r = new Reader(bytes);
+        Feature feature = new Feature();
+        while (r.hasMore()) {
+            int field = r.tag() >>> 3;
+            switch (field) {
+                case 1 -> feature.id = r.varint();
+                case 2 -> feature.tags = new Reader(r.bytes()).packedVarints();
+                case 3 -> feature.type = (int) r.varint();
+                case 4 -> feature.geometry = new Reader(r.bytes()).packedVarints();
+                default -> throw new AssertionError("未預期的 feature 欄位 " + field);
+            }
+        }
+        return feature;
+    }
+
+    private static Object decodeValue(byte[] bytes) {
+        Reader r = new Reader(bytes);
+        int field = r.tag() >>> 3;
+        return switch (field) {
+            case 1 -> new String(r.bytes(), StandardCharsets.UTF_8);
+            case 3 -> Double.longBitsToDouble(r.fixed64());
+            case 6 -> { long n = r.varint(); yield (n >>> 1) ^ -(n & 1); }
+            case 7 -> r.varint() != 0;
+            default -> throw new AssertionError("未預期的 value 欄位 " + field);
+        };
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) { this.buf = buf; }
+
+        boolean hasMore() { return pos < buf.length; }
+
+        int tag() { return (int) varint(); }
+
+        long varint() {
+            long result = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+        }
+
+        long fixed64() {
+            long result = 0;
+            for (int i = 0; i < 8; i++) { result |= (long) (buf[pos++] & 0xFF) << (8 * i); }
+            return result;
+        }
+
+        byte[] bytes() {
+            int length = (int) varint();
+            byte[] out = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return out;
+        }
+
+        List<Long> packedVarints() {
+            List<Long> list = new ArrayList<>();
+            while (hasMore()) { list.add(varint()); }
+            return list;
+        }
+    }
+}